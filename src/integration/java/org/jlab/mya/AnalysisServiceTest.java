@@ -14,6 +14,7 @@ import org.jlab.mya.stream.BoundaryAwareStream;
 import org.jlab.mya.stream.EventStream;
 import org.jlab.mya.stream.FloatAnalysisStream;
 import org.junit.Assert;
+import org.junit.Test;
 
 /**
  * @author apcarp
@@ -91,6 +92,57 @@ public class AnalysisServiceTest {
     compareStats(nexus, begin, end, "MARCAA.BDL", 0, 3.47227e+06, 3.45815e+06, 142666, 7.43932e+13);
   }
 
+  /** Test that partitioned statistics match the statistics of a single sequential pass. */
+  @Test
+  public void testComputeStatistics() throws Exception {
+    DataNexus nexus = new OnDemandNexus("docker");
+    Instant begin = TimeUtil.toLocalDT("2019-08-12T00:00:00");
+    Instant end = TimeUtil.toLocalDT("2019-08-13T00:00:00");
+
+    Metadata<FloatEvent> metadata = nexus.findMetadata("channel1", FloatEvent.class);
+
+    long start = System.currentTimeMillis();
+    FloatEvent priorPoint = nexus.findEvent(metadata, begin);
+    RunningStatistics expected;
+    try (EventStream<FloatEvent> stream = nexus.openEventStream(metadata, begin, end);
+        EventStream<FloatEvent> boundaryStream =
+            new BoundaryAwareStream<>(stream, begin, end, priorPoint, false, FloatEvent.class);
+        FloatAnalysisStream analysisStream = new FloatAnalysisStream(boundaryStream)) {
+      while (analysisStream.read() != null) {}
+      expected = analysisStream.getLatestStats();
+    }
+    System.out.println("Sequential statistics in " + (System.currentTimeMillis() - start) + " ms");
+
+    for (int partitionCount : new int[] {1, 4, 16}) {
+      start = System.currentTimeMillis();
+      RunningStatistics result = nexus.computeStatistics(metadata, begin, end, partitionCount);
+      System.out.println(
+          partitionCount
+              + " partition statistics in "
+              + (System.currentTimeMillis() - start)
+              + " ms");
+
+      double tolerance = 1e-9;
+      Assert.assertEquals(expected.getEventCount(), result.getEventCount());
+      Assert.assertEquals(expected.getUpdateCount(), result.getUpdateCount());
+      Assert.assertEquals(expected.getMin(), result.getMin());
+      Assert.assertEquals(expected.getMax(), result.getMax());
+      Assert.assertEquals(expected.getDuration(), result.getDuration(), tolerance * 86400);
+      Assert.assertEquals(
+          expected.getMean(),
+          result.getMean(),
+          tolerance * Math.abs(expected.getMean()) + tolerance);
+      Assert.assertEquals(
+          expected.getSigma(),
+          result.getSigma(),
+          tolerance * Math.abs(expected.getSigma()) + tolerance);
+      Assert.assertEquals(
+          expected.getIntegration(),
+          result.getIntegration(),
+          tolerance * Math.abs(expected.getIntegration()) + tolerance);
+    }
+  }
+
   private void compareStats(
       DataNexus nexus,
       Instant begin,
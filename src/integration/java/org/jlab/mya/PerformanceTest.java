@@ -4,12 +4,14 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.time.Instant;
 import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
 import org.jlab.mya.nexus.DataNexus;
 import org.jlab.mya.nexus.OnDemandNexus;
 import org.jlab.mya.stream.BoundaryAwareStream;
 import org.jlab.mya.stream.EventStream;
 import org.jlab.mya.stream.FloatAnalysisStream;
 import org.jlab.mya.stream.FloatGraphicalSampleStream;
+import org.jlab.mya.stream.FloatTimeBinnedSampleStream;
 import org.junit.Test;
 
 /**
@@ -73,6 +75,23 @@ public class PerformanceTest {
         "Memory used at this instant (MB): "
             + String.format("%,.2f", (stopBytes) / 1024.0 / 1024.0));
 
+    System.out.println("---- Event Interval Query (readBatch) ----");
+    rt.gc();
+    startMillis = System.currentTimeMillis();
+    try (EventStream<FloatEvent> stream = nexus.openEventStream(metadata, begin, end)) {
+      FloatEventBatch batch = new FloatEventBatch(4096);
+
+      while (stream.readBatch(batch) > 0) {
+        // System.out.println(batch.getValue(0));
+      }
+    }
+    stopMillis = System.currentTimeMillis();
+    stopBytes = rt.totalMemory() - rt.freeMemory();
+    System.out.println("Elapsed (seconds): " + (stopMillis - startMillis) / 1000.0);
+    System.out.println(
+        "Memory used at this instant (MB): "
+            + String.format("%,.2f", (stopBytes) / 1024.0 / 1024.0));
+
     System.out.println("---- Prior Point Lookup ----");
     rt.gc();
     startMillis = System.currentTimeMillis();
@@ -121,6 +140,30 @@ public class PerformanceTest {
       }
     }
 
+    stopMillis = System.currentTimeMillis();
+    stopBytes = rt.totalMemory() - rt.freeMemory();
+    System.out.println("Elapsed (seconds): " + (stopMillis - startMillis) / 1000.0);
+    System.out.println(
+        "Memory used at this instant (MB): "
+            + String.format("%,.2f", (stopBytes) / 1024.0 / 1024.0));
+
+    System.out.println("---- FloatAnalysisStream (cursor) ----");
+    rt.gc();
+    startMillis = System.currentTimeMillis();
+
+    try (final EventStream<FloatEvent> stream = nexus.openEventStream(metadata, begin, end);
+        final FloatAnalysisStream analysisStream =
+            new FloatAnalysisStream(
+                stream,
+                new short[] {
+                  RunningStatistics.INTEGRATION, RunningStatistics.MEAN, RunningStatistics.SIGMA
+                }); ) {
+
+      while (analysisStream.next()) {
+        // System.out.println(analysisStream.eventStats()[1]);
+      }
+    }
+
     stopMillis = System.currentTimeMillis();
     stopBytes = rt.totalMemory() - rt.freeMemory();
     System.out.println("Elapsed (seconds): " + (stopMillis - startMillis) / 1000.0);
@@ -143,6 +186,28 @@ public class PerformanceTest {
       }
     }
 
+    stopMillis = System.currentTimeMillis();
+    stopBytes = rt.totalMemory() - rt.freeMemory();
+    System.out.println("Elapsed (seconds): " + (stopMillis - startMillis) / 1000.0);
+    System.out.println(
+        "Memory used at this instant (MB): "
+            + String.format("%,.2f", (stopBytes) / 1024.0 / 1024.0));
+
+    System.out.println("---- FloatTimeBinnedSampleStream (no count query) ----");
+    rt.gc();
+    startMillis = System.currentTimeMillis();
+
+    try (final EventStream<FloatEvent> stream = nexus.openEventStream(metadata, begin, end);
+        final FloatTimeBinnedSampleStream<FloatEvent> samplerStream =
+            new FloatTimeBinnedSampleStream<>(stream, begin, end, 3, FloatEvent.class); ) {
+
+      FloatEvent event;
+
+      while ((event = samplerStream.read()) != null) {
+        // System.out.println(event);
+      }
+    }
+
     stopMillis = System.currentTimeMillis();
     stopBytes = rt.totalMemory() - rt.freeMemory();
     System.out.println("Elapsed (seconds): " + (stopMillis - startMillis) / 1000.0);
@@ -269,5 +334,90 @@ public class PerformanceTest {
     System.out.println(
         "Memory used at this instant (MB): "
             + String.format("%,.2f", (stopBytes) / 1024.0 / 1024.0));
+
+    System.out.println("---- Interval Query: PARTITIONED Strategy ----");
+
+    rt.gc();
+    startBytes = rt.totalMemory() - rt.freeMemory();
+    startMillis = System.currentTimeMillis();
+    try (EventStream<FloatEvent> stream =
+        nexus.openEventStream(
+            metadata, begin, end, DataNexus.IntervalQueryFetchStrategy.PARTITIONED, false)) {
+
+      FloatEvent event;
+
+      while ((event = stream.read()) != null) {
+        // System.out.println(event);
+      }
+    }
+    stopMillis = System.currentTimeMillis();
+    stopBytes = rt.totalMemory() - rt.freeMemory();
+    System.out.println("Elapsed (seconds): " + (stopMillis - startMillis) / 1000.0);
+    System.out.println(
+        "Memory used at this instant (MB): "
+            + String.format("%,.2f", (stopBytes) / 1024.0 / 1024.0));
+  }
+
+  /**
+   * Compare the STREAM strategy with the PARTITIONED strategy over a large interval using various
+   * partition counts.
+   *
+   * @throws SQLException If unable to query the SQL database
+   * @throws IOException If unable to stream data
+   */
+  @Test
+  public void doPartitionedFetchTest() throws SQLException, IOException {
+    DataNexus nexus = new OnDemandNexus("docker");
+
+    String pv = "channel1";
+    Instant begin = TimeUtil.toLocalDT("2019-01-01T00:00:00");
+    Instant end = TimeUtil.toLocalDT("2020-01-01T00:00:00");
+
+    Runtime rt = Runtime.getRuntime();
+    long stopBytes;
+    long startMillis;
+    long stopMillis;
+
+    Metadata<FloatEvent> metadata = nexus.findMetadata(pv, FloatEvent.class);
+
+    System.out.println("---- Interval Query: Streaming Strategy ----");
+    rt.gc();
+    startMillis = System.currentTimeMillis();
+    long count = 0;
+    try (EventStream<FloatEvent> stream = nexus.openEventStream(metadata, begin, end)) {
+      while (stream.read() != null) {
+        count++;
+      }
+    }
+    stopMillis = System.currentTimeMillis();
+    stopBytes = rt.totalMemory() - rt.freeMemory();
+    System.out.println("Event count: " + String.format("%,d", count));
+    System.out.println("Elapsed (seconds): " + (stopMillis - startMillis) / 1000.0);
+    System.out.println(
+        "Memory used at this instant (MB): "
+            + String.format("%,.2f", (stopBytes) / 1024.0 / 1024.0));
+
+    for (int partitions : new int[] {2, 4, 8}) {
+      nexus.setPartitionCount(partitions);
+
+      System.out.println("---- Interval Query: PARTITIONED Strategy (" + partitions + ") ----");
+      rt.gc();
+      startMillis = System.currentTimeMillis();
+      count = 0;
+      try (EventStream<FloatEvent> stream =
+          nexus.openEventStream(
+              metadata, begin, end, DataNexus.IntervalQueryFetchStrategy.PARTITIONED, false)) {
+        while (stream.read() != null) {
+          count++;
+        }
+      }
+      stopMillis = System.currentTimeMillis();
+      stopBytes = rt.totalMemory() - rt.freeMemory();
+      System.out.println("Event count: " + String.format("%,d", count));
+      System.out.println("Elapsed (seconds): " + (stopMillis - startMillis) / 1000.0);
+      System.out.println(
+          "Memory used at this instant (MB): "
+              + String.format("%,.2f", (stopBytes) / 1024.0 / 1024.0));
+    }
   }
 }
@@ -6,7 +6,9 @@ import java.util.List;
 import org.jlab.mya.event.FloatEvent;
 import org.jlab.mya.nexus.DataNexus;
 import org.jlab.mya.nexus.OnDemandNexus;
+import org.jlab.mya.stream.BoundaryAwareStream;
 import org.jlab.mya.stream.EventStream;
+import org.jlab.mya.stream.FloatAnalysisStream;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -54,4 +56,104 @@ public class SourceSamplingServiceTest {
     }
     Assert.assertEquals(expSize, eventList.size());
   }
+
+  /** Test that database time buckets match buckets computed from the streamed events. */
+  @Test
+  public void testTimeBuckets() throws Exception {
+    String pv = "channel1";
+    Instant begin = TimeUtil.toLocalDT("2019-08-12T00:00:00");
+    Instant end = TimeUtil.toLocalDT("2019-08-13T00:00:00");
+    long bucketCount = 100;
+
+    Metadata<FloatEvent> metadata = nexus.findMetadata(pv, FloatEvent.class);
+
+    long start = System.currentTimeMillis();
+    List<TimeBucket> buckets = nexus.findTimeBuckets(metadata, begin, end, bucketCount);
+    System.out.println(
+        "Time buckets: " + buckets.size() + " in " + (System.currentTimeMillis() - start) + " ms");
+
+    long beginMya = TimeUtil.toMyaTimestamp(begin);
+    long width = (TimeUtil.toMyaTimestamp(end) - beginMya + bucketCount - 1) / bucketCount;
+    long[] counts = new long[(int) bucketCount];
+    FloatEvent[] firsts = new FloatEvent[(int) bucketCount];
+    FloatEvent[] lasts = new FloatEvent[(int) bucketCount];
+    float[] mins = new float[(int) bucketCount];
+
+    start = System.currentTimeMillis();
+    try (EventStream<FloatEvent> stream = nexus.openEventStream(metadata, begin, end)) {
+      FloatEvent event;
+      while ((event = stream.read()) != null) {
+        int b = (int) ((event.getTimestamp() - beginMya) / width);
+        if (counts[b]++ == 0) {
+          firsts[b] = event;
+          mins[b] = Float.NaN;
+        }
+        lasts[b] = event;
+        if (!event.getCode().isDisconnection() && !(event.getValue() >= mins[b])) {
+          mins[b] = event.getValue();
+        }
+      }
+    }
+    System.out.println("Streamed buckets in " + (System.currentTimeMillis() - start) + " ms");
+
+    int i = 0;
+    for (int b = 0; b < bucketCount; b++) {
+      if (counts[b] == 0) {
+        continue;
+      }
+      TimeBucket bucket = buckets.get(i++);
+      Assert.assertEquals(b, bucket.getIndex());
+      Assert.assertEquals(counts[b], bucket.getCount());
+      Assert.assertEquals(mins[b], bucket.getMin(), 0);
+      Assert.assertEquals(firsts[b].getTimestamp(), bucket.getFirstTimestamp());
+      Assert.assertEquals(firsts[b].getValue(), bucket.getFirstValue(), 0);
+      Assert.assertEquals(lasts[b].getTimestamp(), bucket.getLastTimestamp());
+      Assert.assertEquals(lasts[b].getCode(), bucket.getLastCode());
+    }
+    Assert.assertEquals(buckets.size(), i);
+  }
+
+  /** Test that database statistics match the client RunningStatistics of the same interval. */
+  @Test
+  public void testStatistics() throws Exception {
+    String pv = "channel1";
+    Instant begin = TimeUtil.toLocalDT("2019-08-12T00:00:00");
+    Instant end = TimeUtil.toLocalDT("2019-08-13T00:00:00");
+
+    Metadata<FloatEvent> metadata = nexus.findMetadata(pv, FloatEvent.class);
+
+    long start = System.currentTimeMillis();
+    IntervalStatistics stats = nexus.findStatistics(metadata, begin, end);
+    System.out.println(
+        "Database statistics in " + (System.currentTimeMillis() - start) + " ms: " + stats);
+
+    start = System.currentTimeMillis();
+    FloatEvent priorPoint = nexus.findEvent(metadata, begin);
+    RunningStatistics expected;
+    try (EventStream<FloatEvent> stream = nexus.openEventStream(metadata, begin, end);
+        EventStream<FloatEvent> boundaryStream =
+            new BoundaryAwareStream<>(stream, begin, end, priorPoint, false, FloatEvent.class);
+        FloatAnalysisStream analysisStream = new FloatAnalysisStream(boundaryStream)) {
+      while (analysisStream.read() != null) {}
+      expected = analysisStream.getLatestStats();
+    }
+    System.out.println("Streamed statistics in " + (System.currentTimeMillis() - start) + " ms");
+
+    double tolerance = 1e-9;
+    Assert.assertEquals(expected.getEventCount(), stats.getEventCount());
+    Assert.assertEquals(expected.getUpdateCount(), stats.getUpdateCount());
+    Assert.assertEquals(expected.getMin(), stats.getMin(), 0);
+    Assert.assertEquals(expected.getMax(), stats.getMax(), 0);
+    Assert.assertEquals(expected.getDuration(), stats.getDuration(), tolerance * 86400);
+    Assert.assertEquals(
+        expected.getMean(), stats.getMean(), tolerance * Math.abs(expected.getMean()) + tolerance);
+    Assert.assertEquals(
+        expected.getSigma(),
+        stats.getSigma(),
+        tolerance * Math.abs(expected.getSigma()) + tolerance);
+    Assert.assertEquals(
+        expected.getIntegration(),
+        stats.getIntegration(),
+        tolerance * Math.abs(expected.getIntegration()) + tolerance);
+  }
 }
@@ -0,0 +1,103 @@
+package org.jlab.mya.nexus;
+
+import java.time.Instant;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.stream.EventStream;
+import org.jlab.mya.stream.FloatEventCursor;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the allocation-free event cursors and compare them with reading events.
+ *
+ * @author slominskir
+ */
+public class EventCursorTest {
+
+  private static final String DEPLOYMENT = "docker";
+  private static final String TEST_PV = "channel1";
+  private static final Instant TEST_BEGIN = TimeUtil.toLocalDT("2019-08-12T00:00:00");
+  private static final Instant TEST_END = TimeUtil.toLocalDT("2019-08-13T00:00:00");
+
+  /** Test that a cursor visits the same events as read(). */
+  @Test
+  public void testCursorMatchesRead() throws Exception {
+    DataNexus nexus = new OnDemandNexus(DEPLOYMENT);
+    Metadata<FloatEvent> metadata = nexus.findMetadata(TEST_PV, FloatEvent.class);
+
+    try (EventStream<FloatEvent> stream = nexus.openEventStream(metadata, TEST_BEGIN, TEST_END);
+        FloatEventCursor cursor = nexus.openFloatEventCursor(metadata, TEST_BEGIN, TEST_END)) {
+      FloatEvent event;
+      long count = 0;
+
+      while ((event = stream.read()) != null) {
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(event.getTimestamp(), cursor.timestamp());
+        Assert.assertEquals(event.getCode(), cursor.code());
+        Assert.assertEquals(event.getValue(), cursor.floatValue(), 0);
+        count++;
+      }
+
+      Assert.assertFalse(cursor.next());
+      Assert.assertTrue(count > 0);
+    }
+  }
+
+  /** Test that the accessors can't be used before the cursor is positioned. */
+  @Test(expected = IllegalStateException.class)
+  public void testNotPositioned() throws Exception {
+    DataNexus nexus = new OnDemandNexus(DEPLOYMENT);
+    Metadata<FloatEvent> metadata = nexus.findMetadata(TEST_PV, FloatEvent.class);
+
+    try (FloatEventCursor cursor = nexus.openFloatEventCursor(metadata, TEST_BEGIN, TEST_END)) {
+      cursor.floatValue();
+    }
+  }
+
+  /** Compare summing values with read() against summing values with a cursor. */
+  @Test
+  public void doCursorBenchmark() throws Exception {
+    int iterations = 20;
+
+    DataNexus nexus = new OnDemandNexus(DEPLOYMENT);
+    Metadata<FloatEvent> metadata = nexus.findMetadata(TEST_PV, FloatEvent.class);
+    Runtime rt = Runtime.getRuntime();
+
+    System.out.println("---- read() ----");
+    double readSum = 0;
+    rt.gc();
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      try (EventStream<FloatEvent> stream = nexus.openEventStream(metadata, TEST_BEGIN, TEST_END)) {
+        FloatEvent event;
+        while ((event = stream.read()) != null) {
+          readSum = readSum + event.getValue();
+        }
+      }
+    }
+    long readNanos = System.nanoTime() - startNanos;
+    System.out.println(
+        "Mean elapsed (millis): "
+            + String.format("%,.3f", readNanos / (double) iterations / 1_000_000));
+
+    System.out.println("---- FloatEventCursor ----");
+    double cursorSum = 0;
+    rt.gc();
+    startNanos = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      try (FloatEventCursor cursor = nexus.openFloatEventCursor(metadata, TEST_BEGIN, TEST_END)) {
+        while (cursor.next()) {
+          cursorSum = cursorSum + cursor.floatValue();
+        }
+      }
+    }
+    long cursorNanos = System.nanoTime() - startNanos;
+    System.out.println(
+        "Mean elapsed (millis): "
+            + String.format("%,.3f", cursorNanos / (double) iterations / 1_000_000));
+
+    Assert.assertEquals(readSum, cursorSum, 0);
+  }
+}
@@ -1,9 +1,14 @@
 package org.jlab.mya.nexus;
 
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jlab.mya.CountEstimate;
 import org.jlab.mya.Metadata;
 import org.jlab.mya.TimeUtil;
 import org.jlab.mya.event.FloatEvent;
@@ -46,6 +51,44 @@ public class IntervalServiceTest {
     Assert.assertEquals(expResult, result);
   }
 
+  /** Test of find metadata with a metadata cache. */
+  @Test
+  public void testFindMetadataCached() throws Exception {
+    MetadataCache cache = new MetadataCache(100, Duration.ofMinutes(10));
+    nexus.setMetadataCache(cache);
+
+    Assert.assertEquals(TEST_METADATA, nexus.findMetadata(TEST_PV, FloatEvent.class));
+    Assert.assertEquals(TEST_METADATA, nexus.findMetadata(TEST_PV, FloatEvent.class));
+    Assert.assertNull(nexus.findMetadata("not_a_channel"));
+    Assert.assertNull(nexus.findMetadata("not_a_channel"));
+
+    Assert.assertEquals(1, cache.getHitCount());
+    Assert.assertEquals(1, cache.getNegativeHitCount());
+    Assert.assertEquals(2, cache.getMissCount());
+  }
+
+  /** Test of bulk find metadata. */
+  @Test
+  public void testFindMetadataBulk() throws Exception {
+    Map<String, Metadata> result =
+        nexus.findMetadata(Arrays.asList(TEST_PV, "not_a_channel", TEST_PV_MULTI, TEST_PV));
+
+    Assert.assertEquals(2, result.size());
+    Assert.assertEquals(TEST_METADATA, result.get(TEST_PV));
+    Assert.assertEquals(TEST_METADATA_MULTI, result.get(TEST_PV_MULTI));
+  }
+
+  /** Test that bulk find metadata matches names case-insensitively, like the single name lookup. */
+  @Test
+  public void testFindMetadataBulkIgnoresCase() throws Exception {
+    String upper = TEST_PV.toUpperCase();
+    Map<String, Metadata> result = nexus.findMetadata(Arrays.asList(upper, TEST_PV));
+
+    Assert.assertEquals(nexus.findMetadata(upper, FloatEvent.class), result.get(upper));
+    Assert.assertEquals(TEST_METADATA, result.get(upper));
+    Assert.assertEquals(TEST_METADATA, result.get(TEST_PV));
+  }
+
   /**
    * Test of count method.
    *
@@ -58,6 +101,19 @@ public class IntervalServiceTest {
     Assert.assertEquals(expResult, result);
   }
 
+  /** Test of count estimation. */
+  @Test
+  public void testEstimateCount() throws Exception {
+    CountEstimate exact = nexus.estimateCount(TEST_METADATA, TEST_BEGIN, TEST_END);
+    Assert.assertTrue(exact.isExact());
+    Assert.assertEquals(32990L, exact.getCount());
+
+    CountEstimate estimate = nexus.estimateCount(TEST_METADATA, TEST_BEGIN, TEST_END, false, 0);
+    System.out.println(estimate);
+    Assert.assertTrue(estimate.getLowerBound() <= 32990L);
+    Assert.assertTrue(estimate.getUpperBound() >= 32990L);
+  }
+
   /** Test of stream approach. */
   @Test
   public void testOpenStream() throws Exception {
@@ -73,6 +129,77 @@ public class IntervalServiceTest {
     Assert.assertEquals(expSize, eventList.size());
   }
 
+  /** Test of opening multiple streams concurrently. */
+  @Test
+  public void testOpenStreams() throws Exception {
+    List<Metadata> metadataList = Arrays.asList(TEST_METADATA, TEST_METADATA_MULTI, TEST_METADATA);
+    List<EventStream> streams =
+        nexus.openEventStreams(
+            metadataList,
+            TEST_BEGIN,
+            TEST_END,
+            DataNexus.IntervalQueryFetchStrategy.STREAM,
+            false,
+            DataNexus.DEFAULT_MAX_CONCURRENT_QUERIES_PER_HOST);
+
+    long[] sizes = new long[streams.size()];
+
+    for (int i = 0; i < streams.size(); i++) {
+      try (EventStream stream = streams.get(i)) {
+        while (stream.read() != null) {
+          sizes[i]++;
+        }
+      }
+    }
+
+    Assert.assertArrayEquals(new long[] {32990L, 24L, 32990L}, sizes);
+  }
+
+  /** Test of handling multiple streams concurrently. */
+  @Test
+  public void testForEachEventStream() throws Exception {
+    List<Metadata> metadataList = Arrays.asList(TEST_METADATA, TEST_METADATA_MULTI);
+    Map<String, Long> sizes = new ConcurrentHashMap<>();
+
+    nexus.forEachEventStream(
+        metadataList,
+        TEST_BEGIN,
+        TEST_END,
+        DataNexus.IntervalQueryFetchStrategy.STREAM,
+        false,
+        1,
+        (metadata, stream) -> {
+          long size = 0;
+          while (stream.read() != null) {
+            size++;
+          }
+          sizes.put(metadata.getName(), size);
+        });
+
+    Assert.assertEquals(Long.valueOf(32990L), sizes.get(TEST_PV));
+    Assert.assertEquals(Long.valueOf(24L), sizes.get(TEST_PV_MULTI));
+  }
+
+  /** Test that a batch point lookup finds the same events as one lookup per point. */
+  @Test
+  public void testFindEvents() throws Exception {
+    List<Instant> timestamps = new ArrayList<>();
+    timestamps.add(TEST_BEGIN.minus(Duration.ofDays(3650)));
+    for (int i = 0; i < 300; i++) {
+      timestamps.add(TEST_BEGIN.plusSeconds(i * 287L));
+    }
+
+    List<FloatEvent> events = nexus.findEvents(TEST_METADATA, timestamps, true, true, false);
+
+    Assert.assertEquals(timestamps.size(), events.size());
+    Assert.assertNull(events.get(0));
+
+    for (int i = 0; i < timestamps.size(); i++) {
+      FloatEvent expected = nexus.findEvent(TEST_METADATA, timestamps.get(i), true, true, false);
+      Assert.assertEquals(String.valueOf(expected), String.valueOf(events.get(i)));
+    }
+  }
+
   @Test
   public void testMultiStringEvent() throws Exception {
     long expSize = 24;
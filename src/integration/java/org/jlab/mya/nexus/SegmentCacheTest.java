@@ -0,0 +1,75 @@
+package org.jlab.mya.nexus;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.stream.EventStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the local segment cache against the database.
+ *
+ * @author slominskir
+ */
+public class SegmentCacheTest {
+
+  private static final String DEPLOYMENT = "docker";
+  private static final String TEST_PV = "channel1";
+  private static final Instant TEST_BEGIN = TimeUtil.toLocalDT("2019-08-12T00:00:00");
+  private static final Instant TEST_END = TimeUtil.toLocalDT("2019-08-13T00:00:00");
+
+  private static List<FloatEvent> readAll(EventStream<FloatEvent> stream) throws Exception {
+    List<FloatEvent> events = new ArrayList<>();
+    try (stream) {
+      FloatEvent event;
+      while ((event = stream.read()) != null) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  /** Test that cold and warm cache reads match the database, and compare their elapsed time. */
+  @Test
+  public void testCacheMatchesDatabase() throws Exception {
+    DataNexus database = new OnDemandNexus(DEPLOYMENT);
+    SegmentCacheNexus cache =
+        new SegmentCacheNexus(database, Files.createTempDirectory("jmyapi-segments"));
+    Metadata<FloatEvent> metadata = database.findMetadata(TEST_PV, FloatEvent.class);
+    Instant middle = TEST_BEGIN.plusSeconds(6 * 60 * 60);
+
+    List<FloatEvent> expected = readAll(database.openEventStream(metadata, TEST_BEGIN, TEST_END));
+
+    // Partially warm the cache so that only the uncovered sub-ranges are queried
+    readAll(cache.openEventStream(metadata, middle, TEST_END));
+
+    long startNanos = System.nanoTime();
+    List<FloatEvent> cold = readAll(cache.openEventStream(metadata, TEST_BEGIN, TEST_END));
+    System.out.println("Partially cached (millis): " + (System.nanoTime() - startNanos) / 1e6);
+
+    startNanos = System.nanoTime();
+    List<FloatEvent> warm = readAll(cache.openEventStream(metadata, TEST_BEGIN, TEST_END));
+    System.out.println("Fully cached (millis): " + (System.nanoTime() - startNanos) / 1e6);
+
+    for (List<FloatEvent> actual : List.of(cold, warm)) {
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+        Assert.assertEquals(expected.get(i).getCode(), actual.get(i).getCode());
+        Assert.assertEquals(expected.get(i).getValue(), actual.get(i).getValue(), 0);
+      }
+    }
+
+    Assert.assertEquals(
+        database.count(metadata, TEST_BEGIN, TEST_END, true),
+        cache.count(metadata, TEST_BEGIN, TEST_END, true));
+    Assert.assertEquals(
+        database.findEvent(metadata, middle).getTimestamp(),
+        cache.findEvent(metadata, middle).getTimestamp());
+  }
+}
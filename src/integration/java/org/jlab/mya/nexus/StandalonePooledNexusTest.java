@@ -0,0 +1,95 @@
+package org.jlab.mya.nexus;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the standalone pooled nexus.
+ *
+ * @author slominskir
+ */
+public class StandalonePooledNexusTest {
+
+  private static final String DEPLOYMENT = "docker";
+  private static final String TEST_PV = "channel1";
+  private static final Instant TEST_TIMESTAMP = TimeUtil.toLocalDT("2019-08-12T01:00:00");
+
+  /** Test that connections are reused and returned to the pool. */
+  @Test
+  public void testConnectionReuse() throws Exception {
+    try (StandalonePooledNexus nexus = new StandalonePooledNexus(DEPLOYMENT)) {
+      Metadata<FloatEvent> metadata = nexus.findMetadata(TEST_PV, FloatEvent.class);
+
+      for (int i = 0; i < 10; i++) {
+        FloatEvent result = nexus.findEvent(metadata, TEST_TIMESTAMP);
+        Assert.assertEquals(95.30329895019531f, result.getValue(), 0.01);
+      }
+
+      PoolStats stats = nexus.getPoolStats().get(metadata.getHost());
+      System.out.println(stats);
+
+      Assert.assertEquals(1, stats.getCreated());
+      Assert.assertEquals(11, stats.getBorrowed());
+      Assert.assertEquals(0, stats.getActive());
+      Assert.assertEquals(1, stats.getIdle());
+    }
+  }
+
+  /** Test that borrowing more connections than the pool max times out. */
+  @Test(expected = SQLException.class)
+  public void testPoolExhausted() throws Exception {
+    try (StandalonePooledNexus nexus =
+        new StandalonePooledNexus(
+            DEPLOYMENT, 1, StandalonePooledNexus.DEFAULT_MAX_IDLE, Duration.ofMillis(100))) {
+      String host = nexus.getMasterHostName();
+      try (Connection ignored = nexus.getConnection(host)) {
+        nexus.getConnection(host);
+      }
+    }
+  }
+
+  /** Compare the per-query latency of the pooled nexus with the on-demand nexus. */
+  @Test
+  public void doPerQueryLatencyBenchmark() throws Exception {
+    int iterations = 200;
+
+    DataNexus onDemand = new OnDemandNexus(DEPLOYMENT);
+    Metadata<FloatEvent> metadata = onDemand.findMetadata(TEST_PV, FloatEvent.class);
+
+    System.out.println("---- OnDemandNexus findEvent ----");
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      onDemand.findEvent(metadata, TEST_TIMESTAMP);
+    }
+    long onDemandNanos = System.nanoTime() - startNanos;
+    System.out.println(
+        "Mean latency (millis): "
+            + String.format("%,.3f", onDemandNanos / (double) iterations / 1_000_000));
+
+    try (StandalonePooledNexus pooled = new StandalonePooledNexus(DEPLOYMENT)) {
+      pooled.findEvent(metadata, TEST_TIMESTAMP); // Warm up the pool
+
+      System.out.println("---- StandalonePooledNexus findEvent ----");
+      startNanos = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        pooled.findEvent(metadata, TEST_TIMESTAMP);
+      }
+      long pooledNanos = System.nanoTime() - startNanos;
+      System.out.println(
+          "Mean latency (millis): "
+              + String.format("%,.3f", pooledNanos / (double) iterations / 1_000_000));
+
+      for (Map.Entry<String, PoolStats> entry : pooled.getPoolStats().entrySet()) {
+        System.out.println(entry.getValue());
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package org.jlab.mya.nexus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Test;
+
+/**
+ * Benchmark SQL generation and statement preparation.
+ *
+ * @author slominskir
+ */
+public class StatementPreparationTest {
+
+  private static final String DEPLOYMENT = "docker";
+  private static final String TEST_PV = "channel1";
+  private static final Instant TEST_TIMESTAMP = TimeUtil.toLocalDT("2019-08-12T01:00:00");
+
+  /**
+   * Build point query SQL the way it was done before templates were precomputed, for comparison.
+   */
+  private static String legacyPointQuery(PointQueryParams<?> params) {
+    String equal = params.isOrEqual() ? "=" : "";
+    String sign = params.isLessThan() ? "<" : ">";
+    String sort = params.isLessThan() ? "desc" : "asc";
+
+    List<String> filterList = new ArrayList<>();
+
+    filterList.add("time " + sign + equal + " ?");
+
+    if (params.isUpdatesOnly()) {
+      filterList.add(
+          "code in ("
+              + String.join(
+                  ",",
+                  EventCode.getDataEventCodes().stream()
+                      .map((EventCode e) -> String.valueOf(e.getCodeNumber()))
+                      .collect(Collectors.toSet()))
+              + ")");
+    }
+
+    String where = " where " + String.join(" and ", filterList);
+
+    return "select * from table_"
+        + params.getMetadata().getId()
+        + " force index for order by (primary)"
+        + where
+        + " order by time "
+        + sort
+        + " limit 1";
+  }
+
+  /** Compare SQL string generation before and after precomputed templates. */
+  @Test
+  public void doSqlGenerationBenchmark() throws Exception {
+    int iterations = 1_000_000;
+
+    DataNexus nexus = new OnDemandNexus(DEPLOYMENT);
+    Metadata<FloatEvent> metadata = nexus.findMetadata(TEST_PV, FloatEvent.class);
+    PointQueryParams<FloatEvent> params =
+        new PointQueryParams<>(metadata, true, TEST_TIMESTAMP, true, true);
+    StatementGenerator generator = new StatementGenerator();
+
+    long length = 0;
+
+    for (int i = 0; i < iterations; i++) { // Warm up
+      length = length + legacyPointQuery(params).length();
+      length = length + generator.getEventPointQuery(params).length();
+    }
+
+    System.out.println("---- SQL generation (point query, updates only) ----");
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      length = length + legacyPointQuery(params).length();
+    }
+    long legacyNanos = System.nanoTime() - startNanos;
+
+    startNanos = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      length = length + generator.getEventPointQuery(params).length();
+    }
+    long templateNanos = System.nanoTime() - startNanos;
+
+    System.out.println(
+        "Mean legacy (nanos): " + String.format("%,.1f", legacyNanos / (double) iterations));
+    System.out.println(
+        "Mean template (nanos): " + String.format("%,.1f", templateNanos / (double) iterations));
+    System.out.println("(checksum " + length + ")");
+  }
+
+  /** Compare point lookups on a pooled connection with and without the server statement cache. */
+  @Test
+  public void doStatementPreparationBenchmark() throws Exception {
+    int iterations = 2_000;
+
+    for (boolean cache : new boolean[] {false, true}) {
+      try (StandalonePooledNexus nexus =
+          new StandalonePooledNexus(
+              DEPLOYMENT,
+              1,
+              StandalonePooledNexus.DEFAULT_MAX_IDLE,
+              StandalonePooledNexus.DEFAULT_MAX_WAIT,
+              cache)) {
+        Metadata<FloatEvent> metadata = nexus.findMetadata(TEST_PV, FloatEvent.class);
+        PointQueryParams<FloatEvent> params = new PointQueryParams<>(metadata, TEST_TIMESTAMP);
+        StatementGenerator generator = new StatementGenerator();
+        long timestamp = TimeUtil.toMyaTimestamp(TEST_TIMESTAMP);
+
+        try (Connection con = nexus.getConnection(metadata.getHost())) {
+          long prepareNanos = 0;
+          long startNanos = System.nanoTime();
+
+          for (int i = 0; i < iterations; i++) {
+            long prepareStart = System.nanoTime();
+            try (PreparedStatement stmt = generator.getEventPointStatement(con, params)) {
+              prepareNanos = prepareNanos + (System.nanoTime() - prepareStart);
+              stmt.setLong(1, timestamp);
+              try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+              }
+            }
+          }
+
+          long totalNanos = System.nanoTime() - startNanos;
+
+          System.out.println("---- Point lookup, server statement cache: " + cache + " ----");
+          System.out.println(
+              "Mean prepare (micros): "
+                  + String.format("%,.1f", prepareNanos / (double) iterations / 1_000));
+          System.out.println(
+              "Mean lookup (micros): "
+                  + String.format("%,.1f", totalNanos / (double) iterations / 1_000));
+          System.out.println(
+              "Total (seconds): "
+                  + String.format("%,.3f", Duration.ofNanos(totalNanos).toMillis() / 1000.0));
+        }
+      }
+    }
+  }
+}
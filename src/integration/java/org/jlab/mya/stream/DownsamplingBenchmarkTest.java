@@ -0,0 +1,89 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Random;
+import java.util.function.Function;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Test;
+
+/**
+ * Compare the time to downsample a large synthetic event stream for a chart with the M4 and LTTB
+ * streams. Events are generated on the fly so the input doesn't have to fit in memory.
+ */
+public class DownsamplingBenchmarkTest {
+
+  private static final Instant BEGIN = TimeUtil.toLocalDT("2019-01-01T00:00:00");
+  private static final Instant END = TimeUtil.toLocalDT("2019-02-01T00:00:00");
+  private static final long COUNT = 10_000_000;
+  private static final long PIXEL_WIDTH = 1920;
+
+  /** A random walk with occasional disconnections, evenly spaced over the interval. */
+  private static class SyntheticStream extends EventStream<FloatEvent> {
+    private final Random random = new Random(1);
+    private final long begin = TimeUtil.toMyaTimestamp(BEGIN);
+    private final long step = (TimeUtil.toMyaTimestamp(END) - begin) / COUNT;
+    private long i = 0;
+    private float value = 0;
+    private boolean open = true;
+
+    SyntheticStream() {
+      super(FloatEvent.class);
+    }
+
+    @Override
+    public FloatEvent read() {
+      if (i == COUNT) {
+        return null;
+      }
+
+      EventCode code =
+          random.nextInt(100_000) == 0 ? EventCode.NETWORK_DISCONNECTION : EventCode.UPDATE;
+      value = value + (float) random.nextGaussian();
+
+      return new FloatEvent(begin + step * i++, code, value);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    @Override
+    public void close() {
+      open = false;
+    }
+  }
+
+  private static void time(
+      String name, Function<EventStream<FloatEvent>, EventStream<FloatEvent>> wrapper)
+      throws IOException {
+    long start = System.currentTimeMillis();
+    long points = 0;
+
+    try (EventStream<FloatEvent> stream = wrapper.apply(new SyntheticStream())) {
+      while (stream.read() != null) {
+        points++;
+      }
+    }
+
+    long end = System.currentTimeMillis();
+    System.out.println(name + ": " + points + " points in " + (end - start) + " ms");
+  }
+
+  @Test
+  public void testBenchmark() throws IOException {
+    System.out.println(COUNT + " events, " + PIXEL_WIDTH + " pixels");
+
+    time("Unsampled", s -> s);
+    time("M4SampleStream", s -> new M4SampleStream<>(s, BEGIN, END, PIXEL_WIDTH, FloatEvent.class));
+    time(
+        "FloatTimeBinnedSampleStream (LTTB)",
+        s -> new FloatTimeBinnedSampleStream<>(s, BEGIN, END, PIXEL_WIDTH, FloatEvent.class));
+    time(
+        "FloatGraphicalSampleStream (LTTB)",
+        s -> new FloatGraphicalSampleStream<>(s, PIXEL_WIDTH, COUNT, FloatEvent.class));
+  }
+}
@@ -0,0 +1,129 @@
+package org.jlab.mya.stream;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.Event;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.IntEvent;
+import org.jlab.mya.nexus.DataNexus;
+import org.jlab.mya.nexus.OnDemandNexus;
+import org.junit.Test;
+
+public class MultiMySamplerStreamTest {
+
+  private static final String[] PVS = {"channel1", "channel2", "channel5"};
+
+  /**
+   * Test that each column of the rows matches the N_QUERIES MySamplerStream of the same channel,
+   * with a block size which doesn't evenly divide the sample count.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testMatchesMySamplerStream() throws SQLException, IOException {
+    DataNexus nexus = new OnDemandNexus("docker");
+
+    List<Metadata> metadataList = new ArrayList<>();
+    for (String pv : PVS) {
+      metadataList.add(nexus.findMetadata(pv));
+    }
+
+    Instant begin = TimeUtil.toLocalDT("2019-08-11T23:00:00");
+    long intervalMillis = 600_000;
+    long sampleCount = 150;
+
+    List<SampleRow> rows = new ArrayList<>();
+    try (MultiMySamplerStream stream =
+        new MultiMySamplerStream(
+            nexus, metadataList, begin, intervalMillis, sampleCount, false, 7, 2)) {
+      SampleRow row;
+      while ((row = stream.read()) != null) {
+        rows.add(row);
+      }
+    }
+
+    assertEquals(sampleCount, rows.size());
+
+    for (int c = 0; c < metadataList.size(); c++) {
+      Metadata metadata = metadataList.get(c);
+      int r = 0;
+      try (MySamplerStream<Event> stream =
+          MySamplerStream.getMySamplerStream(
+              begin,
+              intervalMillis,
+              sampleCount,
+              false,
+              metadata.getType(),
+              nexus,
+              metadata)) {
+        Event event;
+        while ((event = stream.read()) != null) {
+          SampleRow row = rows.get(r++);
+          double value =
+              event instanceof IntEvent
+                  ? ((IntEvent) event).getValue()
+                  : ((FloatEvent) event).getValue();
+
+          assertEquals(event.getTimestamp(), row.getTimestamp());
+          assertEquals(event.getCode(), row.getCode(c));
+          assertEquals(value, row.getValue(c), 0);
+        }
+      }
+    }
+  }
+
+  /** Compare the time to sample many channels one stream at a time and all at once. */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testBenchmark() throws SQLException, IOException {
+    DataNexus nexus = new OnDemandNexus("docker");
+
+    List<Metadata> metadataList = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      for (String pv : PVS) {
+        metadataList.add(nexus.findMetadata(pv));
+      }
+    }
+
+    Instant begin = TimeUtil.toLocalDT("2019-08-12T00:00:00");
+    long intervalMillis = 60_000;
+    long sampleCount = 1440;
+
+    long start = System.currentTimeMillis();
+    for (Metadata metadata : metadataList) {
+      try (MySamplerStream<Event> stream =
+          MySamplerStream.getMySamplerStream(
+              begin,
+              intervalMillis,
+              sampleCount,
+              false,
+              metadata.getType(),
+              nexus,
+              metadata)) {
+        while (stream.read() != null) {}
+      }
+    }
+    long end = System.currentTimeMillis();
+    System.out.println(
+        "One MySamplerStream per channel: "
+            + metadataList.size()
+            + " channels in "
+            + (end - start)
+            + " ms");
+
+    start = System.currentTimeMillis();
+    try (MultiMySamplerStream stream =
+        new MultiMySamplerStream(nexus, metadataList, begin, intervalMillis, sampleCount, false)) {
+      while (stream.read() != null) {}
+    }
+    end = System.currentTimeMillis();
+    System.out.println(
+        "MultiMySamplerStream: " + metadataList.size() + " channels in " + (end - start) + " ms");
+  }
+}
@@ -71,6 +71,35 @@ public class MySamplerStreamTest {
     return samples;
   }
 
+  public <T extends Event> List<T> getAutoSamples(
+      Instant begin,
+      long intervalMillis,
+      long sampleCount,
+      boolean updatesOnly,
+      Class<T> type,
+      DataNexus nexus,
+      Metadata<T> metadata,
+      double eventsPerSampleThreshold)
+      throws IOException {
+    List<T> samples = new ArrayList<>();
+    try (EventStream<T> stream =
+        MySamplerStream.getAutoMySamplerStream(
+            begin,
+            intervalMillis,
+            sampleCount,
+            updatesOnly,
+            type,
+            nexus,
+            metadata,
+            eventsPerSampleThreshold)) {
+      T event;
+      while ((event = stream.read()) != null) {
+        samples.add(event);
+      }
+    }
+    return samples;
+  }
+
   public static void timeStream(
       String pv,
       Instant begin,
@@ -149,6 +178,37 @@ public class MySamplerStreamTest {
             + " ms");
   }
 
+  public static void timeAuto(
+      String pv,
+      Instant begin,
+      long stepMilliseconds,
+      long sampleCount,
+      boolean updatesOnly,
+      DataNexus nexus)
+      throws SQLException, IOException {
+
+    Metadata<FloatEvent> metadata = nexus.findMetadata(pv, FloatEvent.class);
+
+    long count = 0;
+    long startMillis = Instant.now().toEpochMilli();
+    try (MySamplerStream<FloatEvent> stream =
+        MySamplerStream.getAutoMySamplerStream(
+            begin, stepMilliseconds, sampleCount, updatesOnly, FloatEvent.class, nexus, metadata)) {
+      while (stream.read() != null) {
+        count++;
+      }
+    }
+    long stopMillis = Instant.now().toEpochMilli();
+    double events_per_sample = stepMilliseconds / 100.0;
+    System.out.println(
+        events_per_sample
+            + ",AUTO: "
+            + count
+            + " samples in "
+            + (stopMillis - startMillis)
+            + " ms");
+  }
+
   /**
    * Run a test on a very busy channel. A single query is performance limited by how long it takes
    * to the time it takes to stream the entire channel unless we do something clever. Since we've
@@ -197,6 +257,7 @@ public class MySamplerStreamTest {
     for (long s : steps) {
       timeStream(pv, begin, end, s, sampleCount, updatesOnly, nexus);
       timeNQueries(pv, begin, s, sampleCount, updatesOnly, nexus);
+      timeAuto(pv, begin, s, sampleCount, updatesOnly, nexus);
     }
     System.out.println();
 
@@ -475,6 +536,25 @@ public class MySamplerStreamTest {
 
     assertFloatEventListsEqual(streamed, queried);
 
+    // AUTO with every region point queried, every region streamed, and the default threshold
+    double[] thresholds = {
+      0, Double.MAX_VALUE, MySamplerStream.DEFAULT_AUTO_EVENTS_PER_SAMPLE_THRESHOLD
+    };
+    for (double threshold : thresholds) {
+      List<T> auto =
+          getAutoSamples(
+              begin,
+              intervalMillis,
+              sampleCount,
+              updatesOnly,
+              metadata.getType(),
+              nexus,
+              metadata,
+              threshold);
+
+      assertFloatEventListsEqual(streamed, auto);
+    }
+
     return streamed;
   }
 
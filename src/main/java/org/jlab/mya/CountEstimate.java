@@ -0,0 +1,114 @@
+package org.jlab.mya;
+
+/**
+ * An estimate of the number of events in an interval, along with a bound on its error.
+ *
+ * <p>An exact count requires the database to scan the entire interval, which roughly doubles the
+ * work of a query which is then going to stream the same interval anyway (for example to sample
+ * it). An estimate is much cheaper and is generally good enough to size bins; a sampler given an
+ * estimate simply returns slightly more or fewer points than requested.
+ *
+ * <p>Unless the count is exact the bound is statistical rather than guaranteed: it is derived from
+ * a sample of the interval, so the true count is expected, but not certain, to lie within it.
+ *
+ * @author slominskir
+ */
+public final class CountEstimate {
+
+  private final long count;
+  private final double relativeError;
+
+  /**
+   * Create a new CountEstimate.
+   *
+   * @param count The estimated number of events
+   * @param relativeError The relative error bound of the estimate as a fraction of the count (0
+   *     for an exact count)
+   */
+  public CountEstimate(long count, double relativeError) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count must not be negative");
+    }
+
+    if (relativeError < 0) {
+      throw new IllegalArgumentException("relativeError must not be negative");
+    }
+
+    this.count = count;
+    this.relativeError = relativeError;
+  }
+
+  /**
+   * Create a new exact CountEstimate.
+   *
+   * @param count The number of events
+   * @return The exact estimate
+   */
+  public static CountEstimate exact(long count) {
+    return new CountEstimate(count, 0);
+  }
+
+  /**
+   * Return the estimated number of events.
+   *
+   * @return The count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Return the relative error bound as a fraction of the count.
+   *
+   * @return The relative error bound
+   */
+  public double getRelativeError() {
+    return relativeError;
+  }
+
+  /**
+   * Return the smallest number of events the interval is expected to contain.
+   *
+   * @return The lower bound
+   */
+  public long getLowerBound() {
+    return Math.max(0, (long) Math.floor(count * (1 - relativeError)));
+  }
+
+  /**
+   * Return the largest number of events the interval is expected to contain.
+   *
+   * @return The upper bound
+   */
+  public long getUpperBound() {
+    return (long) Math.ceil(count * (1 + relativeError));
+  }
+
+  /**
+   * Return whether the count is exact.
+   *
+   * @return true if exact
+   */
+  public boolean isExact() {
+    return relativeError == 0;
+  }
+
+  /**
+   * Returns a String representation of this CountEstimate.
+   *
+   * @return The String representation
+   */
+  @Override
+  public String toString() {
+    return "CountEstimate{"
+        + "count="
+        + count
+        + ", relativeError="
+        + relativeError
+        + ", lowerBound="
+        + getLowerBound()
+        + ", upperBound="
+        + getUpperBound()
+        + '}';
+  }
+}
@@ -0,0 +1,191 @@
+package org.jlab.mya;
+
+/**
+ * The time-weighted summary statistics of a float-valued PV over an interval, computed in the
+ * database so that only a single row is transferred instead of every event.
+ *
+ * <p>The statistics are the same as those of a RunningStatistics fed by a FloatAnalysisStream
+ * wrapping a BoundaryAwareStream: the prior point is moved to the begin boundary, the last event is
+ * extended to the end boundary (or now if the end is in the future), and each event with data is
+ * weighted by the time until the next event. Time spent disconnected is excluded. Results agree
+ * with RunningStatistics within floating point tolerance as the sums are accumulated in a
+ * different order.
+ *
+ * @author slominskir
+ */
+public final class IntervalStatistics {
+
+  private final long eventCount;
+  private final long updateCount;
+  private final double duration;
+  private final double min;
+  private final double max;
+  private final double integration;
+  private final double sigmaSum;
+
+  /**
+   * Create a new IntervalStatistics.
+   *
+   * @param eventCount The number of events, including boundary events
+   * @param updateCount The number of weighted events with data
+   * @param duration The total weight in seconds
+   * @param min The min value of the weighted events with data
+   * @param max The max value of the weighted events with data
+   * @param integration The time-weighted sum of values (PV Units * seconds)
+   * @param sigmaSum The time-weighted sum of squared deviations from the mean
+   */
+  public IntervalStatistics(
+      long eventCount,
+      long updateCount,
+      double duration,
+      double min,
+      double max,
+      double integration,
+      double sigmaSum) {
+    this.eventCount = eventCount;
+    this.updateCount = updateCount;
+    this.duration = duration;
+    this.min = min;
+    this.max = max;
+    this.integration = integration;
+    this.sigmaSum = sigmaSum;
+  }
+
+  // As with RunningStatistics the stats are only valid once two events have been seen
+  private boolean statsValid() {
+    return eventCount > 1;
+  }
+
+  /**
+   * Get the minimum value.
+   *
+   * @return The minimum value of the channel history or null if the statistic is invalid
+   */
+  public Double getMin() {
+    if (!statsValid() || updateCount == 0) {
+      return null;
+    }
+    return min;
+  }
+
+  /**
+   * Get the maximum value.
+   *
+   * @return The maximum value of the channel history or null if the statistic is invalid
+   */
+  public Double getMax() {
+    if (!statsValid() || updateCount == 0) {
+      return null;
+    }
+    return max;
+  }
+
+  /**
+   * Get the time-weighted mean. Unlike RunningStatistics, the mean is unavailable if the duration
+   * is zero.
+   *
+   * @return The mean (average) value of the channel history or null if the statistic is invalid
+   */
+  public Double getMean() {
+    if (duration == 0 || !statsValid()) {
+      return null;
+    }
+    return integration / duration;
+  }
+
+  /**
+   * Get the standard deviation. Note: This provides no bias correction.
+   *
+   * @return The standard deviation of the channel history or null if the statistic is invalid
+   */
+  public Double getSigma() {
+    if (duration == 0 || !statsValid()) {
+      return null;
+    }
+    return Math.sqrt(sigmaSum / duration);
+  }
+
+  /**
+   * Get the RMS. This is a computed statistic equivalent to Math.sqrt(sigma*sigma + mean * mean);
+   *
+   * @return The RMS of the channel history or null if the statistic is invalid
+   */
+  public Double getRms() {
+    if (duration == 0 || !statsValid()) {
+      return null;
+    }
+    double mean = integration / duration;
+    return Math.sqrt(sigmaSum / duration + mean * mean);
+  }
+
+  /**
+   * Get the amount of time in seconds for which valid data was available.
+   *
+   * @return The time duration of the channel history for which data was available or null if the
+   *     statistic is invalid
+   */
+  public Double getDuration() {
+    if (!statsValid()) {
+      return null;
+    }
+    return duration;
+  }
+
+  /**
+   * Get the integrated value of the channel with respect to time.
+   *
+   * @return The result of integrating across the channel history for which data was available or
+   *     null if the statistic is invalid.
+   */
+  public Double getIntegration() {
+    if (!statsValid()) {
+      return null;
+    }
+    return integration;
+  }
+
+  /**
+   * Get the number of events, including the boundary events.
+   *
+   * @return The number of events
+   */
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Get the number of events with data which were weighted.
+   *
+   * @return The number of update events
+   */
+  public long getUpdateCount() {
+    return updateCount;
+  }
+
+  /**
+   * Returns a String representation of this IntervalStatistics.
+   *
+   * @return The String representation
+   */
+  @Override
+  public String toString() {
+    return "IntervalStatistics{"
+        + "eventCount="
+        + eventCount
+        + ", updateCount="
+        + updateCount
+        + ", duration="
+        + getDuration()
+        + ", min="
+        + getMin()
+        + ", max="
+        + getMax()
+        + ", mean="
+        + getMean()
+        + ", sigma="
+        + getSigma()
+        + ", integration="
+        + getIntegration()
+        + '}';
+  }
+}
@@ -8,6 +8,8 @@ import org.jlab.mya.event.FloatEvent;
  * statistics.
  *
  * <p>The class can be used to obtain stats on the entire series, but also incrementally per event.
+ * Statistics of adjacent time partitions can be computed separately (for example concurrently)
+ * and then joined with combine().
  *
  * @author apcarp
  * @author slominskir
@@ -17,9 +19,19 @@ public class RunningStatistics {
   // Set to true once the first Update event has been push'ed
   private boolean initialized = false;
 
-  // These will be null until sufficient data is available for the statistic to be valid.
-  private FloatEvent prev = null;
-  private FloatEvent curr = null;
+  // The previous and current events are held as primitives so that events can be pushed straight
+  // from an EventBatch without creating objects. hasPrev is false until sufficient data is
+  // available for the statistics to be valid.
+  private boolean hasPrev = false;
+  private boolean hasCurr = false;
+  private long prevTimestamp;
+  private long currTimestamp;
+  private boolean prevDisconnection;
+  private boolean currDisconnection;
+  private float prevValue;
+  private float currValue;
+  // The first timestamp is kept so that a preceding partition can be combined with this one
+  private long firstTimestamp;
   // Primitives initialize to zero by default
   private double min;
   private double max;
@@ -36,6 +48,27 @@ public class RunningStatistics {
   /** Integration statistic */
   public static final short INTEGRATION = 0;
 
+  /** Minimum statistic */
+  public static final short MIN = 1;
+
+  /** Maximum statistic */
+  public static final short MAX = 2;
+
+  /** Mean statistic */
+  public static final short MEAN = 3;
+
+  /** Standard deviation statistic */
+  public static final short SIGMA = 4;
+
+  /** RMS statistic */
+  public static final short RMS = 5;
+
+  /** Duration statistic */
+  public static final short DURATION = 6;
+
+  /** The event stats of an object which tracks none, shared to avoid an allocation per event. */
+  private static final double[] NO_EVENT_STATS = new double[0];
+
   private final short[] eventStatsMap;
 
   /**
@@ -50,7 +83,7 @@ public class RunningStatistics {
    * event stats.
    *
    * <p>Event Stats are specified by short value and array index. Valid values are assigned
-   * constants and include RunningStatistics.INTEGRATION.
+   * constants: RunningStatistics.INTEGRATION, MIN, MAX, MEAN, SIGMA, RMS, and DURATION.
    *
    * @param eventStatsMap The event stats to track
    */
@@ -64,19 +97,14 @@ public class RunningStatistics {
 
   // Useful as a shorthand  for "initializing" an assortment of statistics
   private void zeroNums() {
-    min =
-        max =
-            mean =
-                sigmaSum =
-                    duration =
-                        integration = 0; // TODO: should correction be reset to zero here too?
+    min = max = mean = sigmaSum = duration = integration = correction = 0;
+    eventCount = updateCount = 0;
   }
 
   // All currently calculated statistics will be valid once we have processed the first two events.
-  // prev is set to something not
-  // null when this happens.
+  // hasPrev is set to true when this happens.
   private boolean statsValid() {
-    return (prev != null);
+    return hasPrev;
   }
 
   /**
@@ -86,7 +114,7 @@ public class RunningStatistics {
   public void reset() {
     initialized = false;
     zeroNums();
-    prev = curr = null;
+    hasPrev = hasCurr = false;
   }
 
   /**
@@ -96,35 +124,148 @@ public class RunningStatistics {
    * @param event The next event in the channel history to add to the calculation of statistics.
    */
   public void push(FloatEvent event) {
+    push(event.getTimestamp(), event.getCode().isDisconnection(), event.getValue());
+  }
+
+  /**
+   * This function updates the set of running statistics for a given channel history for the given
+   * event, specified as primitives. This avoids creating an event object per row when reading an
+   * EventBatch.
+   *
+   * @param timestamp The Mya timestamp of the next event in the channel history
+   * @param disconnection true if the next event is a disconnection event
+   * @param value The value of the next event
+   */
+  public void push(long timestamp, boolean disconnection, float value) {
 
     eventCount++;
 
     // The first event just gets saved.  Every duration calculation requires two events.
-    if (curr == null) {
-      curr = event;
+    if (!hasCurr) {
+      hasCurr = true;
+      firstTimestamp = timestamp;
+      currTimestamp = timestamp;
+      currDisconnection = disconnection;
+      currValue = value;
       return;
     }
     // Grab the next event
-    prev = curr;
-    curr = event;
+    hasPrev = true;
+    prevTimestamp = currTimestamp;
+    prevDisconnection = currDisconnection;
+    prevValue = currValue;
+    currTimestamp = timestamp;
+    currDisconnection = disconnection;
+    currValue = value;
 
     // Statistics are only valid for events with data and should be weighted/normalized over the
     // time that we were
     // in "connected" states
-    if (!prev.getCode().isDisconnection()) {
+    if (!prevDisconnection) {
       updateCount++;
-      double value = prev.getValue();
 
       // Convert weight to seconds - helps both conceptually and with rounding errors (seconds will
       // be more
       // central than nanos or millis, which should on average yield more consistent scales for
       // operations).
+      double weight =
+          currTimestamp * TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER
+              - prevTimestamp * TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER;
+      updateStatistics(prevValue, weight);
+    }
+  }
+
+  /**
+   * Push a copy of the last event pushed with the specified timestamp, as BoundaryAwareStream does
+   * at the end of an interval. This does nothing if no event has been pushed.
+   *
+   * @param timestamp The Mya timestamp of the copy, which must not be before the last event
+   */
+  public void extendTo(long timestamp) {
+    if (hasCurr) {
+      push(timestamp, currDisconnection, currValue);
+    }
+  }
+
+  /**
+   * Join the statistics of the partition of the channel history which immediately follows this
+   * one, as if the events of the other partition had been pushed to this object. The last event of
+   * this partition is weighted by the time until the first event of the other partition, and the
+   * weighted mean and variance of both partitions are merged using the parallel form of the
+   * incremental algorithm ("Updating Mean and Variance Estimates" by Chan, Golub and LeVeque). The
+   * other object is not modified, but the event stats tracked are those of this object.
+   *
+   * <p>Note: Results match those of pushing every event to a single object within floating point
+   * tolerance, as the sums are accumulated in a different order.
+   *
+   * @param other The statistics of the following partition
+   */
+  public void combine(RunningStatistics other) {
+    if (!other.hasCurr) {
+      return;
+    }
+
+    if (!hasCurr) {
+      hasCurr = true;
+      firstTimestamp = other.firstTimestamp;
+    } else {
+      // The boundary weight between the partitions, exactly as push() would compute it
+      if (!currDisconnection) {
+        updateCount++;
+
+        double weight =
+            other.firstTimestamp * TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER
+                - currTimestamp * TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER;
+        updateStatistics(currValue, weight);
+      }
+
+      hasPrev = true;
+      prevTimestamp = currTimestamp;
+      prevDisconnection = currDisconnection;
+      prevValue = currValue;
+    }
+
+    if (other.hasPrev) {
+      hasPrev = true;
+      prevTimestamp = other.prevTimestamp;
+      prevDisconnection = other.prevDisconnection;
+      prevValue = other.prevValue;
+    }
 
-      // System.out.println("curr: " + curr + ", prev: " + prev);
+    currTimestamp = other.currTimestamp;
+    currDisconnection = other.currDisconnection;
+    currValue = other.currValue;
+
+    if (other.initialized) {
+      if (!initialized) {
+        initialized = true;
+        min = other.min;
+        max = other.max;
+        mean = other.mean;
+        sigmaSum = other.sigmaSum;
+        duration = other.duration;
+        integration = other.integration;
+      } else {
+        min = Math.min(other.min, min);
+        max = Math.max(other.max, max);
+
+        double total = duration + other.duration;
+
+        if (total > 0) {
+          double delta = other.mean - mean;
+          mean = mean + delta * other.duration / total;
+          sigmaSum = sigmaSum + other.sigmaSum + delta * delta * duration * other.duration / total;
+        }
+
+        duration = total;
+        addIntegration(other.integration);
+      }
 
-      double weight = curr.getTimestampAsSeconds() - prev.getTimestampAsSeconds();
-      updateStatistics(value, weight);
+      correction = correction + other.correction;
     }
+
+    eventCount = eventCount + other.eventCount;
+    updateCount = updateCount + other.updateCount;
   }
 
   /**
@@ -175,7 +316,11 @@ public class RunningStatistics {
 
   /** This updates the integration statistic using the Kahan/Neumaier summation algorithm. */
   private void updateIntegration(double value, double weight) {
-    double v = value * weight;
+    addIntegration(value * weight);
+  }
+
+  /** This adds a term to the integration statistic using the Kahan/Neumaier summation algorithm. */
+  private void addIntegration(double v) {
     double t = integration + v;
     if (Math.abs(integration) >= Math.abs(v)) {
       correction += (integration - t) + v;
@@ -300,24 +445,75 @@ public class RunningStatistics {
   /**
    * Obtain the event stats.
    *
-   * <p>stats and their index (order) are specified in the constructor.
+   * <p>stats and their index (order) are specified in the constructor. A new array is returned on
+   * each call (unless no event stats are tracked), so use getEventStats(double[], int) with a
+   * reusable array to avoid an allocation per event.
    *
    * @return The stats
    */
   public double[] getEventStats() {
+    if (eventStatsMap.length == 0) {
+      return NO_EVENT_STATS;
+    }
+
     double[] stats = new double[eventStatsMap.length];
 
-    for (short i = 0; i < stats.length; i++) {
+    getEventStats(stats, 0);
+
+    return stats;
+  }
+
+  /**
+   * Copy the event stats into an existing array, for example the flattened stats array of an
+   * AnalyzedFloatEventBatch.
+   *
+   * <p>stats and their index (order) are specified in the constructor. INTEGRATION and DURATION are
+   * zero until a value has been weighted, while MIN, MAX, and MEAN are NaN until then and SIGMA and
+   * RMS are NaN until the duration is non-zero.
+   *
+   * @param dest The destination array
+   * @param offset The index in the destination array of the first stat
+   */
+  public void getEventStats(double[] dest, int offset) {
+    for (short i = 0; i < eventStatsMap.length; i++) {
       switch (eventStatsMap[i]) {
         case INTEGRATION:
           // We don't use getIntegration() method because it does boxing and also an isValidCheck
           // If stats are not valid (first point) then integration = 0, which is what we want
           // anyways.
-          stats[i] = integration + correction;
+          dest[offset + i] = integration + correction;
+          break;
+        case MIN:
+          dest[offset + i] = initialized ? min : Double.NaN;
+          break;
+        case MAX:
+          dest[offset + i] = initialized ? max : Double.NaN;
+          break;
+        case MEAN:
+          dest[offset + i] = initialized ? mean : Double.NaN;
+          break;
+        case SIGMA:
+          dest[offset + i] = duration > 0 ? Math.sqrt(sigmaSum / duration) : Double.NaN;
           break;
+        case RMS:
+          dest[offset + i] =
+              duration > 0 ? Math.sqrt(sigmaSum / duration + mean * mean) : Double.NaN;
+          break;
+        case DURATION:
+          dest[offset + i] = duration;
+          break;
+        default:
+          dest[offset + i] = 0;
       }
     }
+  }
 
-    return stats;
+  /**
+   * Return the number of event stats tracked.
+   *
+   * @return The number of event stats
+   */
+  public int getEventStatsCount() {
+    return eventStatsMap.length;
   }
 }
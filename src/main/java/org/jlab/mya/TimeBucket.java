@@ -0,0 +1,261 @@
+package org.jlab.mya;
+
+import java.time.Instant;
+import org.jlab.mya.event.EventCode;
+
+/**
+ * A summary of the events of a float-valued PV in one time bucket of an interval: the number of
+ * events, the min and max value, and the first and last event.
+ *
+ * <p>Buckets are computed in the database so only one row per non-empty bucket is transferred
+ * instead of every event. The interval is divided into buckets of equal width in the same way as
+ * the FloatTimeBinnedSampleStream divides it into bins. Disconnection events are counted but their
+ * values are excluded from the min and max.
+ *
+ * @author slominskir
+ */
+public final class TimeBucket {
+
+  private final long index;
+  private final long begin;
+  private final long end;
+  private final long count;
+  private final long updateCount;
+  private final float min;
+  private final float max;
+  private final long firstTimestamp;
+  private final int firstCode;
+  private final float firstValue;
+  private final long lastTimestamp;
+  private final int lastCode;
+  private final float lastValue;
+
+  /**
+   * Create a new TimeBucket.
+   *
+   * @param index The bucket index, counting from zero at the beginning of the interval
+   * @param begin The Mya begin timestamp of the bucket (inclusive)
+   * @param end The Mya end timestamp of the bucket (exclusive)
+   * @param count The number of events
+   * @param updateCount The number of update (non-disconnection) events
+   * @param min The min value of the update events, or NaN if none
+   * @param max The max value of the update events, or NaN if none
+   * @param firstTimestamp The Mya timestamp of the first event
+   * @param firstCode The event code number of the first event
+   * @param firstValue The value of the first event
+   * @param lastTimestamp The Mya timestamp of the last event
+   * @param lastCode The event code number of the last event
+   * @param lastValue The value of the last event
+   */
+  public TimeBucket(
+      long index,
+      long begin,
+      long end,
+      long count,
+      long updateCount,
+      float min,
+      float max,
+      long firstTimestamp,
+      int firstCode,
+      float firstValue,
+      long lastTimestamp,
+      int lastCode,
+      float lastValue) {
+    this.index = index;
+    this.begin = begin;
+    this.end = end;
+    this.count = count;
+    this.updateCount = updateCount;
+    this.min = min;
+    this.max = max;
+    this.firstTimestamp = firstTimestamp;
+    this.firstCode = firstCode;
+    this.firstValue = firstValue;
+    this.lastTimestamp = lastTimestamp;
+    this.lastCode = lastCode;
+    this.lastValue = lastValue;
+  }
+
+  /**
+   * Return the bucket index, counting from zero at the beginning of the interval.
+   *
+   * @return The index
+   */
+  public long getIndex() {
+    return index;
+  }
+
+  /**
+   * Return the Mya begin timestamp of the bucket (inclusive).
+   *
+   * @return The begin timestamp
+   */
+  public long getBegin() {
+    return begin;
+  }
+
+  /**
+   * Return the begin of the bucket as an Instant.
+   *
+   * @return The begin
+   */
+  public Instant getBeginAsInstant() {
+    return TimeUtil.fromMyaTimestamp(begin);
+  }
+
+  /**
+   * Return the Mya end timestamp of the bucket (exclusive).
+   *
+   * @return The end timestamp
+   */
+  public long getEnd() {
+    return end;
+  }
+
+  /**
+   * Return the number of events.
+   *
+   * @return The count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Return the number of update (non-disconnection) events.
+   *
+   * @return The update count
+   */
+  public long getUpdateCount() {
+    return updateCount;
+  }
+
+  /**
+   * Return the number of disconnection events.
+   *
+   * @return The disconnection count
+   */
+  public long getDisconnectionCount() {
+    return count - updateCount;
+  }
+
+  /**
+   * Return true if any event in the bucket is a disconnection.
+   *
+   * @return true if there is a disconnection
+   */
+  public boolean hasDisconnection() {
+    return updateCount < count;
+  }
+
+  /**
+   * Return the min value of the update events.
+   *
+   * @return The min, or NaN if there are no update events
+   */
+  public float getMin() {
+    return min;
+  }
+
+  /**
+   * Return the max value of the update events.
+   *
+   * @return The max, or NaN if there are no update events
+   */
+  public float getMax() {
+    return max;
+  }
+
+  /**
+   * Return the Mya timestamp of the first event.
+   *
+   * @return The timestamp
+   */
+  public long getFirstTimestamp() {
+    return firstTimestamp;
+  }
+
+  /**
+   * Return the event code of the first event.
+   *
+   * @return The code
+   */
+  public EventCode getFirstCode() {
+    return EventCode.fromInt(firstCode);
+  }
+
+  /**
+   * Return the value of the first event.
+   *
+   * @return The value
+   */
+  public float getFirstValue() {
+    return firstValue;
+  }
+
+  /**
+   * Return the Mya timestamp of the last event.
+   *
+   * @return The timestamp
+   */
+  public long getLastTimestamp() {
+    return lastTimestamp;
+  }
+
+  /**
+   * Return the event code of the last event.
+   *
+   * @return The code
+   */
+  public EventCode getLastCode() {
+    return EventCode.fromInt(lastCode);
+  }
+
+  /**
+   * Return the value of the last event.
+   *
+   * @return The value
+   */
+  public float getLastValue() {
+    return lastValue;
+  }
+
+  /**
+   * Return true if the last event in the bucket is a disconnection, meaning the PV is disconnected
+   * at the end of the bucket.
+   *
+   * @return true if the last event is a disconnection
+   */
+  public boolean isLastDisconnection() {
+    return getLastCode().isDisconnection();
+  }
+
+  /**
+   * Returns a String representation of this TimeBucket.
+   *
+   * @return The String representation
+   */
+  @Override
+  public String toString() {
+    return "TimeBucket{"
+        + "index="
+        + index
+        + ", begin="
+        + getBeginAsInstant()
+        + ", count="
+        + count
+        + ", updateCount="
+        + updateCount
+        + ", min="
+        + min
+        + ", max="
+        + max
+        + ", first="
+        + firstValue
+        + ", last="
+        + lastValue
+        + ", lastCode="
+        + getLastCode()
+        + '}';
+  }
+}
@@ -0,0 +1,127 @@
+package org.jlab.mya.event;
+
+import java.util.Arrays;
+
+/**
+ * A reusable columnar batch of AnalyzedFloatEvents. The event stats of each row are stored in a
+ * single flattened array with a fixed number of stats per row.
+ *
+ * @author slominskir
+ */
+public class AnalyzedFloatEventBatch extends FloatValuedEventBatch<AnalyzedFloatEvent> {
+
+  private final int statsCount;
+  private double[] stats;
+
+  /**
+   * Create a new AnalyzedFloatEventBatch.
+   *
+   * @param capacity The max number of rows
+   * @param statsCount The number of event stats per row
+   */
+  public AnalyzedFloatEventBatch(int capacity, int statsCount) {
+    super(capacity);
+    this.statsCount = statsCount;
+    this.stats = new double[capacity * statsCount];
+  }
+
+  @Override
+  public AnalyzedFloatEventBatch createEmpty(int capacity) {
+    return new AnalyzedFloatEventBatch(capacity, statsCount);
+  }
+
+  @Override
+  protected void resizeValues(int capacity) {
+    super.resizeValues(capacity);
+    stats = Arrays.copyOf(stats, capacity * statsCount);
+  }
+
+  /**
+   * Append a row, leaving its stats to be filled in by the caller via getStats() and
+   * getStatsOffset().
+   *
+   * @param timestamp The Mya timestamp
+   * @param code The Mya event code number
+   * @param value The value
+   * @return The index of the new row
+   * @throws IndexOutOfBoundsException If the batch is full
+   */
+  public int add(long timestamp, int code, float value) {
+    int index = addRow(timestamp, code);
+    values[index] = value;
+    return index;
+  }
+
+  @Override
+  public void add(AnalyzedFloatEvent event) {
+    int index = add(event.getTimestamp(), event.getCode().getCodeNumber(), event.getValue());
+    double[] eventStats = event.getEventStats();
+    int offset = index * statsCount;
+
+    for (int i = 0; i < statsCount; i++) {
+      stats[offset + i] = i < eventStats.length ? eventStats[i] : 0;
+    }
+  }
+
+  @Override
+  public void addFrom(EventBatch<AnalyzedFloatEvent> source, int index) {
+    AnalyzedFloatEventBatch other = (AnalyzedFloatEventBatch) source;
+    int row = add(other.timestamps[index], other.codes[index] & 0xFF, other.values[index]);
+    System.arraycopy(
+        other.stats,
+        index * other.statsCount,
+        stats,
+        row * statsCount,
+        Math.min(statsCount, other.statsCount));
+  }
+
+  @Override
+  public AnalyzedFloatEvent get(int index) {
+    int offset = index * statsCount;
+    return new AnalyzedFloatEvent(
+        timestamps[index],
+        getCode(index),
+        values[index],
+        Arrays.copyOfRange(stats, offset, offset + statsCount));
+  }
+
+  /**
+   * Return the number of event stats per row.
+   *
+   * @return The stats count
+   */
+  public int getStatsCount() {
+    return statsCount;
+  }
+
+  /**
+   * Return a single event stat of a row.
+   *
+   * @param index The row index
+   * @param stat The stat index
+   * @return The stat value
+   */
+  public double getStat(int index, int stat) {
+    return stats[index * statsCount + stat];
+  }
+
+  /**
+   * Return the flattened stats array. The stats of row i start at getStatsOffset(i). The array is
+   * replaced if the batch grows.
+   *
+   * @return The stats
+   */
+  public double[] getStats() {
+    return stats;
+  }
+
+  /**
+   * Return the offset of the first stat of a row in the flattened stats array.
+   *
+   * @param index The row index
+   * @return The offset
+   */
+  public int getStatsOffset(int index) {
+    return index * statsCount;
+  }
+}
@@ -0,0 +1,201 @@
+package org.jlab.mya.event;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, columnar batch of Mya events stored in primitive arrays.
+ *
+ * <p>Creating an Event object per row is the main source of garbage when scanning large intervals.
+ * A batch instead holds the timestamps, event code numbers, and (in subclasses) values of many
+ * events in parallel primitive arrays which are refilled on each call to EventStream.readBatch(),
+ * so a full scan allocates almost nothing per event. Event codes are stored as their Mya code
+ * numbers (as found in the database), not as enum ordinals.
+ *
+ * <p>Rows can still be converted to Event objects with get(), for example to hand a few selected
+ * events to code which works with objects.
+ *
+ * <p>This class is abstract and concrete implementations hold Mya event type specific values.
+ *
+ * @author slominskir
+ * @param <T> The Event type
+ */
+public abstract class EventBatch<T extends Event> {
+
+  /** The Mya timestamp of each row. */
+  protected long[] timestamps;
+
+  /** The Mya event code number of each row, stored as an unsigned byte. */
+  protected byte[] codes;
+
+  /** The number of rows. */
+  protected int size = 0;
+
+  /**
+   * Create a new EventBatch.
+   *
+   * @param capacity The max number of rows
+   */
+  protected EventBatch(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+
+    this.timestamps = new long[capacity];
+    this.codes = new byte[capacity];
+  }
+
+  /**
+   * Create a new empty batch of the same type and shape (but possibly different capacity) as this
+   * one.
+   *
+   * @param capacity The max number of rows
+   * @return The new batch
+   */
+  public abstract EventBatch<T> createEmpty(int capacity);
+
+  /**
+   * Append an event.
+   *
+   * @param event The event
+   * @throws IndexOutOfBoundsException If the batch is full
+   */
+  public abstract void add(T event);
+
+  /**
+   * Append a copy of a row of another batch of the same type.
+   *
+   * @param source The source batch
+   * @param index The row index in the source batch
+   * @throws IndexOutOfBoundsException If this batch is full
+   */
+  public abstract void addFrom(EventBatch<T> source, int index);
+
+  /**
+   * Create a new Event object from a row.
+   *
+   * @param index The row index
+   * @return A new Event
+   */
+  public abstract T get(int index);
+
+  /**
+   * Grow the value arrays of a subclass to the new capacity.
+   *
+   * @param capacity The new capacity
+   */
+  protected abstract void resizeValues(int capacity);
+
+  /**
+   * Append the timestamp and code of a row and return the index of the row.
+   *
+   * @param timestamp The Mya timestamp
+   * @param code The Mya event code number
+   * @return The index of the new row
+   * @throws IndexOutOfBoundsException If the batch is full
+   */
+  protected int addRow(long timestamp, int code) {
+    if (size == timestamps.length) {
+      throw new IndexOutOfBoundsException("Batch is full: " + size);
+    }
+
+    timestamps[size] = timestamp;
+    codes[size] = (byte) code;
+    return size++;
+  }
+
+  /**
+   * Ensure the batch can hold at least the specified number of rows, growing it if necessary.
+   *
+   * @param minCapacity The min capacity
+   */
+  public void ensureCapacity(int minCapacity) {
+    if (minCapacity > timestamps.length) {
+      int capacity = Math.max(minCapacity, timestamps.length * 2);
+      timestamps = Arrays.copyOf(timestamps, capacity);
+      codes = Arrays.copyOf(codes, capacity);
+      resizeValues(capacity);
+    }
+  }
+
+  /** Remove all rows. The arrays are kept for reuse. */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Return the number of rows.
+   *
+   * @return The size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Return the max number of rows.
+   *
+   * @return The capacity
+   */
+  public int getCapacity() {
+    return timestamps.length;
+  }
+
+  /**
+   * Return whether the batch is full.
+   *
+   * @return true if full
+   */
+  public boolean isFull() {
+    return size == timestamps.length;
+  }
+
+  /**
+   * Return the Mya timestamp of a row.
+   *
+   * @param index The row index
+   * @return The timestamp
+   */
+  public long getTimestamp(int index) {
+    return timestamps[index];
+  }
+
+  /**
+   * Return the Mya event code number of a row.
+   *
+   * @param index The row index
+   * @return The code number
+   */
+  public int getCodeNumber(int index) {
+    return codes[index] & 0xFF;
+  }
+
+  /**
+   * Return the event code of a row.
+   *
+   * @param index The row index
+   * @return The EventCode
+   */
+  public EventCode getCode(int index) {
+    return EventCode.fromInt(codes[index] & 0xFF);
+  }
+
+  /**
+   * Return whether a row is a "disconnection" event. See EventCode.isDisconnection().
+   *
+   * @param index The row index
+   * @return true if a disconnection event
+   */
+  public boolean isDisconnection(int index) {
+    return (codes[index] & 0b1111) > 0;
+  }
+
+  /**
+   * Return the timestamp array. Only the first size() elements are valid. The array is replaced if
+   * the batch grows.
+   *
+   * @return The timestamps
+   */
+  public long[] getTimestamps() {
+    return timestamps;
+  }
+}
@@ -0,0 +1,51 @@
+package org.jlab.mya.event;
+
+/**
+ * A reusable columnar batch of FloatEvents.
+ *
+ * @author slominskir
+ */
+public class FloatEventBatch extends FloatValuedEventBatch<FloatEvent> {
+
+  /**
+   * Create a new FloatEventBatch.
+   *
+   * @param capacity The max number of rows
+   */
+  public FloatEventBatch(int capacity) {
+    super(capacity);
+  }
+
+  @Override
+  public FloatEventBatch createEmpty(int capacity) {
+    return new FloatEventBatch(capacity);
+  }
+
+  /**
+   * Append a row.
+   *
+   * @param timestamp The Mya timestamp
+   * @param code The Mya event code number
+   * @param value The value
+   * @throws IndexOutOfBoundsException If the batch is full
+   */
+  public void add(long timestamp, int code, float value) {
+    values[addRow(timestamp, code)] = value;
+  }
+
+  @Override
+  public void add(FloatEvent event) {
+    add(event.getTimestamp(), event.getCode().getCodeNumber(), event.getValue());
+  }
+
+  @Override
+  public void addFrom(EventBatch<FloatEvent> source, int index) {
+    FloatEventBatch other = (FloatEventBatch) source;
+    add(other.timestamps[index], other.codes[index] & 0xFF, other.values[index]);
+  }
+
+  @Override
+  public FloatEvent get(int index) {
+    return new FloatEvent(timestamps[index], getCode(index), values[index]);
+  }
+}
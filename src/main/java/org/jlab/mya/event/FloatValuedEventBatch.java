@@ -0,0 +1,53 @@
+package org.jlab.mya.event;
+
+import java.util.Arrays;
+
+/**
+ * An EventBatch of events with a float value.
+ *
+ * @author slominskir
+ * @param <T> The Event type
+ */
+public abstract class FloatValuedEventBatch<T extends FloatEvent> extends EventBatch<T> {
+
+  /** The value of each row. */
+  protected float[] values;
+
+  /**
+   * Create a new FloatValuedEventBatch.
+   *
+   * @param capacity The max number of rows
+   */
+  protected FloatValuedEventBatch(int capacity) {
+    super(capacity);
+    this.values = new float[capacity];
+  }
+
+  @Override
+  public abstract FloatValuedEventBatch<T> createEmpty(int capacity);
+
+  @Override
+  protected void resizeValues(int capacity) {
+    values = Arrays.copyOf(values, capacity);
+  }
+
+  /**
+   * Return the value of a row.
+   *
+   * @param index The row index
+   * @return The value
+   */
+  public float getValue(int index) {
+    return values[index];
+  }
+
+  /**
+   * Return the value array. Only the first size() elements are valid. The array is replaced if the
+   * batch grows.
+   *
+   * @return The values
+   */
+  public float[] getValues() {
+    return values;
+  }
+}
@@ -0,0 +1,81 @@
+package org.jlab.mya.event;
+
+import java.util.Arrays;
+
+/**
+ * A reusable columnar batch of IntEvents.
+ *
+ * @author slominskir
+ */
+public class IntEventBatch extends EventBatch<IntEvent> {
+
+  private int[] values;
+
+  /**
+   * Create a new IntEventBatch.
+   *
+   * @param capacity The max number of rows
+   */
+  public IntEventBatch(int capacity) {
+    super(capacity);
+    this.values = new int[capacity];
+  }
+
+  @Override
+  public IntEventBatch createEmpty(int capacity) {
+    return new IntEventBatch(capacity);
+  }
+
+  @Override
+  protected void resizeValues(int capacity) {
+    values = Arrays.copyOf(values, capacity);
+  }
+
+  /**
+   * Append a row.
+   *
+   * @param timestamp The Mya timestamp
+   * @param code The Mya event code number
+   * @param value The value
+   * @throws IndexOutOfBoundsException If the batch is full
+   */
+  public void add(long timestamp, int code, int value) {
+    values[addRow(timestamp, code)] = value;
+  }
+
+  @Override
+  public void add(IntEvent event) {
+    add(event.getTimestamp(), event.getCode().getCodeNumber(), event.getValue());
+  }
+
+  @Override
+  public void addFrom(EventBatch<IntEvent> source, int index) {
+    IntEventBatch other = (IntEventBatch) source;
+    add(other.timestamps[index], other.codes[index] & 0xFF, other.values[index]);
+  }
+
+  @Override
+  public IntEvent get(int index) {
+    return new IntEvent(timestamps[index], getCode(index), values[index]);
+  }
+
+  /**
+   * Return the value of a row.
+   *
+   * @param index The row index
+   * @return The value
+   */
+  public int getValue(int index) {
+    return values[index];
+  }
+
+  /**
+   * Return the value array. Only the first size() elements are valid. The array is replaced if the
+   * batch grows.
+   *
+   * @return The values
+   */
+  public int[] getValues() {
+    return values;
+  }
+}
@@ -0,0 +1,79 @@
+package org.jlab.mya.nexus;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the default Executor used by the asynchronous DataNexus methods.
+ *
+ * <p>On Java 21 or newer the default executor starts a virtual thread per task, so thousands of
+ * in-flight queries don't each need an OS thread. On older runtimes a cached pool of daemon
+ * platform threads is used instead. The virtual thread executor is looked up reflectively so that
+ * this library continues to target Java 11.
+ *
+ * @author slominskir
+ */
+final class AsyncExecutors {
+
+  private AsyncExecutors() {
+    // Not instantiable
+  }
+
+  /**
+   * Return the shared default executor.
+   *
+   * @return The default executor
+   */
+  static Executor getDefault() {
+    return Holder.DEFAULT;
+  }
+
+  /**
+   * Return whether the default executor uses virtual threads.
+   *
+   * @return true if virtual threads are used
+   */
+  static boolean isVirtual() {
+    return Holder.VIRTUAL;
+  }
+
+  /**
+   * Create a new virtual thread per task executor, if the runtime supports it.
+   *
+   * @return The executor or null if virtual threads are not available
+   */
+  static ExecutorService createVirtualThreadExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Create a new cached pool of daemon platform threads.
+   *
+   * @return The executor
+   */
+  static ExecutorService createPlatformThreadExecutor() {
+    AtomicInteger threadNumber = new AtomicInteger();
+
+    return Executors.newCachedThreadPool(
+        r -> {
+          Thread t = new Thread(r, "jmyapi-async-" + threadNumber.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  /** Lazily creates the default executor the first time it is needed. */
+  private static final class Holder {
+    static final ExecutorService VIRTUAL_EXECUTOR = createVirtualThreadExecutor();
+    static final boolean VIRTUAL = VIRTUAL_EXECUTOR != null;
+    static final Executor DEFAULT = VIRTUAL ? VIRTUAL_EXECUTOR : createPlatformThreadExecutor();
+  }
+}
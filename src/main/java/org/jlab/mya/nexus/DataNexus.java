@@ -2,17 +2,28 @@ package org.jlab.mya.nexus;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import org.jlab.mya.*;
 import org.jlab.mya.event.Event;
 import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.IntEvent;
 import org.jlab.mya.stream.EventStream;
+import org.jlab.mya.stream.FloatEventCursor;
+import org.jlab.mya.stream.IntEventCursor;
 
 /**
  * Manages the possibly multiple data sources required to service requests to a cluster of Mya
@@ -48,8 +59,39 @@ public abstract class DataNexus {
     }
   }
 
+  /** The default max number of concurrent queries against a single host in multi-channel calls. */
+  public static final int DEFAULT_MAX_CONCURRENT_QUERIES_PER_HOST = 4;
+
+  /** The default number of estimated events below which estimateCount performs an exact count. */
+  public static final long DEFAULT_EXACT_COUNT_THRESHOLD = 100_000;
+
+  /** The default number of partitions of a PARTITIONED interval query. */
+  public static final int DEFAULT_PARTITION_COUNT = 4;
+
+  /** The default max number of events buffered per partition of a PARTITIONED interval query. */
+  public static final int DEFAULT_PARTITION_BUFFER_SIZE = 65536;
+
+  /**
+   * The default age after which archive history is considered immutable and may be cached. The
+   * archiver may still write events with timestamps slightly in the past, so only history older
+   * than this is ever cached.
+   */
+  public static final Duration DEFAULT_IMMUTABLE_AGE = Duration.ofMinutes(5);
+
   private final String deployment;
 
+  private volatile MetadataCache metadataCache = null;
+
+  private volatile IntervalCache intervalCache = null;
+
+  private volatile PointCache pointCache = null;
+
+  private volatile int partitionCount = DEFAULT_PARTITION_COUNT;
+
+  private volatile int partitionBufferSize = DEFAULT_PARTITION_BUFFER_SIZE;
+
+  private volatile Executor asyncExecutor = null;
+
   /**
    * Create a new DataNexus for the given deployment.
    *
@@ -97,6 +139,162 @@ public abstract class DataNexus {
     return DEPLOYMENTS_PROPERTIES.getProperty(deployment + ".master.host");
   }
 
+  /**
+   * Return the cache consulted by metadata lookups.
+   *
+   * @return The MetadataCache or null if metadata is not cached
+   */
+  public MetadataCache getMetadataCache() {
+    return metadataCache;
+  }
+
+  /**
+   * Set the cache consulted by metadata lookups. Caching is disabled by default.
+   *
+   * @param metadataCache The MetadataCache or null to disable caching
+   */
+  public void setMetadataCache(MetadataCache metadataCache) {
+    this.metadataCache = metadataCache;
+  }
+
+  /**
+   * Return the cache consulted by interval queries.
+   *
+   * @return The IntervalCache or null if interval query results are not cached
+   */
+  public IntervalCache getIntervalCache() {
+    return intervalCache;
+  }
+
+  /**
+   * Set the cache consulted by interval queries. Caching is disabled by default.
+   *
+   * @param intervalCache The IntervalCache or null to disable caching
+   */
+  public void setIntervalCache(IntervalCache intervalCache) {
+    this.intervalCache = intervalCache;
+  }
+
+  /**
+   * Return the cache consulted by findEvent lookups of the event before a point in time.
+   *
+   * @return The PointCache or null if point lookups are not cached
+   */
+  public PointCache getPointCache() {
+    return pointCache;
+  }
+
+  /**
+   * Set the cache consulted by findEvent lookups of the event before a point in time. Caching is
+   * disabled by default.
+   *
+   * @param pointCache The PointCache or null to disable caching
+   */
+  public void setPointCache(PointCache pointCache) {
+    this.pointCache = pointCache;
+  }
+
+  /**
+   * Return the number of partitions (and therefore concurrent connections) a PARTITIONED interval
+   * query is split into.
+   *
+   * @return The number of partitions
+   */
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  /**
+   * Set the number of partitions (and therefore concurrent connections) a PARTITIONED interval
+   * query is split into.
+   *
+   * @param partitionCount The number of partitions
+   */
+  public void setPartitionCount(int partitionCount) {
+    if (partitionCount < 1) {
+      throw new IllegalArgumentException("partitionCount must be at least 1");
+    }
+
+    this.partitionCount = partitionCount;
+  }
+
+  /**
+   * Return the max number of events buffered per partition of a PARTITIONED interval query.
+   *
+   * @return The buffer size in events
+   */
+  public int getPartitionBufferSize() {
+    return partitionBufferSize;
+  }
+
+  /**
+   * Set the max number of events buffered per partition of a PARTITIONED interval query. The
+   * memory used by a partitioned query is roughly the partition count times this size.
+   *
+   * @param partitionBufferSize The buffer size in events
+   */
+  public void setPartitionBufferSize(int partitionBufferSize) {
+    if (partitionBufferSize < 1) {
+      throw new IllegalArgumentException("partitionBufferSize must be at least 1");
+    }
+
+    this.partitionBufferSize = partitionBufferSize;
+  }
+
+  /**
+   * Return the executor which runs the asynchronous query methods. Unless one has been set, a
+   * shared default is used which starts a virtual thread per query on Java 21 or newer, and
+   * otherwise uses a cached pool of daemon threads.
+   *
+   * @return The executor
+   */
+  public Executor getAsyncExecutor() {
+    Executor executor = asyncExecutor;
+    return executor == null ? AsyncExecutors.getDefault() : executor;
+  }
+
+  /**
+   * Set the executor which runs the asynchronous query methods.
+   *
+   * <p>Note: each query still holds a database connection while it runs, so the number of
+   * concurrent queries is ultimately bounded by the connections available (for example the pool
+   * size of a pooled nexus).
+   *
+   * @param asyncExecutor The executor or null to use the default
+   */
+  public void setAsyncExecutor(Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Run a query on the async executor.
+   *
+   * @param query The query
+   * @param <V> The result type
+   * @return A future which completes with the result, or exceptionally with the SQLException (or
+   *     other exception) thrown by the query
+   */
+  private <V> CompletableFuture<V> runAsync(AsyncQuery<V> query) {
+    CompletableFuture<V> future = new CompletableFuture<>();
+
+    getAsyncExecutor()
+        .execute(
+            () -> {
+              try {
+                V result = query.run();
+
+                // Don't leak a stream if the caller gave up waiting for it
+                if (!future.complete(result) && result instanceof AutoCloseable) {
+                  ((AutoCloseable) result).close();
+                }
+              } catch (Throwable t) {
+                future.completeExceptionally(t);
+              }
+            });
+
+    return future;
+  }
+
   /**
    * Return a connection to the specified host.
    *
@@ -135,6 +333,19 @@ public abstract class DataNexus {
     return intervalService.findMetadata(name);
   }
 
+  /**
+   * Query for PV metadata given a collection of PV names. The names are resolved with a few bulk
+   * queries instead of one query per name.
+   *
+   * @param names The PV names
+   * @return The PV metadata keyed by name, in the iteration order of the names provided; names
+   *     which are not found are omitted
+   * @throws SQLException If unable to query the database
+   */
+  public Map<String, Metadata> findMetadata(Collection<String> names) throws SQLException {
+    return intervalService.findMetadata(names);
+  }
+
   /**
    * Query for PV metadata given PV name and specified type.
    *
@@ -221,6 +432,163 @@ public abstract class DataNexus {
     return intervalService.openEventStream(new IntervalQueryParams<>(metadata, begin, end));
   }
 
+  /**
+   * Open an allocation-free cursor to float-valued events. Each call to next() advances the cursor
+   * and the current event is exposed as primitives via timestamp(), code(), and floatValue(), so no
+   * event object is created per row. The values are only valid until the next call to next(). See
+   * EventCursor for the full validity contract.
+   *
+   * <p>Generally you'll want to use try-with-resources around a call to this method to ensure you
+   * close the cursor properly.
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param strategy The fetch strategy (PARTITIONED is not supported)
+   * @param updatesOnly true if only update events should be included
+   * @return a cursor
+   * @throws SQLException If unable to query the database
+   */
+  public FloatEventCursor openFloatEventCursor(
+      Metadata<FloatEvent> metadata,
+      Instant begin,
+      Instant end,
+      IntervalQueryFetchStrategy strategy,
+      boolean updatesOnly)
+      throws SQLException {
+    return intervalService.openFloatEventCursor(
+        new IntervalQueryParams<>(metadata, updatesOnly, strategy, begin, end));
+  }
+
+  /**
+   * Open an allocation-free cursor to float-valued events using the default fetch strategy.
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @return a cursor
+   * @throws SQLException If unable to query the database
+   */
+  public FloatEventCursor openFloatEventCursor(
+      Metadata<FloatEvent> metadata, Instant begin, Instant end) throws SQLException {
+    return intervalService.openFloatEventCursor(new IntervalQueryParams<>(metadata, begin, end));
+  }
+
+  /**
+   * Open an allocation-free cursor to int-valued events. See openFloatEventCursor(Metadata,
+   * Instant, Instant, IntervalQueryFetchStrategy, boolean).
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param strategy The fetch strategy (PARTITIONED is not supported)
+   * @param updatesOnly true if only update events should be included
+   * @return a cursor
+   * @throws SQLException If unable to query the database
+   */
+  public IntEventCursor openIntEventCursor(
+      Metadata<IntEvent> metadata,
+      Instant begin,
+      Instant end,
+      IntervalQueryFetchStrategy strategy,
+      boolean updatesOnly)
+      throws SQLException {
+    return intervalService.openIntEventCursor(
+        new IntervalQueryParams<>(metadata, updatesOnly, strategy, begin, end));
+  }
+
+  /**
+   * Open an allocation-free cursor to int-valued events using the default fetch strategy.
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @return a cursor
+   * @throws SQLException If unable to query the database
+   */
+  public IntEventCursor openIntEventCursor(Metadata<IntEvent> metadata, Instant begin, Instant end)
+      throws SQLException {
+    return intervalService.openIntEventCursor(new IntervalQueryParams<>(metadata, begin, end));
+  }
+
+  /**
+   * Open a stream to events for each of the specified channels. The queries run concurrently,
+   * grouped by host, with at most maxConcurrentPerHost queries against a single host at once, so
+   * the total time to open the streams is governed by the busiest host rather than the number of
+   * channels.
+   *
+   * <p>All of the returned streams are open and each holds a database connection, so they must all
+   * be closed. For a large number of channels prefer forEachEventStream, which bounds the number of
+   * open streams (and connections) and reads them concurrently too.
+   *
+   * @param metadataList The channel metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param strategy The fetch strategy
+   * @param updatesOnly true if only update events should be included
+   * @param maxConcurrentPerHost The max number of concurrent queries against a single host
+   * @return The streams, in the same order as the metadata
+   * @throws SQLException If unable to query the database
+   */
+  public List<EventStream> openEventStreams(
+      List<Metadata> metadataList,
+      Instant begin,
+      Instant end,
+      IntervalQueryFetchStrategy strategy,
+      boolean updatesOnly,
+      int maxConcurrentPerHost)
+      throws SQLException {
+    return intervalService.openEventStreams(
+        toIntervalParams(metadataList, begin, end, strategy, updatesOnly), maxConcurrentPerHost);
+  }
+
+  /**
+   * Stream the events of each of the specified channels to a handler. Channels are grouped by host
+   * and at most maxConcurrentPerHost channels are queried and handled against a single host at
+   * once, so the total time is governed by the busiest host rather than the sum over all channels.
+   * Each stream is closed once the handler returns.
+   *
+   * @param metadataList The channel metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param strategy The fetch strategy
+   * @param updatesOnly true if only update events should be included
+   * @param maxConcurrentPerHost The max number of concurrent queries against a single host
+   * @param handler The handler, which is invoked concurrently and must be thread-safe
+   * @throws SQLException If unable to query the database
+   * @throws IOException If unable to read a stream or the handler fails
+   */
+  public void forEachEventStream(
+      List<Metadata> metadataList,
+      Instant begin,
+      Instant end,
+      IntervalQueryFetchStrategy strategy,
+      boolean updatesOnly,
+      int maxConcurrentPerHost,
+      EventStreamHandler handler)
+      throws SQLException, IOException {
+    intervalService.forEachEventStream(
+        toIntervalParams(metadataList, begin, end, strategy, updatesOnly),
+        maxConcurrentPerHost,
+        handler);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<IntervalQueryParams> toIntervalParams(
+      List<Metadata> metadataList,
+      Instant begin,
+      Instant end,
+      IntervalQueryFetchStrategy strategy,
+      boolean updatesOnly) {
+    List<IntervalQueryParams> paramsList = new ArrayList<>();
+
+    for (Metadata metadata : metadataList) {
+      paramsList.add(new IntervalQueryParams(metadata, updatesOnly, strategy, begin, end));
+    }
+
+    return paramsList;
+  }
+
   /**
    * Count the number of events between begin and end instants potentially restricted to update
    * events only.
@@ -254,6 +622,46 @@ public abstract class DataNexus {
     return intervalService.count(new IntervalQueryParams(metadata, begin, end));
   }
 
+  /**
+   * Estimate the number of events between begin and end instants potentially restricted to update
+   * events only. The estimate is obtained cheaply from database index statistics instead of
+   * scanning the interval, unless it is below the exact count threshold in which case an exact
+   * count is performed. An estimate is generally sufficient to size the bins of a sampler, which
+   * then requires only a single scan of the interval.
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param updatesOnly true if only update events should be counted
+   * @param exactCountThreshold The estimated number of events below which an exact count is done
+   * @return The estimate, which is exact or has an unknown error bound
+   * @throws SQLException If unable to query the database
+   */
+  @SuppressWarnings("unchecked")
+  public CountEstimate estimateCount(
+      Metadata metadata, Instant begin, Instant end, boolean updatesOnly, long exactCountThreshold)
+      throws SQLException {
+    return intervalService.estimateCount(
+        new IntervalQueryParams(
+            metadata, updatesOnly, IntervalQueryFetchStrategy.STREAM, begin, end),
+        exactCountThreshold);
+  }
+
+  /**
+   * Estimate the number of events between begin and end instants including all event types, using
+   * the default exact count threshold.
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @return The estimate, which is exact or has an unknown error bound
+   * @throws SQLException If unable to query the database
+   */
+  public CountEstimate estimateCount(Metadata metadata, Instant begin, Instant end)
+      throws SQLException {
+    return estimateCount(metadata, begin, end, false, DEFAULT_EXACT_COUNT_THRESHOLD);
+  }
+
   /**
    * Find the first event occurring at a time optionally less than and optionally equal to the
    * timestamp provided and optionally including only update events.
@@ -295,6 +703,180 @@ public abstract class DataNexus {
     return pointService.findEvent(new PointQueryParams<>(metadata, timestamp));
   }
 
+  /**
+   * Find the events at many points in time at once. This is equivalent to calling
+   * findEvent(Metadata, Instant, boolean, boolean, boolean) for each timestamp, but the points are
+   * resolved in a small number of statements on a single connection instead of one round trip per
+   * point.
+   *
+   * @param metadata The PV metadata
+   * @param timestamps The Mya timestamps of the points in time
+   * @param lessThan true if an event less than the point-in-time, false for an event greater than
+   *     the point-in-time.
+   * @param orEqual true if the point exactly at the given timestamp is returned, false if the
+   *     timestamp is exclusive
+   * @param updatesOnly true to include updates only, false for all event types
+   * @param <T> The event type
+   * @return The events, in the same order as the timestamps, with null where none found
+   * @throws SQLException If unable to query the database
+   */
+  public <T extends Event> List<T> findEvents(
+      Metadata<T> metadata,
+      long[] timestamps,
+      boolean lessThan,
+      boolean orEqual,
+      boolean updatesOnly)
+      throws SQLException {
+    return pointService.findEvents(
+        new PointQueryParams<>(metadata, updatesOnly, null, lessThan, orEqual), timestamps);
+  }
+
+  /**
+   * Find the events at many points in time at once. See findEvents(Metadata, long[], boolean,
+   * boolean, boolean).
+   *
+   * @param metadata The PV metadata
+   * @param timestamps The points in time
+   * @param lessThan true if an event less than the point-in-time, false for an event greater than
+   *     the point-in-time.
+   * @param orEqual true if the point exactly at the given timestamp is returned, false if the
+   *     timestamp is exclusive
+   * @param updatesOnly true to include updates only, false for all event types
+   * @param <T> The event type
+   * @return The events, in the same order as the timestamps, with null where none found
+   * @throws SQLException If unable to query the database
+   */
+  public <T extends Event> List<T> findEvents(
+      Metadata<T> metadata,
+      List<Instant> timestamps,
+      boolean lessThan,
+      boolean orEqual,
+      boolean updatesOnly)
+      throws SQLException {
+    long[] myaTimestamps = new long[timestamps.size()];
+
+    for (int i = 0; i < myaTimestamps.length; i++) {
+      myaTimestamps[i] = TimeUtil.toMyaTimestamp(timestamps.get(i));
+    }
+
+    return findEvents(metadata, myaTimestamps, lessThan, orEqual, updatesOnly);
+  }
+
+  /**
+   * Asynchronously query for PV metadata given PV name. See findMetadata(String).
+   *
+   * @param name The PV name
+   * @return A future PV metadata (null if not found)
+   */
+  public CompletableFuture<Metadata> findMetadataAsync(String name) {
+    return runAsync(() -> findMetadata(name));
+  }
+
+  /**
+   * Asynchronously query for PV metadata given PV name and specified type. See findMetadata(String,
+   * Class).
+   *
+   * @param name The PV name
+   * @param type The type
+   * @param <T> The Event type
+   * @return A future PV metadata (null if not found)
+   */
+  public <T extends Event> CompletableFuture<Metadata<T>> findMetadataAsync(
+      String name, Class<T> type) {
+    return runAsync(() -> findMetadata(name, type));
+  }
+
+  /**
+   * Asynchronously count the number of events between begin and end instants potentially
+   * restricted to update events only. See count(Metadata, Instant, Instant, boolean).
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param updatesOnly true if only update events should be counted
+   * @return A future number of events
+   */
+  public CompletableFuture<Long> countAsync(
+      Metadata metadata, Instant begin, Instant end, boolean updatesOnly) {
+    return runAsync(() -> count(metadata, begin, end, updatesOnly));
+  }
+
+  /**
+   * Asynchronously find the first event occurring at a time optionally less than and optionally
+   * equal to the timestamp provided and optionally including only update events. See
+   * findEvent(Metadata, Instant, boolean, boolean, boolean).
+   *
+   * @param metadata The PV metadata
+   * @param timestamp The timestamp
+   * @param lessThan true if an event less than the point-in-time, false for an event greater than
+   *     the point-in-time.
+   * @param orEqual true if the point exactly at the given timestamp is returned, false if the
+   *     timestamp is exclusive
+   * @param updatesOnly true to include updates only, false for all event types
+   * @param <T> The event type
+   * @return A future Event (null if none found)
+   */
+  public <T extends Event> CompletableFuture<T> findEventAsync(
+      Metadata<T> metadata,
+      Instant timestamp,
+      boolean lessThan,
+      boolean orEqual,
+      boolean updatesOnly) {
+    return runAsync(() -> findEvent(metadata, timestamp, lessThan, orEqual, updatesOnly));
+  }
+
+  /**
+   * Asynchronously find the first event occurring at a time less than or equal to the timestamp
+   * provided and including all event types. See findEvent(Metadata, Instant).
+   *
+   * @param metadata The PV metadata
+   * @param timestamp The timestamp
+   * @param <T> The event type
+   * @return A future Event (null if none found)
+   */
+  public <T extends Event> CompletableFuture<T> findEventAsync(
+      Metadata<T> metadata, Instant timestamp) {
+    return runAsync(() -> findEvent(metadata, timestamp));
+  }
+
+  /**
+   * Asynchronously open a stream to events. The future completes once the query has been executed
+   * and the first events are ready to read; reading the stream itself blocks as usual. The caller
+   * is responsible for closing the stream. See openEventStream(Metadata, Instant, Instant,
+   * IntervalQueryFetchStrategy, boolean).
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param strategy The fetch strategy
+   * @param updatesOnly true if only update events should be included
+   * @param <T> The Event type
+   * @return A future stream
+   */
+  public <T extends Event> CompletableFuture<EventStream<T>> openEventStreamAsync(
+      Metadata<T> metadata,
+      Instant begin,
+      Instant end,
+      IntervalQueryFetchStrategy strategy,
+      boolean updatesOnly) {
+    return runAsync(() -> openEventStream(metadata, begin, end, strategy, updatesOnly));
+  }
+
+  /**
+   * Asynchronously open a stream to events including all event types. See
+   * openEventStreamAsync(Metadata, Instant, Instant, IntervalQueryFetchStrategy, boolean).
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param <T> The Event type
+   * @return A future stream
+   */
+  public <T extends Event> CompletableFuture<EventStream<T>> openEventStreamAsync(
+      Metadata<T> metadata, Instant begin, Instant end) {
+    return runAsync(() -> openEventStream(metadata, begin, end));
+  }
+
   /**
    * Open a stream to float events associated with the specified IntervalQueryParams and sampled
    * using the myGet sampling algorithm.
@@ -324,6 +906,217 @@ public abstract class DataNexus {
     return sourceSampleService.openMyGetSampleFloatStream(metadata, begin, end, limit);
   }
 
+  /**
+   * Summarize the float events of an interval in time buckets computed in the database. Each
+   * bucket provides the event count, min and max value, first and last event, and disconnection
+   * flags. Only one row per non-empty bucket crosses the network instead of every event, which is
+   * useful for drawing a chart of a dense PV. The interval is divided into buckets of equal width
+   * in the same way as FloatTimeBinnedSampleStream divides it into bins.
+   *
+   * <p>Note: Requires window function support in the database (MariaDB 10.2 or newer).
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param bucketCount The number of buckets
+   * @param updatesOnly true to include updates only, false for all event types
+   * @return The non-empty buckets, in order
+   * @throws SQLException If unable to query the database
+   */
+  public List<TimeBucket> findTimeBuckets(
+      Metadata<FloatEvent> metadata,
+      Instant begin,
+      Instant end,
+      long bucketCount,
+      boolean updatesOnly)
+      throws SQLException {
+    return sourceSampleService.findTimeBuckets(
+        new IntervalQueryParams<>(
+            metadata, updatesOnly, IntervalQueryFetchStrategy.STREAM, begin, end),
+        bucketCount);
+  }
+
+  /**
+   * Summarize the float events of an interval in time buckets computed in the database, including
+   * all event types. See findTimeBuckets(Metadata, Instant, Instant, long, boolean).
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param bucketCount The number of buckets
+   * @return The non-empty buckets, in order
+   * @throws SQLException If unable to query the database
+   */
+  public List<TimeBucket> findTimeBuckets(
+      Metadata<FloatEvent> metadata, Instant begin, Instant end, long bucketCount)
+      throws SQLException {
+    return findTimeBuckets(metadata, begin, end, bucketCount, false);
+  }
+
+  /**
+   * Compute the time-weighted statistics of the float events of an interval in the database. The
+   * result matches the RunningStatistics of a FloatAnalysisStream wrapping a BoundaryAwareStream
+   * (with the prior point found by findEvent(Metadata, Instant)) within floating point tolerance,
+   * but only a single row crosses the network instead of every event.
+   *
+   * <p>Note: Requires window function support in the database (MariaDB 10.2 or newer).
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param updatesOnly true to include updates only, false for all event types
+   * @return The statistics
+   * @throws SQLException If unable to query the database
+   */
+  public IntervalStatistics findStatistics(
+      Metadata<FloatEvent> metadata, Instant begin, Instant end, boolean updatesOnly)
+      throws SQLException {
+    return sourceSampleService.findStatistics(
+        new IntervalQueryParams<>(
+            metadata, updatesOnly, IntervalQueryFetchStrategy.STREAM, begin, end));
+  }
+
+  /**
+   * Compute the time-weighted statistics of the float events of an interval in the database,
+   * including all event types. See findStatistics(Metadata, Instant, Instant, boolean).
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @return The statistics
+   * @throws SQLException If unable to query the database
+   */
+  public IntervalStatistics findStatistics(
+      Metadata<FloatEvent> metadata, Instant begin, Instant end) throws SQLException {
+    return findStatistics(metadata, begin, end, false);
+  }
+
+  /**
+   * Compute the time-weighted statistics of the float events of an interval on the client by
+   * splitting the interval into equal partitions which are streamed and analyzed concurrently
+   * using the async executor, then joined in time order with RunningStatistics.combine(). The
+   * result matches the RunningStatistics of a FloatAnalysisStream wrapping a BoundaryAwareStream
+   * (with the prior point found by findEvent(Metadata, Instant)) within floating point tolerance.
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp (inclusive)
+   * @param end The end timestamp (exclusive)
+   * @param partitionCount The number of partitions
+   * @return The statistics
+   * @throws SQLException If unable to query the database
+   * @throws IOException If unable to stream the events
+   * @throws IllegalArgumentException If the partition count is less than one
+   */
+  public RunningStatistics computeStatistics(
+      Metadata<FloatEvent> metadata, Instant begin, Instant end, int partitionCount)
+      throws SQLException, IOException {
+    if (partitionCount < 1) {
+      throw new IllegalArgumentException("partitionCount must be at least 1");
+    }
+
+    Instant now = Instant.now(); /* We consider "now" to be fixed in time from when called */
+    Duration total = Duration.between(begin, end);
+
+    if (total.isNegative() || total.isZero()) {
+      partitionCount = 1;
+    }
+
+    FloatEvent priorPoint = findEvent(metadata, begin);
+
+    List<CompletableFuture<RunningStatistics>> futures = new ArrayList<>();
+    Instant partitionBegin = begin;
+
+    for (int i = 1; i <= partitionCount; i++) {
+      Instant partitionEnd =
+          i == partitionCount ? end : begin.plus(total.multipliedBy(i).dividedBy(partitionCount));
+      Instant b = partitionBegin;
+      FloatEvent prior = i == 1 ? priorPoint : null;
+
+      futures.add(runAsync(() -> computePartitionStatistics(metadata, b, partitionEnd, prior)));
+
+      partitionBegin = partitionEnd;
+    }
+
+    RunningStatistics stats = new RunningStatistics();
+
+    try {
+      for (CompletableFuture<RunningStatistics> future : futures) {
+        stats.combine(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while computing statistics");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+
+      throw new IOException("Unable to compute statistics", cause);
+    }
+
+    // The end boundary point, as BoundaryAwareStream creates it
+    if (end.isBefore(now)) {
+      stats.extendTo(TimeUtil.toMyaTimestamp(end));
+    } else if (begin.isBefore(now)) {
+      stats.extendTo(TimeUtil.toMyaTimestamp(now));
+    }
+
+    return stats;
+  }
+
+  /**
+   * Compute the statistics of a single partition of an interval. Only the first partition has a
+   * prior point, which is moved to the begin boundary unless an event already exists there.
+   *
+   * @param metadata The metadata
+   * @param begin The begin timestamp of the partition (inclusive)
+   * @param end The end timestamp of the partition (exclusive)
+   * @param priorPoint The prior point or null if none
+   * @return The statistics
+   * @throws SQLException If unable to query the database
+   * @throws IOException If unable to stream the events
+   */
+  private RunningStatistics computePartitionStatistics(
+      Metadata<FloatEvent> metadata, Instant begin, Instant end, FloatEvent priorPoint)
+      throws SQLException, IOException {
+    RunningStatistics stats = new RunningStatistics();
+    long beginTimestamp = TimeUtil.toMyaTimestamp(begin);
+
+    try (FloatEventCursor cursor =
+        openFloatEventCursor(metadata, begin, end, IntervalQueryFetchStrategy.STREAM, false)) {
+      boolean more = cursor.next();
+
+      if (priorPoint != null && (!more || cursor.timestamp() > beginTimestamp)) {
+        stats.push(beginTimestamp, priorPoint.getCode().isDisconnection(), priorPoint.getValue());
+      }
+
+      while (more) {
+        stats.push(cursor.timestamp(), cursor.isDisconnection(), cursor.floatValue());
+        more = cursor.next();
+      }
+    }
+
+    return stats;
+  }
+
+  /**
+   * A query run asynchronously.
+   *
+   * @param <V> The result type
+   */
+  @FunctionalInterface
+  private interface AsyncQuery<V> {
+    V run() throws SQLException, IOException;
+  }
+
   /**
    * The fetch strategy for obtaining records from the database. See the JUnit tests which show
    * STREAM is generally the correct choice and conditionally choosing between them based on record
@@ -356,6 +1149,14 @@ public abstract class DataNexus {
      * OutOfMemoryError is low. In practice some buffering may occur via the MySQL database driver
      * to minimize round-trip overhead.
      */
-    STREAM
+    STREAM,
+    /**
+     * Split the interval into equal sub-intervals and STREAM each one concurrently on its own
+     * connection, buffering ahead and stitching the results back together in time order. This
+     * can increase throughput on very large intervals, where a single connection is limited by
+     * the throughput of one socket, at the cost of more connections and buffer memory. See
+     * setPartitionCount() and setPartitionBufferSize(). Not worthwhile for small intervals.
+     */
+    PARTITIONED
   }
 }
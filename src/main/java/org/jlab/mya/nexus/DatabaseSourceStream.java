@@ -7,6 +7,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import org.jlab.mya.event.Event;
+import org.jlab.mya.event.EventBatch;
+import org.jlab.mya.event.EventCode;
 import org.jlab.mya.stream.EventStream;
 
 /**
@@ -31,6 +33,12 @@ abstract class DatabaseSourceStream<T extends Event> extends EventStream<T> {
   /** The database result set. */
   protected final ResultSet rs;
 
+  /** true if the cursor is positioned on a row. */
+  private boolean positioned = false;
+
+  private long cursorTimestamp;
+  private int cursorCode;
+
   /**
    * Create a new event stream.
    *
@@ -65,11 +73,133 @@ abstract class DatabaseSourceStream<T extends Event> extends EventStream<T> {
         return null;
       }
     } catch (SQLException e) {
-      if (!isOpen()) { // Channel interface says ClosedChannelException specifically should be used
-        throw new ClosedChannelException();
-      } else {
-        throw new IOException(e);
+      throw toIOException(e);
+    }
+  }
+
+  /**
+   * Read the next rows of data from the ResultSet into a reusable columnar batch.
+   *
+   * @param batch The batch to fill
+   * @return The number of events read, or zero if End-Of-Stream reached
+   * @throws ClosedChannelException If the channel is closed
+   * @throws IOException If unable to read the next events
+   */
+  @Override
+  public int readBatch(EventBatch<T> batch) throws ClosedChannelException, IOException {
+    batch.clear();
+
+    try {
+      while (!batch.isFull() && rs.next()) {
+        rowToBatch(batch);
+      }
+    } catch (SQLException e) {
+      throw toIOException(e);
+    }
+
+    return batch.size();
+  }
+
+  /**
+   * Advance the cursor to the next row of the ResultSet. The subclasses which implement an
+   * EventCursor interface expose the row via primitive accessors. See EventCursor for the validity
+   * contract.
+   *
+   * @return true if positioned on an event, false if End-Of-Stream reached
+   * @throws ClosedChannelException If the channel is closed
+   * @throws IOException If unable to read the next event
+   */
+  public boolean next() throws ClosedChannelException, IOException {
+    positioned = false;
+
+    try {
+      if (rs.next()) {
+        cursorTimestamp = rs.getLong(1);
+        cursorCode = rs.getInt(2);
+        rowToCursor();
+        positioned = true;
       }
+    } catch (SQLException e) {
+      throw toIOException(e);
+    }
+
+    return positioned;
+  }
+
+  /**
+   * Read the type specific value(s) of the current row of data from the ResultSet into cursor
+   * fields. The timestamp and code are read by next().
+   *
+   * @throws SQLException If unable to read the ResultSet row
+   */
+  protected void rowToCursor() throws SQLException {}
+
+  /**
+   * Throw an IllegalStateException if the cursor is not positioned on a row.
+   *
+   * @throws IllegalStateException If not positioned on a row
+   */
+  protected void checkPositioned() {
+    if (!positioned) {
+      throw new IllegalStateException("Cursor is not positioned on an event");
+    }
+  }
+
+  /**
+   * Return the Mya timestamp of the current cursor row.
+   *
+   * @return The timestamp
+   * @throws IllegalStateException If not positioned on a row
+   */
+  public long timestamp() {
+    checkPositioned();
+    return cursorTimestamp;
+  }
+
+  /**
+   * Return the Mya event code number of the current cursor row.
+   *
+   * @return The code number
+   * @throws IllegalStateException If not positioned on a row
+   */
+  public int codeNumber() {
+    checkPositioned();
+    return cursorCode;
+  }
+
+  /**
+   * Return the event code of the current cursor row.
+   *
+   * @return The EventCode
+   * @throws IllegalStateException If not positioned on a row
+   */
+  public EventCode code() {
+    checkPositioned();
+    return EventCode.fromInt(cursorCode);
+  }
+
+  /**
+   * Return whether the current cursor row is a "disconnection" event.
+   *
+   * @return true if a disconnection event
+   * @throws IllegalStateException If not positioned on a row
+   */
+  public boolean isDisconnection() {
+    checkPositioned();
+    return (cursorCode & 0b1111) > 0;
+  }
+
+  /**
+   * Convert a SQLException raised while reading into the IOException reported to the caller.
+   *
+   * @param e The SQLException
+   * @return The IOException
+   */
+  private IOException toIOException(SQLException e) {
+    if (!isOpen()) { // Channel interface says ClosedChannelException specifically should be used
+      return new ClosedChannelException();
+    } else {
+      return new IOException(e);
     }
   }
 
@@ -81,6 +211,17 @@ abstract class DatabaseSourceStream<T extends Event> extends EventStream<T> {
    */
   protected abstract T rowToEvent() throws SQLException;
 
+  /**
+   * Append the current row of data from the ResultSet to a batch. Subclasses override this to copy
+   * the columns directly into batch types they know without creating an event.
+   *
+   * @param batch The batch
+   * @throws SQLException If unable to read the ResultSet row
+   */
+  protected void rowToBatch(EventBatch<T> batch) throws SQLException {
+    batch.add(rowToEvent());
+  }
+
   /**
    * Tells whether or not this channel is open.
    *
@@ -102,6 +243,8 @@ abstract class DatabaseSourceStream<T extends Event> extends EventStream<T> {
    */
   @Override
   public void close() throws IOException {
+    positioned = false;
+
     try {
       if (rs != null) {
         rs.close();
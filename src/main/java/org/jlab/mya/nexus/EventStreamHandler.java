@@ -0,0 +1,27 @@
+package org.jlab.mya.nexus;
+
+import java.io.IOException;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.stream.EventStream;
+
+/**
+ * Consumes the event stream of a single channel of a multi-channel query.
+ *
+ * <p>Handlers are invoked concurrently from multiple worker threads, one call per channel, so
+ * implementations must be thread-safe. The stream is closed automatically after the handler
+ * returns.
+ *
+ * @author slominskir
+ */
+@FunctionalInterface
+public interface EventStreamHandler {
+
+  /**
+   * Consume the events of a channel.
+   *
+   * @param metadata The channel metadata
+   * @param stream The open stream of events for the channel
+   * @throws IOException If unable to read or process the stream
+   */
+  void handle(Metadata metadata, EventStream stream) throws IOException;
+}
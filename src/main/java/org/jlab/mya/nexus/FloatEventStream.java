@@ -4,14 +4,19 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import org.jlab.mya.event.EventBatch;
 import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
+import org.jlab.mya.stream.FloatEventCursor;
 
 /**
  * EventStream of FloatEvents.
  *
  * @author slominskir
  */
-class FloatEventStream extends DatabaseSourceStream<FloatEvent> {
+class FloatEventStream extends DatabaseSourceStream<FloatEvent> implements FloatEventCursor {
+
+  private float cursorValue;
 
   /**
    * Create a new FloatEventStream.
@@ -30,4 +35,24 @@ class FloatEventStream extends DatabaseSourceStream<FloatEvent> {
   protected FloatEvent rowToEvent() throws SQLException {
     return QueryService.floatFromRow(rs);
   }
+
+  @Override
+  protected void rowToBatch(EventBatch<FloatEvent> batch) throws SQLException {
+    if (batch instanceof FloatEventBatch) {
+      ((FloatEventBatch) batch).add(rs.getLong(1), rs.getInt(2), rs.getFloat(3));
+    } else {
+      super.rowToBatch(batch);
+    }
+  }
+
+  @Override
+  protected void rowToCursor() throws SQLException {
+    cursorValue = rs.getFloat(3);
+  }
+
+  @Override
+  public float floatValue() {
+    checkPositioned();
+    return cursorValue;
+  }
 }
@@ -0,0 +1,329 @@
+package org.jlab.mya.nexus;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of connections to a single Mya host.
+ *
+ * <p>Borrowed connections are wrapped such that calling close() returns the physical connection to
+ * the pool instead of closing it. Idle connections are kept in most-recently-used order so that
+ * the least recently used connections age out and are evicted once they exceed the max idle time.
+ * A connection which has been idle longer than the validation window is checked with
+ * Connection.isValid() before being handed out again.
+ *
+ * @author slominskir
+ */
+class HostConnectionPool {
+
+  /** Idle connections used more recently than this are handed out without validation. */
+  private static final long VALIDATION_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /** Max seconds to wait on the database to confirm a connection is valid. */
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  private final String host;
+  private final ConnectionFactory factory;
+  private final int maxSize;
+  private final long maxIdleNanos;
+  private final long maxWaitMillis;
+  private final Semaphore permits;
+
+  /** Most recently returned at the head, least recently returned at the tail. Guarded by this. */
+  private final Deque<IdleConnection> idle = new ArrayDeque<>();
+
+  private final AtomicLong created = new AtomicLong();
+  private final AtomicLong destroyed = new AtomicLong();
+  private final AtomicLong borrowed = new AtomicLong();
+  private final AtomicLong validationFailures = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+
+  private volatile boolean closed = false;
+
+  /**
+   * Create a new HostConnectionPool.
+   *
+   * @param host The Mya host name
+   * @param factory The factory used to open physical connections
+   * @param maxSize The max number of connections open at once (borrowed plus idle)
+   * @param maxIdleNanos The max time a connection may sit idle before it is evicted
+   * @param maxWaitMillis The max time to wait for a free connection before giving up
+   */
+  HostConnectionPool(
+      String host, ConnectionFactory factory, int maxSize, long maxIdleNanos, long maxWaitMillis) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Pool max size must be at least 1");
+    }
+    this.host = host;
+    this.factory = factory;
+    this.maxSize = maxSize;
+    this.maxIdleNanos = maxIdleNanos;
+    this.maxWaitMillis = maxWaitMillis;
+    this.permits = new Semaphore(maxSize, true);
+  }
+
+  /**
+   * Borrow a connection from the pool, opening a new physical connection if none are idle. The
+   * returned connection must be closed to return it to the pool.
+   *
+   * @return A pooled connection
+   * @throws SQLException If the pool is closed, no connection is available within the max wait
+   *     time, or a new connection cannot be opened
+   */
+  Connection borrow() throws SQLException {
+    if (closed) {
+      throw new SQLException("Connection pool is closed for host: " + host);
+    }
+
+    try {
+      if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+        timeouts.incrementAndGet();
+        throw new SQLTransientConnectionException(
+            "Timed out after "
+                + maxWaitMillis
+                + " milliseconds waiting for a connection to host: "
+                + host
+                + "; max pool size: "
+                + maxSize);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted waiting for a connection to host: " + host, e);
+    }
+
+    try {
+      Connection physical = takeIdle();
+
+      if (physical == null) {
+        physical = factory.create(host);
+        created.incrementAndGet();
+      }
+
+      borrowed.incrementAndGet();
+
+      return wrap(physical);
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Remove the most recently used idle connection from the pool, discarding any expired or invalid
+   * connections encountered along the way.
+   *
+   * @return An open connection or null if none are idle
+   */
+  private Connection takeIdle() {
+    while (true) {
+      IdleConnection candidate;
+
+      synchronized (this) {
+        candidate = idle.pollFirst();
+      }
+
+      if (candidate == null) {
+        return null;
+      }
+
+      long idleNanos = System.nanoTime() - candidate.since;
+
+      if (idleNanos > maxIdleNanos) {
+        destroy(candidate.con);
+      } else if (idleNanos > VALIDATION_WINDOW_NANOS && !isValid(candidate.con)) {
+        validationFailures.incrementAndGet();
+        destroy(candidate.con);
+      } else {
+        return candidate.con;
+      }
+    }
+  }
+
+  private boolean isValid(Connection con) {
+    try {
+      return con.isValid(VALIDATION_TIMEOUT_SECONDS);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Return a physical connection to the pool. Called when a borrowed connection is closed.
+   *
+   * @param physical The physical connection
+   */
+  private void release(Connection physical) {
+    try {
+      boolean reusable = !closed && !physical.isClosed();
+
+      if (reusable) {
+        physical.clearWarnings();
+
+        synchronized (this) {
+          idle.addFirst(new IdleConnection(physical, System.nanoTime()));
+        }
+      } else {
+        destroy(physical);
+      }
+    } catch (SQLException e) {
+      destroy(physical);
+    } finally {
+      permits.release();
+    }
+
+    if (closed) {
+      evict(true);
+    }
+  }
+
+  /**
+   * Close and discard idle connections.
+   *
+   * @param all true to close every idle connection, false to close only those idle longer than the
+   *     max idle time
+   */
+  void evict(boolean all) {
+    List<Connection> expired = new ArrayList<>();
+    long now = System.nanoTime();
+
+    synchronized (this) {
+      IdleConnection oldest;
+      while ((oldest = idle.peekLast()) != null && (all || now - oldest.since > maxIdleNanos)) {
+        expired.add(idle.pollLast().con);
+      }
+    }
+
+    for (Connection con : expired) {
+      destroy(con);
+    }
+  }
+
+  private void destroy(Connection physical) {
+    destroyed.incrementAndGet();
+    try {
+      physical.close();
+    } catch (SQLException e) {
+      // Nothing more we can do; the connection is being discarded anyways
+    }
+  }
+
+  /**
+   * Close the pool. Idle connections are closed immediately and borrowed connections are closed
+   * when they are returned.
+   */
+  void close() {
+    closed = true;
+    evict(true);
+  }
+
+  /**
+   * Return a snapshot of the pool statistics.
+   *
+   * @return The pool statistics
+   */
+  PoolStats getStats() {
+    int idleCount;
+
+    synchronized (this) {
+      idleCount = idle.size();
+    }
+
+    return new PoolStats(
+        host,
+        maxSize,
+        maxSize - permits.availablePermits(),
+        idleCount,
+        created.get(),
+        destroyed.get(),
+        borrowed.get(),
+        validationFailures.get(),
+        timeouts.get());
+  }
+
+  private Connection wrap(Connection physical) {
+    return (Connection)
+        Proxy.newProxyInstance(
+            HostConnectionPool.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new PooledConnectionHandler(physical));
+  }
+
+  /** Opens physical connections to a host. */
+  interface ConnectionFactory {
+    /**
+     * Open a new physical connection.
+     *
+     * @param host The Mya host name
+     * @return A new connection
+     * @throws SQLException If unable to connect
+     */
+    Connection create(String host) throws SQLException;
+  }
+
+  /** An idle physical connection and the time it was returned to the pool. */
+  private static class IdleConnection {
+    final Connection con;
+    final long since;
+
+    IdleConnection(Connection con, long since) {
+      this.con = con;
+      this.since = since;
+    }
+  }
+
+  /**
+   * Intercepts close() on a borrowed connection to return it to the pool and prevents use of the
+   * connection afterwards. All other calls are forwarded to the physical connection.
+   */
+  private class PooledConnectionHandler implements InvocationHandler {
+    private final Connection physical;
+    private boolean returned = false;
+
+    PooledConnectionHandler(Connection physical) {
+      this.physical = physical;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          synchronized (this) {
+            if (!returned) {
+              returned = true;
+              release(physical);
+            }
+          }
+          return null;
+        case "isClosed":
+          return returned || physical.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "Pooled[" + host + "]: " + physical;
+        default:
+          if (returned) {
+            throw new SQLException("Connection has been returned to the pool");
+          }
+          try {
+            return method.invoke(physical, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+      }
+    }
+  }
+}
@@ -4,14 +4,19 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import org.jlab.mya.event.EventBatch;
 import org.jlab.mya.event.IntEvent;
+import org.jlab.mya.event.IntEventBatch;
+import org.jlab.mya.stream.IntEventCursor;
 
 /**
  * EventStream of IntEvents.
  *
  * @author slominskir
  */
-class IntEventStream extends DatabaseSourceStream<IntEvent> {
+class IntEventStream extends DatabaseSourceStream<IntEvent> implements IntEventCursor {
+
+  private int cursorValue;
 
   /**
    * Create a new IntEventStream.
@@ -30,4 +35,24 @@ class IntEventStream extends DatabaseSourceStream<IntEvent> {
   protected IntEvent rowToEvent() throws SQLException {
     return QueryService.intFromRow(rs);
   }
+
+  @Override
+  protected void rowToBatch(EventBatch<IntEvent> batch) throws SQLException {
+    if (batch instanceof IntEventBatch) {
+      ((IntEventBatch) batch).add(rs.getLong(1), rs.getInt(2), rs.getInt(3));
+    } else {
+      super.rowToBatch(batch);
+    }
+  }
+
+  @Override
+  protected void rowToCursor() throws SQLException {
+    cursorValue = rs.getInt(3);
+  }
+
+  @Override
+  public int intValue() {
+    checkPositioned();
+    return cursorValue;
+  }
 }
@@ -0,0 +1,610 @@
+package org.jlab.mya.nexus;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.Event;
+import org.jlab.mya.event.EventBatch;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
+import org.jlab.mya.event.IntEvent;
+import org.jlab.mya.event.IntEventBatch;
+import org.jlab.mya.stream.EventStream;
+
+/**
+ * A bounded, in-memory cache of interval query results keyed by PV (Metadata id) and whether only
+ * updates are included.
+ *
+ * <p>Interactive clients tend to issue many overlapping queries for the same PV, for example when
+ * zooming or panning a chart. For each key this cache holds the time ranges already fetched along
+ * with their events in columnar primitive form. A query for any interval contained within a cached
+ * range is answered without touching the database. A query which isn't contained is fetched from
+ * the database and recorded as it is read, and once the stream has been read to the end the range
+ * is added to the cache, merging it with any overlapping or adjacent ranges. Only float and int
+ * valued PVs are cached.
+ *
+ * <p>The cache is bounded by an approximate number of bytes held. Once the bound is exceeded the
+ * least recently used keys are evicted. Intervals which end less than the immutable age ago are
+ * never cached since the archiver may still be adding events to them.
+ *
+ * <p>A cache is enabled by assigning it to a DataNexus via DataNexus.setIntervalCache(). This class
+ * is thread-safe.
+ *
+ * @author slominskir
+ */
+public class IntervalCache {
+
+  /** The approximate number of bytes held per cached event: timestamp, code, and value. */
+  static final int BYTES_PER_EVENT = Long.BYTES + Byte.BYTES + Integer.BYTES;
+
+  /** The approximate number of bytes of overhead per cached range. */
+  static final int BYTES_PER_RANGE = 64;
+
+  private final long maxBytes;
+  private final Duration immutableAge;
+  private final Clock clock;
+
+  private final LinkedHashMap<Long, List<Range>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes = 0;
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  /**
+   * Create a new IntervalCache with the default immutable age.
+   *
+   * @param maxBytes The approximate max number of bytes to hold
+   */
+  public IntervalCache(long maxBytes) {
+    this(maxBytes, DataNexus.DEFAULT_IMMUTABLE_AGE);
+  }
+
+  /**
+   * Create a new IntervalCache.
+   *
+   * @param maxBytes The approximate max number of bytes to hold
+   * @param immutableAge The minimum age of the end of an interval for it to be cached
+   */
+  public IntervalCache(long maxBytes, Duration immutableAge) {
+    this(maxBytes, immutableAge, Clock.systemUTC());
+  }
+
+  /**
+   * Create a new IntervalCache with the specified clock.
+   *
+   * @param maxBytes The approximate max number of bytes to hold
+   * @param immutableAge The minimum age of the end of an interval for it to be cached
+   * @param clock The source of the current time
+   */
+  IntervalCache(long maxBytes, Duration immutableAge, Clock clock) {
+    if (maxBytes < BYTES_PER_RANGE) {
+      throw new IllegalArgumentException("maxBytes must be at least " + BYTES_PER_RANGE);
+    }
+
+    this.maxBytes = maxBytes;
+    this.immutableAge = immutableAge;
+    this.clock = clock;
+  }
+
+  /**
+   * Return whether the results of the supplied params may be cached, which depends only on the
+   * type of PV.
+   *
+   * @param params The IntervalQueryParams
+   * @return true if cacheable
+   */
+  static boolean isCacheable(IntervalQueryParams params) {
+    Class type = params.getMetadata().getType();
+    return type == FloatEvent.class || type == IntEvent.class;
+  }
+
+  private static long key(int metadataId, boolean updatesOnly) {
+    return ((long) metadataId << 1) | (updatesOnly ? 1 : 0);
+  }
+
+  private static long key(IntervalQueryParams params) {
+    return key(params.getMetadata().getId(), params.isUpdatesOnly());
+  }
+
+  /**
+   * Lookup a cached range containing the interval of the supplied params.
+   *
+   * @param params The IntervalQueryParams
+   * @param <T> The Event type
+   * @return A stream of the cached events in the interval, or null if the interval isn't cached
+   */
+  @SuppressWarnings("unchecked")
+  synchronized <T extends Event> EventStream<T> lookup(IntervalQueryParams<T> params) {
+    long begin = TimeUtil.toMyaTimestamp(params.getBegin());
+    long end = TimeUtil.toMyaTimestamp(params.getEnd());
+
+    List<Range> ranges = entries.get(key(params));
+    Range range = null;
+
+    if (ranges != null) {
+      for (Range r : ranges) {
+        if (r.begin <= begin && end <= r.end) {
+          range = r;
+          break;
+        }
+      }
+    }
+
+    if (range == null) {
+      misses++;
+      return null;
+    }
+
+    hits++;
+
+    return new RangeStream<>(
+        (EventBatch<T>) range.events,
+        range.lowerBound(begin),
+        range.lowerBound(end),
+        params.getMetadata().getType());
+  }
+
+  /**
+   * Wrap a database stream such that the events read from it are added to the cache once the
+   * stream has been read to the end. If the interval is too recent to cache the stream is returned
+   * as is.
+   *
+   * @param params The IntervalQueryParams
+   * @param stream The database stream
+   * @param <T> The Event type
+   * @return The recording stream
+   */
+  @SuppressWarnings("unchecked")
+  <T extends Event> EventStream<T> record(IntervalQueryParams<T> params, EventStream<T> stream) {
+    if (params.getEnd().isAfter(clock.instant().minus(immutableAge))) {
+      return stream;
+    }
+
+    EventBatch<T> events;
+
+    if (params.getMetadata().getType() == IntEvent.class) {
+      events = (EventBatch<T>) new IntEventBatch(1024);
+    } else {
+      events = (EventBatch<T>) new FloatEventBatch(1024);
+    }
+
+    return new RecordingStream<>(
+        this,
+        key(params),
+        TimeUtil.toMyaTimestamp(params.getBegin()),
+        TimeUtil.toMyaTimestamp(params.getEnd()),
+        stream,
+        events);
+  }
+
+  /**
+   * Add the complete events of a time range to the cache, merging it with any overlapping or
+   * adjacent cached ranges. Where ranges overlap the newly added events take precedence. The range
+   * is silently dropped if on its own it would exceed the max number of bytes.
+   *
+   * @param key The cache key
+   * @param begin The Mya begin timestamp (inclusive)
+   * @param end The Mya end timestamp (exclusive)
+   * @param events All of the events in the range
+   */
+  synchronized void put(long key, long begin, long end, EventBatch<?> events) {
+    Range added = new Range(begin, end, trim(events, events.size()));
+    List<Range> existing = entries.get(key);
+    List<Range> ranges = new ArrayList<>();
+    long released = 0;
+
+    if (existing != null) {
+      for (Range r : existing) {
+        if (r.end < added.begin || added.end < r.begin) {
+          ranges.add(r);
+        } else {
+          added = merge(added, r);
+          released = released + r.getWeight();
+        }
+      }
+    }
+
+    if (added.getWeight() > maxBytes) {
+      return;
+    }
+
+    int i = 0;
+    while (i < ranges.size() && ranges.get(i).begin < added.begin) {
+      i++;
+    }
+    ranges.add(i, added);
+
+    entries.put(key, ranges);
+    bytes = bytes - released + added.getWeight();
+
+    Iterator<Map.Entry<Long, List<Range>>> iterator = entries.entrySet().iterator();
+    while (bytes > maxBytes && iterator.hasNext()) {
+      Map.Entry<Long, List<Range>> eldest = iterator.next();
+
+      if (eldest.getKey() == key) {
+        continue;
+      }
+
+      for (Range r : eldest.getValue()) {
+        bytes = bytes - r.getWeight();
+      }
+
+      iterator.remove();
+      evictions++;
+    }
+
+    // Only the most recent key remains, so drop its other ranges
+    while (bytes > maxBytes) {
+      Range r = ranges.remove(ranges.get(0) == added ? ranges.size() - 1 : 0);
+      bytes = bytes - r.getWeight();
+      evictions++;
+    }
+  }
+
+  /**
+   * Merge two overlapping or adjacent ranges. The events of the first range take precedence.
+   *
+   * @param a The first range
+   * @param b The second range
+   * @return The merged range
+   */
+  @SuppressWarnings("unchecked")
+  private static Range merge(Range a, Range b) {
+    int before = b.lowerBound(a.begin);
+    int after = b.lowerBound(a.end);
+    int size = before + a.events.size() + (b.events.size() - after);
+
+    EventBatch merged = a.events.createEmpty(Math.max(1, size));
+
+    for (int i = 0; i < before; i++) {
+      merged.addFrom(b.events, i);
+    }
+
+    for (int i = 0; i < a.events.size(); i++) {
+      merged.addFrom(a.events, i);
+    }
+
+    for (int i = after; i < b.events.size(); i++) {
+      merged.addFrom(b.events, i);
+    }
+
+    return new Range(Math.min(a.begin, b.begin), Math.max(a.end, b.end), merged);
+  }
+
+  /**
+   * Return a batch with a capacity no larger than its number of rows, copying if necessary.
+   *
+   * @param events The events
+   * @param size The number of rows
+   * @return The trimmed batch
+   */
+  @SuppressWarnings("unchecked")
+  private static EventBatch<?> trim(EventBatch events, int size) {
+    if (events.getCapacity() == Math.max(1, size)) {
+      return events;
+    }
+
+    EventBatch trimmed = events.createEmpty(Math.max(1, size));
+
+    for (int i = 0; i < size; i++) {
+      trimmed.addFrom(events, i);
+    }
+
+    return trimmed;
+  }
+
+  /**
+   * Remove all cached ranges of a single PV, for example after its history has been modified.
+   *
+   * @param metadata The PV metadata
+   */
+  public synchronized void invalidate(Metadata metadata) {
+    for (boolean updatesOnly : new boolean[] {false, true}) {
+      List<Range> ranges = entries.remove(key(metadata.getId(), updatesOnly));
+
+      if (ranges != null) {
+        for (Range r : ranges) {
+          bytes = bytes - r.getWeight();
+        }
+      }
+    }
+  }
+
+  /** Remove all entries. Statistics are not reset. */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Return the number of keys currently cached.
+   *
+   * @return The number of keys
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Return the approximate number of bytes currently held.
+   *
+   * @return The number of bytes
+   */
+  public synchronized long getBytesHeld() {
+    return bytes;
+  }
+
+  /**
+   * Return the approximate max number of bytes held.
+   *
+   * @return The max number of bytes
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Return the number of queries answered from the cache.
+   *
+   * @return The number of hits
+   */
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  /**
+   * Return the number of queries which had to query the database.
+   *
+   * @return The number of misses
+   */
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  /**
+   * Return the fraction of queries answered from the cache.
+   *
+   * @return The hit ratio, or zero if there have been no queries
+   */
+  public synchronized double getHitRatio() {
+    long total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  /**
+   * Return the number of keys (or ranges) evicted to make room for new ranges.
+   *
+   * @return The number of evictions
+   */
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
+  /**
+   * Returns a String representation of this IntervalCache.
+   *
+   * @return The String representation
+   */
+  @Override
+  public synchronized String toString() {
+    return "IntervalCache{"
+        + "size="
+        + entries.size()
+        + ", bytesHeld="
+        + bytes
+        + ", maxBytes="
+        + maxBytes
+        + ", hits="
+        + hits
+        + ", misses="
+        + misses
+        + ", evictions="
+        + evictions
+        + '}';
+  }
+
+  /** A cached time range [begin, end) and all of its events. */
+  static final class Range {
+    final long begin;
+    final long end;
+
+    /** The events, which are never modified once cached. */
+    final EventBatch<?> events;
+
+    Range(long begin, long end, EventBatch<?> events) {
+      this.begin = begin;
+      this.end = end;
+      this.events = events;
+    }
+
+    /**
+     * Return the index of the first event at or after the specified timestamp.
+     *
+     * @param timestamp The Mya timestamp
+     * @return The index, or the number of events if none
+     */
+    int lowerBound(long timestamp) {
+      long[] timestamps = events.getTimestamps();
+      int low = 0;
+      int high = events.size();
+
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+
+        if (timestamps[mid] < timestamp) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+
+      return low;
+    }
+
+    long getWeight() {
+      return BYTES_PER_RANGE + (long) events.getCapacity() * BYTES_PER_EVENT;
+    }
+  }
+
+  /**
+   * Streams a slice of the events of a cached range.
+   *
+   * @param <T> The Event type
+   */
+  static final class RangeStream<T extends Event> extends EventStream<T> {
+    private final EventBatch<T> events;
+    private final int to;
+    private int position;
+    private boolean open = true;
+
+    RangeStream(EventBatch<T> events, int from, int to, Class<T> type) {
+      super(type);
+      this.events = events;
+      this.position = from;
+      this.to = to;
+    }
+
+    @Override
+    public T read() throws IOException {
+      if (!open) {
+        throw new ClosedChannelException();
+      }
+
+      return position < to ? events.get(position++) : null;
+    }
+
+    @Override
+    public int readBatch(EventBatch<T> batch) throws IOException {
+      if (batch.getClass() != events.getClass()) {
+        return super.readBatch(batch);
+      }
+
+      if (!open) {
+        throw new ClosedChannelException();
+      }
+
+      batch.clear();
+
+      while (!batch.isFull() && position < to) {
+        batch.addFrom(events, position++);
+      }
+
+      return batch.size();
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    @Override
+    public void close() {
+      open = false;
+    }
+  }
+
+  /**
+   * Records the events read from a database stream and adds them to the cache once the stream has
+   * been read to the end. Recording is abandoned if the stream is closed early or the events would
+   * exceed the capacity of the cache.
+   *
+   * @param <T> The Event type
+   */
+  static final class RecordingStream<T extends Event> extends EventStream<T> {
+    private final IntervalCache cache;
+    private final long key;
+    private final long begin;
+    private final long end;
+    private final EventStream<T> wrapped;
+    private EventBatch<T> recorded;
+
+    RecordingStream(
+        IntervalCache cache,
+        long key,
+        long begin,
+        long end,
+        EventStream<T> wrapped,
+        EventBatch<T> recorded) {
+      super(wrapped.getType());
+      this.cache = cache;
+      this.key = key;
+      this.begin = begin;
+      this.end = end;
+      this.wrapped = wrapped;
+      this.recorded = recorded;
+    }
+
+    @Override
+    public T read() throws IOException {
+      T event = wrapped.read();
+
+      if (event == null) {
+        finish();
+      } else if (recorded != null) {
+        recorded.ensureCapacity(recorded.size() + 1);
+        recorded.add(event);
+        checkLimit();
+      }
+
+      return event;
+    }
+
+    @Override
+    public int readBatch(EventBatch<T> batch) throws IOException {
+      int count = wrapped.readBatch(batch);
+
+      if (count == 0) {
+        finish();
+      } else if (recorded != null) {
+        recorded.ensureCapacity(recorded.size() + count);
+        boolean sameType = batch.getClass() == recorded.getClass();
+
+        for (int i = 0; i < count; i++) {
+          if (sameType) {
+            recorded.addFrom(batch, i);
+          } else {
+            recorded.add(batch.get(i));
+          }
+        }
+
+        checkLimit();
+      }
+
+      return count;
+    }
+
+    private void checkLimit() {
+      if (BYTES_PER_RANGE + (long) recorded.size() * BYTES_PER_EVENT > cache.getMaxBytes()) {
+        recorded = null;
+      }
+    }
+
+    private void finish() {
+      if (recorded != null) {
+        cache.put(key, begin, end, recorded);
+        recorded = null;
+      }
+    }
+
+    @Override
+    public boolean isOpen() {
+      return wrapped.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      recorded = null;
+      wrapped.close();
+    }
+  }
+}
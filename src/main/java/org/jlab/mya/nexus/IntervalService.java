@@ -1,14 +1,32 @@
 package org.jlab.mya.nexus;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jlab.mya.*;
 import org.jlab.mya.event.Event;
 import org.jlab.mya.event.FloatEvent;
 import org.jlab.mya.event.IntEvent;
 import org.jlab.mya.stream.EventStream;
+import org.jlab.mya.stream.FloatEventCursor;
+import org.jlab.mya.stream.IntEventCursor;
 
 /**
  * Provides query access to the Mya database for a set of events in a given time interval.
@@ -17,6 +35,15 @@ import org.jlab.mya.stream.EventStream;
  */
 class IntervalService extends QueryService {
 
+  /** The number of strata sampled to bound an optimizer row estimate. */
+  static final int ESTIMATE_PROBES = 8;
+
+  /** The max number of timestamps sampled at the start of each stratum. */
+  static final int ESTIMATE_PROBE_SIZE = 256;
+
+  /** The number of standard errors of a sampled event rate covered by the error bound. */
+  static final double ESTIMATE_STANDARD_ERRORS = 3;
+
   /**
    * Create a new QueryService with the provided DataNexus.
    *
@@ -55,6 +82,131 @@ class IntervalService extends QueryService {
     return count;
   }
 
+  /**
+   * Estimate the number of events associated with the supplied IntervalQueryParams using the
+   * database query optimizer's row estimate, which is obtained from index statistics without
+   * reading any rows. If the estimate is below the exact count threshold an exact count is
+   * performed instead since counting a small interval is cheap.
+   *
+   * <p>Range estimates are obtained by probing the primary key index at each end of the range and
+   * are typically within a few percent for large ranges, but the database does not guarantee any
+   * bound. The error is therefore bounded by sampling: the interval is divided into strata and the
+   * first few timestamps of each are read from the index. A stratum with fewer events than the
+   * sample size is counted exactly, and the event count of any other is extrapolated from the rate
+   * at its start, which for roughly uniform rates is within a few standard errors. The reported
+   * bound covers both the optimizer estimate and the sampled range. If every stratum was counted
+   * exactly the sampled total is returned as an exact count.
+   *
+   * <p>Note: the optimizer estimate includes all event types even if only updates are requested.
+   * Non-update events are generally rare so this has little effect.
+   *
+   * @param params The IntervalQueryParams
+   * @param exactCountThreshold The estimate below which an exact count is performed
+   * @return The estimate
+   * @throws SQLException If unable to query the database
+   */
+  public CountEstimate estimateCount(IntervalQueryParams params, long exactCountThreshold)
+      throws SQLException {
+    long begin = TimeUtil.toMyaTimestamp(params.getBegin());
+    long end = TimeUtil.toMyaTimestamp(params.getEnd());
+    long rows = -1;
+    String host = params.getMetadata().getHost();
+    try (Connection con = nexus.getConnection(host)) {
+      try (PreparedStatement stmt = generator.getCountEstimateStatement(con, params)) {
+        stmt.setLong(1, begin);
+        stmt.setLong(2, end);
+
+        try (ResultSet rs = stmt.executeQuery()) {
+          if (rs.next()) {
+            rows = rs.getLong("rows");
+
+            if (rs.wasNull()) {
+              rows = -1;
+            }
+          }
+        }
+      }
+
+      if (rows >= exactCountThreshold) {
+        long[] bounds = new long[ESTIMATE_PROBES + 1];
+        int[] counts = new int[ESTIMATE_PROBES];
+        long[] lastTimes = new long[ESTIMATE_PROBES];
+
+        for (int i = 0; i < ESTIMATE_PROBES; i++) {
+          bounds[i] = begin + Math.round((end - begin) * (i / (double) ESTIMATE_PROBES));
+        }
+        bounds[ESTIMATE_PROBES] = end;
+
+        try (PreparedStatement stmt =
+            generator.getCountProbeStatement(
+                con, params, ESTIMATE_PROBES, ESTIMATE_PROBE_SIZE)) {
+          for (int i = 0; i < ESTIMATE_PROBES; i++) {
+            stmt.setLong(2 * i + 1, bounds[i]);
+            stmt.setLong(2 * i + 2, bounds[i + 1]);
+          }
+
+          try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+              int idx = rs.getInt("idx");
+              counts[idx]++;
+              lastTimes[idx] = Math.max(lastTimes[idx], rs.getLong("time"));
+            }
+          }
+        }
+
+        return boundEstimate(rows, bounds, counts, lastTimes, ESTIMATE_PROBE_SIZE);
+      }
+    }
+
+    return CountEstimate.exact(count(params));
+  }
+
+  /**
+   * Bound an optimizer row estimate with the timestamps sampled at the start of each stratum of
+   * the interval.
+   *
+   * @param rows The optimizer row estimate
+   * @param bounds The Mya timestamps of the stratum boundaries; stratum i is [bounds[i],
+   *     bounds[i + 1])
+   * @param counts The number of timestamps sampled from each stratum
+   * @param lastTimes The last timestamp sampled from each stratum
+   * @param probeSize The max number of timestamps sampled per stratum
+   * @return The estimate
+   */
+  static CountEstimate boundEstimate(
+      long rows, long[] bounds, int[] counts, long[] lastTimes, int probeSize) {
+    double spread = ESTIMATE_STANDARD_ERRORS / Math.sqrt(probeSize);
+    double sampled = 0;
+    double low = 0;
+    double high = 0;
+    boolean exact = true;
+
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] < probeSize) { // The whole stratum was read
+        sampled = sampled + counts[i];
+        low = low + counts[i];
+        high = high + counts[i];
+      } else {
+        double rate = probeSize / (double) (lastTimes[i] - bounds[i] + 1);
+        double estimate = rate * (bounds[i + 1] - bounds[i]);
+
+        sampled = sampled + estimate;
+        low = low + Math.max(probeSize, estimate * (1 - spread));
+        high = high + estimate * (1 + spread);
+        exact = false;
+      }
+    }
+
+    if (exact) {
+      return CountEstimate.exact(Math.round(sampled));
+    }
+
+    long count = rows > 0 ? rows : Math.round(sampled);
+    double error = Math.max(count - low, high - count) / count;
+
+    return new CountEstimate(count, Math.max(0, error));
+  }
+
   /**
    * Open a stream to events associated with the specified IntervalQueryParams. This method returns
    * a generic stream which will need to be cast to obtain values (values may be primitives so a
@@ -64,17 +216,52 @@ class IntervalService extends QueryService {
    * <p>Generally you'll want to use try-with-resources around a call to this method to ensure you
    * close the stream properly.
    *
+   * <p>If the DataNexus has an IntervalCache the stream may be served from memory, and otherwise
+   * the events read from the database are recorded in the cache.
+   *
    * @param params The IntervalQueryParams
    * @param <T> The Event type
    * @return a stream
    * @throws SQLException If unable to query the database
    */
-  @SuppressWarnings("unchecked")
   public <T extends Event> EventStream<T> openEventStream(IntervalQueryParams<T> params)
       throws SQLException {
+    IntervalCache cache = nexus.getIntervalCache();
+
+    if (cache == null || !IntervalCache.isCacheable(params)) {
+      return openUncachedStream(params);
+    }
+
+    EventStream<T> stream = cache.lookup(params);
+
+    if (stream == null) {
+      stream = cache.record(params, openUncachedStream(params));
+    }
+
+    return stream;
+  }
+
+  /**
+   * Open a stream to the database, bypassing the interval cache.
+   *
+   * @param params The IntervalQueryParams
+   * @param <T> The Event type
+   * @return a stream
+   * @throws SQLException If unable to query the database
+   */
+  @SuppressWarnings("unchecked")
+  private <T extends Event> EventStream<T> openUncachedStream(IntervalQueryParams<T> params)
+      throws SQLException {
     EventStream<T> stream;
 
-    if (params.getMetadata().getType() == FloatEvent.class) {
+    if (params.getFetchStrategy() == DataNexus.IntervalQueryFetchStrategy.PARTITIONED) {
+      stream =
+          new PartitionedEventStream<>(
+              params,
+              nexus.getPartitionCount(),
+              nexus.getPartitionBufferSize(),
+              this::openUncachedStream);
+    } else if (params.getMetadata().getType() == FloatEvent.class) {
       stream = (EventStream<T>) openFloatStream(params);
     } else if (params.getMetadata().getType() == IntEvent.class) {
       stream = (EventStream<T>) openIntStream(params);
@@ -85,6 +272,290 @@ class IntervalService extends QueryService {
     return stream;
   }
 
+  /**
+   * Open a stream to float or int valued events between explicit Mya timestamp bounds. The begin
+   * and end of the params are ignored.
+   *
+   * @param params The IntervalQueryParams
+   * @param begin The Mya begin timestamp (inclusive)
+   * @param end The Mya end timestamp (exclusive)
+   * @return a stream
+   * @throws SQLException If unable to query the database
+   */
+  DatabaseSourceStream<?> openEventStream(IntervalQueryParams params, long begin, long end)
+      throws SQLException {
+    InternalIntervalParams iip = openStream(params, begin, end);
+
+    if (params.getMetadata().getType() == IntEvent.class) {
+      return new IntEventStream(params, iip.con, iip.stmt, iip.rs);
+    } else {
+      return new FloatEventStream(params, iip.con, iip.stmt, iip.rs);
+    }
+  }
+
+  /**
+   * Open a cursor to float-valued events associated with the specified IntervalQueryParams. A
+   * cursor exposes each event as primitives without creating an event object per row. See
+   * EventCursor for the validity contract.
+   *
+   * <p>Generally you'll want to use try-with-resources around a call to this method to ensure you
+   * close the cursor properly.
+   *
+   * @param params The IntervalQueryParams
+   * @return a cursor
+   * @throws SQLException If unable to query the database
+   * @throws IllegalArgumentException If the fetch strategy is PARTITIONED
+   */
+  public FloatEventCursor openFloatEventCursor(IntervalQueryParams<FloatEvent> params)
+      throws SQLException {
+    checkCursorStrategy(params);
+
+    return openFloatStream(params);
+  }
+
+  /**
+   * Open a cursor to int-valued events associated with the specified IntervalQueryParams. A cursor
+   * exposes each event as primitives without creating an event object per row. See EventCursor for
+   * the validity contract.
+   *
+   * <p>Generally you'll want to use try-with-resources around a call to this method to ensure you
+   * close the cursor properly.
+   *
+   * @param params The IntervalQueryParams
+   * @return a cursor
+   * @throws SQLException If unable to query the database
+   * @throws IllegalArgumentException If the fetch strategy is PARTITIONED
+   */
+  public IntEventCursor openIntEventCursor(IntervalQueryParams<IntEvent> params)
+      throws SQLException {
+    checkCursorStrategy(params);
+
+    return openIntStream(params);
+  }
+
+  /**
+   * A cursor reads a single ResultSet so the PARTITIONED fetch strategy is not supported.
+   *
+   * @param params The IntervalQueryParams
+   * @throws IllegalArgumentException If the fetch strategy is PARTITIONED
+   */
+  private void checkCursorStrategy(IntervalQueryParams params) {
+    if (params.getFetchStrategy() == DataNexus.IntervalQueryFetchStrategy.PARTITIONED) {
+      throw new IllegalArgumentException("The PARTITIONED fetch strategy does not support cursors");
+    }
+  }
+
+  /**
+   * Open a stream for each of the specified IntervalQueryParams, running the queries concurrently.
+   * Queries are grouped by host and at most maxConcurrentPerHost queries run against a single host
+   * at once, so the total time is roughly that of the busiest host rather than the sum over all
+   * channels.
+   *
+   * <p>All of the streams are open when this method returns and each holds a database connection,
+   * so this is best suited to a modest number of channels or the ALL fetch strategy. If any query
+   * fails the streams already opened are closed.
+   *
+   * @param paramsList The IntervalQueryParams, one per channel
+   * @param maxConcurrentPerHost The max number of queries to run at once against a single host
+   * @return The streams, in the same order as the parameters
+   * @throws SQLException If unable to query the database
+   */
+  @SuppressWarnings("unchecked")
+  public List<EventStream> openEventStreams(
+      List<IntervalQueryParams> paramsList, int maxConcurrentPerHost) throws SQLException {
+    EventStream[] streams = new EventStream[paramsList.size()];
+
+    try {
+      fanOut(
+          paramsList, maxConcurrentPerHost, i -> streams[i] = openEventStream(paramsList.get(i)));
+    } catch (SQLException | IOException e) {
+      for (EventStream stream : streams) {
+        if (stream != null) {
+          try {
+            stream.close();
+          } catch (IOException closeException) {
+            e.addSuppressed(closeException);
+          }
+        }
+      }
+
+      if (e instanceof SQLException) {
+        throw (SQLException) e;
+      }
+
+      throw new SQLException("Unable to open streams", e);
+    }
+
+    return Arrays.asList(streams);
+  }
+
+  /**
+   * Open a stream for each of the specified IntervalQueryParams and pass it to the handler. Queries
+   * are grouped by host and at most maxConcurrentPerHost channels are queried and handled against a
+   * single host at once. Each stream is closed as soon as the handler returns.
+   *
+   * <p>If any query or handler fails no further channels are started, the channels already running
+   * are allowed to finish, and the first failure is thrown. If the caller is interrupted the
+   * running channels are interrupted and waited for, so every stream is closed before this returns.
+   *
+   * @param paramsList The IntervalQueryParams, one per channel
+   * @param maxConcurrentPerHost The max number of queries to run at once against a single host
+   * @param handler The handler, which is invoked concurrently
+   * @throws SQLException If unable to query the database
+   * @throws IOException If unable to read a stream or the handler fails
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachEventStream(
+      List<IntervalQueryParams> paramsList, int maxConcurrentPerHost, EventStreamHandler handler)
+      throws SQLException, IOException {
+    fanOut(
+        paramsList,
+        maxConcurrentPerHost,
+        i -> {
+          IntervalQueryParams params = paramsList.get(i);
+          try (EventStream stream = openEventStream(params)) {
+            handler.handle(params.getMetadata(), stream);
+          }
+        });
+  }
+
+  /**
+   * Run a task for each of the specified parameters on a temporary thread pool with a fixed number
+   * of workers per host. Each worker takes the next channel of its host from a queue until the
+   * queue is empty, so a host never has more than maxConcurrentPerHost queries in flight.
+   *
+   * @param paramsList The parameters
+   * @param maxConcurrentPerHost The max number of workers per host
+   * @param task The task to run with the index of each parameter
+   * @throws SQLException If a task throws an SQLException
+   * @throws IOException If a task throws an IOException or the caller is interrupted
+   */
+  private void fanOut(
+      List<IntervalQueryParams> paramsList, int maxConcurrentPerHost, IndexTask task)
+      throws SQLException, IOException {
+    if (maxConcurrentPerHost < 1) {
+      throw new IllegalArgumentException("maxConcurrentPerHost must be at least 1");
+    }
+
+    Map<String, Queue<Integer>> hostQueues = new LinkedHashMap<>();
+
+    for (int i = 0; i < paramsList.size(); i++) {
+      String host = paramsList.get(i).getMetadata().getHost();
+      hostQueues.computeIfAbsent(host, h -> new ConcurrentLinkedQueue<>()).add(i);
+    }
+
+    int workerCount = 0;
+
+    for (Queue<Integer> queue : hostQueues.values()) {
+      workerCount = workerCount + Math.min(maxConcurrentPerHost, queue.size());
+    }
+
+    if (workerCount == 0) {
+      return;
+    }
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            workerCount,
+            r -> {
+              Thread t = new Thread(r, "jmyapi-fan-out-" + threadNumber.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+
+    AtomicBoolean failed = new AtomicBoolean(false);
+    List<Future<Void>> futures = new ArrayList<>();
+
+    try {
+      for (Queue<Integer> queue : hostQueues.values()) {
+        // Sized up front since the workers drain the queue as they are submitted
+        int hostWorkers = Math.min(maxConcurrentPerHost, queue.size());
+
+        for (int w = 0; w < hostWorkers; w++) {
+          futures.add(
+              executor.submit(
+                  () -> {
+                    Integer i;
+                    while (!failed.get() && (i = queue.poll()) != null) {
+                      try {
+                        task.run(i);
+                      } catch (SQLException | IOException | RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                      }
+                    }
+                    return null;
+                  }));
+        }
+      }
+
+      Throwable first = null;
+
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (first == null) {
+            first = e.getCause();
+          } else {
+            first.addSuppressed(e.getCause());
+          }
+        }
+      }
+
+      if (first instanceof SQLException) {
+        throw (SQLException) first;
+      } else if (first instanceof IOException) {
+        throw (IOException) first;
+      } else if (first instanceof RuntimeException) {
+        throw (RuntimeException) first;
+      } else if (first != null) {
+        throw (Error) first;
+      }
+    } catch (InterruptedException e) {
+      // Stop starting channels and wait for the running ones, so any stream they open is known to
+      // the caller (and closed) before the interruption is reported
+      failed.set(true);
+      executor.shutdownNow();
+      awaitTerminationUninterruptibly(executor);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for channel queries");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Wait for an executor which has been shut down to terminate, ignoring (but preserving)
+   * interrupts.
+   *
+   * @param executor The executor
+   */
+  private static void awaitTerminationUninterruptibly(ExecutorService executor) {
+    boolean interrupted = false;
+
+    while (true) {
+      try {
+        if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          break;
+        }
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** A task run for the parameter at a given index. */
+  @FunctionalInterface
+  private interface IndexTask {
+    void run(int index) throws SQLException, IOException;
+  }
+
   /**
    * Open a stream to float-valued events associated with the specified IntervalQueryParams.
    *
@@ -142,6 +613,24 @@ class IntervalService extends QueryService {
    * @throws SQLException If unable to open a stream
    */
   private InternalIntervalParams openStream(IntervalQueryParams params) throws SQLException {
+    return openStream(
+        params,
+        TimeUtil.toMyaTimestamp(params.getBegin()),
+        TimeUtil.toMyaTimestamp(params.getEnd()));
+  }
+
+  /**
+   * Internal shared method for opening a stream over explicit Mya timestamp bounds, which avoids a
+   * lossy round trip through Instant when the bounds are already Mya timestamps.
+   *
+   * @param params The user specified interval query parameters
+   * @param begin The Mya begin timestamp (inclusive)
+   * @param end The Mya end timestamp (exclusive)
+   * @return The internal bundled stream parameters
+   * @throws SQLException If unable to open a stream
+   */
+  private InternalIntervalParams openStream(IntervalQueryParams params, long begin, long end)
+      throws SQLException {
     InternalIntervalParams iip = new InternalIntervalParams();
 
     String host = params.getMetadata().getHost();
@@ -153,8 +642,8 @@ class IntervalService extends QueryService {
       fetchSize = 4098;
     }
     PreparedStatement stmt = generator.getEventIntervalStatement(con, params, fetchSize);
-    stmt.setLong(1, TimeUtil.toMyaTimestamp(params.getBegin()));
-    stmt.setLong(2, TimeUtil.toMyaTimestamp(params.getEnd()));
+    stmt.setLong(1, begin);
+    stmt.setLong(2, end);
     ResultSet rs = stmt.executeQuery();
 
     iip.con = con;
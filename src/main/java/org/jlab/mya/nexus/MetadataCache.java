@@ -0,0 +1,230 @@
+package org.jlab.mya.nexus;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.jlab.mya.Metadata;
+
+/**
+ * A bounded, time-limited cache of PV Metadata keyed by PV name.
+ *
+ * <p>Metadata almost never changes so caching it avoids a round trip to the master host on every
+ * lookup. Entries expire after a configurable time-to-live and the least recently used entry is
+ * evicted once the cache is full. Names which are not found in the database are cached too
+ * (negative caching) so that repeated lookups of an unknown name don't hit the database either.
+ * Negative entries may be given a shorter time-to-live since a PV may be added to the archiver at
+ * any time.
+ *
+ * <p>A cache is enabled by assigning it to a DataNexus via DataNexus.setMetadataCache(). This class
+ * is thread-safe.
+ *
+ * @author slominskir
+ */
+public class MetadataCache {
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final LongSupplier clock;
+
+  private final LinkedHashMap<String, Entry> entries;
+
+  private long hits = 0;
+  private long negativeHits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  /**
+   * Create a new MetadataCache in which found and not-found names expire after the same duration.
+   *
+   * @param maxSize The max number of names to cache
+   * @param ttl The time-to-live of each entry
+   */
+  public MetadataCache(int maxSize, Duration ttl) {
+    this(maxSize, ttl, ttl);
+  }
+
+  /**
+   * Create a new MetadataCache.
+   *
+   * @param maxSize The max number of names to cache
+   * @param ttl The time-to-live of an entry for a name which was found
+   * @param negativeTtl The time-to-live of an entry for a name which was not found
+   */
+  public MetadataCache(int maxSize, Duration ttl, Duration negativeTtl) {
+    this(maxSize, ttl, negativeTtl, System::nanoTime);
+  }
+
+  /**
+   * Create a new MetadataCache with the specified clock.
+   *
+   * @param maxSize The max number of names to cache
+   * @param ttl The time-to-live of an entry for a name which was found
+   * @param negativeTtl The time-to-live of an entry for a name which was not found
+   * @param clock The source of the current time in nanoseconds
+   */
+  MetadataCache(int maxSize, Duration ttl, Duration negativeTtl, LongSupplier clock) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be at least 1");
+    }
+
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.negativeTtlNanos = negativeTtl.toNanos();
+    this.clock = clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, MetadataCache.Entry> eldest) {
+            boolean full = size() > MetadataCache.this.maxSize;
+            if (full) {
+              evictions++;
+            }
+            return full;
+          }
+        };
+  }
+
+  /**
+   * Lookup the cached entry for a name.
+   *
+   * @param name The PV name
+   * @return The entry, or null if the name is not cached (or expired)
+   */
+  synchronized Entry lookup(String name) {
+    Entry entry = entries.get(name);
+
+    if (entry != null && clock.getAsLong() - entry.expires > 0) {
+      entries.remove(name);
+      entry = null;
+    }
+
+    if (entry == null) {
+      misses++;
+    } else if (entry.metadata == null) {
+      negativeHits++;
+    } else {
+      hits++;
+    }
+
+    return entry;
+  }
+
+  /**
+   * Cache the result of a metadata query.
+   *
+   * @param name The PV name
+   * @param metadata The metadata or null if the name was not found
+   */
+  synchronized void put(String name, Metadata metadata) {
+    long ttl = metadata == null ? negativeTtlNanos : ttlNanos;
+    entries.put(name, new Entry(metadata, clock.getAsLong() + ttl));
+  }
+
+  /**
+   * Remove the entry for a single name, for example after a PV has been added or moved.
+   *
+   * @param name The PV name
+   */
+  public synchronized void invalidate(String name) {
+    entries.remove(name);
+  }
+
+  /** Remove all entries. Statistics are not reset. */
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  /**
+   * Return the number of entries currently cached, including expired entries which have not yet
+   * been removed.
+   *
+   * @return The number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Return the max number of entries.
+   *
+   * @return The max size
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Return the number of lookups answered with cached Metadata.
+   *
+   * @return The number of hits
+   */
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  /**
+   * Return the number of lookups answered with a cached "not found".
+   *
+   * @return The number of negative hits
+   */
+  public synchronized long getNegativeHitCount() {
+    return negativeHits;
+  }
+
+  /**
+   * Return the number of lookups which had to query the database.
+   *
+   * @return The number of misses
+   */
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  /**
+   * Return the number of entries evicted to make room for new entries.
+   *
+   * @return The number of evictions
+   */
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
+  /**
+   * Returns a String representation of this MetadataCache.
+   *
+   * @return The String representation
+   */
+  @Override
+  public synchronized String toString() {
+    return "MetadataCache{"
+        + "size="
+        + entries.size()
+        + ", maxSize="
+        + maxSize
+        + ", hits="
+        + hits
+        + ", negativeHits="
+        + negativeHits
+        + ", misses="
+        + misses
+        + ", evictions="
+        + evictions
+        + '}';
+  }
+
+  /** A cached lookup result. */
+  static final class Entry {
+    /** The metadata or null if the name was not found. */
+    final Metadata metadata;
+
+    /** The value of the clock after which the entry is stale. */
+    final long expires;
+
+    Entry(Metadata metadata, long expires) {
+      this.metadata = metadata;
+      this.expires = expires;
+    }
+  }
+}
@@ -46,6 +46,34 @@ public class OnDemandNexus extends DataNexus {
 
   @Override
   Connection getConnection(String host) throws SQLException {
+    return createConnection(host);
+  }
+
+  /**
+   * Create a new physical connection to the specified host using the credentials and deployment
+   * configuration files. The caller is responsible for closing the connection.
+   *
+   * <p>This method is shared by nexuses that manage connections themselves (such as the
+   * StandalonePooledNexus) so that all of them connect with the same driver options.
+   *
+   * @param host The Mya host name
+   * @return A new MariaDB database connection
+   * @throws SQLException If unable to obtain a connection
+   */
+  static Connection createConnection(String host) throws SQLException {
+    return createConnection(host, null);
+  }
+
+  /**
+   * Create a new physical connection to the specified host with additional driver options. The
+   * extra options are applied last so they may override the defaults.
+   *
+   * @param host The Mya host name
+   * @param extraOptions Additional MariaDB driver options, or null for none
+   * @return A new MariaDB database connection
+   * @throws SQLException If unable to obtain a connection
+   */
+  static Connection createConnection(String host, Properties extraOptions) throws SQLException {
     String user = CREDENTIALS_PROPERTIES.getProperty("username");
     String password = CREDENTIALS_PROPERTIES.getProperty("password");
 
@@ -83,6 +111,10 @@ public class OnDemandNexus extends DataNexus {
     options.put("sslMode", "DISABLED");
     options.put("allowPublicKeyRetrieval", "true");
 
+    if (extraOptions != null) {
+      options.putAll(extraOptions);
+    }
+
     try {
       return DriverManager.getConnection(url, options);
     } catch (SQLException e) {
@@ -0,0 +1,216 @@
+package org.jlab.mya.nexus;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.jlab.mya.event.Event;
+import org.jlab.mya.stream.EventStream;
+
+/**
+ * An EventStream which splits a time interval into equal sub-intervals (partitions), fetches each
+ * partition concurrently on its own connection, and stitches the results back together in time
+ * order.
+ *
+ * <p>Each partition has a producer thread which streams its sub-interval into a bounded queue of
+ * event chunks. The consumer drains the partitions in order, so while the first partition is being
+ * read the others fill their buffers ahead of time. Memory use is bounded by roughly the number of
+ * partitions times the buffer size (in events) of each partition.
+ *
+ * <p>Closing this stream signals the producers to stop; they close their own database resources
+ * asynchronously.
+ *
+ * @author slominskir
+ * @param <T> The Event type
+ */
+class PartitionedEventStream<T extends Event> extends EventStream<T> {
+
+  /** The number of events handed from a producer to the consumer at a time. */
+  static final int CHUNK_SIZE = 1024;
+
+  private final List<Partition> partitions = new ArrayList<>();
+  private final List<T> endMarker = new ArrayList<>(0);
+
+  private volatile boolean open = true;
+
+  private int current = 0;
+  private List<T> chunk = null;
+  private int position = 0;
+
+  /**
+   * Create a new PartitionedEventStream and start fetching.
+   *
+   * @param params The interval query parameters
+   * @param partitionCount The number of partitions
+   * @param bufferSize The max number of events buffered per partition
+   * @param opener Opens a (non-partitioned) stream for a single partition
+   */
+  PartitionedEventStream(
+      IntervalQueryParams<T> params,
+      int partitionCount,
+      int bufferSize,
+      PartitionOpener<T> opener) {
+    super(params.getMetadata().getType());
+
+    if (partitionCount < 1) {
+      throw new IllegalArgumentException("partitionCount must be at least 1");
+    }
+
+    Instant begin = params.getBegin();
+    Instant end = params.getEnd();
+    Duration total = Duration.between(begin, end);
+
+    if (total.isNegative() || total.isZero()) {
+      partitionCount = 1;
+    }
+
+    int capacity = Math.max(1, bufferSize / CHUNK_SIZE);
+    Instant partitionBegin = begin;
+
+    for (int i = 1; i <= partitionCount; i++) {
+      Instant partitionEnd =
+          i == partitionCount ? end : begin.plus(total.multipliedBy(i).dividedBy(partitionCount));
+
+      IntervalQueryParams<T> partitionParams =
+          new IntervalQueryParams<>(
+              params.getMetadata(),
+              params.isUpdatesOnly(),
+              DataNexus.IntervalQueryFetchStrategy.STREAM,
+              partitionBegin,
+              partitionEnd);
+
+      partitions.add(new Partition(partitionParams, capacity, opener));
+
+      partitionBegin = partitionEnd;
+    }
+
+    int i = 0;
+    for (Partition partition : partitions) {
+      Thread thread =
+          new Thread(partition, "jmyapi-partition-" + params.getMetadata().getId() + "-" + i++);
+      thread.setDaemon(true);
+      partition.thread = thread;
+      thread.start();
+    }
+  }
+
+  @Override
+  public T read() throws ClosedChannelException, IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+
+    while (true) {
+      if (chunk != null && position < chunk.size()) {
+        return chunk.get(position++);
+      }
+
+      if (current == partitions.size()) {
+        return null;
+      }
+
+      Partition partition = partitions.get(current);
+      List<T> next;
+
+      try {
+        next = partition.queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for partition");
+      }
+
+      if (next == endMarker) {
+        if (partition.error != null) {
+          throw new IOException("Unable to fetch partition " + current, partition.error);
+        }
+
+        current++;
+        chunk = null;
+      } else {
+        chunk = next;
+        position = 0;
+      }
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+
+    for (Partition partition : partitions) {
+      partition.thread.interrupt();
+    }
+  }
+
+  /** Opens a stream for a single partition. */
+  @FunctionalInterface
+  interface PartitionOpener<T extends Event> {
+    /**
+     * Open a stream for the specified sub-interval.
+     *
+     * @param params The partition parameters
+     * @return The stream
+     * @throws SQLException If unable to query the database
+     */
+    EventStream<T> open(IntervalQueryParams<T> params) throws SQLException;
+  }
+
+  /** The producer of a single partition. */
+  private class Partition implements Runnable {
+    final IntervalQueryParams<T> params;
+    final BlockingQueue<List<T>> queue;
+    final PartitionOpener<T> opener;
+    Thread thread;
+
+    /** Written before the end marker is queued, so visible to the consumer once it is taken. */
+    Exception error;
+
+    Partition(IntervalQueryParams<T> params, int capacity, PartitionOpener<T> opener) {
+      this.params = params;
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.opener = opener;
+    }
+
+    @Override
+    public void run() {
+      try (EventStream<T> stream = opener.open(params)) {
+        List<T> buffer = new ArrayList<>(CHUNK_SIZE);
+        T event;
+
+        while (open && (event = stream.read()) != null) {
+          buffer.add(event);
+
+          if (buffer.size() == CHUNK_SIZE) {
+            queue.put(buffer);
+            buffer = new ArrayList<>(CHUNK_SIZE);
+          }
+        }
+
+        if (!buffer.isEmpty()) {
+          queue.put(buffer);
+        }
+      } catch (InterruptedException e) {
+        return; // Stream closed
+      } catch (SQLException | IOException | RuntimeException e) {
+        error = e;
+      }
+
+      try {
+        queue.put(endMarker);
+      } catch (InterruptedException e) {
+        // Stream closed
+      }
+    }
+  }
+}
@@ -0,0 +1,305 @@
+package org.jlab.mya.nexus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.Event;
+
+/**
+ * A bounded cache of prior-point lookups (the last event at or before a point in time) keyed by PV
+ * (Metadata id) and whether only updates are included.
+ *
+ * <p>Each cached event is stored together with the validity interval it covers. An event found at
+ * or before time T proves that there are no events between its own timestamp and T, so the same
+ * event is the answer for a lookup at any time T' in that interval. A later lookup anywhere in a
+ * known interval is answered from memory, and lookups which find an already cached event extend its
+ * interval. A lookup which finds nothing is cached too, since no event exists before T either.
+ *
+ * <p>The validity of an interval is capped at the immutable age before now since the archiver may
+ * still be adding events after the last one. The least recently used PVs are evicted once the total
+ * number of cached events exceeds the max size.
+ *
+ * <p>A cache is enabled by assigning it to a DataNexus via DataNexus.setPointCache(). Only lookups
+ * of events less than (or equal to) a point in time are cached. This class is thread-safe.
+ *
+ * @author slominskir
+ */
+public class PointCache {
+
+  /** The key of the entry which represents "no event". */
+  private static final long NO_EVENT = Long.MIN_VALUE;
+
+  private final int maxSize;
+  private final Duration immutableAge;
+  private final Clock clock;
+
+  private final LinkedHashMap<Long, TreeMap<Long, Entry>> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private int size = 0;
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  /**
+   * Create a new PointCache with the default immutable age.
+   *
+   * @param maxSize The max number of events to cache
+   */
+  public PointCache(int maxSize) {
+    this(maxSize, DataNexus.DEFAULT_IMMUTABLE_AGE);
+  }
+
+  /**
+   * Create a new PointCache.
+   *
+   * @param maxSize The max number of events to cache
+   * @param immutableAge The age before now after which no lookup is considered valid
+   */
+  public PointCache(int maxSize, Duration immutableAge) {
+    this(maxSize, immutableAge, Clock.systemUTC());
+  }
+
+  /**
+   * Create a new PointCache with the specified clock.
+   *
+   * @param maxSize The max number of events to cache
+   * @param immutableAge The age before now after which no lookup is considered valid
+   * @param clock The source of the current time
+   */
+  PointCache(int maxSize, Duration immutableAge, Clock clock) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be at least 1");
+    }
+
+    this.maxSize = maxSize;
+    this.immutableAge = immutableAge;
+    this.clock = clock;
+  }
+
+  private static long key(int metadataId, boolean updatesOnly) {
+    return ((long) metadataId << 1) | (updatesOnly ? 1 : 0);
+  }
+
+  /**
+   * Return the last Mya timestamp which the supplied lookup proves has no later event, which is
+   * the point in time itself unless it is exclusive.
+   *
+   * @param params The PointQueryParams
+   * @param timestamp The Mya timestamp of the point in time
+   * @return The Mya timestamp
+   */
+  private static long lastCovered(PointQueryParams params, long timestamp) {
+    return params.isOrEqual() ? timestamp : timestamp - 1;
+  }
+
+  /**
+   * Lookup the cached entry which answers a prior-point lookup.
+   *
+   * @param params The PointQueryParams, which must search less than the point in time
+   * @return The entry, or null if the answer is unknown
+   */
+  Entry lookup(PointQueryParams params) {
+    return lookup(params, TimeUtil.toMyaTimestamp(params.getTimestamp()));
+  }
+
+  /**
+   * Lookup the cached entry which answers a prior-point lookup at an explicit point in time. The
+   * timestamp of the params is ignored.
+   *
+   * @param params The PointQueryParams, which must search less than the point in time
+   * @param timestamp The Mya timestamp of the point in time
+   * @return The entry, or null if the answer is unknown
+   */
+  synchronized Entry lookup(PointQueryParams params, long timestamp) {
+    Entry entry = null;
+    TreeMap<Long, Entry> events =
+        entries.get(key(params.getMetadata().getId(), params.isUpdatesOnly()));
+
+    if (events != null) {
+      long last = lastCovered(params, timestamp);
+      Map.Entry<Long, Entry> floor = events.floorEntry(last);
+
+      if (floor != null && last <= floor.getValue().validUntil) {
+        entry = floor.getValue();
+      }
+    }
+
+    if (entry == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+
+    return entry;
+  }
+
+  /**
+   * Cache the result of a prior-point lookup. If the event is already cached its validity interval
+   * is extended.
+   *
+   * @param params The PointQueryParams, which must search less than the point in time
+   * @param event The event found or null if none
+   */
+  void put(PointQueryParams params, Event event) {
+    put(params, TimeUtil.toMyaTimestamp(params.getTimestamp()), event);
+  }
+
+  /**
+   * Cache the result of a prior-point lookup at an explicit point in time. The timestamp of the
+   * params is ignored.
+   *
+   * @param params The PointQueryParams, which must search less than the point in time
+   * @param pointTimestamp The Mya timestamp of the point in time
+   * @param event The event found or null if none
+   */
+  synchronized void put(PointQueryParams params, long pointTimestamp, Event event) {
+    long horizon = TimeUtil.toMyaTimestamp(clock.instant().minus(immutableAge));
+    long validUntil = Math.min(lastCovered(params, pointTimestamp), horizon);
+    long timestamp = event == null ? NO_EVENT : event.getTimestamp();
+
+    if (validUntil < timestamp) {
+      return;
+    }
+
+    long key = key(params.getMetadata().getId(), params.isUpdatesOnly());
+    TreeMap<Long, Entry> events = entries.computeIfAbsent(key, k -> new TreeMap<>());
+    Entry existing = events.get(timestamp);
+
+    if (existing != null) {
+      if (validUntil > existing.validUntil) {
+        events.put(timestamp, new Entry(event, validUntil));
+      }
+      return;
+    }
+
+    events.put(timestamp, new Entry(event, validUntil));
+    size++;
+
+    Iterator<Map.Entry<Long, TreeMap<Long, Entry>>> iterator = entries.entrySet().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      Map.Entry<Long, TreeMap<Long, Entry>> eldest = iterator.next();
+
+      if (eldest.getKey() == key) {
+        continue;
+      }
+
+      size = size - eldest.getValue().size();
+      evictions = evictions + eldest.getValue().size();
+      iterator.remove();
+    }
+
+    // Only the most recent PV remains, so drop its oldest events
+    while (size > maxSize) {
+      events.pollFirstEntry();
+      size--;
+      evictions++;
+    }
+  }
+
+  /**
+   * Remove all cached events of a single PV, for example after its history has been modified.
+   *
+   * @param metadata The PV metadata
+   */
+  public synchronized void invalidate(Metadata metadata) {
+    for (boolean updatesOnly : new boolean[] {false, true}) {
+      TreeMap<Long, Entry> events = entries.remove(key(metadata.getId(), updatesOnly));
+
+      if (events != null) {
+        size = size - events.size();
+      }
+    }
+  }
+
+  /** Remove all entries. Statistics are not reset. */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    size = 0;
+  }
+
+  /**
+   * Return the number of events currently cached.
+   *
+   * @return The number of events
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Return the max number of events.
+   *
+   * @return The max size
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Return the number of lookups answered from the cache.
+   *
+   * @return The number of hits
+   */
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  /**
+   * Return the number of lookups which had to query the database.
+   *
+   * @return The number of misses
+   */
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  /**
+   * Return the number of events evicted to make room for new events.
+   *
+   * @return The number of evictions
+   */
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
+  /**
+   * Returns a String representation of this PointCache.
+   *
+   * @return The String representation
+   */
+  @Override
+  public synchronized String toString() {
+    return "PointCache{"
+        + "size="
+        + size
+        + ", maxSize="
+        + maxSize
+        + ", hits="
+        + hits
+        + ", misses="
+        + misses
+        + ", evictions="
+        + evictions
+        + '}';
+  }
+
+  /** A cached event and the last Mya timestamp for which it is the prior point. */
+  static final class Entry {
+    /** The event or null if there is no event. */
+    final Event event;
+
+    /** The last Mya timestamp (inclusive) before which no other event occurs after this one. */
+    final long validUntil;
+
+    Entry(Event event, long validUntil) {
+      this.event = event;
+      this.validUntil = validUntil;
+    }
+  }
+}
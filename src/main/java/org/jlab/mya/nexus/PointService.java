@@ -4,6 +4,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.jlab.mya.Metadata;
 import org.jlab.mya.TimeUtil;
 import org.jlab.mya.event.Event;
 import org.jlab.mya.event.FloatEvent;
@@ -17,6 +21,12 @@ import org.jlab.mya.event.MultiStringEvent;
  */
 class PointService extends QueryService {
 
+  /**
+   * The max number of point queries combined into a single statement by findEvents. Larger unions
+   * mean fewer round trips but longer SQL text and more work per statement.
+   */
+  static final int MAX_POINTS_PER_STATEMENT = 256;
+
   /**
    * Create a new PointService with the provided DataNexus.
    *
@@ -29,6 +39,9 @@ class PointService extends QueryService {
   /**
    * Find an event associated with the specified PointQueryParams.
    *
+   * <p>If the DataNexus has a PointCache then a lookup of the event before the point in time may
+   * be answered from memory, and otherwise the result is added to the cache.
+   *
    * @param params The PointQueryParams
    * @param <T> The event type
    * @return An Event or null if none found
@@ -36,7 +49,33 @@ class PointService extends QueryService {
    */
   @SuppressWarnings("unchecked")
   public <T extends Event> T findEvent(PointQueryParams<T> params) throws SQLException {
+    PointCache cache = nexus.getPointCache();
+
+    if (cache == null || !params.isLessThan()) {
+      return findUncachedEvent(params);
+    }
+
+    PointCache.Entry entry = cache.lookup(params);
 
+    if (entry != null) {
+      return (T) entry.event;
+    }
+
+    T event = findUncachedEvent(params);
+    cache.put(params, event);
+    return event;
+  }
+
+  /**
+   * Find an event in the database, bypassing the point cache.
+   *
+   * @param params The PointQueryParams
+   * @param <T> The event type
+   * @return An Event or null if none found
+   * @throws SQLException If unable to query the database
+   */
+  @SuppressWarnings("unchecked")
+  private <T extends Event> T findUncachedEvent(PointQueryParams<T> params) throws SQLException {
     T event;
 
     if (params.getMetadata().getType() == FloatEvent.class) {
@@ -50,6 +89,91 @@ class PointService extends QueryService {
     return event;
   }
 
+  /**
+   * Find the events at many points in time at once. The points are resolved in as few statements
+   * as possible on a single connection, each a union of up to MAX_POINTS_PER_STATEMENT indexed
+   * point queries. The timestamp of the params is ignored.
+   *
+   * <p>If the DataNexus has a PointCache then lookups of the events before the points in time are
+   * answered from memory where possible, and the rest are added to the cache.
+   *
+   * @param params The PointQueryParams providing the PV and the kind of search
+   * @param timestamps The Mya timestamps of the points in time
+   * @param <T> The event type
+   * @return The events, in the same order as the timestamps, with null where none found
+   * @throws SQLException If unable to query the database
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Event> List<T> findEvents(PointQueryParams<T> params, long[] timestamps)
+      throws SQLException {
+    List<T> events = new ArrayList<>(Collections.nCopies(timestamps.length, null));
+    PointCache cache = params.isLessThan() ? nexus.getPointCache() : null;
+
+    int[] missing = new int[timestamps.length];
+    int missingCount = 0;
+
+    for (int i = 0; i < timestamps.length; i++) {
+      PointCache.Entry entry = cache == null ? null : cache.lookup(params, timestamps[i]);
+
+      if (entry == null) {
+        missing[missingCount++] = i;
+      } else {
+        events.set(i, (T) entry.event);
+      }
+    }
+
+    if (missingCount == 0) {
+      return events;
+    }
+
+    Metadata<T> metadata = params.getMetadata();
+
+    try (Connection con = nexus.getConnection(metadata.getHost())) {
+      for (int from = 0; from < missingCount; from = from + MAX_POINTS_PER_STATEMENT) {
+        int count = Math.min(MAX_POINTS_PER_STATEMENT, missingCount - from);
+
+        try (PreparedStatement stmt = generator.getEventPointsStatement(con, params, count)) {
+          for (int i = 0; i < count; i++) {
+            stmt.setLong(i + 1, timestamps[missing[from + i]]);
+          }
+
+          try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+              int index = missing[from + rs.getInt("idx")];
+              events.set(index, (T) eventFromRow(rs, metadata));
+            }
+          }
+        }
+      }
+    }
+
+    if (cache != null) {
+      for (int i = 0; i < missingCount; i++) {
+        cache.put(params, timestamps[missing[i]], events.get(missing[i]));
+      }
+    }
+
+    return events;
+  }
+
+  /**
+   * Create an event of the type of the PV from a row.
+   *
+   * @param rs The ResultSet positioned at the row
+   * @param metadata The PV metadata
+   * @return The event
+   * @throws SQLException If unable to read the row
+   */
+  private Event eventFromRow(ResultSet rs, Metadata metadata) throws SQLException {
+    if (metadata.getType() == FloatEvent.class) {
+      return floatFromRow(rs);
+    } else if (metadata.getType() == IntEvent.class) {
+      return intFromRow(rs);
+    } else {
+      return fromRow(rs, metadata.getSize());
+    }
+  }
+
   /**
    * Find a float-valued event associated with the specified PointQueryParams.
    *
@@ -0,0 +1,166 @@
+package org.jlab.mya.nexus;
+
+/**
+ * A point-in-time snapshot of the statistics of a single host connection pool managed by a
+ * StandalonePooledNexus.
+ *
+ * @author slominskir
+ */
+public final class PoolStats {
+
+  private final String host;
+  private final int maxSize;
+  private final int active;
+  private final int idle;
+  private final long created;
+  private final long destroyed;
+  private final long borrowed;
+  private final long validationFailures;
+  private final long timeouts;
+
+  /**
+   * Create a new PoolStats.
+   *
+   * @param host The Mya host name
+   * @param maxSize The max number of connections the pool will open
+   * @param active The number of connections currently borrowed
+   * @param idle The number of connections currently idle in the pool
+   * @param created The total number of physical connections opened
+   * @param destroyed The total number of physical connections closed
+   * @param borrowed The total number of times a connection was borrowed
+   * @param validationFailures The total number of idle connections found to be invalid
+   * @param timeouts The total number of borrow attempts that timed out waiting for a connection
+   */
+  PoolStats(
+      String host,
+      int maxSize,
+      int active,
+      int idle,
+      long created,
+      long destroyed,
+      long borrowed,
+      long validationFailures,
+      long timeouts) {
+    this.host = host;
+    this.maxSize = maxSize;
+    this.active = active;
+    this.idle = idle;
+    this.created = created;
+    this.destroyed = destroyed;
+    this.borrowed = borrowed;
+    this.validationFailures = validationFailures;
+    this.timeouts = timeouts;
+  }
+
+  /**
+   * Return the Mya host name.
+   *
+   * @return The host name
+   */
+  public String getHost() {
+    return host;
+  }
+
+  /**
+   * Return the max number of connections the pool will open at once.
+   *
+   * @return The max size
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Return the number of connections currently borrowed from the pool.
+   *
+   * @return The number of active connections
+   */
+  public int getActive() {
+    return active;
+  }
+
+  /**
+   * Return the number of open connections currently waiting in the pool.
+   *
+   * @return The number of idle connections
+   */
+  public int getIdle() {
+    return idle;
+  }
+
+  /**
+   * Return the total number of physical connections opened by the pool.
+   *
+   * @return The number of connections created
+   */
+  public long getCreated() {
+    return created;
+  }
+
+  /**
+   * Return the total number of physical connections closed by the pool (evicted, invalid, or
+   * closed on shutdown).
+   *
+   * @return The number of connections destroyed
+   */
+  public long getDestroyed() {
+    return destroyed;
+  }
+
+  /**
+   * Return the total number of times a connection was handed out by the pool. The difference
+   * between this and the number of connections created is the number of handshakes saved.
+   *
+   * @return The number of borrows
+   */
+  public long getBorrowed() {
+    return borrowed;
+  }
+
+  /**
+   * Return the total number of idle connections that failed validation and were discarded.
+   *
+   * @return The number of validation failures
+   */
+  public long getValidationFailures() {
+    return validationFailures;
+  }
+
+  /**
+   * Return the total number of borrow attempts that gave up waiting for a free connection.
+   *
+   * @return The number of timeouts
+   */
+  public long getTimeouts() {
+    return timeouts;
+  }
+
+  /**
+   * Returns a String representation of this PoolStats.
+   *
+   * @return The String representation
+   */
+  @Override
+  public String toString() {
+    return "PoolStats{"
+        + "host="
+        + host
+        + ", maxSize="
+        + maxSize
+        + ", active="
+        + active
+        + ", idle="
+        + idle
+        + ", created="
+        + created
+        + ", destroyed="
+        + destroyed
+        + ", borrowed="
+        + borrowed
+        + ", validationFailures="
+        + validationFailures
+        + ", timeouts="
+        + timeouts
+        + '}';
+  }
+}
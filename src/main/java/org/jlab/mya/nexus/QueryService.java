@@ -8,8 +8,14 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.TreeMap;
 import org.jlab.mya.*;
 import org.jlab.mya.event.*;
 
@@ -29,6 +35,9 @@ abstract class QueryService {
 
   protected final StatementGenerator generator = new StatementGenerator();
 
+  /** The max number of names resolved by a single bulk metadata query. */
+  static final int METADATA_CHUNK_SIZE = 500;
+
   /**
    * Create a new QueryService with the provided DataNexus.
    *
@@ -101,12 +110,24 @@ abstract class QueryService {
   /**
    * Query for PV metadata given PV name.
    *
+   * <p>If the DataNexus has a MetadataCache then the cache is consulted first and the result of the
+   * query (including a name not being found) is cached.
+   *
    * @param name The PV name
    * @return PV metadata
    * @throws SQLException If unable to query the database
    */
   @SuppressWarnings("unchecked")
   public Metadata findMetadata(String name) throws SQLException {
+    MetadataCache cache = nexus.getMetadataCache();
+
+    if (cache != null) {
+      MetadataCache.Entry entry = cache.lookup(name);
+      if (entry != null) {
+        return entry.metadata;
+      }
+    }
+
     Metadata metadata;
 
     String master = nexus.getMasterHostName();
@@ -125,9 +146,88 @@ abstract class QueryService {
       }
     }
 
+    if (cache != null) {
+      cache.put(name, metadata);
+    }
+
     return metadata;
   }
 
+  /**
+   * Query for PV metadata given a collection of PV names. Names are resolved in chunks of at most
+   * METADATA_CHUNK_SIZE names per query on a single connection, so resolving a large list of names
+   * costs only a few round trips.
+   *
+   * <p>Names are matched as the database matches them, which is normally case-insensitive, and
+   * each result is keyed by the name as requested rather than as stored.
+   *
+   * <p>If the DataNexus has a MetadataCache then only names which are not cached are queried and
+   * the results (including names not found) are cached.
+   *
+   * @param names The PV names
+   * @return The PV metadata keyed by name, in the iteration order of the names provided; names
+   *     which are not found are omitted
+   * @throws SQLException If unable to query the database
+   */
+  public Map<String, Metadata> findMetadata(Collection<String> names) throws SQLException {
+    Set<String> unique = new LinkedHashSet<>(names);
+    // The database compares names case-insensitively so rows are matched back to the requested
+    // names the same way, consistent with the single name lookup
+    Map<String, Metadata> found = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    List<String> remaining = new ArrayList<>();
+
+    MetadataCache cache = nexus.getMetadataCache();
+
+    for (String name : unique) {
+      MetadataCache.Entry entry = cache == null ? null : cache.lookup(name);
+      if (entry == null) {
+        remaining.add(name);
+      } else if (entry.metadata != null) {
+        found.put(name, entry.metadata);
+      }
+    }
+
+    if (!remaining.isEmpty()) {
+      String master = nexus.getMasterHostName();
+      try (Connection con = nexus.getConnection(master)) {
+        for (int i = 0; i < remaining.size(); i = i + METADATA_CHUNK_SIZE) {
+          List<String> chunk =
+              remaining.subList(i, Math.min(i + METADATA_CHUNK_SIZE, remaining.size()));
+
+          try (PreparedStatement stmt = generator.getMetadataListStatement(con, chunk.size())) {
+            for (int j = 0; j < chunk.size(); j++) {
+              stmt.setString(j + 1, chunk.get(j));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+              while (rs.next()) {
+                Metadata metadata = unmarshallMetadata(rs);
+                found.put(metadata.getName(), metadata);
+              }
+            }
+          }
+        }
+      }
+
+      if (cache != null) {
+        for (String name : remaining) {
+          cache.put(name, found.get(name));
+        }
+      }
+    }
+
+    Map<String, Metadata> metadataMap = new LinkedHashMap<>();
+
+    for (String name : unique) {
+      Metadata metadata = found.get(name);
+      if (metadata != null) {
+        metadataMap.put(name, metadata);
+      }
+    }
+
+    return metadataMap;
+  }
+
   @SuppressWarnings("unchecked")
   private Metadata unmarshallMetadata(ResultSet rs) throws SQLException {
     int id = rs.getInt("chan_id");
@@ -0,0 +1,584 @@
+package org.jlab.mya.nexus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.mya.event.EventBatch;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEventBatch;
+import org.jlab.mya.event.IntEventBatch;
+
+/**
+ * A single day partition of the local segment cache of one channel.
+ *
+ * <p>A segment records which time ranges of the day have been fetched (its coverage) and the events
+ * within those ranges, stored in columns: timestamps, code numbers, and values. A zone map with the
+ * min/max timestamp of the segment allows whole segments to be skipped without reading their
+ * columns. The min/max value (of data events) is recorded in the zone map as well, but since no
+ * request filters on value it is informational only. Segments are immutable; adding a range creates
+ * a new segment which replaces the old file atomically. Segment files are read by memory-mapping
+ * them, so a segment must fit in a single mapping and holds at most MAX_EVENTS events.
+ *
+ * <p>File layout (big-endian): magic, version, value type, range count, ranges (begin, end pairs),
+ * event count, zone map (min time, max time, min value, max value), timestamps, codes, values. All
+ * times are Mya timestamps and ranges are half-open [begin, end).
+ *
+ * @author slominskir
+ */
+final class Segment {
+
+  /** Segment file magic number. */
+  static final int MAGIC = 0x4D594153;
+
+  /** Segment file format version. */
+  static final int VERSION = 1;
+
+  /** Value type of a segment of float-valued events. */
+  static final byte FLOAT_VALUES = 0;
+
+  /** Value type of a segment of int-valued events. */
+  static final byte INT_VALUES = 1;
+
+  /** The largest file which can be memory-mapped as a single buffer. */
+  private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+  /** The number of bytes per event: timestamp, code, and value. */
+  private static final int EVENT_SIZE = 8 + 1 + 4;
+
+  /**
+   * The maximum number of events in a segment, leaving room for the header and a generous number
+   * of covered ranges.
+   */
+  static final int MAX_EVENTS = (int) ((MAX_SIZE - (1 << 20)) / EVENT_SIZE);
+
+  /** Data (update) event code numbers, indexed by code number. */
+  private static final boolean[] DATA_CODES = new boolean[256];
+
+  static {
+    for (EventCode code : EventCode.getDataEventCodes()) {
+      DATA_CODES[code.getCodeNumber()] = true;
+    }
+  }
+
+  private final byte valueType;
+  private final long[] rangeBegins;
+  private final long[] rangeEnds;
+  private final int count;
+  private final long minTime;
+  private final long maxTime;
+  private final double minValue;
+  private final double maxValue;
+
+  private final ByteBuffer buffer;
+  private final int timestampsOffset;
+  private final int codesOffset;
+  private final int valuesOffset;
+
+  /**
+   * Create a new Segment backed by an encoded buffer.
+   *
+   * @param buffer The encoded segment
+   * @throws IOException If the buffer is not a valid segment
+   */
+  private Segment(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+
+    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IOException("Not a segment file or unsupported version");
+    }
+
+    int position = 8;
+    valueType = buffer.get(position);
+    position = position + 1;
+
+    int rangeCount = buffer.getInt(position);
+    position = position + 4;
+
+    if (rangeCount < 0 || (long) position + rangeCount * 16L + 36 > buffer.limit()) {
+      throw new IOException("Truncated segment file");
+    }
+
+    rangeBegins = new long[rangeCount];
+    rangeEnds = new long[rangeCount];
+
+    for (int i = 0; i < rangeCount; i++) {
+      rangeBegins[i] = buffer.getLong(position);
+      rangeEnds[i] = buffer.getLong(position + 8);
+      position = position + 16;
+    }
+
+    count = buffer.getInt(position);
+    minTime = buffer.getLong(position + 4);
+    maxTime = buffer.getLong(position + 12);
+    minValue = buffer.getDouble(position + 20);
+    maxValue = buffer.getDouble(position + 28);
+    position = position + 36;
+
+    if (count < 0 || count > MAX_EVENTS || buffer.limit() < position + (long) count * EVENT_SIZE) {
+      throw new IOException("Truncated segment file");
+    }
+
+    // Offsets fit in an int since the whole segment fits in a single buffer
+    timestampsOffset = position;
+    codesOffset = timestampsOffset + count * 8;
+    valuesOffset = codesOffset + count;
+  }
+
+  /**
+   * Create a new empty segment with no coverage.
+   *
+   * @param valueType The value type
+   * @return The segment
+   */
+  static Segment empty(byte valueType) {
+    try {
+      return new Segment(
+          encode(valueType, new long[0], new long[0], 0, new long[0], new byte[0], null, null));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Open a segment file by memory-mapping it.
+   *
+   * @param file The file
+   * @return The segment or null if the file does not exist
+   * @throws IOException If unable to read the file
+   */
+  static Segment open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > MAX_SIZE) {
+        throw new IOException("Segment file too large to map: " + file);
+      }
+
+      return new Segment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Write this segment to a file, atomically replacing any existing file.
+   *
+   * @param file The file
+   * @throws IOException If unable to write the file
+   */
+  void write(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+    try {
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        ByteBuffer data = buffer.duplicate();
+        data.position(0);
+        while (data.hasRemaining()) {
+          channel.write(data);
+        }
+      }
+
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Create a new segment which adds the specified range, and the events in it, to this segment.
+   *
+   * @param begin The begin of the range (inclusive)
+   * @param end The end of the range (exclusive)
+   * @param events The events in the range, in time order; must not overlap existing coverage
+   * @return The new segment
+   * @throws IllegalArgumentException If the new segment would hold more than MAX_EVENTS events
+   */
+  Segment add(long begin, long end, EventBatch<?> events) {
+    if ((long) count + events.size() > MAX_EVENTS) {
+      throw new IllegalArgumentException("Segment would exceed " + MAX_EVENTS + " events");
+    }
+
+    // Coverage
+    List<long[]> ranges = new ArrayList<>();
+    for (int i = 0; i < rangeBegins.length; i++) {
+      ranges.add(new long[] {rangeBegins[i], rangeEnds[i]});
+    }
+    ranges.add(new long[] {begin, end});
+    ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+
+    List<long[]> merged = new ArrayList<>();
+    for (long[] range : ranges) {
+      long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      if (last != null && range[0] <= last[1]) {
+        last[1] = Math.max(last[1], range[1]);
+      } else {
+        merged.add(range);
+      }
+    }
+
+    long[] begins = new long[merged.size()];
+    long[] ends = new long[merged.size()];
+    for (int i = 0; i < merged.size(); i++) {
+      begins[i] = merged.get(i)[0];
+      ends[i] = merged.get(i)[1];
+    }
+
+    // Events; both lists are sorted and the new events fall in a gap so merge by timestamp
+    int total = count + events.size();
+    long[] timestamps = new long[total];
+    byte[] codes = new byte[total];
+    float[] floatValues = valueType == FLOAT_VALUES ? new float[total] : null;
+    int[] intValues = valueType == INT_VALUES ? new int[total] : null;
+
+    int i = 0;
+    int j = 0;
+    for (int k = 0; k < total; k++) {
+      boolean fromThis =
+          j == events.size() || (i < count && getTimestamp(i) <= events.getTimestamp(j));
+
+      if (fromThis) {
+        timestamps[k] = getTimestamp(i);
+        codes[k] = (byte) getCodeNumber(i);
+        if (floatValues != null) {
+          floatValues[k] = getFloatValue(i);
+        } else {
+          intValues[k] = getIntValue(i);
+        }
+        i++;
+      } else {
+        timestamps[k] = events.getTimestamp(j);
+        codes[k] = (byte) events.getCodeNumber(j);
+        if (floatValues != null) {
+          floatValues[k] = ((FloatEventBatch) events).getValue(j);
+        } else {
+          intValues[k] = ((IntEventBatch) events).getValue(j);
+        }
+        j++;
+      }
+    }
+
+    try {
+      return new Segment(
+          encode(valueType, begins, ends, total, timestamps, codes, floatValues, intValues));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Encode a segment.
+   *
+   * @param valueType The value type
+   * @param begins The begin of each covered range
+   * @param ends The end of each covered range
+   * @param count The number of events
+   * @param timestamps The event timestamps
+   * @param codes The event code numbers
+   * @param floatValues The event values if float-valued, otherwise null
+   * @param intValues The event values if int-valued, otherwise null
+   * @return The encoded segment
+   */
+  private static ByteBuffer encode(
+      byte valueType,
+      long[] begins,
+      long[] ends,
+      int count,
+      long[] timestamps,
+      byte[] codes,
+      float[] floatValues,
+      int[] intValues) {
+    long size = 8 + 1 + 4 + begins.length * 16L + 36 + (long) count * EVENT_SIZE;
+
+    if (size > MAX_SIZE) {
+      throw new IllegalArgumentException("Segment too large to map: " + size + " bytes");
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    buffer.put(valueType);
+    buffer.putInt(begins.length);
+    for (int i = 0; i < begins.length; i++) {
+      buffer.putLong(begins[i]);
+      buffer.putLong(ends[i]);
+    }
+
+    // Zone map
+    double min = Double.NaN;
+    double max = Double.NaN;
+    for (int i = 0; i < count; i++) {
+      if (DATA_CODES[codes[i] & 0xFF]) {
+        double value = floatValues != null ? floatValues[i] : intValues[i];
+        if (Double.isNaN(min) || value < min) {
+          min = value;
+        }
+        if (Double.isNaN(max) || value > max) {
+          max = value;
+        }
+      }
+    }
+
+    buffer.putInt(count);
+    buffer.putLong(count == 0 ? Long.MAX_VALUE : timestamps[0]);
+    buffer.putLong(count == 0 ? Long.MIN_VALUE : timestamps[count - 1]);
+    buffer.putDouble(min);
+    buffer.putDouble(max);
+
+    for (int i = 0; i < count; i++) {
+      buffer.putLong(timestamps[i]);
+    }
+    buffer.put(codes, 0, count);
+    for (int i = 0; i < count; i++) {
+      if (floatValues != null) {
+        buffer.putFloat(floatValues[i]);
+      } else {
+        buffer.putInt(intValues[i]);
+      }
+    }
+
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Return whether the range [begin, end) is entirely covered by this segment.
+   *
+   * @param begin The begin (inclusive)
+   * @param end The end (exclusive)
+   * @return true if covered
+   */
+  boolean covers(long begin, long end) {
+    int index = rangeContaining(begin);
+    return index != -1 && end <= rangeEnds[index];
+  }
+
+  /**
+   * Return the sub-ranges of [begin, end) which are not covered by this segment.
+   *
+   * @param begin The begin (inclusive)
+   * @param end The end (exclusive)
+   * @return The uncovered ranges, in time order, as begin and end pairs
+   */
+  List<long[]> uncovered(long begin, long end) {
+    List<long[]> gaps = new ArrayList<>();
+    long position = begin;
+
+    for (int i = 0; i < rangeBegins.length && position < end; i++) {
+      if (rangeEnds[i] <= position) {
+        continue;
+      }
+      if (rangeBegins[i] > position) {
+        gaps.add(new long[] {position, Math.min(rangeBegins[i], end)});
+      }
+      position = rangeEnds[i];
+    }
+
+    if (position < end) {
+      gaps.add(new long[] {position, end});
+    }
+
+    return gaps;
+  }
+
+  /**
+   * Return the index of the covered range which contains a timestamp.
+   *
+   * @param timestamp The Mya timestamp
+   * @return The range index or -1 if not covered
+   */
+  int rangeContaining(long timestamp) {
+    for (int i = 0; i < rangeBegins.length; i++) {
+      if (rangeBegins[i] <= timestamp && timestamp < rangeEnds[i]) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Return the begin of a covered range.
+   *
+   * @param index The range index
+   * @return The begin (inclusive)
+   */
+  long getRangeBegin(int index) {
+    return rangeBegins[index];
+  }
+
+  /**
+   * Return the end of a covered range.
+   *
+   * @param index The range index
+   * @return The end (exclusive)
+   */
+  long getRangeEnd(int index) {
+    return rangeEnds[index];
+  }
+
+  /**
+   * Return the index of the first event with a timestamp at or after the specified timestamp.
+   *
+   * @param timestamp The Mya timestamp
+   * @return The index, which is size() if there is no such event
+   */
+  int lowerBound(long timestamp) {
+    if (timestamp <= minTime) {
+      return 0;
+    }
+    if (timestamp > maxTime) {
+      return count;
+    }
+
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getTimestamp(mid) < timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Count the events in the range [begin, end).
+   *
+   * @param begin The begin (inclusive)
+   * @param end The end (exclusive)
+   * @param updatesOnly true to count only data (update) events
+   * @return The count
+   */
+  long count(long begin, long end, boolean updatesOnly) {
+    if (count == 0 || begin > maxTime || end <= minTime) {
+      return 0;
+    }
+
+    int from = lowerBound(begin);
+    int to = lowerBound(end);
+
+    if (!updatesOnly) {
+      return to - from;
+    }
+
+    long updates = 0;
+    for (int i = from; i < to; i++) {
+      if (isData(i)) {
+        updates++;
+      }
+    }
+    return updates;
+  }
+
+  /**
+   * Return the value type.
+   *
+   * @return The value type
+   */
+  byte getValueType() {
+    return valueType;
+  }
+
+  /**
+   * Return the number of events.
+   *
+   * @return The number of events
+   */
+  int size() {
+    return count;
+  }
+
+  /**
+   * Return the timestamp of the first event (zone map).
+   *
+   * @return The min timestamp or Long.MAX_VALUE if empty
+   */
+  long getMinTime() {
+    return minTime;
+  }
+
+  /**
+   * Return the timestamp of the last event (zone map).
+   *
+   * @return The max timestamp or Long.MIN_VALUE if empty
+   */
+  long getMaxTime() {
+    return maxTime;
+  }
+
+  /**
+   * Return the min value of the data events (zone map). Informational only; not used for skipping.
+   *
+   * @return The min value or NaN if there are no data events
+   */
+  double getMinValue() {
+    return minValue;
+  }
+
+  /**
+   * Return the max value of the data events (zone map). Informational only; not used for skipping.
+   *
+   * @return The max value or NaN if there are no data events
+   */
+  double getMaxValue() {
+    return maxValue;
+  }
+
+  /**
+   * Return the Mya timestamp of an event.
+   *
+   * @param index The event index
+   * @return The timestamp
+   */
+  long getTimestamp(int index) {
+    return buffer.getLong(timestampsOffset + index * 8);
+  }
+
+  /**
+   * Return the Mya event code number of an event.
+   *
+   * @param index The event index
+   * @return The code number
+   */
+  int getCodeNumber(int index) {
+    return buffer.get(codesOffset + index) & 0xFF;
+  }
+
+  /**
+   * Return whether an event is a data (update) event.
+   *
+   * @param index The event index
+   * @return true if a data event
+   */
+  boolean isData(int index) {
+    return DATA_CODES[getCodeNumber(index)];
+  }
+
+  /**
+   * Return the value of an event of a float-valued segment.
+   *
+   * @param index The event index
+   * @return The value
+   */
+  float getFloatValue(int index) {
+    return buffer.getFloat(valuesOffset + index * 4);
+  }
+
+  /**
+   * Return the value of an event of an int-valued segment.
+   *
+   * @param index The event index
+   * @return The value
+   */
+  int getIntValue(int index) {
+    return buffer.getInt(valuesOffset + index * 4);
+  }
+}
@@ -0,0 +1,425 @@
+package org.jlab.mya.nexus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.Event;
+import org.jlab.mya.event.EventBatch;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
+import org.jlab.mya.event.IntEvent;
+import org.jlab.mya.event.IntEventBatch;
+import org.jlab.mya.stream.EventStream;
+
+/**
+ * A DataNexus which keeps a persistent, read-through cache of archive history on local disk in
+ * front of another DataNexus.
+ *
+ * <p>History older than a few minutes never changes, so once a time range of a channel has been
+ * fetched it is stored in day-partitioned segment files (one file per channel per UTC day) and
+ * later requests for the same range are served by memory-mapping the files instead of streaming
+ * the events from the database again. Only the sub-ranges not yet covered by the cache are queried
+ * and only history older than the immutable age is ever cached; anything more recent always goes to
+ * the database. Each segment keeps a zone map (min/max time) so segments can be skipped without
+ * reading their events.
+ *
+ * <p>The cache serves openEventStream, count, and findEvent for float and int valued channels with
+ * the same ordering and boundary semantics as the database: intervals are [begin, end) and
+ * updatesOnly keeps only update events. A count or findEvent which is not fully answered by the
+ * cache goes to the database without filling the cache; an openEventStream fills the cache. All
+ * other requests, and requests for other channel types, are passed through to the database.
+ *
+ * <p>Filling a segment buffers the uncovered events of the day on the heap and then rewrites the
+ * whole day file, so the cost of extending a segment grows with its size. To bound both, a single
+ * fill fetches at most MAX_FILL_EVENTS events and a segment holds at most as many events as fit in
+ * one memory mapping. A day which exceeds either limit is not cached: it and the rest of the
+ * interval are streamed from the database instead.
+ *
+ * <p>Connections are obtained from the wrapped DataNexus, which remains responsible for closing
+ * them. The cache directory may be shared by several processes since segment files are replaced
+ * atomically, though concurrent fills of the same segment in different processes may discard one
+ * another's coverage.
+ *
+ * @author slominskir
+ */
+public class SegmentCacheNexus extends DataNexus {
+
+  /** The number of events read from the database at a time when filling a segment. */
+  private static final int FETCH_BATCH_SIZE = 4096;
+
+  /** The maximum number of events fetched from the database to fill a segment at once. */
+  public static final int MAX_FILL_EVENTS = 10_000_000;
+
+  private final DataNexus delegate;
+  private final Path directory;
+  private final Duration immutableAge;
+  private final IntervalService intervalService = new IntervalService(this);
+  private final ConcurrentMap<Path, Object> locks = new ConcurrentHashMap<>();
+
+  /**
+   * Create a new SegmentCacheNexus with the default immutable age.
+   *
+   * @param delegate The DataNexus to read through to
+   * @param directory The cache directory
+   */
+  public SegmentCacheNexus(DataNexus delegate, Path directory) {
+    this(delegate, directory, DataNexus.DEFAULT_IMMUTABLE_AGE);
+  }
+
+  /**
+   * Create a new SegmentCacheNexus.
+   *
+   * @param delegate The DataNexus to read through to
+   * @param directory The cache directory
+   * @param immutableAge The age after which history is considered immutable and is cached
+   */
+  public SegmentCacheNexus(DataNexus delegate, Path directory, Duration immutableAge) {
+    super(delegate.getDeployment());
+    this.delegate = delegate;
+    this.directory = directory;
+    this.immutableAge = immutableAge;
+  }
+
+  @Override
+  Connection getConnection(String host) throws SQLException {
+    return delegate.getConnection(host);
+  }
+
+  /**
+   * Return the cache directory.
+   *
+   * @return The directory
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Return the age after which history is considered immutable and is cached.
+   *
+   * @return The immutable age
+   */
+  public Duration getImmutableAge() {
+    return immutableAge;
+  }
+
+  @Override
+  public <T extends Event> EventStream<T> openEventStream(
+      Metadata<T> metadata,
+      Instant begin,
+      Instant end,
+      IntervalQueryFetchStrategy strategy,
+      boolean updatesOnly)
+      throws SQLException {
+    Instant horizon = getHorizon();
+    Instant cachedEnd = end.isBefore(horizon) ? end : horizon;
+
+    if (!isCacheable(metadata) || !begin.isBefore(cachedEnd)) {
+      return super.openEventStream(metadata, begin, end, strategy, updatesOnly);
+    }
+
+    List<SegmentEventStream.Slice> slices = new ArrayList<>();
+
+    for (LocalDate day = dayOf(begin); dayStart(day).isBefore(cachedEnd); day = day.plusDays(1)) {
+      long from = TimeUtil.toMyaTimestamp(max(begin, dayStart(day)));
+      long to = TimeUtil.toMyaTimestamp(min(cachedEnd, dayStart(day.plusDays(1))));
+
+      Segment segment = fill(metadata, day, from, to);
+
+      if (segment == null) {
+        cachedEnd = max(begin, dayStart(day));
+        break;
+      }
+
+      if (segment.size() > 0 && from <= segment.getMaxTime() && to > segment.getMinTime()) {
+        slices.add(
+            new SegmentEventStream.Slice(
+                segment, segment.lowerBound(from), segment.lowerBound(to)));
+      }
+    }
+
+    EventStream<T> tail = null;
+
+    if (cachedEnd.isBefore(end)) {
+      tail = super.openEventStream(metadata, cachedEnd, end, strategy, updatesOnly);
+    }
+
+    return new SegmentEventStream<>(slices, updatesOnly, tail, metadata.getType());
+  }
+
+  @Override
+  public <T extends Event> EventStream<T> openEventStream(
+      Metadata<T> metadata, Instant begin, Instant end) throws SQLException {
+    return openEventStream(metadata, begin, end, IntervalQueryFetchStrategy.STREAM, false);
+  }
+
+  @Override
+  public long count(Metadata metadata, Instant begin, Instant end, boolean updatesOnly)
+      throws SQLException {
+    Instant horizon = getHorizon();
+    Instant cachedEnd = end.isBefore(horizon) ? end : horizon;
+
+    if (!isCacheable(metadata) || !begin.isBefore(cachedEnd)) {
+      return super.count(metadata, begin, end, updatesOnly);
+    }
+
+    long count = 0;
+
+    for (LocalDate day = dayOf(begin); dayStart(day).isBefore(cachedEnd); day = day.plusDays(1)) {
+      long from = TimeUtil.toMyaTimestamp(max(begin, dayStart(day)));
+      long to = TimeUtil.toMyaTimestamp(min(cachedEnd, dayStart(day.plusDays(1))));
+
+      Segment segment = openSegment(metadata, day);
+
+      if (segment == null || !segment.covers(from, to)) {
+        return super.count(metadata, begin, end, updatesOnly);
+      }
+
+      count = count + segment.count(from, to, updatesOnly);
+    }
+
+    if (cachedEnd.isBefore(end)) {
+      count = count + super.count(metadata, cachedEnd, end, updatesOnly);
+    }
+
+    return count;
+  }
+
+  @Override
+  public long count(Metadata metadata, Instant begin, Instant end) throws SQLException {
+    return count(metadata, begin, end, false);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends Event> T findEvent(
+      Metadata<T> metadata,
+      Instant timestamp,
+      boolean lessThan,
+      boolean orEqual,
+      boolean updatesOnly)
+      throws SQLException {
+    if (isCacheable(metadata) && timestamp.isBefore(getHorizon())) {
+      Segment segment = openSegment(metadata, dayOf(timestamp));
+      long ts = TimeUtil.toMyaTimestamp(timestamp);
+      int range = segment == null ? -1 : segment.rangeContaining(ts);
+
+      if (range != -1) {
+        int index;
+
+        if (lessThan) {
+          index = (orEqual ? segment.lowerBound(ts + 1) : segment.lowerBound(ts)) - 1;
+          while (index >= 0 && updatesOnly && !segment.isData(index)) {
+            index--;
+          }
+          if (index >= 0 && segment.getTimestamp(index) < segment.getRangeBegin(range)) {
+            index = -1; // Not within the covered range so an earlier event may be missing
+          }
+        } else {
+          index = orEqual ? segment.lowerBound(ts) : segment.lowerBound(ts + 1);
+          while (index < segment.size() && updatesOnly && !segment.isData(index)) {
+            index++;
+          }
+          if (index >= segment.size()
+              || segment.getTimestamp(index) >= segment.getRangeEnd(range)) {
+            index = -1; // Not within the covered range so a later event may be missing
+          }
+        }
+
+        if (index != -1) {
+          EventCode code = EventCode.fromInt(segment.getCodeNumber(index));
+
+          if (segment.getValueType() == Segment.INT_VALUES) {
+            return (T) new IntEvent(segment.getTimestamp(index), code, segment.getIntValue(index));
+          } else {
+            return (T)
+                new FloatEvent(segment.getTimestamp(index), code, segment.getFloatValue(index));
+          }
+        }
+      }
+    }
+
+    return super.findEvent(metadata, timestamp, lessThan, orEqual, updatesOnly);
+  }
+
+  @Override
+  public <T extends Event> T findEvent(Metadata<T> metadata, Instant timestamp)
+      throws SQLException {
+    return findEvent(metadata, timestamp, true, true, false);
+  }
+
+  /**
+   * Ensure the range [from, to) of a day is cached, querying the database for uncovered sub-ranges
+   * only.
+   *
+   * @param metadata The channel metadata
+   * @param day The day
+   * @param from The Mya begin timestamp (inclusive)
+   * @param to The Mya end timestamp (exclusive)
+   * @return The segment, which covers the range, or null if the range has too many events to cache
+   * @throws SQLException If unable to query the database or the cache
+   */
+  private Segment fill(Metadata<?> metadata, LocalDate day, long from, long to)
+      throws SQLException {
+    Path file = getSegmentFile(metadata, day);
+
+    synchronized (locks.computeIfAbsent(file, f -> new Object())) {
+      Segment segment = openSegment(metadata, day);
+
+      if (segment == null) {
+        segment =
+            Segment.empty(
+                metadata.getType() == IntEvent.class ? Segment.INT_VALUES : Segment.FLOAT_VALUES);
+      }
+
+      List<long[]> gaps = segment.uncovered(from, to);
+
+      if (gaps.isEmpty()) {
+        return segment;
+      }
+
+      long limit = Math.min(MAX_FILL_EVENTS, Segment.MAX_EVENTS - segment.size());
+
+      try {
+        for (long[] gap : gaps) {
+          EventBatch<?> events = fetch(metadata, gap[0], gap[1], limit);
+
+          if (events == null) {
+            return null;
+          }
+
+          limit = limit - events.size();
+          segment = segment.add(gap[0], gap[1], events);
+        }
+
+        segment.write(file);
+      } catch (IOException e) {
+        throw new SQLException("Unable to fill segment cache: " + file, e);
+      }
+
+      return segment;
+    }
+  }
+
+  /**
+   * Query the database for all events of a channel in the range [from, to).
+   *
+   * @param metadata The channel metadata
+   * @param from The Mya begin timestamp (inclusive)
+   * @param to The Mya end timestamp (exclusive)
+   * @param limit The maximum number of events
+   * @return The events or null if there are more than limit events
+   * @throws SQLException If unable to query the database
+   * @throws IOException If unable to read the events
+   */
+  @SuppressWarnings("unchecked")
+  private EventBatch<?> fetch(Metadata metadata, long from, long to, long limit)
+      throws SQLException, IOException {
+    IntervalQueryParams params =
+        new IntervalQueryParams(
+            metadata,
+            false,
+            IntervalQueryFetchStrategy.STREAM,
+            TimeUtil.fromMyaTimestamp(from),
+            TimeUtil.fromMyaTimestamp(to));
+    EventBatch batch =
+        metadata.getType() == IntEvent.class
+            ? new IntEventBatch(FETCH_BATCH_SIZE)
+            : new FloatEventBatch(FETCH_BATCH_SIZE);
+    EventBatch chunk = batch.createEmpty(FETCH_BATCH_SIZE);
+
+    try (DatabaseSourceStream stream = intervalService.openEventStream(params, from, to)) {
+      while (stream.readBatch(chunk) > 0) {
+        if (batch.size() + chunk.size() > limit) {
+          return null;
+        }
+
+        batch.ensureCapacity(batch.size() + chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+          batch.addFrom(chunk, i);
+        }
+      }
+    }
+
+    return batch;
+  }
+
+  /**
+   * Open the cached segment of a channel for a day.
+   *
+   * @param metadata The channel metadata
+   * @param day The day
+   * @return The segment or null if nothing is cached for the day
+   * @throws SQLException If unable to read the cache
+   */
+  private Segment openSegment(Metadata<?> metadata, LocalDate day) throws SQLException {
+    Path file = getSegmentFile(metadata, day);
+
+    try {
+      return Segment.open(file);
+    } catch (IOException e) {
+      throw new SQLException("Unable to read segment cache: " + file, e);
+    }
+  }
+
+  /**
+   * Return the segment file of a channel for a day.
+   *
+   * @param metadata The channel metadata
+   * @param day The day
+   * @return The path
+   */
+  private Path getSegmentFile(Metadata<?> metadata, LocalDate day) {
+    return directory
+        .resolve(getDeployment())
+        .resolve(String.valueOf(metadata.getId()))
+        .resolve(day + ".seg");
+  }
+
+  /**
+   * Return whether events of a channel can be cached.
+   *
+   * @param metadata The channel metadata
+   * @return true if float or int valued
+   */
+  private static boolean isCacheable(Metadata<?> metadata) {
+    return metadata.getType() == FloatEvent.class || metadata.getType() == IntEvent.class;
+  }
+
+  /**
+   * Return the time before which history is considered immutable.
+   *
+   * @return The horizon
+   */
+  private Instant getHorizon() {
+    return Instant.now().minus(immutableAge);
+  }
+
+  private static LocalDate dayOf(Instant instant) {
+    return instant.atZone(ZoneOffset.UTC).toLocalDate();
+  }
+
+  private static Instant dayStart(LocalDate day) {
+    return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  private static Instant min(Instant a, Instant b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  private static Instant max(Instant a, Instant b) {
+    return a.isAfter(b) ? a : b;
+  }
+}
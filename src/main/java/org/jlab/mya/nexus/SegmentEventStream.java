@@ -0,0 +1,158 @@
+package org.jlab.mya.nexus;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import org.jlab.mya.event.Event;
+import org.jlab.mya.event.EventBatch;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
+import org.jlab.mya.event.IntEvent;
+import org.jlab.mya.event.IntEventBatch;
+import org.jlab.mya.stream.EventStream;
+
+/**
+ * Streams events out of a sequence of cached segment slices, optionally followed by a database
+ * stream for the part of the interval which is too recent to cache.
+ *
+ * @author slominskir
+ * @param <T> The Event type
+ */
+class SegmentEventStream<T extends Event> extends EventStream<T> {
+
+  private final List<Slice> slices;
+  private final boolean updatesOnly;
+  private final EventStream<T> tail;
+
+  private int sliceIndex = 0;
+  private int position;
+  private boolean open = true;
+
+  /**
+   * Create a new SegmentEventStream.
+   *
+   * @param slices The segment slices, in time order
+   * @param updatesOnly true if only update events should be included
+   * @param tail The stream of events after the last slice, or null if none
+   * @param type The type
+   */
+  SegmentEventStream(List<Slice> slices, boolean updatesOnly, EventStream<T> tail, Class<T> type) {
+    super(type);
+    this.slices = slices;
+    this.updatesOnly = updatesOnly;
+    this.tail = tail;
+    this.position = slices.isEmpty() ? 0 : slices.get(0).from;
+  }
+
+  /**
+   * Advance to the next cached event to stream.
+   *
+   * @return The slice holding the event, or null if the slices are exhausted
+   */
+  private Slice nextCached() {
+    while (sliceIndex < slices.size()) {
+      Slice slice = slices.get(sliceIndex);
+
+      while (position < slice.to) {
+        if (!updatesOnly || slice.segment.isData(position)) {
+          return slice;
+        }
+        position++;
+      }
+
+      sliceIndex++;
+
+      if (sliceIndex < slices.size()) {
+        position = slices.get(sliceIndex).from;
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T read() throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+
+    Slice slice = nextCached();
+
+    if (slice == null) {
+      return tail == null ? null : tail.read();
+    }
+
+    Segment segment = slice.segment;
+    int i = position++;
+    long timestamp = segment.getTimestamp(i);
+    EventCode code = EventCode.fromInt(segment.getCodeNumber(i));
+
+    if (segment.getValueType() == Segment.INT_VALUES) {
+      return (T) new IntEvent(timestamp, code, segment.getIntValue(i));
+    } else {
+      return (T) new FloatEvent(timestamp, code, segment.getFloatValue(i));
+    }
+  }
+
+  @Override
+  public int readBatch(EventBatch<T> batch) throws IOException {
+    if (!(batch instanceof FloatEventBatch || batch instanceof IntEventBatch)) {
+      return super.readBatch(batch);
+    }
+
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+
+    batch.clear();
+
+    Slice slice;
+    while (!batch.isFull() && (slice = nextCached()) != null) {
+      Segment segment = slice.segment;
+      int i = position++;
+
+      if (batch instanceof FloatEventBatch) {
+        ((FloatEventBatch) batch)
+            .add(segment.getTimestamp(i), segment.getCodeNumber(i), segment.getFloatValue(i));
+      } else {
+        ((IntEventBatch) batch)
+            .add(segment.getTimestamp(i), segment.getCodeNumber(i), segment.getIntValue(i));
+      }
+    }
+
+    if (batch.size() == 0 && tail != null) {
+      return tail.readBatch(batch);
+    }
+
+    return batch.size();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() throws IOException {
+    open = false;
+
+    if (tail != null) {
+      tail.close();
+    }
+  }
+
+  /** A range of event indices [from, to) of a segment. */
+  static final class Slice {
+    final Segment segment;
+    final int from;
+    final int to;
+
+    Slice(Segment segment, int from, int to) {
+      this.segment = segment;
+      this.from = from;
+      this.to = to;
+    }
+  }
+}
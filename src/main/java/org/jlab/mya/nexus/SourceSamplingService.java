@@ -5,8 +5,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.mya.IntervalStatistics;
 import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeBucket;
 import org.jlab.mya.TimeUtil;
 import org.jlab.mya.event.FloatEvent;
 import org.jlab.mya.stream.EventStream;
@@ -102,4 +107,129 @@ class SourceSamplingService extends QueryService {
     IntervalQueryParams<FloatEvent> params = new IntervalQueryParams<>(metadata, begin, end);
     return new FloatEventStream(params, con, stmtB, rs);
   }
+
+  /**
+   * Summarize the float events of an interval in time buckets of equal width computed in the
+   * database. Only one row per non-empty bucket is transferred, instead of every event. The
+   * interval is divided into buckets the same way FloatTimeBinnedSampleStream divides it into
+   * bins, so the buckets line up with the app-level samplers.
+   *
+   * @param params The IntervalQueryParams
+   * @param bucketCount The number of buckets
+   * @return The non-empty buckets, in order
+   * @throws SQLException If unable to query the database
+   * @throws IllegalArgumentException If the bucket count is less than one
+   */
+  public List<TimeBucket> findTimeBuckets(IntervalQueryParams<FloatEvent> params, long bucketCount)
+      throws SQLException {
+    if (bucketCount < 1) {
+      throw new IllegalArgumentException("bucketCount must be at least 1");
+    }
+
+    long begin = TimeUtil.toMyaTimestamp(params.getBegin());
+    long end = TimeUtil.toMyaTimestamp(params.getEnd());
+    long width = Math.max(1, (end - begin + bucketCount - 1) / bucketCount);
+
+    List<TimeBucket> buckets = new ArrayList<>();
+
+    try (Connection con = nexus.getConnection(params.getMetadata().getHost())) {
+      try (PreparedStatement stmt = generator.getTimeBucketStatement(con, params)) {
+        stmt.setLong(1, begin);
+        stmt.setLong(2, width);
+        stmt.setLong(3, begin);
+        stmt.setLong(4, end);
+
+        try (ResultSet rs = stmt.executeQuery()) {
+          while (rs.next()) {
+            long index = rs.getLong(1);
+            float min = rs.getFloat(4);
+            if (rs.wasNull()) {
+              min = Float.NaN;
+            }
+            float max = rs.getFloat(5);
+            if (rs.wasNull()) {
+              max = Float.NaN;
+            }
+
+            buckets.add(
+                new TimeBucket(
+                    index,
+                    begin + index * width,
+                    Math.min(end, begin + (index + 1) * width),
+                    rs.getLong(2),
+                    rs.getLong(3),
+                    min,
+                    max,
+                    rs.getLong(6),
+                    rs.getInt(7),
+                    rs.getFloat(8),
+                    rs.getLong(9),
+                    rs.getInt(10),
+                    rs.getFloat(11)));
+          }
+        }
+      }
+    }
+
+    return buckets;
+  }
+
+  /**
+   * Compute the time-weighted statistics of the float events of an interval in the database. The
+   * prior point is moved to the begin boundary and the last event is extended to the end boundary,
+   * or to now if the end is in the future, as with BoundaryAwareStream. Only a single row is
+   * transferred.
+   *
+   * @param params The IntervalQueryParams
+   * @return The statistics
+   * @throws SQLException If unable to query the database
+   */
+  public IntervalStatistics findStatistics(IntervalQueryParams<FloatEvent> params)
+      throws SQLException {
+    Instant now = Instant.now();
+    Instant boundary = null;
+
+    if (params.getEnd().isBefore(now)) {
+      boundary = params.getEnd();
+    } else if (params.getBegin().isBefore(now)) {
+      boundary = now;
+    }
+
+    long begin = TimeUtil.toMyaTimestamp(params.getBegin());
+
+    try (Connection con = nexus.getConnection(params.getMetadata().getHost())) {
+      try (PreparedStatement stmt = generator.getStatisticsStatement(con, params)) {
+        if (boundary == null) {
+          stmt.setNull(1, Types.BIGINT);
+        } else {
+          stmt.setLong(1, TimeUtil.toMyaTimestamp(boundary));
+        }
+        stmt.setLong(2, begin);
+        stmt.setLong(3, begin);
+        stmt.setLong(4, begin);
+        stmt.setLong(5, begin);
+        stmt.setLong(6, TimeUtil.toMyaTimestamp(params.getEnd()));
+
+        try (ResultSet rs = stmt.executeQuery()) {
+          rs.next();
+
+          long count = rs.getLong(1);
+
+          // The end boundary point is a copy of the last event, if there is one
+          if (boundary != null && count > 0) {
+            count++;
+          }
+
+          return new IntervalStatistics(
+              count,
+              rs.getLong(2),
+              rs.getDouble(3),
+              rs.getDouble(4),
+              rs.getDouble(5),
+              rs.getDouble(6),
+              rs.getDouble(7));
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,214 @@
+package org.jlab.mya.nexus;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Mya DataNexus which pools connections itself, without requiring a container or JNDI.
+ *
+ * <p>A bounded pool of connections is kept for each host in the deployment. Connections are opened
+ * on demand with the same configuration as the OnDemandNexus, and are therefore subject to the
+ * same "credentials.properties" requirement. Idle connections are validated before reuse and
+ * evicted once they have been idle longer than the max idle time.
+ *
+ * <p>This nexus should be closed when no longer needed to release the pooled connections.
+ *
+ * @author slominskir
+ */
+public class StandalonePooledNexus extends DataNexus implements AutoCloseable {
+
+  /** The default max number of connections per host. */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+
+  /** The default max time a connection may sit idle before it is closed. */
+  public static final Duration DEFAULT_MAX_IDLE = Duration.ofMinutes(5);
+
+  /** The default max time to wait for a free connection. */
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+
+  /**
+   * The number of server-side prepared statements cached per connection when the statement cache is
+   * enabled.
+   */
+  public static final int PREPARED_STATEMENT_CACHE_SIZE = 64;
+
+  private final Map<String, HostConnectionPool> pools = new ConcurrentHashMap<>();
+  private final HostConnectionPool.ConnectionFactory factory;
+  private final int maxConnectionsPerHost;
+  private final long maxIdleNanos;
+  private final long maxWaitMillis;
+  private final ScheduledExecutorService evictor;
+
+  /**
+   * Create a new StandalonePooledNexus with the specified deployment and default pool settings.
+   *
+   * @param deployment The deployment
+   */
+  public StandalonePooledNexus(String deployment) {
+    this(deployment, DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_IDLE, DEFAULT_MAX_WAIT);
+  }
+
+  /**
+   * Create a new StandalonePooledNexus with the specified deployment and pool settings.
+   *
+   * @param deployment The deployment
+   * @param maxConnectionsPerHost The max number of connections open at once to a single host
+   * @param maxIdle The max time a connection may sit idle before it is closed
+   * @param maxWait The max time to wait for a free connection before a SQLException is thrown
+   */
+  public StandalonePooledNexus(
+      String deployment, int maxConnectionsPerHost, Duration maxIdle, Duration maxWait) {
+    this(deployment, maxConnectionsPerHost, maxIdle, maxWait, false);
+  }
+
+  /**
+   * Create a new StandalonePooledNexus with the specified deployment, pool settings, and optional
+   * server-side prepared statement cache.
+   *
+   * <p>When the statement cache is enabled each pooled connection prepares statements on the
+   * server and keeps them (up to PREPARED_STATEMENT_CACHE_SIZE) keyed by SQL text. Since the SQL of
+   * a given query shape and channel is always the same, a long-lived connection serving many
+   * lookups parses each one only once. This trades a little server memory per connection for less
+   * parsing, and is most useful for repeated point queries.
+   *
+   * @param deployment The deployment
+   * @param maxConnectionsPerHost The max number of connections open at once to a single host
+   * @param maxIdle The max time a connection may sit idle before it is closed
+   * @param maxWait The max time to wait for a free connection before a SQLException is thrown
+   * @param cachePreparedStatements true to enable the per-connection server-side statement cache
+   */
+  public StandalonePooledNexus(
+      String deployment,
+      int maxConnectionsPerHost,
+      Duration maxIdle,
+      Duration maxWait,
+      boolean cachePreparedStatements) {
+    this(
+        deployment,
+        maxConnectionsPerHost,
+        maxIdle,
+        maxWait,
+        cachePreparedStatements
+            ? host -> OnDemandNexus.createConnection(host, getStatementCacheOptions())
+            : OnDemandNexus::createConnection);
+  }
+
+  /**
+   * Create a new StandalonePooledNexus with the specified connection factory.
+   *
+   * @param deployment The deployment
+   * @param maxConnectionsPerHost The max number of connections open at once to a single host
+   * @param maxIdle The max time a connection may sit idle before it is closed
+   * @param maxWait The max time to wait for a free connection before a SQLException is thrown
+   * @param factory The factory used to open physical connections
+   */
+  StandalonePooledNexus(
+      String deployment,
+      int maxConnectionsPerHost,
+      Duration maxIdle,
+      Duration maxWait,
+      HostConnectionPool.ConnectionFactory factory) {
+    super(deployment);
+
+    if (maxConnectionsPerHost < 1) {
+      throw new IllegalArgumentException("maxConnectionsPerHost must be at least 1");
+    }
+
+    this.factory = factory;
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+    this.maxIdleNanos = maxIdle.toNanos();
+    this.maxWaitMillis = maxWait.toMillis();
+
+    String hostCsv = DEPLOYMENTS_PROPERTIES.getProperty(deployment + ".hosts");
+
+    if (hostCsv != null) {
+      for (String host : hostCsv.split(",")) {
+        getPool(host.trim());
+      }
+    }
+
+    getPool(getMasterHostName());
+
+    evictor =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "jmyapi-pool-evictor-" + deployment);
+              t.setDaemon(true);
+              return t;
+            });
+
+    long periodMillis = Math.max(1000, maxIdle.toMillis() / 2);
+    evictor.scheduleWithFixedDelay(
+        this::evictIdleConnections, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Return the MariaDB driver options which enable the server-side prepared statement cache.
+   *
+   * @return The driver options
+   */
+  static Properties getStatementCacheOptions() {
+    Properties options = new Properties();
+
+    options.put("useServerPrepStmts", "true");
+    options.put("cachePrepStmts", "true");
+    options.put("prepStmtCacheSize", String.valueOf(PREPARED_STATEMENT_CACHE_SIZE));
+
+    return options;
+  }
+
+  private HostConnectionPool getPool(String host) {
+    return pools.computeIfAbsent(
+        host,
+        h ->
+            new HostConnectionPool(h, factory, maxConnectionsPerHost, maxIdleNanos, maxWaitMillis));
+  }
+
+  @Override
+  Connection getConnection(String host) throws SQLException {
+    return getPool(host).borrow();
+  }
+
+  /** Close connections which have been idle longer than the max idle time. */
+  public void evictIdleConnections() {
+    for (HostConnectionPool pool : pools.values()) {
+      pool.evict(false);
+    }
+  }
+
+  /**
+   * Return a snapshot of the statistics of each host connection pool.
+   *
+   * @return The pool statistics keyed by host name
+   */
+  public Map<String, PoolStats> getPoolStats() {
+    Map<String, PoolStats> stats = new TreeMap<>();
+
+    for (Map.Entry<String, HostConnectionPool> entry : pools.entrySet()) {
+      stats.put(entry.getKey(), entry.getValue().getStats());
+    }
+
+    return stats;
+  }
+
+  /**
+   * Close all idle connections and stop pooling. Connections currently borrowed are closed when
+   * they are returned.
+   */
+  @Override
+  public void close() {
+    evictor.shutdownNow();
+
+    for (HostConnectionPool pool : pools.values()) {
+      pool.close();
+    }
+  }
+}
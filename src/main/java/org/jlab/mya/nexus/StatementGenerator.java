@@ -6,8 +6,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.jlab.mya.TimeUtil;
 import org.jlab.mya.event.EventCode;
 
 /**
@@ -16,22 +18,178 @@ import org.jlab.mya.event.EventCode;
  * @author slominskir
  */
 class StatementGenerator {
+
+  /** Query shape flag: only data (update) events. */
+  private static final int UPDATES_ONLY = 1;
+
+  /** Query shape flag: search backwards in time. */
+  private static final int LESS_THAN = 2;
+
+  /** Query shape flag: include an event exactly at the point in time. */
+  private static final int OR_EQUAL = 4;
+
+  /** The SQL list of data event code numbers, which never changes so is computed once. */
+  private static final String DATA_EVENT_LIST = getDataEventListString();
+
+  /**
+   * SQL which follows the table name in a count query, indexed by query shape. The SQL only varies
+   * by a handful of flags and the table name so it is generated once up front instead of on every
+   * call.
+   */
+  private static final String[] COUNT_TEMPLATES = new String[2];
+
+  /** SQL which follows the table name in an interval query, indexed by query shape. */
+  private static final String[] INTERVAL_TEMPLATES = new String[2];
+
+  /** SQL which follows the table name in a point query, indexed by query shape. */
+  private static final String[] POINT_TEMPLATES = new String[8];
+
+  /**
+   * The window of the events of a time bucket ordered by time, over which the first and last
+   * values are taken.
+   */
+  private static final String BUCKET_WINDOW =
+      " over (partition by b order by time rows between unbounded preceding and unbounded"
+          + " following)";
+
+  /**
+   * SQL which precedes the table name in a time bucket query. The bucket of each event is computed
+   * from its Mya timestamp in the innermost query, the first and last events of each bucket are
+   * found with window functions, and the outer query groups by bucket so only one row per bucket
+   * is returned.
+   */
+  private static final String BUCKET_PREFIX =
+      "select b, count(*), sum(d),"
+          + " min(case when d = 1 then val1 end), max(case when d = 1 then val1 end),"
+          + " min(time), max(first_code), max(first_val),"
+          + " max(time), max(last_code), max(last_val)"
+          + " from (select b, time, d, val1,"
+          + " first_value(code)"
+          + BUCKET_WINDOW
+          + " as first_code,"
+          + " first_value(val1)"
+          + BUCKET_WINDOW
+          + " as first_val,"
+          + " last_value(code)"
+          + BUCKET_WINDOW
+          + " as last_code,"
+          + " last_value(val1)"
+          + BUCKET_WINDOW
+          + " as last_val"
+          + " from (select (time - ?) div ? as b, time, code, val1, code in "
+          + DATA_EVENT_LIST
+          + " as d from table_";
+
+  /** SQL which follows the table name in a time bucket query, indexed by query shape. */
+  private static final String[] BUCKET_TEMPLATES = new String[2];
+
+  /**
+   * SQL which precedes the table name in a time-weighted statistics query. The weight of each event
+   * is the time until the next event (or the end boundary) in seconds, found with the LEAD window
+   * function, and only events with data and a weight contribute, just as with RunningStatistics.
+   * The variance is computed in two passes about the weighted mean for numerical stability.
+   */
+  private static final String STATISTICS_PREFIX =
+      "select count(*), sum(u), sum(case when u = 1 then w end),"
+          + " min(case when u = 1 then val1 end), max(case when u = 1 then val1 end),"
+          + " sum(case when u = 1 then w * val1 end),"
+          + " sum(case when u = 1 then w * (val1 - m) * (val1 - m) end)"
+          + " from (select val1, w, u,"
+          + " sum(case when u = 1 then w * val1 end) over ()"
+          + " / sum(case when u = 1 then w end) over () as m"
+          + " from (select val1, w, d and w is not null as u"
+          + " from (select val1, code in "
+          + DATA_EVENT_LIST
+          + " as d, (coalesce(lead(t) over (order by t), ?) - t) * "
+          + TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER
+          + " as w from (select ? as t, code, val1 from (select * from table_";
+
+  /**
+   * SQL which follows the table name in a statistics query, up to the second occurrence of the
+   * table name, indexed by query shape. The prior point is moved to the begin boundary unless an
+   * event already exists there, as with BoundaryAwareStream.
+   */
+  private static final String[] STATISTICS_PRIOR_TEMPLATES = new String[2];
+
+  /**
+   * SQL which follows the second occurrence of the table name in a statistics query, up to the
+   * third, indexed by query shape.
+   */
+  private static final String[] STATISTICS_EXISTS_TEMPLATES = new String[2];
+
+  /** SQL which follows the last occurrence of the table name in a statistics query. */
+  private static final String[] STATISTICS_TEMPLATES = new String[2];
+
+  static {
+    for (int shape = 0; shape < INTERVAL_TEMPLATES.length; shape++) {
+      String where = createIntervalWhereClause((shape & UPDATES_ONLY) != 0);
+      COUNT_TEMPLATES[shape] = where;
+      INTERVAL_TEMPLATES[shape] = where + " order by time asc";
+      BUCKET_TEMPLATES[shape] = where + ") r) w group by b order by b";
+      STATISTICS_PRIOR_TEMPLATES[shape] =
+          createPointTemplate(true, false, (shape & UPDATES_ONLY) != 0)
+              + ") p where not exists (select 1 from table_";
+      STATISTICS_EXISTS_TEMPLATES[shape] =
+          " where time = ?"
+              + ((shape & UPDATES_ONLY) != 0 ? " and code in " + DATA_EVENT_LIST : "")
+              + ") union all select time, code, val1 from table_";
+      STATISTICS_TEMPLATES[shape] = where + ") e) x) y) z";
+    }
+
+    for (int shape = 0; shape < POINT_TEMPLATES.length; shape++) {
+      POINT_TEMPLATES[shape] =
+          createPointTemplate(
+              (shape & LESS_THAN) != 0, (shape & OR_EQUAL) != 0, (shape & UPDATES_ONLY) != 0);
+    }
+  }
+
   /**
    * Get the SQL list of event code numbers that match to data updates. E.g., "where column in
-   * [some_list]".
+   * [some_list]". The codes are sorted so that the SQL text is identical every time, which is
+   * required for statement caching to be effective.
    *
    * @return A string suitable for use in a SQL query.
    */
   private static String getDataEventListString() {
     return "("
-        + String.join(
-            ",",
-            EventCode.getDataEventCodes().stream()
-                .map((EventCode e) -> String.valueOf(e.getCodeNumber()))
-                .collect(Collectors.toSet()))
+        + EventCode.getDataEventCodes().stream()
+            .map(EventCode::getCodeNumber)
+            .sorted()
+            .map(String::valueOf)
+            .collect(Collectors.joining(","))
         + ")";
   }
 
+  /**
+   * Return the query shape index of interval (and count) parameters.
+   *
+   * @param params The parameters
+   * @return The shape index
+   */
+  private static int intervalShape(IntervalQueryParams params) {
+    return params.isUpdatesOnly() ? UPDATES_ONLY : 0;
+  }
+
+  /**
+   * Return the query shape index of point parameters.
+   *
+   * @param params The parameters
+   * @return The shape index
+   */
+  private static int pointShape(PointQueryParams params) {
+    int shape = params.isUpdatesOnly() ? UPDATES_ONLY : 0;
+
+    if (params.isLessThan()) {
+      shape = shape | LESS_THAN;
+    }
+
+    if (params.isOrEqual()) {
+      shape = shape | OR_EQUAL;
+    }
+
+    return shape;
+  }
+
   /**
    * Return a prepared statement for the given connection to query for channel names.
    *
@@ -60,6 +218,24 @@ class StatementGenerator {
     return con.prepareStatement(query);
   }
 
+  /**
+   * Return a prepared statement for the given connection to query metadata for a list of names.
+   *
+   * <p>Note: clever implementations may be caching / pooling statements.
+   *
+   * @param con The connection the statement belongs to
+   * @param count The number of names (parameters) in the list
+   * @return The PreparedStatement
+   * @throws SQLException If unable to prepare a statement
+   */
+  PreparedStatement getMetadataListStatement(Connection con, int count) throws SQLException {
+    String query =
+        "select * from channels where name in ("
+            + String.join(",", Collections.nCopies(count, "?"))
+            + ")";
+    return con.prepareStatement(query);
+  }
+
   /**
    * Return a prepared statement for the given connection to query extra info.
    *
@@ -111,14 +287,7 @@ class StatementGenerator {
    */
   PreparedStatement getEventIntervalStatement(
       Connection con, IntervalQueryParams params, int fetchSize) throws SQLException {
-
-    String where = getIntervalWhereClause(params);
-
-    String query = "select * from table_" + params.getMetadata().getId();
-
-    query = query + where;
-
-    query = query + " order by time asc";
+    String query = getEventIntervalQuery(params);
 
     PreparedStatement stmt =
         con.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
@@ -127,32 +296,97 @@ class StatementGenerator {
   }
 
   /**
-   * Get shared where clause for interval and count queries.
+   * Return the SQL to query a time interval for events.
    *
-   * @param params The parameters
+   * @param params The query parameters (notably metadata id)
+   * @return The SQL
+   */
+  String getEventIntervalQuery(IntervalQueryParams params) {
+    return "select * from table_"
+        + params.getMetadata().getId()
+        + INTERVAL_TEMPLATES[intervalShape(params)];
+  }
+
+  /**
+   * Return a prepared statement for the given connection and parameters to summarize the events of
+   * a time interval in buckets of equal width. The parameters are the begin timestamp, the bucket
+   * width, then the begin and end timestamps of the interval. Each row is a non-empty bucket, in
+   * order, with columns: bucket index, count, update count, min, max, first time, first code,
+   * first value, last time, last code, last value.
+   *
+   * @param con The connection the statement belongs to
+   * @param params The query parameters associated with the statement (notably metadata id)
+   * @return The PreparedStatement
+   * @throws SQLException If unable to prepare a statement
+   */
+  PreparedStatement getTimeBucketStatement(Connection con, IntervalQueryParams params)
+      throws SQLException {
+    return con.prepareStatement(getTimeBucketQuery(params));
+  }
+
+  /**
+   * Return the SQL to summarize the events of a time interval in buckets.
+   *
+   * @param params The query parameters (notably metadata id)
+   * @return The SQL
+   */
+  String getTimeBucketQuery(IntervalQueryParams params) {
+    return BUCKET_PREFIX + params.getMetadata().getId() + BUCKET_TEMPLATES[intervalShape(params)];
+  }
+
+  /**
+   * Return a prepared statement for the given connection and parameters to compute the
+   * time-weighted statistics of a time interval. The parameters are the end boundary timestamp (or
+   * null if there is no end boundary), then the begin timestamp four times, then the end
+   * timestamp. The single row has columns: event count, update count, duration, min, max,
+   * integration, sum of squared deviations.
+   *
+   * @param con The connection the statement belongs to
+   * @param params The query parameters associated with the statement (notably metadata id)
+   * @return The PreparedStatement
+   * @throws SQLException If unable to prepare a statement
+   */
+  PreparedStatement getStatisticsStatement(Connection con, IntervalQueryParams params)
+      throws SQLException {
+    return con.prepareStatement(getStatisticsQuery(params));
+  }
+
+  /**
+   * Return the SQL to compute the time-weighted statistics of a time interval.
+   *
+   * @param params The query parameters (notably metadata id)
+   * @return The SQL
+   */
+  String getStatisticsQuery(IntervalQueryParams params) {
+    int id = params.getMetadata().getId();
+    int shape = intervalShape(params);
+
+    return STATISTICS_PREFIX
+        + id
+        + STATISTICS_PRIOR_TEMPLATES[shape]
+        + id
+        + STATISTICS_EXISTS_TEMPLATES[shape]
+        + id
+        + STATISTICS_TEMPLATES[shape];
+  }
+
+  /**
+   * Create the shared where clause for interval and count queries.
+   *
+   * @param updatesOnly true to include updates only, false for all event types
    * @return The SQL where clause
    */
-  private String getIntervalWhereClause(IntervalQueryParams params) {
+  private static String createIntervalWhereClause(boolean updatesOnly) {
     List<String> filterList = new ArrayList<>();
 
     filterList.add("time >= ?");
     filterList.add("time < ?");
 
-    if (params.isUpdatesOnly()) {
-      filterList.add("code in " + getDataEventListString());
+    if (updatesOnly) {
+      filterList.add("code in " + DATA_EVENT_LIST);
     }
 
-    String where = "";
-
-    if (!filterList.isEmpty()) {
-      where = " where " + filterList.get(0);
-
-      for (int i = 1; i < filterList.size(); i++) {
-        where = where + " and " + filterList.get(i);
-      }
-    }
-
-    return where;
+    return " where " + String.join(" and ", filterList);
   }
 
   /**
@@ -166,14 +400,79 @@ class StatementGenerator {
    */
   PreparedStatement getCountStatement(Connection con, IntervalQueryParams params)
       throws SQLException {
+    return con.prepareStatement(getCountQuery(params));
+  }
 
-    String where = getIntervalWhereClause(params);
+  /**
+   * Return the SQL to count events in a time interval.
+   *
+   * @param params The query parameters (notably metadata id)
+   * @return The SQL
+   */
+  String getCountQuery(IntervalQueryParams params) {
+    return "select count(*) from table_"
+        + params.getMetadata().getId()
+        + COUNT_TEMPLATES[intervalShape(params)];
+  }
 
-    String query = "select count(*) from table_" + params.getMetadata().getId();
+  /**
+   * Return a prepared statement for the given connection and parameters to obtain the query
+   * optimizer's estimate of the number of rows in a time interval. The estimate comes from index
+   * statistics so no rows are read.
+   *
+   * @param con The connection the statement belongs to
+   * @param params The query parameters associated with the statement (notably metadata id)
+   * @return The PreparedStatement
+   * @throws SQLException If unable to prepare a statement
+   */
+  PreparedStatement getCountEstimateStatement(Connection con, IntervalQueryParams params)
+      throws SQLException {
+    return con.prepareStatement("explain " + getEventIntervalQuery(params));
+  }
+
+  /**
+   * Return a prepared statement for the given connection and parameters to sample the timestamps at
+   * the start of each of several consecutive sub-intervals (strata) of a time interval. The
+   * statement is a union of indexed range queries, one per stratum, each of which has a begin and
+   * end timestamp parameter and reads at most probeSize rows. Each row carries an "idx" column
+   * holding the position of the stratum it belongs to.
+   *
+   * @param con The connection the statement belongs to
+   * @param params The query parameters (notably metadata id); the interval is ignored
+   * @param probes The number of strata
+   * @param probeSize The max number of timestamps sampled per stratum
+   * @return The PreparedStatement
+   * @throws SQLException If unable to prepare a statement
+   */
+  PreparedStatement getCountProbeStatement(
+      Connection con, IntervalQueryParams params, int probes, int probeSize) throws SQLException {
+    return con.prepareStatement(getCountProbeQuery(params, probes, probeSize));
+  }
 
-    query = query + where;
+  /**
+   * Return the SQL to sample the timestamps at the start of each of several strata of a time
+   * interval.
+   *
+   * @param params The query parameters (notably metadata id)
+   * @param probes The number of strata
+   * @param probeSize The max number of timestamps sampled per stratum
+   * @return The SQL
+   */
+  String getCountProbeQuery(IntervalQueryParams params, int probes, int probeSize) {
+    String from = " as idx, time from table_" + params.getMetadata().getId();
+    String where = COUNT_TEMPLATES[intervalShape(params)] + " order by time asc limit " + probeSize;
 
-    return con.prepareStatement(query);
+    StringBuilder builder = new StringBuilder();
+
+    for (int i = 0; i < probes; i++) {
+      if (i > 0) {
+        builder.append(" union all ");
+      }
+
+      builder.append("(select ").append(i).append(from).append(where).append(")");
+    }
+
+    return builder.toString();
   }
 
   /**
@@ -188,15 +487,86 @@ class StatementGenerator {
    */
   PreparedStatement getEventPointStatement(Connection con, PointQueryParams params)
       throws SQLException {
+    return con.prepareStatement(getEventPointQuery(params));
+  }
+
+  /**
+   * Return the SQL to query for a single event at a given point in time.
+   *
+   * @param params The query parameters (notably metadata id)
+   * @return The SQL
+   */
+  String getEventPointQuery(PointQueryParams params) {
+    return "select * from table_"
+        + params.getMetadata().getId()
+        + POINT_TEMPLATES[pointShape(params)];
+  }
+
+  /**
+   * Return a prepared statement for the given connection and parameters to query for the events at
+   * several points in time at once. The statement is a union of indexed point queries, one per
+   * point, each of which has a single timestamp parameter. Each row carries an extra "idx" column
+   * holding the position of the point it answers since points with no event return no row.
+   *
+   * @param con The connection the statement belongs to
+   * @param params The query parameters (notably metadata id); the timestamp is ignored
+   * @param count The number of points
+   * @return The PreparedStatement
+   * @throws SQLException If unable to prepare a statement
+   */
+  PreparedStatement getEventPointsStatement(Connection con, PointQueryParams params, int count)
+      throws SQLException {
+    return con.prepareStatement(getEventPointsQuery(params, count));
+  }
+
+  /**
+   * Return the SQL to query for the events at several points in time at once.
+   *
+   * @param params The query parameters (notably metadata id); the timestamp is ignored
+   * @param count The number of points
+   * @return The SQL
+   */
+  String getEventPointsQuery(PointQueryParams params, int count) {
+    String template = POINT_TEMPLATES[pointShape(params)];
+    int id = params.getMetadata().getId();
+    StringBuilder builder = new StringBuilder();
+
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        builder.append(" union all ");
+      }
+
+      builder
+          .append("(select *, ")
+          .append(i)
+          .append(" as idx from table_")
+          .append(id)
+          .append(template)
+          .append(")");
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * Create the SQL which follows the table name in a point query.
+   *
+   * @param lessThan true to search backwards in time
+   * @param orEqual true to include an event exactly at the point in time
+   * @param updatesOnly true to include updates only, false for all event types
+   * @return The SQL
+   */
+  private static String createPointTemplate(
+      boolean lessThan, boolean orEqual, boolean updatesOnly) {
     String equal = "";
     String sign = ">";
     String sort = "asc";
 
-    if (params.isOrEqual()) {
+    if (orEqual) {
       equal = "=";
     }
 
-    if (params.isLessThan()) {
+    if (lessThan) {
       sign = "<";
       sort = "desc";
     }
@@ -205,31 +575,14 @@ class StatementGenerator {
 
     filterList.add("time " + sign + equal + " ?");
 
-    if (params.isUpdatesOnly()) {
-      filterList.add("code in " + getDataEventListString());
+    if (updatesOnly) {
+      filterList.add("code in " + DATA_EVENT_LIST);
     }
 
-    String where = "";
-
-    if (!filterList.isEmpty()) {
-      where = " where " + filterList.get(0);
-
-      for (int i = 1; i < filterList.size(); i++) {
-        where = where + " and " + filterList.get(i);
-      }
-    }
-
-    String query =
-        "select * from table_"
-            + params.getMetadata().getId()
-            + " force index for order by (primary)";
-
-    query = query + where;
-
-    query = query + " order by time " + sort + " limit 1";
-
-    // System.out.println(query);
-
-    return con.prepareStatement(query);
+    return " force index for order by (primary) where "
+        + String.join(" and ", filterList)
+        + " order by time "
+        + sort
+        + " limit 1";
   }
 }
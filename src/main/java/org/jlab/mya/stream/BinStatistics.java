@@ -0,0 +1,191 @@
+package org.jlab.mya.stream;
+
+import java.time.Instant;
+import org.jlab.mya.RunningStatistics;
+import org.jlab.mya.TimeUtil;
+
+/**
+ * The time-weighted statistics of one time bin of a FloatBinnedStatisticsStream. The statistics
+ * are those of a RunningStatistics over the bin, with the value in effect at the beginning of the
+ * bin carried in from the previous event and the last value extended to the end of the bin, so
+ * every bin with a known value has statistics even if no events occur in it.
+ *
+ * @author slominskir
+ */
+public final class BinStatistics {
+
+  private final long index;
+  private final long begin;
+  private final long end;
+  private final long eventCount;
+  private final Double min;
+  private final Double max;
+  private final Double mean;
+  private final Double sigma;
+  private final Double rms;
+  private final Double duration;
+  private final Double integration;
+
+  /**
+   * Create a new BinStatistics from the statistics accumulated over a bin.
+   *
+   * @param index The bin index, counting from zero at the beginning of the interval
+   * @param begin The Mya begin timestamp of the bin (inclusive)
+   * @param end The Mya end timestamp of the bin (exclusive)
+   * @param eventCount The number of events in the bin
+   * @param stats The statistics of the bin
+   */
+  BinStatistics(long index, long begin, long end, long eventCount, RunningStatistics stats) {
+    this.index = index;
+    this.begin = begin;
+    this.end = end;
+    this.eventCount = eventCount;
+
+    // Without an update the value was unknown for the whole bin
+    boolean known = stats.getUpdateCount() > 0;
+    this.min = known ? stats.getMin() : null;
+    this.max = known ? stats.getMax() : null;
+    this.mean = known ? stats.getMean() : null;
+    this.sigma = known ? stats.getSigma() : null;
+    this.rms = known ? stats.getRms() : null;
+    this.duration = stats.getDuration();
+    this.integration = stats.getIntegration();
+  }
+
+  /**
+   * Return the bin index, counting from zero at the beginning of the interval.
+   *
+   * @return The index
+   */
+  public long getIndex() {
+    return index;
+  }
+
+  /**
+   * Return the Mya begin timestamp of the bin (inclusive).
+   *
+   * @return The begin timestamp
+   */
+  public long getBegin() {
+    return begin;
+  }
+
+  /**
+   * Return the begin of the bin as an Instant.
+   *
+   * @return The begin
+   */
+  public Instant getBeginAsInstant() {
+    return TimeUtil.fromMyaTimestamp(begin);
+  }
+
+  /**
+   * Return the Mya end timestamp of the bin (exclusive).
+   *
+   * @return The end timestamp
+   */
+  public long getEnd() {
+    return end;
+  }
+
+  /**
+   * Return the number of events which occurred in the bin, not counting the value carried in.
+   *
+   * @return The count
+   */
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Get the minimum value.
+   *
+   * @return The minimum value or null if the statistic is invalid
+   */
+  public Double getMin() {
+    return min;
+  }
+
+  /**
+   * Get the maximum value.
+   *
+   * @return The maximum value or null if the statistic is invalid
+   */
+  public Double getMax() {
+    return max;
+  }
+
+  /**
+   * Get the time-weighted mean.
+   *
+   * @return The mean or null if the statistic is invalid
+   */
+  public Double getMean() {
+    return mean;
+  }
+
+  /**
+   * Get the time-weighted standard deviation. Note: This provides no bias correction.
+   *
+   * @return The standard deviation or null if the statistic is invalid
+   */
+  public Double getSigma() {
+    return sigma;
+  }
+
+  /**
+   * Get the time-weighted RMS.
+   *
+   * @return The RMS or null if the statistic is invalid
+   */
+  public Double getRms() {
+    return rms;
+  }
+
+  /**
+   * Get the amount of time in seconds for which valid data was available in the bin.
+   *
+   * @return The duration or null if the statistic is invalid
+   */
+  public Double getDuration() {
+    return duration;
+  }
+
+  /**
+   * Get the integrated value over the bin with respect to time.
+   *
+   * @return The integration or null if the statistic is invalid
+   */
+  public Double getIntegration() {
+    return integration;
+  }
+
+  /**
+   * Returns a String representation of this BinStatistics.
+   *
+   * @return The String representation
+   */
+  @Override
+  public String toString() {
+    return "BinStatistics{"
+        + "index="
+        + index
+        + ", begin="
+        + getBeginAsInstant()
+        + ", eventCount="
+        + eventCount
+        + ", min="
+        + min
+        + ", max="
+        + max
+        + ", mean="
+        + mean
+        + ", sigma="
+        + sigma
+        + ", duration="
+        + duration
+        + ", integration="
+        + integration
+        + '}';
+  }
+}
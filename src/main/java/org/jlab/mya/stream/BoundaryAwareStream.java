@@ -3,6 +3,7 @@ package org.jlab.mya.stream;
 import java.io.IOException;
 import java.time.Instant;
 import org.jlab.mya.event.Event;
+import org.jlab.mya.event.EventBatch;
 
 /**
  * A BoundaryAwareStream will attempt to provide an event (point) exactly on the beginning and end
@@ -104,22 +105,15 @@ public class BoundaryAwareStream<T extends Event> extends WrappedStream<T, T> {
             secondPointBuffer = current;
             buffered = true;
             current = (T) priorPoint.copyTo(begin);
+          } else { // No boundary point to create
+            started = true;
           }
         }
       }
     }
 
     if (current == null) { // End-of-Stream
-      if (lastEvent != null // Last event exists
-          && lastEvent.getTimestampAsInstant().isBefore(end)) { // Last event before end boundary
-        if (end.isBefore(now)) { // end boundary is before "now"
-          current = (T) lastEvent.copyTo(end);
-          lastEvent = null;
-        } else if (begin.isBefore(now)) { // end is after "now", but begin is before now
-          current = (T) lastEvent.copyTo(now); // Create "now" point instead of end boundary
-          lastEvent = null;
-        }
-      }
+      current = endBoundary();
     } else {
       if (updatesOnly) {
         if (!current.getCode().isDisconnection()) {
@@ -132,4 +126,74 @@ public class BoundaryAwareStream<T extends Event> extends WrappedStream<T, T> {
 
     return current;
   }
+
+  /**
+   * Read the next events from the stream into a reusable columnar batch. Once the begin boundary
+   * has been handled the wrapped stream fills the batch directly and only the last event of each
+   * batch is materialized (to create the end boundary point).
+   *
+   * @param batch The batch to fill
+   * @return The number of events read, or zero if End-Of-Stream reached
+   * @throws IOException If unable to read the next events
+   */
+  @Override
+  public int readBatch(EventBatch<T> batch) throws IOException {
+    batch.clear();
+
+    while (!started && !batch.isFull()) {
+      T event = read();
+
+      if (event == null) {
+        return batch.size();
+      }
+
+      batch.add(event);
+    }
+
+    if (batch.size() > 0) {
+      return batch.size();
+    }
+
+    int count = wrapped.readBatch(batch);
+
+    if (count == 0) { // End-of-Stream
+      T boundary = endBoundary();
+
+      if (boundary != null) {
+        batch.add(boundary);
+      }
+    } else {
+      for (int i = count - 1; i >= 0; i--) {
+        if (!updatesOnly || !batch.isDisconnection(i)) {
+          lastEvent = batch.get(i);
+          break;
+        }
+      }
+    }
+
+    return batch.size();
+  }
+
+  /**
+   * Create the end boundary (or "now") point from the last event, if needed and possible.
+   *
+   * @return The boundary point or null if none
+   */
+  @SuppressWarnings("unchecked")
+  private T endBoundary() {
+    T boundary = null;
+
+    if (lastEvent != null // Last event exists
+        && lastEvent.getTimestampAsInstant().isBefore(end)) { // Last event before end boundary
+      if (end.isBefore(now)) { // end boundary is before "now"
+        boundary = (T) lastEvent.copyTo(end);
+        lastEvent = null;
+      } else if (begin.isBefore(now)) { // end is after "now", but begin is before now
+        boundary = (T) lastEvent.copyTo(now); // Create "now" point instead of end boundary
+        lastEvent = null;
+      }
+    }
+
+    return boundary;
+  }
 }
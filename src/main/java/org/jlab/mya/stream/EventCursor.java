@@ -0,0 +1,68 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import org.jlab.mya.event.EventCode;
+
+/**
+ * A forward-only cursor over Mya events which exposes the current event as primitives instead of
+ * creating an Event object per row. This is intended for consumers that look at each event exactly
+ * once, for example to compute a sum or write a line of output.
+ *
+ * <p>Validity contract: the accessor methods describe the row the cursor is positioned on, which
+ * is the row read by the most recent call to next() that returned true. The values are overwritten
+ * by the following call to next(), so anything needed later must be copied out. Calling an
+ * accessor before the first successful next(), after next() returns false, or after the cursor is
+ * closed throws an IllegalStateException. The cursors provided by DataNexus are also EventStreams,
+ * but read(), readBatch() and next() all advance the same underlying rows so they should not be
+ * mixed.
+ *
+ * <p>A cursor holds database resources until closed so generally you'll want to use a
+ * try-with-resources block.
+ *
+ * @author slominskir
+ */
+public interface EventCursor extends Channel {
+
+  /**
+   * Advance to the next event.
+   *
+   * @return true if positioned on an event, false if End-Of-Stream reached
+   * @throws ClosedChannelException If the channel is closed
+   * @throws IOException If unable to read the next event
+   */
+  boolean next() throws ClosedChannelException, IOException;
+
+  /**
+   * Return the Mya timestamp of the current event.
+   *
+   * @return The timestamp
+   * @throws IllegalStateException If not positioned on an event
+   */
+  long timestamp();
+
+  /**
+   * Return the Mya event code number of the current event.
+   *
+   * @return The code number
+   * @throws IllegalStateException If not positioned on an event
+   */
+  int codeNumber();
+
+  /**
+   * Return the event code of the current event.
+   *
+   * @return The EventCode
+   * @throws IllegalStateException If not positioned on an event
+   */
+  EventCode code();
+
+  /**
+   * Return whether the current event is a "disconnection" event. See EventCode.isDisconnection().
+   *
+   * @return true if a disconnection event
+   * @throws IllegalStateException If not positioned on an event
+   */
+  boolean isDisconnection();
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.channels.Channel;
 import java.nio.channels.ClosedChannelException;
 import org.jlab.mya.event.Event;
+import org.jlab.mya.event.EventBatch;
 
 /**
  * Provides an I/O Channel for streaming Mya events. Since Mya data is often very large it is
@@ -47,6 +48,32 @@ public abstract class EventStream<T extends Event> implements Channel {
    */
   public abstract T read() throws ClosedChannelException, IOException;
 
+  /**
+   * Read the next events from the stream into a reusable columnar batch. The batch is cleared and
+   * then filled with up to batch.getCapacity() events. Generally you'll want to iterate over the
+   * stream using a while loop until zero is returned.
+   *
+   * <p>This default implementation simply calls read() for each event. Streams which can fill the
+   * batch columns directly (notably database source streams and most of the streams in this
+   * package) override this method to avoid creating an event object per row. Some implementations
+   * buffer internally so calls to read() and readBatch() should not be mixed on the same stream.
+   *
+   * @param batch The batch to fill
+   * @return The number of events read, or zero if End-Of-Stream reached
+   * @throws ClosedChannelException If the channel is closed
+   * @throws IOException If unable to read the next events
+   */
+  public int readBatch(EventBatch<T> batch) throws ClosedChannelException, IOException {
+    batch.clear();
+
+    T event;
+    while (!batch.isFull() && (event = read()) != null) {
+      batch.add(event);
+    }
+
+    return batch.size();
+  }
+
   /**
    * Obtain type of stream.
    *
@@ -0,0 +1,213 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jlab.mya.event.Event;
+
+/**
+ * Adapts a pull-based EventStream (including wrapped streams) into a reactive Flow.Publisher.
+ *
+ * <p>Events are only read from the stream when the subscriber has requested them, so nothing is
+ * buffered no matter how slow the subscriber is. Reads happen on the supplied Executor (never on
+ * the thread calling request()) in batches of up to batchSize events before yielding the thread.
+ * The stream is closed once it is exhausted, fails, or the subscription is cancelled. Since a
+ * stream can only be read once, only a single subscriber is supported.
+ *
+ * <p>Reading a database stream blocks so the Executor should tolerate blocking tasks; for example
+ * the async executor of the DataNexus.
+ *
+ * @author slominskir
+ * @param <T> The Event type
+ */
+public class EventStreamPublisher<T extends Event> implements Flow.Publisher<T> {
+
+  /** The default max number of events read per executor task. */
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  private final EventStream<T> stream;
+  private final Executor executor;
+  private final int batchSize;
+  private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+  /**
+   * Create a new EventStreamPublisher with the default batch size.
+   *
+   * @param stream The stream to publish
+   * @param executor The executor on which the stream is read
+   */
+  public EventStreamPublisher(EventStream<T> stream, Executor executor) {
+    this(stream, executor, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Create a new EventStreamPublisher.
+   *
+   * @param stream The stream to publish
+   * @param executor The executor on which the stream is read
+   * @param batchSize The max number of events read per executor task
+   */
+  public EventStreamPublisher(EventStream<T> stream, Executor executor, int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be at least 1");
+    }
+
+    this.stream = stream;
+    this.executor = executor;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber);
+
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(
+          new Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+          });
+      subscriber.onError(
+          new IllegalStateException("EventStreamPublisher only supports a single subscriber"));
+      return;
+    }
+
+    EventSubscription subscription = new EventSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  /**
+   * The subscription. All signals to the subscriber are made from run(), which the work-in-progress
+   * counter guarantees is never executing on more than one thread at a time.
+   */
+  private class EventSubscription implements Flow.Subscription, Runnable {
+    private final Flow.Subscriber<? super T> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private volatile Throwable pendingError = null;
+    private boolean done = false;
+
+    EventSubscription(Flow.Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        pendingError = new IllegalArgumentException("Non-positive request: " + n);
+      } else {
+        demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+      }
+
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        try {
+          executor.execute(this);
+        } catch (RuntimeException e) {
+          done = true;
+          closeStream();
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+
+      do {
+        if (done) {
+          return;
+        }
+
+        if (cancelled) {
+          done = true;
+          closeStream();
+          return;
+        }
+
+        if (pendingError != null) {
+          done = true;
+          closeStream();
+          subscriber.onError(pendingError);
+          return;
+        }
+
+        long requested = demand.get();
+        long emitted = 0;
+
+        while (emitted < requested && emitted < batchSize && !cancelled) {
+          T event;
+
+          try {
+            event = stream.read();
+          } catch (IOException | RuntimeException e) {
+            done = true;
+            closeStream();
+            subscriber.onError(e);
+            return;
+          }
+
+          if (event == null) {
+            done = true;
+
+            try {
+              stream.close();
+            } catch (IOException e) {
+              subscriber.onError(e);
+              return;
+            }
+
+            subscriber.onComplete();
+            return;
+          }
+
+          subscriber.onNext(event);
+          emitted++;
+        }
+
+        if (requested != Long.MAX_VALUE) {
+          requested = demand.addAndGet(-emitted);
+        }
+
+        if (emitted == batchSize && requested > 0 && !cancelled) {
+          // Yield the thread; the work-in-progress count is still held so this is the only drain
+          try {
+            executor.execute(this);
+            return;
+          } catch (RuntimeException e) {
+            // Keep draining on this thread
+            continue;
+          }
+        }
+
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void closeStream() {
+      try {
+        stream.close();
+      } catch (IOException e) {
+        // Nothing more can be signalled to the subscriber
+      }
+    }
+  }
+}
@@ -3,18 +3,41 @@ package org.jlab.mya.stream;
 import java.io.IOException;
 import org.jlab.mya.RunningStatistics;
 import org.jlab.mya.event.AnalyzedFloatEvent;
+import org.jlab.mya.event.AnalyzedFloatEventBatch;
+import org.jlab.mya.event.EventBatch;
 import org.jlab.mya.event.EventCode;
 import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
 
 /**
  * Wraps an EventStream of FloatEvents and provides AnalyzedFloatEvents.
  *
+ * <p>Events can be read in three ways: read() creates an AnalyzedFloatEvent and stats array per
+ * event; readBatch() with an AnalyzedFloatEventBatch fills reusable columns; and next() advances
+ * this stream as a FloatEventCursor, with the event stats of the current event written into a
+ * single reused array (see eventStats()). The last two create no objects per event. The modes
+ * advance the same wrapped stream so they should not be mixed.
+ *
  * @author slominskir
  */
-public class FloatAnalysisStream extends WrappedStream<AnalyzedFloatEvent, FloatEvent> {
+public class FloatAnalysisStream extends WrappedStream<AnalyzedFloatEvent, FloatEvent>
+    implements FloatEventCursor {
+
+  /** The number of wrapped events read at a time by next(). */
+  static final int CURSOR_BATCH_SIZE = 1024;
 
   private final RunningStatistics seriesStats;
 
+  /** Scratch batch of wrapped events, created on first use by readBatch(). */
+  private FloatEventBatch source = null;
+
+  /** Batch of wrapped events read by next(), created on first use. */
+  private FloatEventBatch cursorSource = null;
+
+  private int cursorRow = -1;
+  private boolean positioned = false;
+  private final double[] cursorStats;
+
   /**
    * Create a new FloatAnalysisStream that wraps an EventStream of FloatEvents and accumulates no
    * event stats (only final series stats).
@@ -31,7 +54,7 @@ public class FloatAnalysisStream extends WrappedStream<AnalyzedFloatEvent, Float
    *
    * <p>Desired stats are specified via a statsMap which instructs the analysis service which stats
    * to track and the order (index) in which to return them. Valid values are defined as constants
-   * in the RunningStatistics class and include INTEGRATION.
+   * in the RunningStatistics class: INTEGRATION, MIN, MAX, MEAN, SIGMA, RMS, and DURATION.
    *
    * @param stream The FloatEvent EventStream to wrap
    * @param statsMap The stat name and index of requested statistics
@@ -39,6 +62,7 @@ public class FloatAnalysisStream extends WrappedStream<AnalyzedFloatEvent, Float
   public FloatAnalysisStream(EventStream<FloatEvent> stream, short[] statsMap) {
     super(stream, AnalyzedFloatEvent.class);
     seriesStats = new RunningStatistics(statsMap);
+    cursorStats = new double[seriesStats.getEventStatsCount()];
   }
 
   /**
@@ -71,6 +95,133 @@ public class FloatAnalysisStream extends WrappedStream<AnalyzedFloatEvent, Float
     return iEvent;
   }
 
+  /**
+   * Read the next events from the stream into a reusable columnar batch. Events are read from the
+   * wrapped stream in batches too and pushed into the running statistics as primitives so no event
+   * objects are created.
+   *
+   * @param batch The batch to fill
+   * @return The number of events read, or zero if End-Of-Stream reached
+   * @throws IOException If unable to read the next events
+   */
+  @Override
+  public int readBatch(EventBatch<AnalyzedFloatEvent> batch) throws IOException {
+    if (!(batch instanceof AnalyzedFloatEventBatch)
+        || ((AnalyzedFloatEventBatch) batch).getStatsCount() != seriesStats.getEventStatsCount()) {
+      return super.readBatch(batch);
+    }
+
+    AnalyzedFloatEventBatch dest = (AnalyzedFloatEventBatch) batch;
+    dest.clear();
+
+    if (source == null || source.getCapacity() != dest.getCapacity()) {
+      source = new FloatEventBatch(dest.getCapacity());
+    }
+
+    int count = wrapped.readBatch(source);
+    double[] stats = dest.getStats();
+
+    for (int i = 0; i < count; i++) {
+      float value = source.getValue(i);
+
+      seriesStats.push(source.getTimestamp(i), source.isDisconnection(i), value);
+
+      int row = dest.add(source.getTimestamp(i), source.getCodeNumber(i), value);
+      seriesStats.getEventStats(stats, dest.getStatsOffset(row));
+    }
+
+    return count;
+  }
+
+  /**
+   * Advance to the next event. The wrapped stream is read in batches and each event is pushed into
+   * the running statistics as primitives, with its event stats written into the array returned by
+   * eventStats(), so no objects are created per event.
+   *
+   * @return true if positioned on an event, false if End-Of-Stream reached
+   * @throws IOException If unable to read the next event
+   */
+  @Override
+  public boolean next() throws IOException {
+    positioned = false;
+
+    if (cursorSource == null) {
+      cursorSource = new FloatEventBatch(CURSOR_BATCH_SIZE);
+    }
+
+    if (cursorRow + 1 < cursorSource.size()) {
+      cursorRow++;
+    } else if (wrapped.readBatch(cursorSource) > 0) {
+      cursorRow = 0;
+    } else {
+      cursorRow = -1;
+      return false;
+    }
+
+    seriesStats.push(
+        cursorSource.getTimestamp(cursorRow),
+        cursorSource.isDisconnection(cursorRow),
+        cursorSource.getValue(cursorRow));
+    seriesStats.getEventStats(cursorStats, 0);
+    positioned = true;
+
+    return true;
+  }
+
+  /**
+   * Throw an IllegalStateException if the cursor is not positioned on an event.
+   *
+   * @throws IllegalStateException If not positioned on an event
+   */
+  private void checkPositioned() {
+    if (!positioned) {
+      throw new IllegalStateException("Cursor is not positioned on an event");
+    }
+  }
+
+  @Override
+  public long timestamp() {
+    checkPositioned();
+    return cursorSource.getTimestamp(cursorRow);
+  }
+
+  @Override
+  public int codeNumber() {
+    checkPositioned();
+    return cursorSource.getCodeNumber(cursorRow);
+  }
+
+  @Override
+  public EventCode code() {
+    checkPositioned();
+    return cursorSource.getCode(cursorRow);
+  }
+
+  @Override
+  public boolean isDisconnection() {
+    checkPositioned();
+    return cursorSource.isDisconnection(cursorRow);
+  }
+
+  @Override
+  public float floatValue() {
+    checkPositioned();
+    return cursorSource.getValue(cursorRow);
+  }
+
+  /**
+   * Return the event stats of the current event, in the order specified in the constructor. The
+   * array is reused and overwritten by the following call to next(), so anything needed later must
+   * be copied out.
+   *
+   * @return The event stats
+   * @throws IllegalStateException If not positioned on an event
+   */
+  public double[] eventStats() {
+    checkPositioned();
+    return cursorStats;
+  }
+
   /**
    * Get latest running statistics on this FloatAnalysisStream.
    *
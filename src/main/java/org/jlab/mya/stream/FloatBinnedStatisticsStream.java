@@ -0,0 +1,199 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.time.Instant;
+import org.jlab.mya.RunningStatistics;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
+
+/**
+ * Wraps an EventStream of FloatEvents and provides the time-weighted statistics (min, max, mean,
+ * sigma, duration, and integration) of each of a series of equal width time bins, for example the
+ * hourly mean and sigma over a month, in a single pass.
+ *
+ * <p>The interval [begin, end) is divided into bins the same way FloatTimeBinnedSampleStream
+ * divides it. The value in effect at the beginning of a bin is carried in from the last event
+ * before it and the last value is extended to the end of the bin (or now, if the bin ends in the
+ * future), so weighting is correct across bin boundaries and bins without events still report the
+ * value carried through them. Events before begin only establish the carried value, so to obtain
+ * statistics for the start of the first bin wrap a stream which includes the prior point, such as a
+ * BoundaryAwareStream. Events at or after end are ignored.
+ *
+ * <p>The wrapped stream is read in columnar batches and pushed into a single reused
+ * RunningStatistics as primitives, so no objects are created per event; only one BinStatistics is
+ * created per bin.
+ *
+ * @author slominskir
+ */
+public class FloatBinnedStatisticsStream implements Channel {
+
+  /** The number of events read from the wrapped stream at a time. */
+  static final int BATCH_SIZE = 1024;
+
+  private final EventStream<FloatEvent> wrapped;
+  private final long beginTimestamp;
+  private final long endTimestamp;
+  private final long binWidth;
+  private final long numBins;
+  private final long now;
+
+  private final RunningStatistics stats = new RunningStatistics();
+  private final FloatEventBatch batch = new FloatEventBatch(BATCH_SIZE);
+  private int position = 0;
+  private boolean exhausted = false;
+  private long nextBin = 0;
+
+  // The last event read, which is carried into the following bins
+  private boolean hasLast = false;
+  private boolean lastDisconnection;
+  private float lastValue;
+
+  /**
+   * Create a new FloatBinnedStatisticsStream with a fixed number of bins.
+   *
+   * @param stream The stream to wrap
+   * @param begin The begin of the interval (inclusive)
+   * @param end The end of the interval (exclusive)
+   * @param numBins The number of time bins
+   */
+  public FloatBinnedStatisticsStream(
+      EventStream<FloatEvent> stream, Instant begin, Instant end, long numBins) {
+    if (numBins < 1) {
+      throw new IllegalArgumentException("numBins must be at least 1");
+    }
+
+    this.wrapped = stream;
+    this.beginTimestamp = TimeUtil.toMyaTimestamp(begin);
+    this.endTimestamp = TimeUtil.toMyaTimestamp(end);
+    this.numBins = numBins;
+    this.now = TimeUtil.toMyaTimestamp(Instant.now());
+
+    // Mya timestamps are a fixed point number of seconds so they can be divided directly
+    long span = endTimestamp - beginTimestamp;
+    this.binWidth = Math.max(1, (span + numBins - 1) / numBins);
+  }
+
+  /**
+   * Create a new FloatBinnedStatisticsStream with bins of a fixed duration. The last bin is
+   * shortened if the interval isn't a whole number of bins.
+   *
+   * @param stream The stream to wrap
+   * @param begin The begin of the interval (inclusive)
+   * @param end The end of the interval (exclusive)
+   * @param binDuration The duration of each bin
+   */
+  public FloatBinnedStatisticsStream(
+      EventStream<FloatEvent> stream, Instant begin, Instant end, Duration binDuration) {
+    if (binDuration.isNegative() || binDuration.isZero()) {
+      throw new IllegalArgumentException("binDuration must be positive");
+    }
+
+    this.wrapped = stream;
+    this.beginTimestamp = TimeUtil.toMyaTimestamp(begin);
+    this.endTimestamp = TimeUtil.toMyaTimestamp(end);
+    this.binWidth = Math.max(1, TimeUtil.toMyaTimestamp(Instant.EPOCH.plus(binDuration)));
+    this.now = TimeUtil.toMyaTimestamp(Instant.now());
+
+    long span = endTimestamp - beginTimestamp;
+    this.numBins = Math.max(1, (span + binWidth - 1) / binWidth);
+  }
+
+  /**
+   * Read the statistics of the next bin. Every bin is read, in order, including bins without data.
+   *
+   * @return The statistics of the next bin or null if all bins have been read
+   * @throws IOException If unable to read the wrapped stream
+   */
+  public BinStatistics read() throws IOException {
+    if (!wrapped.isOpen()) {
+      throw new ClosedChannelException();
+    }
+
+    if (nextBin == numBins) {
+      return null;
+    }
+
+    long binBegin = beginTimestamp + nextBin * binWidth;
+    long binEnd = Math.min(endTimestamp, binBegin + binWidth);
+    long binLast = Math.min(binEnd, now);
+    long lastPushed = Long.MIN_VALUE;
+    long count = 0;
+
+    stats.reset();
+
+    while (true) {
+      if (position == batch.size()) {
+        if (exhausted) {
+          break;
+        }
+
+        position = 0;
+
+        if (wrapped.readBatch(batch) == 0) {
+          exhausted = true;
+          break;
+        }
+      }
+
+      long timestamp = batch.getTimestamp(position);
+
+      if (timestamp >= binEnd) {
+        break;
+      }
+
+      boolean disconnection = batch.isDisconnection(position);
+      float value = batch.getValue(position);
+
+      if (timestamp >= binBegin) {
+        // The carried value covers the bin up to its first event
+        if (count == 0 && hasLast && timestamp > binBegin) {
+          stats.push(binBegin, lastDisconnection, lastValue);
+        }
+
+        stats.push(timestamp, disconnection, value);
+        lastPushed = timestamp;
+        count++;
+      }
+
+      hasLast = true;
+      lastDisconnection = disconnection;
+      lastValue = value;
+      position++;
+    }
+
+    // The carried value covers the whole bin
+    if (count == 0 && hasLast && binBegin < binLast) {
+      stats.push(binBegin, lastDisconnection, lastValue);
+      lastPushed = binBegin;
+    }
+
+    if (lastPushed != Long.MIN_VALUE && lastPushed < binLast) {
+      stats.extendTo(binLast);
+    }
+
+    return new BinStatistics(nextBin++, binBegin, binEnd, count, stats);
+  }
+
+  /**
+   * Return the number of bins.
+   *
+   * @return The number of bins
+   */
+  public long getNumBins() {
+    return numBins;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return wrapped.isOpen();
+  }
+
+  @Override
+  public void close() throws IOException {
+    wrapped.close();
+  }
+}
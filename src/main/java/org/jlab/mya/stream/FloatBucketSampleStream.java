@@ -0,0 +1,229 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import org.jlab.mya.event.EventBatch;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatValuedEventBatch;
+
+/**
+ * Base class of the graphical (bucket based) sample streams which provides their columnar batch
+ * read. Subclasses decide where buckets begin and end one row at a time via processRow() and
+ * finish(), and this class takes care of reading the wrapped stream in batches and buffering the
+ * downsampled output, so no event objects are created.
+ *
+ * @author slominskir
+ * @param <T> The Type
+ */
+abstract class FloatBucketSampleStream<T extends FloatEvent> extends WrappedStream<T, T> {
+
+  private FloatValuedEventBatch<T> source = null;
+  private int sourceIndex = 0;
+  private int sourceSize = 0;
+  private boolean exhausted = false;
+
+  private FloatValuedEventBatch<T> pending;
+  private int pendingIndex = 0;
+
+  /** The events of the current bucket. */
+  private FloatValuedEventBatch<T> bucket;
+
+  /** The held back event (a single row), if hasHeld. */
+  private FloatValuedEventBatch<T> held;
+
+  private boolean hasHeld = false;
+
+  /** The last LTTB point (a single row), if hasFirstRow. */
+  private FloatValuedEventBatch<T> lastLTTB;
+
+  private boolean hasFirstRow = false;
+
+  /**
+   * Create a new FloatBucketSampleStream.
+   *
+   * @param wrapped The wrapped EventStream
+   * @param type The type
+   */
+  FloatBucketSampleStream(EventStream<T> wrapped, Class<T> type) {
+    super(wrapped, type);
+  }
+
+  /**
+   * Read the next events from the stream into a reusable columnar batch. The batch must be a
+   * FloatValuedEventBatch to avoid creating event objects, otherwise events are read one at a time.
+   *
+   * @param batch The batch to fill
+   * @return The number of events read, or zero if End-Of-Stream reached
+   * @throws IOException If unable to read the next events
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public int readBatch(EventBatch<T> batch) throws IOException {
+    if (!(batch instanceof FloatValuedEventBatch)) {
+      return super.readBatch(batch);
+    }
+
+    FloatValuedEventBatch<T> dest = (FloatValuedEventBatch<T>) batch;
+    dest.clear();
+
+    if (source == null) {
+      source = dest.createEmpty(dest.getCapacity());
+      pending = dest.createEmpty(dest.getCapacity());
+      bucket = dest.createEmpty(dest.getCapacity());
+      held = dest.createEmpty(1);
+      lastLTTB = dest.createEmpty(1);
+    }
+
+    while (!dest.isFull()) {
+      if (pendingIndex < pending.size()) {
+        dest.addFrom(pending, pendingIndex++);
+        continue;
+      }
+
+      pending.clear();
+      pendingIndex = 0;
+
+      if (sourceIndex == sourceSize) {
+        if (exhausted) {
+          break;
+        }
+
+        sourceSize = wrapped.readBatch(source);
+        sourceIndex = 0;
+
+        if (sourceSize == 0) {
+          exhausted = true;
+          finish();
+          continue;
+        }
+      }
+
+      processRow(source, sourceIndex++);
+    }
+
+    return dest.size();
+  }
+
+  /**
+   * Process the next row of the wrapped stream.
+   *
+   * @param rows The batch holding the row
+   * @param index The row index
+   */
+  abstract void processRow(FloatValuedEventBatch<T> rows, int index);
+
+  /** Flush the final bucket and output the held back last event. */
+  void finish() {
+    if (hasHeld) {
+      if (bucket.size() > 0) {
+        flush(held, 0);
+      }
+
+      emit(held, 0);
+      hasHeld = false;
+    }
+  }
+
+  /**
+   * Return whether the first data event has been processed.
+   *
+   * @return true if the first data event has been processed
+   */
+  boolean hasFirstRow() {
+    return hasFirstRow;
+  }
+
+  /**
+   * Return whether a row is held back.
+   *
+   * @return true if a row is held back
+   */
+  boolean hasHeld() {
+    return hasHeld;
+  }
+
+  /**
+   * Return the Mya timestamp of the held back row.
+   *
+   * @return The timestamp
+   */
+  long getHeldTimestamp() {
+    return held.getTimestamp(0);
+  }
+
+  /**
+   * Return whether the current bucket is empty.
+   *
+   * @return true if empty
+   */
+  boolean isBucketEmpty() {
+    return bucket.size() == 0;
+  }
+
+  /** Downsample the current bucket using the held back row as the third LTTB point. */
+  void flushBeforeHeld() {
+    flush(held, 0);
+  }
+
+  /**
+   * Handle a row before the first data event, which is always output. The first data event
+   * becomes the first LTTB point.
+   *
+   * @param rows The batch holding the row
+   * @param index The row index
+   */
+  void processLeadingRow(FloatValuedEventBatch<T> rows, int index) {
+    if (!rows.isDisconnection(index)) {
+      hasFirstRow = true;
+      lastLTTB.clear();
+      lastLTTB.addFrom(rows, index);
+    }
+
+    emit(rows, index);
+  }
+
+  /**
+   * Queue a row for output.
+   *
+   * @param rows The batch holding the row
+   * @param index The row index
+   */
+  void emit(FloatValuedEventBatch<T> rows, int index) {
+    pending.ensureCapacity(pending.size() + 1);
+    pending.addFrom(rows, index);
+  }
+
+  /**
+   * Hold back a row until the row after it is read.
+   *
+   * @param rows The batch holding the row
+   * @param index The row index
+   */
+  void hold(FloatValuedEventBatch<T> rows, int index) {
+    held.clear();
+    held.addFrom(rows, index);
+    hasHeld = true;
+  }
+
+  /** Add the held back row to the current bucket. */
+  void addHeldToBucket() {
+    bucket.ensureCapacity(bucket.size() + 1);
+    bucket.addFrom(held, 0);
+  }
+
+  /**
+   * Downsample the current bucket and queue the output.
+   *
+   * @param following The batch holding the event after the bucket (the third LTTB point)
+   * @param index The row of the event after the bucket
+   */
+  void flush(FloatValuedEventBatch<T> following, int index) {
+    int lttb = FloatEventBucket.downSample(bucket, lastLTTB, 0, following, index, pending);
+
+    if (lttb != -1) {
+      lastLTTB.clear();
+      lastLTTB.addFrom(bucket, lttb);
+    }
+
+    bucket.clear();
+  }
+}
@@ -1,10 +1,13 @@
 package org.jlab.mya.stream;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import org.jlab.mya.TimeUtil;
 import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatValuedEventBatch;
 
 /**
  * This is intended to be used as the "bucket" in a modified implementation of the largest triangle
@@ -135,11 +138,39 @@ class FloatEventBucket<T extends FloatEvent> {
    * @return The triangle area
    */
   static double calculateTriangleArea(FloatEvent e1, FloatEvent e2, FloatEvent e3) {
+    return calculateTriangleArea(
+        e1.getTimestamp(),
+        e1.getValue(),
+        e2.getTimestamp(),
+        e2.getValue(),
+        e3.getTimestamp(),
+        e3.getCode().isDisconnection(),
+        e3.getValue());
+  }
+
+  /**
+   * This calculates the area of the triangle formed by three events specified as primitives.
+   *
+   * @param t1 Mya timestamp of event 1 of the triangle
+   * @param v1 value of event 1 of the triangle
+   * @param t2 Mya timestamp of event 2 of the triangle
+   * @param v2 value of event 2 of the triangle
+   * @param t3 Mya timestamp of event 3 of the triangle
+   * @param d3 true if event 3 of the triangle is a disconnection event
+   * @param v3 value of event 3 of the triangle
+   * @return The triangle area
+   */
+  static double calculateTriangleArea(
+      long t1, float v1, long t2, float v2, long t3, boolean d3, float v3) {
 
     // define the first point as the time origin, then normalize the other points
     double x1 = 0.0;
-    double x2 = e2.getTimestampAsSeconds() - e1.getTimestampAsSeconds();
-    double x3 = e3.getTimestampAsSeconds() - e1.getTimestampAsSeconds();
+    double x2 =
+        t2 * TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER
+            - t1 * TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER;
+    double x3 =
+        t3 * TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER
+            - t1 * TimeUtil.MYATIME_TO_UNIX_SECONDS_WITH_FRACTION_SCALER;
 
     // If e3 is a non-update event, then just use the value of e1.  Keeping track of a running
     // average (or something)
@@ -151,10 +182,10 @@ class FloatEventBucket<T extends FloatEvent> {
     // forward the
     // last good lttb point (e1) if no data events were in the bucket.
     double y3;
-    if (e3.getCode().isDisconnection()) {
-      y3 = e1.getValue();
+    if (d3) {
+      y3 = v1;
     } else {
-      y3 = e3.getValue();
+      y3 = v3;
     }
 
     // The values are floats that get cast to doubles, so I'm not too worried about adding extra
@@ -162,10 +193,119 @@ class FloatEventBucket<T extends FloatEvent> {
     // in scale.
     // Formula for triangle in 2d space is x1*(y2-y3) - x2*(y3-y1) - x3*(y1-y2).  But we may have to
     // be tricky with y3 here.
-    return 0.5
-        * Math.abs(
-            x1 * (e2.getValue() - y3)
-                + x2 * (y3 - e1.getValue())
-                + x3 * (e1.getValue() - e2.getValue()));
+    return 0.5 * Math.abs(x1 * (v2 - y3) + x2 * (y3 - v1) + x3 * (v1 - v2));
+  }
+
+  /**
+   * Downsample a bucket of events held in a columnar batch. This is the same algorithm as the
+   * downSample() and getDownSampledOutput() methods combined, but operates on batch rows so no
+   * event objects are created. The downsampled rows are appended to the output batch in timestamp
+   * order, which is grown as needed.
+   *
+   * @param bucket The events in the bucket
+   * @param e1 The batch holding the first point of the LTTB triangle
+   * @param e1Index The row of the first point
+   * @param e3 The batch holding the last point of the LTTB triangle
+   * @param e3Index The row of the last point
+   * @param out The batch to append the downsampled rows to
+   * @param <T> The Event type
+   * @return The bucket row of the LTTB point, or -1 if the bucket contained nothing but non-update
+   *     events (in which case e1 remains the LTTB point)
+   */
+  static <T extends FloatEvent> int downSample(
+      FloatValuedEventBatch<T> bucket,
+      FloatValuedEventBatch<T> e1,
+      int e1Index,
+      FloatValuedEventBatch<T> e3,
+      int e3Index,
+      FloatValuedEventBatch<T> out) {
+    long t1 = e1.getTimestamp(e1Index);
+    float v1 = e1.getValue(e1Index);
+    long t3 = e3.getTimestamp(e3Index);
+    boolean d3 = e3.isDisconnection(e3Index);
+    float v3 = e3.getValue(e3Index);
+
+    int lttb = -1;
+    int min = -1;
+    int max = -1;
+    double lttbArea = 0;
+
+    // Candidate rows in the order the object version adds them to its sorted set: lttb, min, max,
+    // then the non-update events and their neighbors
+    int[] candidates = new int[8];
+    int candidateCount = 3;
+    int prev = -1;
+
+    for (int i = 0; i < bucket.size(); i++) {
+      if (bucket.isDisconnection(i)) {
+        if (prev != -1) {
+          candidates = append(candidates, candidateCount++, prev);
+        }
+        candidates = append(candidates, candidateCount++, i);
+        prev = i;
+        continue;
+      } else if (prev != -1 && bucket.isDisconnection(prev)) {
+        candidates = append(candidates, candidateCount++, i);
+      }
+
+      float value = bucket.getValue(i);
+
+      double area = calculateTriangleArea(t1, v1, bucket.getTimestamp(i), value, t3, d3, v3);
+      if (area > lttbArea) {
+        lttbArea = area;
+        lttb = i;
+      }
+
+      if (min == -1 || value < bucket.getValue(min)) {
+        min = i;
+      }
+      if (max == -1 || value > bucket.getValue(max)) {
+        max = i;
+      }
+
+      prev = i;
+    }
+
+    candidates[0] = lttb;
+    candidates[1] = min;
+    candidates[2] = max;
+
+    // Stable insertion sort by timestamp; the candidates are nearly sorted already
+    int count = 0;
+    for (int i = 0; i < candidateCount; i++) {
+      int row = candidates[i];
+
+      if (row == -1) {
+        continue;
+      }
+
+      int j = count;
+      while (j > 0 && bucket.getTimestamp(candidates[j - 1]) > bucket.getTimestamp(row)) {
+        candidates[j] = candidates[j - 1];
+        j--;
+      }
+      candidates[j] = row;
+      count++;
+    }
+
+    // Like a sorted set, keep only the first candidate of any given timestamp
+    for (int i = 0; i < count; i++) {
+      int row = candidates[i];
+
+      if (i == 0 || bucket.getTimestamp(row) != bucket.getTimestamp(candidates[i - 1])) {
+        out.ensureCapacity(out.size() + 1);
+        out.addFrom(bucket, row);
+      }
+    }
+
+    return lttb;
+  }
+
+  private static int[] append(int[] array, int index, int value) {
+    if (index == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+    }
+    array[index] = value;
+    return array;
   }
 }
@@ -0,0 +1,17 @@
+package org.jlab.mya.stream;
+
+/**
+ * An EventCursor over events with a float value.
+ *
+ * @author slominskir
+ */
+public interface FloatEventCursor extends EventCursor {
+
+  /**
+   * Return the value of the current event.
+   *
+   * @return The value
+   * @throws IllegalStateException If not positioned on an event
+   */
+  float floatValue();
+}
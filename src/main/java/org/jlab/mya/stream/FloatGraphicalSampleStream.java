@@ -5,7 +5,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import org.jlab.mya.CountEstimate;
 import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatValuedEventBatch;
 
 /**
  * Wraps an EventStream and provides FloatEvents that are down-sampled as they stream by using an
@@ -43,7 +45,7 @@ import org.jlab.mya.event.FloatEvent;
  * @author slominskir
  * @param <T> The Type
  */
-public class FloatGraphicalSampleStream<T extends FloatEvent> extends WrappedStream<T, T> {
+public class FloatGraphicalSampleStream<T extends FloatEvent> extends FloatBucketSampleStream<T> {
 
   private final long binSize;
   private final Queue<T> queue = new PriorityQueue<>();
@@ -78,7 +80,25 @@ public class FloatGraphicalSampleStream<T extends FloatEvent> extends WrappedStr
     // Then, we may not have enough points to fill all bins exactly, so use ceiling to ensure that
     // bins are the proper size
     // for numBins - 2 to hold count - 2 without adding extra bins.
-    binSize = (long) (Math.ceil(((double) count - 2) / (numBins - 2)));
+    long size = (long) (Math.ceil(((double) count - 2) / (numBins - 2)));
+
+    // An estimated (or tiny) count may round down to nothing; bins must hold at least one event
+    binSize = size == 0 ? 1 : size;
+  }
+
+  /**
+   * Create a new FloatGraphicalEventBinSampleStream by wrapping a FloatEventStream, using an
+   * estimate of the number of events. An estimate avoids an exact count query before the stream is
+   * read, at the expense of returning slightly more or fewer bins than requested.
+   *
+   * @param stream The FloatEventStream to wrap
+   * @param numBins The number of bins
+   * @param estimate The estimated total number of events
+   * @param type The type
+   */
+  public FloatGraphicalSampleStream(
+      EventStream<T> stream, long numBins, CountEstimate estimate, Class<T> type) {
+    this(stream, numBins, estimate.getCount(), type);
   }
 
   /**
@@ -99,6 +119,38 @@ public class FloatGraphicalSampleStream<T extends FloatEvent> extends WrappedStr
     return queue.poll();
   }
 
+  /**
+   * Process the next row of the wrapped stream in a columnar batch read. This mirrors
+   * processStream() one row at a time.
+   *
+   * @param rows The batch holding the row
+   * @param index The row index
+   */
+  @Override
+  void processRow(FloatValuedEventBatch<T> rows, int index) {
+    if (!hasFirstRow()) {
+      processLeadingRow(rows, index);
+      pointsProcessed++;
+
+      if (hasFirstRow()) {
+        binBoundary = (pointsProcessed / binSize + 1) * binSize;
+      }
+      return;
+    }
+
+    if (hasHeld()) {
+      addHeldToBucket();
+      pointsProcessed++;
+
+      if (pointsProcessed == binBoundary) {
+        binBoundary = binBoundary + binSize;
+        flush(rows, index);
+      }
+    }
+
+    hold(rows, index);
+  }
+
   /**
    * This method processes the "raw" FloatEventStream and supplies write events according to a
    * modified LTTB approach out to an internal queue.
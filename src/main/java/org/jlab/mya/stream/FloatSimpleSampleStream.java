@@ -3,6 +3,8 @@ package org.jlab.mya.stream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import org.jlab.mya.CountEstimate;
+import org.jlab.mya.event.EventBatch;
 import org.jlab.mya.event.FloatEvent;
 
 /**
@@ -37,6 +39,15 @@ public class FloatSimpleSampleStream<T extends FloatEvent> extends WrappedStream
   private final BigDecimal fractional;
   private BigDecimal fractionalCounter = BigDecimal.ZERO;
 
+  /** State of readBatch(): scratch batch of wrapped events and the position within it. */
+  private EventBatch<T> source = null;
+
+  private int sourceIndex = 0;
+  private int sourceSize = 0;
+
+  /** State of readBatch(): the number of events left to read in the current bin. */
+  private long remaining = 0;
+
   /**
    * Create a new FloatSimpleEventBinStream by wrapping a FloatEventStream.
    *
@@ -57,6 +68,21 @@ public class FloatSimpleSampleStream<T extends FloatEvent> extends WrappedStream
     }
   }
 
+  /**
+   * Create a new FloatSimpleEventBinStream by wrapping a FloatEventStream, using an estimate of the
+   * number of events. An estimate avoids an exact count query before the stream is read, at the
+   * expense of returning slightly more or fewer events than the limit.
+   *
+   * @param stream The FloatEventStream to wrap
+   * @param limit The number of bins
+   * @param estimate The estimated total number of events
+   * @param type The type
+   */
+  public FloatSimpleSampleStream(
+      EventStream<T> stream, long limit, CountEstimate estimate, Class<T> type) {
+    this(stream, limit, estimate.getCount(), type);
+  }
+
   /**
    * Read the next event from the stream. Generally you'll want to iterate over the stream using a
    * while loop.
@@ -68,6 +94,70 @@ public class FloatSimpleSampleStream<T extends FloatEvent> extends WrappedStream
   public T read() throws IOException {
     T event = null;
 
+    long effectiveBinSize = nextBinSize();
+
+    // System.out.println("effectiveBinSize: " + effectiveBinSize);
+    for (int i = 0; i < effectiveBinSize; i++) {
+      event = wrapped.read();
+
+      if (event == null) {
+        break;
+      }
+    }
+
+    return event;
+  }
+
+  /**
+   * Read the next events from the stream into a reusable columnar batch. The wrapped stream is read
+   * in batches of the same capacity and the last event of each bin is copied across, so no event
+   * objects are created.
+   *
+   * @param batch The batch to fill
+   * @return The number of events read, or zero if End-Of-Stream reached
+   * @throws IOException If unable to read the next events
+   */
+  @Override
+  public int readBatch(EventBatch<T> batch) throws IOException {
+    batch.clear();
+
+    if (source == null) {
+      source = batch.createEmpty(batch.getCapacity());
+    }
+
+    while (!batch.isFull()) {
+      if (sourceIndex == sourceSize) {
+        sourceSize = wrapped.readBatch(source);
+        sourceIndex = 0;
+
+        if (sourceSize == 0) { // End-of-Stream; a partial final bin is dropped
+          break;
+        }
+      }
+
+      if (remaining == 0) {
+        remaining = nextBinSize();
+      }
+
+      remaining--;
+
+      if (remaining == 0) {
+        batch.addFrom(source, sourceIndex);
+      }
+
+      sourceIndex++;
+    }
+
+    return batch.size();
+  }
+
+  /**
+   * Compute the size of the next bin. The fractional remainder of count / limit is accumulated and
+   * whenever it crosses a whole number the bin is one event larger.
+   *
+   * @return The number of events in the next bin
+   */
+  private long nextBinSize() {
     BigDecimal old = fractionalCounter;
 
     // System.out.println("old fractional counter: " + old);
@@ -86,15 +176,6 @@ public class FloatSimpleSampleStream<T extends FloatEvent> extends WrappedStream
       effectiveBinSize = binSize + 1;
     }
 
-    // System.out.println("effectiveBinSize: " + effectiveBinSize);
-    for (int i = 0; i < effectiveBinSize; i++) {
-      event = wrapped.read();
-
-      if (event == null) {
-        break;
-      }
-    }
-
-    return event;
+    return effectiveBinSize;
   }
 }
@@ -0,0 +1,224 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatValuedEventBatch;
+
+/**
+ * Wraps an EventStream and provides FloatEvents that are down-sampled as they stream by using an
+ * algorithm which attempts to maintain graphical fidelity of the data, with bins of equal time
+ * width.
+ *
+ * <p>This is the time-binned sibling of the FloatGraphicalSampleStream. The same streaming variant
+ * of the Largest Triangle Three Bucket (LTTB) algorithm is applied to each bucket (see
+ * FloatEventBucket), and the same points are kept: the first and last events, non-update (e.g.,
+ * disconnect) events and their neighbors, and the min, max, and LTTB event of each bucket. Unlike
+ * the FloatGraphicalSampleStream, buckets are formed by dividing the interval [begin, end) into
+ * numBins equal time ranges instead of equal event counts. This has two benefits: the total number
+ * of events does not need to be known up front, so no count query is required before streaming;
+ * and bursts of activity don't steal bins from calm periods, so the time axis of a chart is
+ * sampled evenly. Empty time bins produce no points.
+ *
+ * <p>Only the events of the current bucket are held in memory.
+ *
+ * <p>Note: This algorithm promises not to create new FloatEvents. Instead events are simply
+ * filtered out. This means you can pass in FloatEvent subclasses such as AnalyzedFloatEvents and
+ * they'll come out untouched.
+ *
+ * @author slominskir
+ * @param <T> The Type
+ */
+public class FloatTimeBinnedSampleStream<T extends FloatEvent> extends FloatBucketSampleStream<T> {
+
+  private final long beginTimestamp;
+  private final long binWidth;
+  private final long numBins;
+  private final Queue<T> queue = new PriorityQueue<>();
+  private final List<T> events = new ArrayList<>();
+  private boolean hasFirst = false;
+  private T lastLTTB = null;
+  private long currentBin = -1;
+
+  // Held back one event so the last event is handled like the first, and so the next event is
+  // available as the third LTTB point when a bucket is closed
+  private T prev = null;
+
+  /**
+   * Create a new FloatTimeBinnedSampleStream by wrapping a FloatEventStream.
+   *
+   * @param stream The FloatEventStream to wrap
+   * @param begin The begin of the interval (inclusive)
+   * @param end The end of the interval (exclusive)
+   * @param numBins The number of time bins
+   * @param type The type
+   */
+  public FloatTimeBinnedSampleStream(
+      EventStream<T> stream, Instant begin, Instant end, long numBins, Class<T> type) {
+    super(stream, type);
+
+    if (numBins < 1) {
+      throw new IllegalArgumentException("numBins must be at least 1");
+    }
+
+    this.beginTimestamp = TimeUtil.toMyaTimestamp(begin);
+    this.numBins = numBins;
+
+    // Mya timestamps are a fixed point number of seconds so they can be divided directly
+    long span = TimeUtil.toMyaTimestamp(end) - beginTimestamp;
+    this.binWidth = Math.max(1, (span + numBins - 1) / numBins);
+  }
+
+  /**
+   * Read the next event from the stream. Generally you'll want to iterate over the stream using a
+   * while loop.
+   *
+   * @return The next event or null if End-Of-Stream reached
+   * @throws IOException If unable to read the next event
+   */
+  @Override
+  public T read() throws IOException {
+    while (queue.peek() == null && processStream()) {
+      // Keep going until something is queued or the stream is exhausted
+    }
+
+    return queue.poll();
+  }
+
+  /**
+   * Return the bin of an event. Events outside of the interval are placed in the first or last bin.
+   *
+   * @param event The event
+   * @return The bin index
+   */
+  private long binOf(T event) {
+    return binOf(event.getTimestamp());
+  }
+
+  /**
+   * Return the bin of a Mya timestamp. Timestamps outside of the interval are placed in the first
+   * or last bin.
+   *
+   * @param timestamp The Mya timestamp
+   * @return The bin index
+   */
+  private long binOf(long timestamp) {
+    long bin = (timestamp - beginTimestamp) / binWidth;
+
+    if (bin < 0) {
+      bin = 0;
+    } else if (bin >= numBins) {
+      bin = numBins - 1;
+    }
+
+    return bin;
+  }
+
+  /**
+   * Process the next row of the wrapped stream in a columnar batch read. This mirrors
+   * processStream() one row at a time.
+   *
+   * @param rows The batch holding the row
+   * @param index The row index
+   */
+  @Override
+  void processRow(FloatValuedEventBatch<T> rows, int index) {
+    if (!hasFirstRow()) {
+      processLeadingRow(rows, index);
+      return;
+    }
+
+    if (hasHeld()) {
+      long bin = binOf(getHeldTimestamp());
+
+      if (!isBucketEmpty() && bin != currentBin) {
+        flushBeforeHeld();
+      }
+
+      currentBin = bin;
+      addHeldToBucket();
+    }
+
+    hold(rows, index);
+  }
+
+  /**
+   * Process the wrapped stream until at least one bucket has been queued or the stream ends.
+   *
+   * @return true if more may be processed, false if the wrapped stream is exhausted
+   * @throws IOException If unable to read the wrapped stream
+   */
+  private boolean processStream() throws IOException {
+    // The first real point should be included no matter what and should be used as the first LTTB
+    // point. Queue up any non-update points before the first real update.
+    if (!hasFirst) {
+      T first;
+
+      while ((first = wrapped.read()) != null && (first.getCode().isDisconnection())) {
+        queue.add(first);
+      }
+
+      if (first == null) {
+        return false;
+      }
+
+      hasFirst = true;
+      lastLTTB = first;
+      queue.add(first);
+      return true;
+    }
+
+    T next;
+
+    while ((next = wrapped.read()) != null) {
+      boolean flushed = false;
+
+      if (prev != null) {
+        long bin = binOf(prev);
+
+        if (!events.isEmpty() && bin != currentBin) {
+          flush(prev);
+          flushed = true;
+        }
+
+        currentBin = bin;
+        events.add(prev);
+      }
+
+      prev = next;
+
+      if (flushed) {
+        return true; // We only want to queue up one bucket's worth of downsampled points at a time
+      }
+    }
+
+    // No more events to read; flush the final bucket and add the held back last event
+    if (prev != null) {
+      if (!events.isEmpty()) {
+        flush(prev);
+      }
+
+      queue.add(prev);
+      prev = null;
+    }
+
+    return false;
+  }
+
+  /**
+   * Downsample the current bucket and queue the output.
+   *
+   * @param following The event after the bucket, used as the third LTTB point
+   */
+  private void flush(T following) {
+    FloatEventBucket<T> feb = new FloatEventBucket<>(events);
+    lastLTTB = feb.downSample(lastLTTB, following);
+    queue.addAll(feb.getDownSampledOutput());
+    events.clear();
+  }
+}
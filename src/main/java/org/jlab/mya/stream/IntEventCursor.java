@@ -0,0 +1,17 @@
+package org.jlab.mya.stream;
+
+/**
+ * An EventCursor over events with an int value.
+ *
+ * @author slominskir
+ */
+public interface IntEventCursor extends EventCursor {
+
+  /**
+   * Return the value of the current event.
+   *
+   * @return The value
+   * @throws IllegalStateException If not positioned on an event
+   */
+  int intValue();
+}
@@ -0,0 +1,185 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.FloatEvent;
+
+/**
+ * Wraps an EventStream and provides FloatEvents that are down-sampled for drawing a line chart of
+ * a known pixel width using the M4 aggregation presented in "M4: A Visualization-Oriented Time
+ * Series Data Aggregation" (Jugel et al., VLDB 2014).
+ *
+ * <p>The interval [begin, end) is mapped onto pixel columns the same way a chart maps its time
+ * axis, and for each column only the first, last, min, and max events are kept. A line drawn
+ * through these points is pixel-identical to a line drawn through every event, yet at most four
+ * points per column are produced. Unlike the LTTB streams no triangle areas are computed and no
+ * events are buffered: only the four candidate events of the current column are held.
+ *
+ * <p>Non-update (e.g., disconnect) events are always kept, as with FloatGraphicalSampleStream, and
+ * split the column they occur in so that the events on either side of the gap are kept too. Events
+ * before begin are placed in the first column and events at or after end in the last column.
+ *
+ * <p>Note: This algorithm promises not to create new FloatEvents. Instead events are simply
+ * filtered out. This means you can pass in FloatEvent subclasses such as AnalyzedFloatEvents and
+ * they'll come out untouched.
+ *
+ * @author slominskir
+ * @param <T> The Type
+ */
+public class M4SampleStream<T extends FloatEvent> extends WrappedStream<T, T> {
+
+  private final long beginTimestamp;
+  private final long pixelWidth;
+  private final double columnsPerTick;
+  private final Queue<T> queue = new ArrayDeque<>();
+
+  // The candidate events of the current column and their positions, which order min and max even
+  // if they have the same timestamp
+  private long column = -1;
+  private long position = 0;
+  private T first;
+  private T last;
+  private T min;
+  private T max;
+  private long minPosition;
+  private long maxPosition;
+
+  /**
+   * Create a new M4SampleStream by wrapping a FloatEventStream.
+   *
+   * @param stream The FloatEventStream to wrap
+   * @param begin The begin of the interval (inclusive)
+   * @param end The end of the interval (exclusive)
+   * @param pixelWidth The number of pixel columns
+   * @param type The type
+   */
+  public M4SampleStream(
+      EventStream<T> stream, Instant begin, Instant end, long pixelWidth, Class<T> type) {
+    super(stream, type);
+
+    if (pixelWidth < 1) {
+      throw new IllegalArgumentException("pixelWidth must be at least 1");
+    }
+
+    this.beginTimestamp = TimeUtil.toMyaTimestamp(begin);
+    this.pixelWidth = pixelWidth;
+
+    long span = Math.max(1, TimeUtil.toMyaTimestamp(end) - beginTimestamp);
+    this.columnsPerTick = (double) pixelWidth / span;
+  }
+
+  /**
+   * Read the next event from the stream. Generally you'll want to iterate over the stream using a
+   * while loop.
+   *
+   * @return The next event or null if End-Of-Stream reached
+   * @throws IOException If unable to read the next event
+   */
+  @Override
+  public T read() throws IOException {
+    while (queue.isEmpty()) {
+      T event = wrapped.read();
+
+      if (event == null) {
+        flush();
+        break;
+      }
+
+      process(event);
+    }
+
+    return queue.poll();
+  }
+
+  /**
+   * Return the pixel column of a Mya timestamp. Timestamps outside of the interval are placed in
+   * the first or last column.
+   *
+   * @param timestamp The Mya timestamp
+   * @return The column index
+   */
+  private long columnOf(long timestamp) {
+    long c = (long) Math.floor((timestamp - beginTimestamp) * columnsPerTick);
+
+    if (c < 0) {
+      c = 0;
+    } else if (c >= pixelWidth) {
+      c = pixelWidth - 1;
+    }
+
+    return c;
+  }
+
+  /**
+   * Add an event to the current column, queueing the previous column if the event starts a new
+   * one.
+   *
+   * @param event The event
+   */
+  private void process(T event) {
+    position++;
+
+    if (event.getCode().isDisconnection()) {
+      flush();
+      queue.add(event);
+      return;
+    }
+
+    long c = columnOf(event.getTimestamp());
+
+    if (c != column) {
+      flush();
+      column = c;
+      first = last = min = max = event;
+      minPosition = maxPosition = position;
+      return;
+    }
+
+    last = event;
+
+    if (event.getValue() < min.getValue()) {
+      min = event;
+      minPosition = position;
+    }
+
+    if (event.getValue() > max.getValue()) {
+      max = event;
+      maxPosition = position;
+    }
+  }
+
+  /** Queue the distinct candidate events of the current column in time order. */
+  private void flush() {
+    if (column == -1) {
+      return;
+    }
+
+    T a = min;
+    T b = max;
+
+    if (maxPosition < minPosition) {
+      a = max;
+      b = min;
+    }
+
+    queue.add(first);
+
+    if (a != first && a != last) {
+      queue.add(a);
+    }
+
+    if (b != a && b != first && b != last) {
+      queue.add(b);
+    }
+
+    if (last != first) {
+      queue.add(last);
+    }
+
+    column = -1;
+    first = last = min = max = null;
+  }
+}
@@ -0,0 +1,228 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.mya.event.Event;
+
+/**
+ * Merges multiple time-ordered EventStreams into a single time-ordered EventStream.
+ *
+ * <p>The merge is done with a loser tree keyed on the primitive Mya timestamps of the head event of
+ * each source stream. Reading an event replays a single leaf-to-root path, so each event costs
+ * about log2(N) primitive comparisons and no allocation regardless of the number of streams.
+ * Events with equal timestamps are emitted in the order of their source stream index.
+ *
+ * <p>The source of the most recently read event is available from getSourceIndex(), which is the
+ * index of the stream in the list provided to the constructor. Closing this stream closes all of
+ * the source streams.
+ *
+ * @author slominskir
+ * @param <T> The Event type
+ */
+public class MergedEventStream<T extends Event> extends EventStream<T> {
+
+  private final List<EventStream<? extends T>> streams;
+  private final int k;
+
+  /** The head event of each stream, or null if exhausted. */
+  private final Event[] heads;
+
+  /** The timestamp of the head event of each stream. */
+  private final long[] timestamps;
+
+  /**
+   * The loser tree. Element 0 holds the index of the overall winner and elements 1 to k-1 hold the
+   * index of the loser of the match played at that internal node.
+   */
+  private final int[] tree;
+
+  private boolean primed = false;
+  private boolean open = true;
+  private int sourceIndex = -1;
+
+  /**
+   * Create a new MergedEventStream.
+   *
+   * @param streams The time-ordered source streams
+   * @param type The type
+   */
+  public MergedEventStream(List<? extends EventStream<? extends T>> streams, Class<T> type) {
+    super(type);
+    this.streams = new ArrayList<>(streams);
+    this.k = streams.size();
+    this.heads = new Event[k];
+    this.timestamps = new long[k];
+    this.tree = new int[Math.max(1, k)];
+  }
+
+  /**
+   * Return the number of source streams.
+   *
+   * @return The number of source streams
+   */
+  public int getSourceCount() {
+    return k;
+  }
+
+  /**
+   * Return the index of the source stream of the most recently read event.
+   *
+   * @return The source stream index, or -1 if no event has been read
+   */
+  public int getSourceIndex() {
+    return sourceIndex;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T read() throws ClosedChannelException, IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+
+    if (!primed) {
+      prime();
+    }
+
+    if (k == 0) {
+      return null;
+    }
+
+    int winner = tree[0];
+    Event event = heads[winner];
+
+    if (event == null) { // All streams exhausted
+      return null;
+    }
+
+    sourceIndex = winner;
+    advance(winner);
+    replay(winner);
+
+    return (T) event;
+  }
+
+  /**
+   * Read the first event of each stream and build the tree.
+   *
+   * @throws IOException If unable to read
+   */
+  private void prime() throws IOException {
+    for (int i = 0; i < k; i++) {
+      advance(i);
+    }
+
+    // Every node starts out holding a virtual leaf (index k) which beats everything, so it is
+    // pushed up and out of the tree as the real leaves are played in.
+    for (int t = 0; t < tree.length; t++) {
+      tree[t] = k;
+    }
+
+    for (int i = k - 1; i >= 0; i--) {
+      replay(i);
+    }
+
+    primed = true;
+  }
+
+  /**
+   * Replace the head of a stream with its next event.
+   *
+   * @param i The stream index
+   * @throws IOException If unable to read
+   */
+  private void advance(int i) throws IOException {
+    Event next = streams.get(i).read();
+    heads[i] = next;
+
+    if (next != null) {
+      timestamps[i] = next.getTimestamp();
+    }
+  }
+
+  /**
+   * Play the leaf of the given stream up to the root, leaving losers at each node on the way.
+   *
+   * @param leaf The stream index
+   */
+  private void replay(int leaf) {
+    int winner = leaf;
+
+    for (int t = (leaf + k) >> 1; t > 0; t = t >> 1) {
+      int other = tree[t];
+
+      if (beats(other, winner)) {
+        tree[t] = winner;
+        winner = other;
+      }
+    }
+
+    tree[0] = winner;
+  }
+
+  /**
+   * Return whether stream a should be emitted before stream b. Exhausted streams lose to all
+   * others, ties are broken by the stream index, and the virtual leaf k beats everything.
+   *
+   * @param a A stream index
+   * @param b Another stream index
+   * @return true if a wins
+   */
+  private boolean beats(int a, int b) {
+    if (a == k) {
+      return true;
+    }
+
+    if (b == k) {
+      return false;
+    }
+
+    if (heads[a] == null) {
+      return heads[b] == null && a < b;
+    }
+
+    if (heads[b] == null) {
+      return true;
+    }
+
+    long ta = timestamps[a];
+    long tb = timestamps[b];
+
+    return ta < tb || (ta == tb && a < b);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Closes all source streams.
+   *
+   * @throws IOException If an I/O error occurs closing any source stream
+   */
+  @Override
+  public void close() throws IOException {
+    open = false;
+
+    IOException first = null;
+
+    for (EventStream<? extends T> stream : streams) {
+      try {
+        stream.close();
+      } catch (IOException e) {
+        if (first == null) {
+          first = e;
+        } else {
+          first.addSuppressed(e);
+        }
+      }
+    }
+
+    if (first != null) {
+      throw first;
+    }
+  }
+}
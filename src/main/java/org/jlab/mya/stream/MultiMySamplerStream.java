@@ -0,0 +1,341 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.Event;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.IntEvent;
+import org.jlab.mya.nexus.DataNexus;
+
+/**
+ * Samples many channels on the same time grid and produces one SampleRow per sample time, like the
+ * command line mySampler application given a list of channels. The value of each channel at a
+ * sample time is the value of the last event at or before the sample time, exactly as with the
+ * N_QUERIES strategy of MySamplerStream. A sample with no prior event, or in the future, has code
+ * UNDEFINED and value zero.
+ *
+ * <p>Rows are produced in blocks. For each block every channel resolves all of its sample times
+ * with a single batch point lookup, and the channels are queried concurrently with at most
+ * maxConcurrentPerHost queries in flight against a single host. Only one block of rows is buffered
+ * at a time, so memory use is bounded by rowsPerBlock times the number of channels regardless of
+ * the sample count.
+ *
+ * <p>Only float and int valued channels are supported. This stream should be closed when no longer
+ * needed to stop the worker threads.
+ *
+ * @author slominskir
+ */
+public class MultiMySamplerStream implements Channel {
+
+  /** The default number of rows resolved (and buffered) at once. */
+  public static final int DEFAULT_ROWS_PER_BLOCK = 64;
+
+  private final DataNexus nexus;
+  private final List<Metadata> metadataList;
+  private final Instant begin;
+  private final long intervalMillis;
+  private final long sampleCount;
+  private final boolean updatesOnly;
+  private final int rowsPerBlock;
+  private final Instant now;
+
+  /** The channel indices of each host. */
+  private final Map<String, List<Integer>> hostChannels = new LinkedHashMap<>();
+
+  private final int maxConcurrentPerHost;
+  private final ExecutorService executor;
+
+  /** The timestamps of the current block. */
+  private final long[] blockTimestamps;
+
+  /** The values of the current block, indexed by channel then row. */
+  private final double[][] blockValues;
+
+  /** The code numbers of the current block, indexed by channel then row. */
+  private final byte[][] blockCodes;
+
+  private int blockSize = 0;
+  private int blockIndex = 0;
+  private long samplesTaken = 0;
+  private boolean open = true;
+
+  /**
+   * Create a new MultiMySamplerStream with the default block size and concurrency.
+   *
+   * @param nexus The DataNexus to query
+   * @param metadataList The channels to sample
+   * @param begin The time of the first sample
+   * @param intervalMillis The time interval between samples in milliseconds
+   * @param sampleCount The number of samples to take, including the first one at begin
+   * @param updatesOnly true to sample update events only
+   */
+  public MultiMySamplerStream(
+      DataNexus nexus,
+      List<Metadata> metadataList,
+      Instant begin,
+      long intervalMillis,
+      long sampleCount,
+      boolean updatesOnly) {
+    this(
+        nexus,
+        metadataList,
+        begin,
+        intervalMillis,
+        sampleCount,
+        updatesOnly,
+        DEFAULT_ROWS_PER_BLOCK,
+        DataNexus.DEFAULT_MAX_CONCURRENT_QUERIES_PER_HOST);
+  }
+
+  /**
+   * Create a new MultiMySamplerStream.
+   *
+   * @param nexus The DataNexus to query
+   * @param metadataList The channels to sample
+   * @param begin The time of the first sample
+   * @param intervalMillis The time interval between samples in milliseconds
+   * @param sampleCount The number of samples to take, including the first one at begin
+   * @param updatesOnly true to sample update events only
+   * @param rowsPerBlock The number of rows resolved (and buffered) at once
+   * @param maxConcurrentPerHost The max number of queries to run at once against a single host
+   * @throws IllegalArgumentException If a channel isn't float or int valued or a limit is less than
+   *     one
+   */
+  public MultiMySamplerStream(
+      DataNexus nexus,
+      List<Metadata> metadataList,
+      Instant begin,
+      long intervalMillis,
+      long sampleCount,
+      boolean updatesOnly,
+      int rowsPerBlock,
+      int maxConcurrentPerHost) {
+    if (rowsPerBlock < 1) {
+      throw new IllegalArgumentException("rowsPerBlock must be at least 1");
+    }
+
+    if (maxConcurrentPerHost < 1) {
+      throw new IllegalArgumentException("maxConcurrentPerHost must be at least 1");
+    }
+
+    for (int i = 0; i < metadataList.size(); i++) {
+      Class type = metadataList.get(i).getType();
+
+      if (type != FloatEvent.class && type != IntEvent.class) {
+        throw new IllegalArgumentException(
+            "Only float and int valued channels can be sampled: " + metadataList.get(i).getName());
+      }
+
+      hostChannels.computeIfAbsent(metadataList.get(i).getHost(), h -> new ArrayList<>()).add(i);
+    }
+
+    this.nexus = nexus;
+    this.metadataList = new ArrayList<>(metadataList);
+    this.begin = begin;
+    this.intervalMillis = intervalMillis;
+    this.sampleCount = sampleCount;
+    this.updatesOnly = updatesOnly;
+    this.rowsPerBlock = rowsPerBlock;
+    this.maxConcurrentPerHost = maxConcurrentPerHost;
+    this.now = Instant.now(); /* We consider "now" to be fixed in time from when stream created */
+
+    this.blockTimestamps = new long[rowsPerBlock];
+    this.blockValues = new double[metadataList.size()][rowsPerBlock];
+    this.blockCodes = new byte[metadataList.size()][rowsPerBlock];
+
+    int workerCount = 0;
+
+    for (List<Integer> channels : hostChannels.values()) {
+      workerCount = workerCount + Math.min(maxConcurrentPerHost, channels.size());
+    }
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor =
+        Executors.newFixedThreadPool(
+            Math.max(1, workerCount),
+            r -> {
+              Thread t = new Thread(r, "jmyapi-multi-sampler-" + threadNumber.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+  }
+
+  /**
+   * Read the next row.
+   *
+   * @return The next row, or null if all samples have been read
+   * @throws IOException If unable to query the database
+   */
+  public SampleRow read() throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+
+    if (blockIndex == blockSize) {
+      if (samplesTaken == sampleCount) {
+        return null;
+      }
+
+      fillBlock();
+    }
+
+    int row = blockIndex++;
+    int channels = metadataList.size();
+    double[] values = new double[channels];
+    byte[] codes = new byte[channels];
+
+    for (int c = 0; c < channels; c++) {
+      values[c] = blockValues[c][row];
+      codes[c] = blockCodes[c][row];
+    }
+
+    return new SampleRow(blockTimestamps[row], values, codes);
+  }
+
+  /**
+   * Resolve the next block of rows by querying all channels concurrently.
+   *
+   * @throws IOException If unable to query the database
+   */
+  private void fillBlock() throws IOException {
+    int size = (int) Math.min(rowsPerBlock, sampleCount - samplesTaken);
+    int pastCount = 0;
+
+    for (int row = 0; row < size; row++) {
+      Instant time = begin.plusMillis(intervalMillis * (samplesTaken + row));
+      blockTimestamps[row] = TimeUtil.toMyaTimestamp(time);
+
+      if (!time.isAfter(now)) {
+        pastCount = row + 1;
+      }
+    }
+
+    long[] queryTimestamps = new long[pastCount];
+    System.arraycopy(blockTimestamps, 0, queryTimestamps, 0, pastCount);
+
+    List<Future<Void>> futures = new ArrayList<>();
+
+    for (List<Integer> channels : hostChannels.values()) {
+      Queue<Integer> queue = new ConcurrentLinkedQueue<>(channels);
+
+      for (int w = 0; w < Math.min(maxConcurrentPerHost, channels.size()); w++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  Integer c;
+                  while ((c = queue.poll()) != null) {
+                    sampleChannel(c, queryTimestamps, size);
+                  }
+                  return null;
+                }));
+      }
+    }
+
+    Throwable first = null;
+
+    try {
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (first == null) {
+            first = e.getCause();
+          } else {
+            first.addSuppressed(e.getCause());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      for (Future<Void> future : futures) {
+        future.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while sampling channels");
+    }
+
+    if (first instanceof IOException) {
+      throw (IOException) first;
+    } else if (first instanceof RuntimeException) {
+      throw (RuntimeException) first;
+    } else if (first instanceof Error) {
+      throw (Error) first;
+    } else if (first != null) {
+      throw new IOException("Unable to sample channels", first);
+    }
+
+    blockSize = size;
+    blockIndex = 0;
+    samplesTaken = samplesTaken + size;
+  }
+
+  /**
+   * Sample a single channel for the current block.
+   *
+   * @param channel The channel index
+   * @param timestamps The Mya timestamps of the rows which are not in the future
+   * @param size The number of rows in the block
+   * @throws SQLException If unable to query the database
+   */
+  @SuppressWarnings("unchecked")
+  private void sampleChannel(int channel, long[] timestamps, int size) throws SQLException {
+    List<Event> events =
+        nexus.findEvents(metadataList.get(channel), timestamps, true, true, updatesOnly);
+    double[] values = blockValues[channel];
+    byte[] codes = blockCodes[channel];
+
+    for (int row = 0; row < size; row++) {
+      Event event = row < events.size() ? events.get(row) : null;
+
+      if (event == null) {
+        values[row] = 0;
+        codes[row] = (byte) EventCode.UNDEFINED.getCodeNumber();
+      } else {
+        if (event instanceof FloatEvent) {
+          values[row] = ((FloatEvent) event).getValue();
+        } else {
+          values[row] = ((IntEvent) event).getValue();
+        }
+        codes[row] = (byte) event.getCode().getCodeNumber();
+      }
+    }
+  }
+
+  /**
+   * Return the channels, in the order of the values of each row.
+   *
+   * @return The channel metadata
+   */
+  public List<Metadata> getMetadataList() {
+    return metadataList;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  /** Close this stream and stop the worker threads. */
+  @Override
+  public void close() {
+    open = false;
+    executor.shutdownNow();
+  }
+}
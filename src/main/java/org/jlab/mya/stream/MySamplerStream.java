@@ -3,24 +3,31 @@ package org.jlab.mya.stream;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.jlab.mya.Metadata;
 import org.jlab.mya.TimeUtil;
 import org.jlab.mya.event.*;
 import org.jlab.mya.nexus.DataNexus;
 
 /**
- * This is a class mimics the command line mySampler application. It implements two different
- * strategies, sampling from the data as it is streamed through the library (STREAM), and repeatedly
- * querying the database for each sampled point (N_QUERIES). Different constructors create streams
- * that use either of these two strategy Previous versions attempted a hybrid approach, but that did
- * not work well since processing a ResultSet cannot be cleanly cancelled partway through.
+ * This is a class mimics the command line mySampler application. It implements three strategies:
+ * sampling from the data as it is streamed through the library (STREAM), querying the database for
+ * the prior point of each sample (N_QUERIES), and choosing between the two as it goes (AUTO).
+ * Different factory methods create streams that use each strategy.
  *
  * <p>For streams where the Event update rate is less than the requested sample rate, then it is
  * obviously better to make one query and stream all the underlying data. For streams where the
- * Event update rate is much, much, greater than the requested sample rate, making multiple queries
- * to the database is obviously better. Users should be aware of these trade-offs and select the
- * strategy they think best. Developer testing indicates the threshold for switching strategies to
- * maintain the best response time is somewhere around 5,000 events per sample.
+ * Event update rate is much, much, greater than the requested sample rate, point queries are
+ * obviously better. Developer testing indicates the threshold for switching strategies to maintain
+ * the best response time is somewhere around 5,000 events per sample. Since the update rate of a
+ * channel often varies over time, the AUTO strategy makes the choice per block of up to
+ * N_QUERIES_BLOCK_SIZE samples: it estimates the number of events in the block from the database
+ * and uses point queries if the estimate exceeds the events per sample threshold, otherwise it
+ * streams just that block. Each block is a separate query, so no ResultSet ever needs to be
+ * cancelled partway through, and the output is identical to the other strategies. Users who know
+ * the density of their data in advance may still select STREAM or N_QUERIES directly.
  *
  * <p>Factory methods are provided to simplify the construction. Since this extends
  * BoundaryAwareStream, the factory methods are especially in dealing with the priorPoint which is
@@ -40,6 +47,17 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
   private boolean firstRead = true;
   private boolean endOfStream = false;
 
+  /**
+   * The max number of samples resolved at once by the N_QUERIES strategy. The point queries of a
+   * block are combined into a small number of statements on a single connection.
+   */
+  static final int N_QUERIES_BLOCK_SIZE = 1024;
+
+  /** The prior points of the current block of samples (N_QUERIES strategy). */
+  private List<T> block = Collections.emptyList();
+
+  private int blockIndex = 0;
+
   /** The different sampling strategies that can be used. */
   public enum Strategy {
     /**
@@ -48,19 +66,36 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
      */
     STREAM,
     /**
-     * Sampling is done at the database level by making a SQL query for each individual sample that
-     * is produced by the read() method.
+     * Sampling is done at the database level with a point query for the prior point of each
+     * sample. The samples are resolved in blocks of up to N_QUERIES_BLOCK_SIZE via
+     * DataNexus.findEvents, which combines the point queries of a block into a few UNION ALL
+     * statements on a single connection, so a block costs a handful of round trips rather than one
+     * per sample.
      */
-    N_QUERIES
+    N_QUERIES,
+    /**
+     * The samples are split into regions (blocks of samples) and the number of events in each
+     * region is estimated from the database index statistics. Regions with many events per sample
+     * use point queries and regions with few are streamed. The output is identical to the other
+     * strategies.
+     */
+    AUTO
   }
 
+  /**
+   * The default number of estimated events per sample above which the AUTO strategy uses point
+   * queries for a region instead of streaming it.
+   */
+  public static final double DEFAULT_AUTO_EVENTS_PER_SAMPLE_THRESHOLD = 5000;
+
   private final Strategy strategy;
   private final DataNexus nexus;
   private final Metadata<T> metadata;
+  private final double eventsPerSampleThreshold;
 
   /**
-   * Create an instance of MySamplerStream that exclusively uses the N_QUERIES strategy. While this
-   * class extends BoundaryAwareStream, this object makes no use of streaming the data, so no
+   * Create an instance of MySamplerStream that uses the N_QUERIES or AUTO strategy. While this
+   * class extends BoundaryAwareStream, this object makes no use of the wrapped stream, so no
    * wrapped stream or prior point are needed.
    *
    * @param begin The time of the first sample
@@ -71,6 +106,8 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
    * @param nexus A DataNexus that can be used to perform the n-query strategy if needed. If null,
    *     only application sampling will be used.
    * @param metadata Metadata object for the wrapped EventStream. Used in the switch to n-query.
+   * @param strategy The strategy, N_QUERIES or AUTO
+   * @param eventsPerSampleThreshold The AUTO strategy events per sample point query threshold
    */
   private MySamplerStream(
       Instant begin,
@@ -79,7 +116,9 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
       boolean updatesOnly,
       Class<T> type,
       DataNexus nexus,
-      Metadata<T> metadata) {
+      Metadata<T> metadata,
+      Strategy strategy,
+      double eventsPerSampleThreshold) {
     // In this case, we don't use the parent BoundaryAwareStream.  Setting the wrapped to null
     // should be harmless.
     super(
@@ -95,7 +134,8 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
     this.sampleTimeInstant = begin;
     this.nexus = nexus;
     this.metadata = metadata;
-    this.strategy = Strategy.N_QUERIES;
+    this.strategy = strategy;
+    this.eventsPerSampleThreshold = eventsPerSampleThreshold;
   }
 
   /**
@@ -139,6 +179,7 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
     this.strategy = Strategy.STREAM;
     this.nexus = null;
     this.metadata = null;
+    this.eventsPerSampleThreshold = 0;
   }
 
   /**
@@ -225,7 +266,88 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
       DataNexus nexus,
       Metadata<T> metadata) {
     return new MySamplerStream<>(
-        begin, intervalMillis, sampleCount, updatesOnly, type, nexus, metadata);
+        begin,
+        intervalMillis,
+        sampleCount,
+        updatesOnly,
+        type,
+        nexus,
+        metadata,
+        Strategy.N_QUERIES,
+        0);
+  }
+
+  /**
+   * Factory method that produces a MySamplerStream that uses the AUTO strategy with the default
+   * threshold. See getAutoMySamplerStream(Instant, long, long, boolean, Class, DataNexus, Metadata,
+   * double).
+   *
+   * @param begin The time of the first sample point
+   * @param intervalMillis The time between sample points
+   * @param sampleCount The number of samples to return (including the first)
+   * @param updatesOnly Should only non-disconnect events be processed
+   * @param type The type of Event that is being streamed
+   * @param nexus A DataNexus used to estimate density, stream regions, and perform point queries
+   * @param metadata Metadata object of the PV to sample
+   * @param <T> The type of Event that is to be streamed
+   * @return A MySamplerStream
+   */
+  public static <T extends Event> MySamplerStream<T> getAutoMySamplerStream(
+      Instant begin,
+      long intervalMillis,
+      long sampleCount,
+      boolean updatesOnly,
+      Class<T> type,
+      DataNexus nexus,
+      Metadata<T> metadata) {
+    return getAutoMySamplerStream(
+        begin,
+        intervalMillis,
+        sampleCount,
+        updatesOnly,
+        type,
+        nexus,
+        metadata,
+        DEFAULT_AUTO_EVENTS_PER_SAMPLE_THRESHOLD);
+  }
+
+  /**
+   * Factory method that produces a MySamplerStream that uses the AUTO strategy. The samples are
+   * processed in regions of up to N_QUERIES_BLOCK_SIZE samples. The number of events in each
+   * region is estimated from index statistics, and if the estimated events per sample exceeds the
+   * threshold the region is sampled with point queries, otherwise the region is streamed.
+   *
+   * @param begin The time of the first sample point
+   * @param intervalMillis The time between sample points
+   * @param sampleCount The number of samples to return (including the first)
+   * @param updatesOnly Should only non-disconnect events be processed
+   * @param type The type of Event that is being streamed
+   * @param nexus A DataNexus used to estimate density, stream regions, and perform point queries
+   * @param metadata Metadata object of the PV to sample
+   * @param eventsPerSampleThreshold The estimated events per sample above which point queries are
+   *     used
+   * @param <T> The type of Event that is to be streamed
+   * @return A MySamplerStream
+   */
+  public static <T extends Event> MySamplerStream<T> getAutoMySamplerStream(
+      Instant begin,
+      long intervalMillis,
+      long sampleCount,
+      boolean updatesOnly,
+      Class<T> type,
+      DataNexus nexus,
+      Metadata<T> metadata,
+      double eventsPerSampleThreshold) {
+    return new MySamplerStream<>(
+        begin,
+        intervalMillis,
+        sampleCount,
+        updatesOnly,
+        type,
+        nexus,
+        metadata,
+        Strategy.AUTO,
+        eventsPerSampleThreshold);
   }
 
   /**
@@ -258,7 +380,7 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
       }
       if (strategy == Strategy.STREAM) {
         return readStream();
-      } else if (strategy == Strategy.N_QUERIES) {
+      } else if (strategy == Strategy.N_QUERIES || strategy == Strategy.AUTO) {
         return readService();
       } else {
         throw new IOException("Unsupported sampling strategy");
@@ -273,12 +395,37 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
    * N_QUERIES strategy. Events with code UNDEFINED is returned when requesting a sample from the
    * future.
    *
+   * <p>The prior points of the upcoming samples (up to N_QUERIES_BLOCK_SIZE and not in the future)
+   * are found in one batch lookup, instead of a round trip per sample. With the AUTO strategy a
+   * block with few events per sample is streamed instead.
+   *
    * @return A sampled Event
    * @throws SQLException If trouble querying database
+   * @throws IOException If trouble streaming a block
    */
   @SuppressWarnings("unchecked")
-  private T readService() throws SQLException {
-    T event = nexus.findEvent(metadata, sampleTimeInstant, true, true, updatesOnly);
+  private T readService() throws SQLException, IOException {
+    if (blockIndex == block.size()) {
+      List<Instant> times = new ArrayList<>();
+      Instant time = sampleTimeInstant;
+
+      while (times.size() < N_QUERIES_BLOCK_SIZE
+          && samplesTaken + times.size() < sampleCount
+          && !time.isAfter(now)) {
+        times.add(time);
+        time = time.plusMillis(intervalMillis);
+      }
+
+      if (strategy == Strategy.AUTO && !isDense(times)) {
+        block = streamBlock(times);
+      } else {
+        block = nexus.findEvents(metadata, times, true, true, updatesOnly);
+      }
+
+      blockIndex = 0;
+    }
+
+    T event = block.get(blockIndex++);
     T out;
     if (event == null) {
       out = generateMissingSampleEvent(sampleTimeInstant, getType());
@@ -289,6 +436,59 @@ public class MySamplerStream<T extends Event> extends BoundaryAwareStream<T> {
     return out;
   }
 
+  /**
+   * Determine whether a block of samples has more estimated events per sample than the AUTO
+   * threshold.
+   *
+   * @param times The sample times
+   * @return true if point queries should be used
+   * @throws SQLException If unable to query the database
+   */
+  private boolean isDense(List<Instant> times) throws SQLException {
+    Instant end = times.get(times.size() - 1).plusMillis(Math.max(1, intervalMillis));
+    long estimate = nexus.estimateCount(metadata, times.get(0), end, updatesOnly, 0).getCount();
+
+    return estimate > eventsPerSampleThreshold * times.size();
+  }
+
+  /**
+   * Find the prior points of a block of samples by streaming all of the events between the first
+   * and last sample. This gives the same result as a point query for each sample.
+   *
+   * @param times The sample times
+   * @return The prior point of each sample, or null where there is none
+   * @throws SQLException If unable to query the database
+   * @throws IOException If unable to read the stream
+   */
+  private List<T> streamBlock(List<Instant> times) throws SQLException, IOException {
+    List<T> events = new ArrayList<>(times.size());
+    T current = nexus.findEvent(metadata, times.get(0), true, false, updatesOnly);
+    Instant end = times.get(times.size() - 1).plusMillis(1);
+
+    try (EventStream<T> stream =
+        nexus.openEventStream(
+            metadata,
+            times.get(0),
+            end,
+            DataNexus.IntervalQueryFetchStrategy.STREAM,
+            updatesOnly)) {
+      T next = stream.read();
+
+      for (Instant time : times) {
+        long timeMya = TimeUtil.toMyaTimestamp(time);
+
+        while (next != null && next.getTimestamp() <= timeMya) {
+          current = next;
+          next = stream.read();
+        }
+
+        events.add(current);
+      }
+    }
+
+    return events;
+  }
+
   /**
    * This does in app sampling of the full data stream. The basic idea is to return the value of the
    * signal only at the times that were requested based on sampling parameters. Events are created
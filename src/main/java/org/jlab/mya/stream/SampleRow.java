@@ -0,0 +1,109 @@
+package org.jlab.mya.stream;
+
+import java.time.Instant;
+import java.util.Arrays;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.EventCode;
+
+/**
+ * One row of a MultiMySamplerStream: the sampled value and event code of each channel at a single
+ * sample time. Values and codes are held as primitives, indexed by the position of the channel in
+ * the list of channels sampled.
+ *
+ * @author slominskir
+ */
+public final class SampleRow {
+
+  private final long timestamp;
+  private final double[] values;
+  private final byte[] codes;
+
+  /**
+   * Create a new SampleRow.
+   *
+   * @param timestamp The Mya timestamp of the sample
+   * @param values The value of each channel
+   * @param codes The event code number of each channel
+   */
+  SampleRow(long timestamp, double[] values, byte[] codes) {
+    this.timestamp = timestamp;
+    this.values = values;
+    this.codes = codes;
+  }
+
+  /**
+   * Return the Mya timestamp of the sample.
+   *
+   * @return The timestamp
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Return the time of the sample as an Instant.
+   *
+   * @return The timestamp
+   */
+  public Instant getTimestampAsInstant() {
+    return TimeUtil.fromMyaTimestamp(timestamp);
+  }
+
+  /**
+   * Return the number of channels.
+   *
+   * @return The number of channels
+   */
+  public int getChannelCount() {
+    return values.length;
+  }
+
+  /**
+   * Return the sampled value of a channel. Int values are converted exactly. The value is zero if
+   * the code is UNDEFINED.
+   *
+   * @param channel The channel index
+   * @return The value
+   */
+  public double getValue(int channel) {
+    return values[channel];
+  }
+
+  /**
+   * Return the Mya event code number of a channel.
+   *
+   * @param channel The channel index
+   * @return The code number
+   */
+  public int getCodeNumber(int channel) {
+    return codes[channel] & 0xFF;
+  }
+
+  /**
+   * Return the event code of a channel. The code is UNDEFINED if the channel has no event at or
+   * before the sample time, or the sample time is in the future.
+   *
+   * @param channel The channel index
+   * @return The code
+   */
+  public EventCode getCode(int channel) {
+    return EventCode.fromInt(getCodeNumber(channel));
+  }
+
+  /**
+   * Returns a String representation of this SampleRow.
+   *
+   * @return The String representation
+   */
+  @Override
+  public String toString() {
+    return "SampleRow{"
+        + "timestamp="
+        + getTimestampAsInstant()
+        + ", values="
+        + Arrays.toString(values)
+        + ", codes="
+        + Arrays.toString(codes)
+        + '}';
+  }
+}
@@ -0,0 +1,33 @@
+package org.jlab.mya;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CountEstimateTest {
+
+  @Test
+  public void testBounds() {
+    CountEstimate estimate = new CountEstimate(1000, 0.25);
+
+    assertFalse(estimate.isExact());
+    assertEquals(750, estimate.getLowerBound());
+    assertEquals(1250, estimate.getUpperBound());
+
+    CountEstimate exact = CountEstimate.exact(42);
+
+    assertTrue(exact.isExact());
+    assertEquals(42, exact.getLowerBound());
+    assertEquals(42, exact.getUpperBound());
+  }
+
+  @Test
+  public void testLowerBoundNotNegative() {
+    assertEquals(0, new CountEstimate(10, 1.5).getLowerBound());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeError() {
+    new CountEstimate(10, -0.1);
+  }
+}
@@ -6,6 +6,7 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.ZoneOffset;
+import java.util.Arrays;
 import org.jlab.mya.event.EventCode;
 import org.jlab.mya.event.FloatEvent;
 import org.junit.Test;
@@ -202,4 +203,94 @@ public class RunningStatisticsTest {
 
     assertEquals(10, rs.getIntegration(), delta);
   }
+
+  /** Test that joining partitions matches pushing every event to a single object. */
+  @Test
+  public void testCombine() {
+    long begin =
+        TimeUtil.toMyaTimestamp(
+            LocalDateTime.of(2017, Month.JANUARY, 1, 0, 0, 0, 0).toInstant(ZoneOffset.UTC));
+    int n = 100;
+    long[] timestamps = new long[n];
+    boolean[] disconnections = new boolean[n];
+    float[] values = new float[n];
+
+    for (int i = 0; i < n; i++) {
+      timestamps[i] = begin + TimeUtil.toMyaTimestamp(Instant.ofEpochSecond(i * i % 17 + i * 5));
+      disconnections[i] = i % 9 == 4;
+      values[i] = disconnections[i] ? 0 : (i * 37 % 23) - 7.5f;
+    }
+    Arrays.sort(timestamps);
+
+    RunningStatistics expected = new RunningStatistics();
+    for (int i = 0; i < n; i++) {
+      expected.push(timestamps[i], disconnections[i], values[i]);
+    }
+    expected.extendTo(timestamps[n - 1] + TimeUtil.toMyaTimestamp(Instant.ofEpochSecond(10)));
+
+    for (int[] splits : new int[][] {{0}, {0, 50}, {0, 1, 2, 50, 50, 99}, {0, 4, 5, 100}}) {
+      RunningStatistics combined = new RunningStatistics();
+
+      for (int s = 0; s < splits.length; s++) {
+        int to = s + 1 < splits.length ? splits[s + 1] : n;
+        RunningStatistics partition = new RunningStatistics();
+
+        for (int i = splits[s]; i < to; i++) {
+          partition.push(timestamps[i], disconnections[i], values[i]);
+        }
+        combined.combine(partition);
+      }
+      combined.extendTo(timestamps[n - 1] + TimeUtil.toMyaTimestamp(Instant.ofEpochSecond(10)));
+
+      assertEquals(expected.getEventCount(), combined.getEventCount());
+      assertEquals(expected.getUpdateCount(), combined.getUpdateCount());
+      assertEquals(expected.getMin(), combined.getMin(), 0);
+      assertEquals(expected.getMax(), combined.getMax(), 0);
+      assertEquals(expected.getDuration(), combined.getDuration(), delta);
+      assertEquals(expected.getMean(), combined.getMean(), delta);
+      assertEquals(expected.getSigma(), combined.getSigma(), delta);
+      assertEquals(expected.getIntegration(), combined.getIntegration(), delta);
+    }
+  }
+
+  /** Test of getEventStats method, of class RunningStatistics. */
+  @Test
+  public void testGetEventStats() {
+    RunningStatistics rs =
+        new RunningStatistics(
+            new short[] {
+              RunningStatistics.MIN,
+              RunningStatistics.MAX,
+              RunningStatistics.MEAN,
+              RunningStatistics.SIGMA,
+              RunningStatistics.RMS,
+              RunningStatistics.DURATION,
+              RunningStatistics.INTEGRATION
+            });
+    Instant t1 = LocalDateTime.of(2017, Month.JANUARY, 1, 0, 0, 0, 0).toInstant(ZoneOffset.UTC);
+    Instant t2 = LocalDateTime.of(2017, Month.JANUARY, 1, 0, 0, 1, 0).toInstant(ZoneOffset.UTC);
+    Instant t3 = LocalDateTime.of(2017, Month.JANUARY, 1, 0, 0, 4, 0).toInstant(ZoneOffset.UTC);
+
+    rs.push(new FloatEvent(t1, EventCode.UPDATE, 2.f));
+
+    double[] stats = rs.getEventStats();
+    assertTrue(Double.isNaN(stats[0]));
+    assertTrue(Double.isNaN(stats[3]));
+    assertEquals(0, stats[5], 0);
+    assertEquals(0, stats[6], 0);
+
+    rs.push(new FloatEvent(t2, EventCode.UPDATE, 4.f));
+    rs.push(new FloatEvent(t3, EventCode.UPDATE, 4.f));
+
+    // 2 for 1 second then 4 for 3 seconds
+    double[] dest = new double[9];
+    rs.getEventStats(dest, 2);
+    assertEquals(2, dest[2], delta);
+    assertEquals(4, dest[3], delta);
+    assertEquals(3.5, dest[4], delta);
+    assertEquals(rs.getSigma(), dest[5], delta);
+    assertEquals(rs.getRms(), dest[6], delta);
+    assertEquals(4, dest[7], delta);
+    assertEquals(14, dest[8], delta);
+  }
 }
@@ -0,0 +1,58 @@
+package org.jlab.mya.event;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EventBatchTest {
+
+  @Test
+  public void testAddAndGet() {
+    FloatEventBatch batch = new FloatEventBatch(2);
+
+    batch.add(100L, EventCode.UPDATE.getCodeNumber(), 1.5f);
+    batch.add(new FloatEvent(200L, EventCode.UNDEFINED, 2.5f));
+
+    Assert.assertTrue(batch.isFull());
+    Assert.assertEquals(2, batch.size());
+    Assert.assertEquals(200L, batch.getTimestamp(1));
+    Assert.assertEquals(EventCode.UNDEFINED, batch.getCode(1));
+    Assert.assertEquals(255, batch.getCodeNumber(1));
+    Assert.assertTrue(batch.isDisconnection(1));
+    Assert.assertFalse(batch.isDisconnection(0));
+
+    FloatEvent event = batch.get(0);
+    Assert.assertEquals(100L, event.getTimestamp());
+    Assert.assertEquals(EventCode.UPDATE, event.getCode());
+    Assert.assertEquals(1.5f, event.getValue(), 0);
+
+    batch.clear();
+    Assert.assertEquals(0, batch.size());
+    Assert.assertEquals(2, batch.getCapacity());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testAddWhenFull() {
+    IntEventBatch batch = new IntEventBatch(1);
+
+    batch.add(1L, 0, 1);
+    batch.add(2L, 0, 2);
+  }
+
+  @Test
+  public void testEnsureCapacity() {
+    AnalyzedFloatEventBatch batch = new AnalyzedFloatEventBatch(1, 2);
+    batch.add(new AnalyzedFloatEvent(1L, EventCode.UPDATE, 1, new double[] {1, 2}));
+
+    batch.ensureCapacity(3);
+    batch.add(new AnalyzedFloatEvent(2L, EventCode.UPDATE, 2, new double[] {3, 4}));
+
+    Assert.assertTrue(batch.getCapacity() >= 3);
+    Assert.assertArrayEquals(new double[] {1, 2}, batch.get(0).getEventStats(), 0);
+    Assert.assertEquals(4, batch.getStat(1, 1), 0);
+
+    AnalyzedFloatEventBatch copy = batch.createEmpty(2);
+    copy.addFrom(batch, 1);
+    Assert.assertEquals(2L, copy.getTimestamp(0));
+    Assert.assertArrayEquals(new double[] {3, 4}, copy.get(0).getEventStats(), 0);
+  }
+}
@@ -0,0 +1,53 @@
+package org.jlab.mya.nexus;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.MyaDataType;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+
+/** Fixtures shared by the cache tests, which run without a database. */
+final class CacheFixtures {
+
+  static final Metadata<FloatEvent> PV1 =
+      new Metadata<>(7, "pv1", "mya", 1, null, true, MyaDataType.DBR_DOUBLE, FloatEvent.class);
+
+  static final Metadata<FloatEvent> PV2 =
+      new Metadata<>(8, "pv2", "mya", 1, null, true, MyaDataType.DBR_DOUBLE, FloatEvent.class);
+
+  // Segment files are named by UTC day
+  static final Instant DAY = Instant.parse("2019-08-12T00:00:00Z");
+
+  static final Clock CLOCK = Clock.fixed(DAY.plus(Duration.ofDays(1)), ZoneOffset.UTC);
+
+  private CacheFixtures() {
+    // Private constructor
+  }
+
+  /** A nexus which is unable to connect to anything, so any cache miss fails. */
+  static class UnreachableNexus extends DataNexus {
+    UnreachableNexus() {
+      super("docker");
+    }
+
+    @Override
+    Connection getConnection(String host) throws SQLException {
+      throw new SQLException("Unreachable: " + host);
+    }
+  }
+
+  /**
+   * Create an update event at an offset from DAY whose value is the offset.
+   *
+   * @param seconds The offset in seconds
+   * @return The event
+   */
+  static FloatEvent event(int seconds) {
+    return new FloatEvent(DAY.plusSeconds(seconds), EventCode.UPDATE, seconds);
+  }
+}
@@ -0,0 +1,147 @@
+package org.jlab.mya.nexus;
+
+import static org.junit.Assert.*;
+
+import java.io.InterruptedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.MyaDataType;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Test;
+
+public class DataNexusAsyncTest {
+
+  private static final Metadata<FloatEvent> METADATA =
+      new Metadata<>(1, "pv1", "mya", 1, null, true, MyaDataType.DBR_DOUBLE, FloatEvent.class);
+
+  /** A nexus which is unable to connect to anything. */
+  private static class UnreachableNexus extends DataNexus {
+    UnreachableNexus() {
+      super("docker");
+    }
+
+    @Override
+    Connection getConnection(String host) throws SQLException {
+      throw new SQLException("Unreachable: " + host);
+    }
+  }
+
+  @Test
+  public void testQueryFailure() throws Exception {
+    DataNexus nexus = new UnreachableNexus();
+
+    try {
+      nexus.countAsync(METADATA, Instant.EPOCH, Instant.now(), false).get();
+      fail("Expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof SQLException);
+    }
+  }
+
+  @Test
+  public void testCustomExecutor() throws Exception {
+    DataNexus nexus = new UnreachableNexus();
+    MetadataCache cache = new MetadataCache(10, Duration.ofMinutes(1));
+    cache.put("pv1", METADATA);
+    nexus.setMetadataCache(cache);
+
+    AtomicInteger executions = new AtomicInteger();
+    nexus.setAsyncExecutor(
+        task -> {
+          executions.incrementAndGet();
+          task.run();
+        });
+
+    assertEquals(METADATA, nexus.findMetadataAsync("pv1", FloatEvent.class).get());
+    assertEquals(1, executions.get());
+
+    nexus.setAsyncExecutor(null);
+    assertSame(AsyncExecutors.getDefault(), nexus.getAsyncExecutor());
+    assertEquals(METADATA, nexus.findMetadataAsync("pv1").get());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testInterruptWaitsForRunningQueries() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch interrupted = new CountDownLatch(1);
+
+    DataNexus nexus =
+        new DataNexus("docker") {
+          @Override
+          Connection getConnection(String host) throws SQLException {
+            running.incrementAndGet();
+            started.countDown();
+
+            try {
+              // Like a JDBC driver, ignore interrupts and complete some time after the caller is
+              // interrupted
+              boolean done = false;
+              while (!done) {
+                try {
+                  done = interrupted.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                  // Ignored
+                }
+              }
+
+              long deadline = System.nanoTime() + Duration.ofMillis(100).toNanos();
+              while (System.nanoTime() < deadline) {
+                try {
+                  Thread.sleep(10);
+                } catch (InterruptedException e) {
+                  // Ignored
+                }
+              }
+
+              throw new SQLException("Unreachable: " + host);
+            } finally {
+              running.decrementAndGet();
+            }
+          }
+        };
+
+    Metadata<FloatEvent> other =
+        new Metadata<>(2, "pv2", "mya", 1, null, true, MyaDataType.DBR_DOUBLE, FloatEvent.class);
+    Thread caller = Thread.currentThread();
+
+    new Thread(
+            () -> {
+              try {
+                started.await(10, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                // Not interrupted
+              }
+
+              caller.interrupt();
+              interrupted.countDown();
+            })
+        .start();
+
+    try {
+      nexus.openEventStreams(
+          List.of(METADATA, other),
+          Instant.EPOCH,
+          Instant.now(),
+          DataNexus.IntervalQueryFetchStrategy.STREAM,
+          false,
+          2);
+      fail("Expected SQLException");
+    } catch (SQLException e) {
+      assertTrue(e.getCause() instanceof InterruptedIOException);
+    }
+
+    // Clear the interrupt before asserting so it can't leak into other tests
+    assertTrue(Thread.interrupted());
+    assertEquals(0, running.get());
+  }
+}
@@ -0,0 +1,144 @@
+package org.jlab.mya.nexus;
+
+import static org.jlab.mya.nexus.CacheFixtures.*;
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.MyaDataType;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
+import org.jlab.mya.stream.EventStream;
+import org.jlab.mya.stream.ListStream;
+import org.junit.Test;
+
+public class IntervalCacheTest {
+
+  private static IntervalQueryParams<FloatEvent> params(
+      Metadata<FloatEvent> metadata, int begin, int end) {
+    return new IntervalQueryParams<>(metadata, DAY.plusSeconds(begin), DAY.plusSeconds(end));
+  }
+
+  /** Record a fake database stream of events at the specified seconds. */
+  private static void fill(IntervalCache cache, IntervalQueryParams<FloatEvent> params, int... s)
+      throws Exception {
+    List<FloatEvent> events = new ArrayList<>();
+    for (int seconds : s) {
+      events.add(event(seconds));
+    }
+
+    try (EventStream<FloatEvent> stream =
+        cache.record(params, new ListStream<>(events, FloatEvent.class))) {
+      while (stream.read() != null) {}
+    }
+  }
+
+  private static List<Float> values(EventStream<FloatEvent> stream) throws Exception {
+    List<Float> values = new ArrayList<>();
+    try (stream) {
+      FloatEvent event;
+      while ((event = stream.read()) != null) {
+        values.add(event.getValue());
+      }
+    }
+    return values;
+  }
+
+  @Test
+  public void testContainedSubRangeServedFromCache() throws Exception {
+    IntervalCache cache = new IntervalCache(1 << 20, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+    fill(cache, params(PV1, 0, 100), 10, 20, 30, 40);
+
+    DataNexus nexus = new UnreachableNexus();
+    nexus.setIntervalCache(cache);
+    IntervalService service = new IntervalService(nexus);
+
+    assertEquals(List.of(20f, 30f), values(service.openEventStream(params(PV1, 15, 40))));
+    assertEquals(List.of(), values(service.openEventStream(params(PV1, 41, 100))));
+
+    FloatEventBatch batch = new FloatEventBatch(3);
+    try (EventStream<FloatEvent> stream = service.openEventStream(params(PV1, 0, 100))) {
+      assertEquals(3, stream.readBatch(batch));
+      assertEquals(30, batch.getValue(2), 0);
+      assertEquals(1, stream.readBatch(batch));
+      assertEquals(0, stream.readBatch(batch));
+    }
+
+    try {
+      service.openEventStream(params(PV1, 50, 150));
+      fail("Interval extends past the cached range");
+    } catch (SQLException e) {
+      // Expected
+    }
+
+    assertEquals(3, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0.75, cache.getHitRatio(), 0.0001);
+  }
+
+  @Test
+  public void testMergeRanges() throws Exception {
+    IntervalCache cache = new IntervalCache(1 << 20, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+    fill(cache, params(PV1, 0, 50), 10, 20);
+    fill(cache, params(PV1, 100, 150), 120);
+    assertNull(cache.lookup(params(PV1, 40, 60)));
+
+    fill(cache, params(PV1, 40, 100), 45, 60);
+
+    assertEquals(List.of(10f, 20f, 45f, 60f, 120f), values(cache.lookup(params(PV1, 0, 150))));
+    assertEquals(1, cache.size());
+    assertEquals(
+        IntervalCache.BYTES_PER_RANGE + 5 * IntervalCache.BYTES_PER_EVENT, cache.getBytesHeld());
+  }
+
+  @Test
+  public void testUpdatesOnlyIsSeparateKey() throws Exception {
+    IntervalCache cache = new IntervalCache(1 << 20, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+    fill(cache, params(PV1, 0, 50), 10);
+
+    IntervalQueryParams<FloatEvent> updates =
+        new IntervalQueryParams<>(
+            PV1, true, DataNexus.IntervalQueryFetchStrategy.STREAM, DAY, DAY.plusSeconds(50));
+    assertNull(cache.lookup(updates));
+    assertNull(cache.lookup(params(PV2, 0, 50)));
+    assertNotNull(cache.lookup(params(PV1, 0, 50)));
+  }
+
+  @Test
+  public void testNotRecorded() throws Exception {
+    IntervalCache cache = new IntervalCache(1 << 20, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+
+    // Too recent
+    fill(cache, new IntervalQueryParams<>(PV1, DAY, CLOCK.instant()), 10);
+    assertEquals(0, cache.size());
+
+    // Closed before End-Of-Stream
+    List<FloatEvent> events = List.of(event(10), event(20));
+    try (EventStream<FloatEvent> stream =
+        cache.record(params(PV1, 0, 50), new ListStream<>(events, FloatEvent.class))) {
+      stream.read();
+    }
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed() throws Exception {
+    long bytes = IntervalCache.BYTES_PER_RANGE + 2 * IntervalCache.BYTES_PER_EVENT;
+    IntervalCache cache = new IntervalCache(2 * bytes, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+    Metadata<FloatEvent> pv3 =
+        new Metadata<>(9, "pv3", "mya", 1, null, true, MyaDataType.DBR_DOUBLE, FloatEvent.class);
+
+    fill(cache, params(PV1, 0, 50), 10, 20);
+    fill(cache, params(PV2, 0, 50), 10, 20);
+    assertNotNull(cache.lookup(params(PV1, 0, 50)));
+    fill(cache, params(pv3, 0, 50), 10, 20);
+
+    assertNotNull(cache.lookup(params(PV1, 0, 50)));
+    assertNull(cache.lookup(params(PV2, 0, 50)));
+    assertNotNull(cache.lookup(params(pv3, 0, 50)));
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(2 * bytes, cache.getBytesHeld());
+  }
+}
@@ -0,0 +1,73 @@
+package org.jlab.mya.nexus;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import org.jlab.mya.CountEstimate;
+import org.junit.Test;
+
+public class IntervalServiceEstimateTest {
+
+  private static final int PROBE_SIZE = 256;
+
+  /**
+   * Sample uniformly random timestamps over [0, span) the way the probe query does, and bound the
+   * estimate.
+   */
+  private static CountEstimate estimate(long rows, long[] timestamps, long span, int probes) {
+    long[] bounds = new long[probes + 1];
+    int[] counts = new int[probes];
+    long[] lastTimes = new long[probes];
+
+    for (int i = 0; i <= probes; i++) {
+      bounds[i] = span * i / probes;
+    }
+
+    for (long timestamp : timestamps) {
+      int idx = (int) (timestamp * probes / span);
+      if (counts[idx] < PROBE_SIZE) {
+        counts[idx]++;
+        lastTimes[idx] = Math.max(lastTimes[idx], timestamp);
+      }
+    }
+
+    return IntervalService.boundEstimate(rows, bounds, counts, lastTimes, PROBE_SIZE);
+  }
+
+  private static long[] uniform(int count, long span) {
+    Random random = new Random(count);
+    return random.longs(count, 0, span).sorted().toArray();
+  }
+
+  @Test
+  public void testSparseIsExact() {
+    CountEstimate estimate = estimate(5000, uniform(1000, 1L << 40), 1L << 40, 8);
+
+    assertTrue(estimate.isExact());
+    assertEquals(1000, estimate.getCount());
+  }
+
+  @Test
+  public void testBoundContainsTrueCount() {
+    long span = 1L << 40;
+    long[] timestamps = uniform(100_000, span);
+
+    // The optimizer is off by 30%, the samples are not
+    CountEstimate estimate = estimate(130_000, timestamps, span, 8);
+
+    assertFalse(estimate.isExact());
+    assertEquals(130_000, estimate.getCount());
+    assertTrue(estimate.getLowerBound() <= 100_000);
+    assertTrue(estimate.getUpperBound() >= 130_000);
+    assertTrue(estimate.getLowerBound() > 70_000);
+  }
+
+  @Test
+  public void testNoOptimizerEstimate() {
+    long span = 1L << 40;
+    CountEstimate estimate = estimate(0, uniform(100_000, span), span, 8);
+
+    assertTrue(estimate.getLowerBound() <= 100_000);
+    assertTrue(estimate.getUpperBound() >= 100_000);
+  }
+}
@@ -0,0 +1,95 @@
+package org.jlab.mya.nexus;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.MyaDataType;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Test;
+
+public class MetadataCacheTest {
+
+  private long now = 0;
+
+  private static Metadata<FloatEvent> metadata(int id, String name) {
+    return new Metadata<>(
+        id, name, "host1", 1, null, true, MyaDataType.DBR_DOUBLE, FloatEvent.class);
+  }
+
+  @Test
+  public void testHitAndMiss() {
+    MetadataCache cache = new MetadataCache(10, Duration.ofMinutes(1));
+    Metadata<FloatEvent> m = metadata(1, "pv1");
+
+    assertNull(cache.lookup("pv1"));
+    cache.put("pv1", m);
+
+    MetadataCache.Entry entry = cache.lookup("pv1");
+    assertNotNull(entry);
+    assertEquals(m, entry.metadata);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void testNegativeCaching() {
+    MetadataCache cache =
+        new MetadataCache(10, Duration.ofMinutes(10), Duration.ofSeconds(5), () -> now);
+
+    cache.put("missing", null);
+
+    MetadataCache.Entry entry = cache.lookup("missing");
+    assertNotNull(entry);
+    assertNull(entry.metadata);
+    assertEquals(1, cache.getNegativeHitCount());
+
+    now = Duration.ofSeconds(6).toNanos();
+    assertNull(cache.lookup("missing"));
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void testExpiration() {
+    MetadataCache cache =
+        new MetadataCache(10, Duration.ofSeconds(30), Duration.ofSeconds(30), () -> now);
+
+    cache.put("pv1", metadata(1, "pv1"));
+    now = Duration.ofSeconds(30).toNanos();
+    assertNotNull(cache.lookup("pv1"));
+    now = Duration.ofSeconds(31).toNanos();
+    assertNull(cache.lookup("pv1"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    MetadataCache cache = new MetadataCache(2, Duration.ofMinutes(1));
+
+    cache.put("pv1", metadata(1, "pv1"));
+    cache.put("pv2", metadata(2, "pv2"));
+    cache.lookup("pv1"); // pv2 is now least recently used
+    cache.put("pv3", metadata(3, "pv3"));
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertNotNull(cache.lookup("pv1"));
+    assertNull(cache.lookup("pv2"));
+    assertNotNull(cache.lookup("pv3"));
+  }
+
+  @Test
+  public void testInvalidate() {
+    MetadataCache cache = new MetadataCache(10, Duration.ofMinutes(1));
+
+    cache.put("pv1", metadata(1, "pv1"));
+    cache.put("pv2", metadata(2, "pv2"));
+
+    cache.invalidate("pv1");
+    assertNull(cache.lookup("pv1"));
+    assertNotNull(cache.lookup("pv2"));
+
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,99 @@
+package org.jlab.mya.nexus;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.MyaDataType;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.stream.ListStream;
+import org.junit.Test;
+
+public class PartitionedEventStreamTest {
+
+  private static final Metadata<FloatEvent> METADATA =
+      new Metadata<>(1, "pv1", "host1", 1, null, true, MyaDataType.DBR_DOUBLE, FloatEvent.class);
+
+  private static final Instant BEGIN = TimeUtil.toLocalDT("2019-01-01T00:00:00");
+  private static final Instant END = TimeUtil.toLocalDT("2019-01-02T00:00:00");
+
+  /** One event per second for the whole day. */
+  private static List<FloatEvent> createEvents() {
+    List<FloatEvent> events = new ArrayList<>();
+    for (int i = 0; i < 86400; i++) {
+      events.add(new FloatEvent(BEGIN.plusSeconds(i), EventCode.UPDATE, i));
+    }
+    return events;
+  }
+
+  /** Opens a stream of the events which fall within the partition interval. */
+  private static PartitionedEventStream.PartitionOpener<FloatEvent> opener(List<FloatEvent> all) {
+    return params -> {
+      long begin = TimeUtil.toMyaTimestamp(params.getBegin());
+      long end = TimeUtil.toMyaTimestamp(params.getEnd());
+      List<FloatEvent> events = new ArrayList<>();
+      for (FloatEvent event : all) {
+        if (event.getTimestamp() >= begin && event.getTimestamp() < end) {
+          events.add(event);
+        }
+      }
+      return new ListStream<>(events, FloatEvent.class);
+    };
+  }
+
+  @Test
+  public void testStitchedInOrder() throws Exception {
+    List<FloatEvent> all = createEvents();
+
+    for (int partitions : new int[] {1, 3, 7}) {
+      IntervalQueryParams<FloatEvent> params = new IntervalQueryParams<>(METADATA, BEGIN, END);
+      List<FloatEvent> result = new ArrayList<>();
+
+      try (PartitionedEventStream<FloatEvent> stream =
+          new PartitionedEventStream<>(params, partitions, 2048, opener(all))) {
+        FloatEvent event;
+        while ((event = stream.read()) != null) {
+          result.add(event);
+        }
+      }
+
+      assertEquals("partitions=" + partitions, all, result);
+    }
+  }
+
+  @Test
+  public void testPartitionFailure() throws Exception {
+    IntervalQueryParams<FloatEvent> params = new IntervalQueryParams<>(METADATA, BEGIN, END);
+    List<FloatEvent> all = createEvents();
+    PartitionedEventStream.PartitionOpener<FloatEvent> good = opener(all);
+
+    try (PartitionedEventStream<FloatEvent> stream =
+        new PartitionedEventStream<>(
+            params,
+            2,
+            2048,
+            p -> {
+              if (p.getBegin().equals(BEGIN)) {
+                return good.open(p);
+              }
+              throw new SQLException("Boom");
+            })) {
+      int count = 0;
+      try {
+        while (stream.read() != null) {
+          count++;
+        }
+        fail("Expected IOException");
+      } catch (IOException e) {
+        assertTrue(e.getCause() instanceof SQLException);
+      }
+      assertEquals(43200, count);
+    }
+  }
+}
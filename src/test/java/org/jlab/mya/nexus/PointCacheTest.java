@@ -0,0 +1,90 @@
+package org.jlab.mya.nexus;
+
+import static org.jlab.mya.nexus.CacheFixtures.*;
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Test;
+
+public class PointCacheTest {
+
+  private static PointQueryParams<FloatEvent> before(int seconds, boolean orEqual) {
+    return new PointQueryParams<>(PV1, false, DAY.plusSeconds(seconds), true, orEqual);
+  }
+
+  @Test
+  public void testValidityInterval() throws Exception {
+    PointCache cache = new PointCache(100, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+    FloatEvent event = event(10);
+    cache.put(before(20, true), event);
+
+    DataNexus nexus = new UnreachableNexus();
+    nexus.setPointCache(cache);
+    PointService service = new PointService(nexus);
+
+    assertSame(event, service.findEvent(before(10, true)));
+    assertSame(event, service.findEvent(before(15, true)));
+    assertSame(event, service.findEvent(before(20, true)));
+    assertSame(event, service.findEvent(before(20, false)));
+
+    // The event itself is excluded and nothing is known before it
+    assertNull(cache.lookup(before(10, false)));
+    // Nothing is known after the end of the interval
+    assertNull(cache.lookup(before(21, true)));
+
+    try {
+      service.findEvent(before(21, true));
+      fail("Point in time is outside of the validity interval");
+    } catch (SQLException e) {
+      // Expected
+    }
+
+    assertEquals(4, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+  }
+
+  @Test
+  public void testExtendAndNoEvent() {
+    PointCache cache = new PointCache(100, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+    FloatEvent event = event(10);
+    cache.put(before(20, true), event);
+    cache.put(before(30, false), event);
+    cache.put(before(5, true), null);
+
+    assertEquals(2, cache.size());
+    assertSame(event, cache.lookup(before(29, true)).event);
+    assertNull(cache.lookup(before(30, true)));
+    assertNull(cache.lookup(before(0, true)).event);
+    assertNull(cache.lookup(before(6, true)));
+  }
+
+  @Test
+  public void testRecentNotCached() {
+    PointCache cache = new PointCache(100, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+    Instant recent = CLOCK.instant().minusSeconds(60);
+    FloatEvent event = new FloatEvent(recent, EventCode.UPDATE, 1);
+    cache.put(new PointQueryParams<>(PV1, CLOCK.instant()), event);
+    assertEquals(0, cache.size());
+
+    FloatEvent old = event(10);
+    cache.put(new PointQueryParams<>(PV1, CLOCK.instant()), old);
+    assertNotNull(cache.lookup(new PointQueryParams<>(PV1, DAY.plusSeconds(3600))));
+    assertNull(cache.lookup(new PointQueryParams<>(PV1, CLOCK.instant())));
+  }
+
+  @Test
+  public void testEviction() {
+    PointCache cache = new PointCache(2, DataNexus.DEFAULT_IMMUTABLE_AGE, CLOCK);
+    cache.put(before(20, true), event(10));
+    cache.put(before(40, true), event(30));
+    cache.put(before(60, true), event(50));
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertNull(cache.lookup(before(15, true)));
+    assertNotNull(cache.lookup(before(55, true)));
+  }
+}
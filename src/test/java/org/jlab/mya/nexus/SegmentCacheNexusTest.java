@@ -0,0 +1,114 @@
+package org.jlab.mya.nexus;
+
+import static org.jlab.mya.nexus.CacheFixtures.*;
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
+import org.jlab.mya.stream.EventStream;
+import org.junit.Test;
+
+public class SegmentCacheNexusTest {
+
+  private static long at(int seconds) {
+    return TimeUtil.toMyaTimestamp(DAY.plusSeconds(seconds));
+  }
+
+  private static FloatEventBatch events(int... seconds) {
+    FloatEventBatch batch = new FloatEventBatch(seconds.length);
+    for (int s : seconds) {
+      int code = s % 2 == 0 ? 0 : EventCode.NETWORK_DISCONNECTION.getCodeNumber();
+      batch.add(at(s), code, s);
+    }
+    return batch;
+  }
+
+  @Test
+  public void testCoverage() {
+    Segment segment =
+        Segment.empty(Segment.FLOAT_VALUES)
+            .add(at(10), at(20), events(10, 12))
+            .add(at(30), at(40), events(30, 35))
+            .add(at(20), at(25), events(22));
+
+    assertTrue(segment.covers(at(10), at(25)));
+    assertFalse(segment.covers(at(10), at(31)));
+
+    List<long[]> gaps = segment.uncovered(at(0), at(50));
+    assertEquals(3, gaps.size());
+    assertArrayEquals(new long[] {at(0), at(10)}, gaps.get(0));
+    assertArrayEquals(new long[] {at(25), at(30)}, gaps.get(1));
+    assertArrayEquals(new long[] {at(40), at(50)}, gaps.get(2));
+
+    assertEquals(5, segment.size());
+    assertEquals(at(22), segment.getTimestamp(2));
+    assertEquals(4, segment.count(at(0), at(50), true));
+    assertEquals(5, segment.count(at(0), at(50), false));
+    assertEquals(10, segment.getMinValue(), 0);
+    assertEquals(30, segment.getMaxValue(), 0);
+  }
+
+  @Test
+  public void testFileRoundTrip() throws Exception {
+    Path dir = Files.createTempDirectory("segments");
+    Path file = dir.resolve("test.seg");
+
+    assertNull(Segment.open(file));
+
+    Segment.empty(Segment.FLOAT_VALUES).add(at(0), at(100), events(1, 2, 50)).write(file);
+    Segment segment = Segment.open(file);
+
+    assertEquals(3, segment.size());
+    assertTrue(segment.covers(at(0), at(100)));
+    assertEquals(at(50), segment.getTimestamp(2));
+    assertEquals(50, segment.getFloatValue(2), 0);
+    assertFalse(segment.isData(0));
+    assertEquals(at(1), segment.getMinTime());
+    assertEquals(at(50), segment.getMaxTime());
+  }
+
+  @Test
+  public void testServedFromCache() throws Exception {
+    Path dir = Files.createTempDirectory("segments");
+    SegmentCacheNexus nexus = new SegmentCacheNexus(new UnreachableNexus(), dir);
+
+    Segment.empty(Segment.FLOAT_VALUES)
+        .add(at(0), at(3600), events(10, 20, 21, 30))
+        .write(dir.resolve("docker").resolve("7").resolve("2019-08-12.seg"));
+
+    Instant begin = DAY.plusSeconds(20);
+    Instant end = DAY.plusSeconds(30);
+
+    try (EventStream<FloatEvent> stream =
+        nexus.openEventStream(
+            PV1, begin, end, DataNexus.IntervalQueryFetchStrategy.STREAM, false)) {
+      assertEquals(20, stream.read().getValue(), 0);
+      assertEquals(21, stream.read().getValue(), 0);
+      assertNull(stream.read());
+    }
+
+    assertEquals(2, nexus.count(PV1, begin, end));
+    assertEquals(1, nexus.count(PV1, begin, end, true));
+
+    assertEquals(20, nexus.findEvent(PV1, DAY.plusSeconds(20)).getValue(), 0);
+    assertEquals(
+        20, nexus.findEvent(PV1, DAY.plusSeconds(25), true, true, true).getValue(), 0);
+    assertEquals(
+        30, nexus.findEvent(PV1, DAY.plusSeconds(20), false, false, true).getValue(), 0);
+  }
+
+  @Test(expected = SQLException.class)
+  public void testMissGoesToDatabase() throws Exception {
+    Path dir = Files.createTempDirectory("segments");
+    SegmentCacheNexus nexus = new SegmentCacheNexus(new UnreachableNexus(), dir);
+
+    nexus.count(PV1, DAY, DAY.plusSeconds(60));
+  }
+}
@@ -0,0 +1,108 @@
+package org.jlab.mya.nexus;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import org.jlab.mya.Metadata;
+import org.jlab.mya.MyaDataType;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Test;
+
+public class StatementGeneratorTest {
+
+  private static final Metadata<FloatEvent> METADATA =
+      new Metadata<>(7, "pv1", "host1", 1, null, true, MyaDataType.DBR_DOUBLE, FloatEvent.class);
+
+  private final StatementGenerator generator = new StatementGenerator();
+
+  @Test
+  public void testIntervalQuery() {
+    Instant now = Instant.now();
+
+    IntervalQueryParams<FloatEvent> all = new IntervalQueryParams<>(METADATA, now, now);
+    IntervalQueryParams<FloatEvent> updates =
+        new IntervalQueryParams<>(
+            METADATA, true, DataNexus.IntervalQueryFetchStrategy.STREAM, now, now);
+
+    assertEquals(
+        "select * from table_7 where time >= ? and time < ? order by time asc",
+        generator.getEventIntervalQuery(all));
+    assertEquals(
+        "select * from table_7 where time >= ? and time < ? and code in (0,16,32,48)"
+            + " order by time asc",
+        generator.getEventIntervalQuery(updates));
+    assertEquals(
+        "select count(*) from table_7 where time >= ? and time < ? and code in (0,16,32,48)",
+        generator.getCountQuery(updates));
+  }
+
+  @Test
+  public void testCountProbeQuery() {
+    Instant now = Instant.now();
+
+    assertEquals(
+        "(select 0 as idx, time from table_7 where time >= ? and time < ?"
+            + " order by time asc limit 16) union all"
+            + " (select 1 as idx, time from table_7 where time >= ? and time < ?"
+            + " order by time asc limit 16)",
+        generator.getCountProbeQuery(new IntervalQueryParams<>(METADATA, now, now), 2, 16));
+  }
+
+  @Test
+  public void testPointQuery() {
+    Instant now = Instant.now();
+
+    assertEquals(
+        "select * from table_7 force index for order by (primary) where time <= ?"
+            + " order by time desc limit 1",
+        generator.getEventPointQuery(new PointQueryParams<>(METADATA, now)));
+    assertEquals(
+        "select * from table_7 force index for order by (primary) where time > ?"
+            + " and code in (0,16,32,48) order by time asc limit 1",
+        generator.getEventPointQuery(new PointQueryParams<>(METADATA, true, now, false, false)));
+  }
+
+  @Test
+  public void testPointsQuery() {
+    assertEquals(
+        "(select *, 0 as idx from table_7 force index for order by (primary) where time <= ?"
+            + " order by time desc limit 1) union all"
+            + " (select *, 1 as idx from table_7 force index for order by (primary) where time <= ?"
+            + " order by time desc limit 1)",
+        generator.getEventPointsQuery(new PointQueryParams<>(METADATA, Instant.now()), 2));
+  }
+
+  @Test
+  public void testTimeBucketQuery() {
+    Instant now = Instant.now();
+    String query =
+        generator.getTimeBucketQuery(
+            new IntervalQueryParams<>(
+                METADATA, true, DataNexus.IntervalQueryFetchStrategy.STREAM, now, now));
+
+    assertTrue(query.startsWith("select b, count(*), sum(d),"));
+    assertTrue(
+        query.endsWith(
+            " from table_7 where time >= ? and time < ? and code in (0,16,32,48)) r) w"
+                + " group by b order by b"));
+  }
+
+  @Test
+  public void testStatisticsQuery() {
+    Instant now = Instant.now();
+    String query =
+        generator.getStatisticsQuery(
+            new IntervalQueryParams<>(
+                METADATA, false, DataNexus.IntervalQueryFetchStrategy.STREAM, now, now));
+
+    assertTrue(query.startsWith("select count(*), sum(u),"));
+    assertTrue(
+        query.contains("(coalesce(lead(t) over (order by t), ?) - t) * 3.725290298461914E-9"));
+    assertTrue(
+        query.contains(
+            " where time < ? order by time desc limit 1) p where not exists"
+                + " (select 1 from table_7 where time = ?) union all"));
+    assertTrue(query.endsWith(" from table_7 where time >= ? and time < ?) e) x) y) z"));
+    assertEquals(6, query.chars().filter(c -> c == '?').count());
+  }
+}
@@ -0,0 +1,231 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.jlab.mya.RunningStatistics;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.AnalyzedFloatEvent;
+import org.jlab.mya.event.AnalyzedFloatEventBatch;
+import org.jlab.mya.event.EventBatch;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.jlab.mya.event.FloatEventBatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test that reading streams with readBatch() gives the same events as read(). */
+public class BatchReadTest {
+
+  private static final Instant BEGIN = TimeUtil.toLocalDT("2019-01-01T00:00:00");
+  private static final Instant END = TimeUtil.toLocalDT("2019-01-02T00:00:00");
+
+  private static List<FloatEvent> randomEvents(long seed, int count) {
+    Random random = new Random(seed);
+    List<FloatEvent> events = new ArrayList<>();
+    long timestamp = TimeUtil.toMyaTimestamp(BEGIN.plusSeconds(1));
+
+    for (int i = 0; i < count; i++) {
+      timestamp = timestamp + 1 + (long) (random.nextDouble() * (1L << 32));
+      EventCode code =
+          random.nextInt(20) == 0 ? EventCode.NETWORK_DISCONNECTION : EventCode.UPDATE;
+      events.add(new FloatEvent(timestamp, code, (float) random.nextGaussian() * 100));
+    }
+
+    return events;
+  }
+
+  private static <T extends FloatEvent> List<T> readAll(EventStream<T> stream) throws IOException {
+    List<T> result = new ArrayList<>();
+    T event;
+    while ((event = stream.read()) != null) {
+      result.add(event);
+    }
+    stream.close();
+    return result;
+  }
+
+  private static <T extends FloatEvent> List<T> readAllBatches(
+      EventStream<T> stream, EventBatch<T> batch) throws IOException {
+    List<T> result = new ArrayList<>();
+    while (stream.readBatch(batch) > 0) {
+      for (int i = 0; i < batch.size(); i++) {
+        result.add(batch.get(i));
+      }
+    }
+    stream.close();
+    return result;
+  }
+
+  private static void assertSameEvents(
+      List<? extends FloatEvent> expected, List<? extends FloatEvent> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+
+    for (int i = 0; i < expected.size(); i++) {
+      FloatEvent e = expected.get(i);
+      FloatEvent a = actual.get(i);
+      Assert.assertEquals("timestamp " + i, e.getTimestamp(), a.getTimestamp());
+      Assert.assertEquals("code " + i, e.getCode(), a.getCode());
+      Assert.assertEquals("value " + i, e.getValue(), a.getValue(), 0);
+
+      if (e instanceof AnalyzedFloatEvent) {
+        Assert.assertArrayEquals(
+            ((AnalyzedFloatEvent) e).getEventStats(), ((AnalyzedFloatEvent) a).getEventStats(), 0);
+      }
+    }
+  }
+
+  private static void compare(
+      Function<EventStream<FloatEvent>, EventStream<FloatEvent>> wrapper, int count)
+      throws IOException {
+    compare(wrapper, randomEvents(count, count));
+  }
+
+  private static void compare(
+      Function<EventStream<FloatEvent>, EventStream<FloatEvent>> wrapper, List<FloatEvent> events)
+      throws IOException {
+    for (int capacity : new int[] {1, 7, 256}) {
+      List<FloatEvent> expected =
+          readAll(wrapper.apply(new ListStream<>(events, FloatEvent.class)));
+      List<FloatEvent> actual =
+          readAllBatches(
+              wrapper.apply(new ListStream<>(events, FloatEvent.class)),
+              new FloatEventBatch(capacity));
+
+      assertSameEvents(expected, actual);
+    }
+  }
+
+  @Test
+  public void testDefaultReadBatch() throws IOException {
+    compare(s -> s, 1000);
+    compare(s -> s, 0);
+  }
+
+  @Test
+  public void testSimpleSampleStream() throws IOException {
+    compare(s -> new FloatSimpleSampleStream<>(s, 37, 1000, FloatEvent.class), 1000);
+    compare(s -> new FloatSimpleSampleStream<>(s, 500, 1000, FloatEvent.class), 1000);
+  }
+
+  @Test
+  public void testGraphicalSampleStream() throws IOException {
+    compare(s -> new FloatGraphicalSampleStream<>(s, 50, 5000, FloatEvent.class), 5000);
+    compare(s -> new FloatGraphicalSampleStream<>(s, 10, 3, FloatEvent.class), 3);
+  }
+
+  @Test
+  public void testTimeBinnedSampleStream() throws IOException {
+    compare(s -> new FloatTimeBinnedSampleStream<>(s, BEGIN, END, 100, FloatEvent.class), 5000);
+    compare(s -> new FloatTimeBinnedSampleStream<>(s, BEGIN, END, 100, FloatEvent.class), 2);
+  }
+
+  @Test
+  public void testBoundaryAwareStream() throws IOException {
+    FloatEvent prior = new FloatEvent(BEGIN.minusSeconds(10), EventCode.UPDATE, 3);
+
+    compare(s -> new BoundaryAwareStream<>(s, BEGIN, END, prior, true, FloatEvent.class), 500);
+    compare(s -> new BoundaryAwareStream<>(s, BEGIN, END, prior, false, FloatEvent.class), 0);
+    compare(s -> new BoundaryAwareStream<>(s, BEGIN, END, null, false, FloatEvent.class), 1);
+    compare(s -> new BoundaryAwareStream<>(s, BEGIN, END, null, true, FloatEvent.class), 500);
+  }
+
+  @Test
+  public void testBoundaryAwareStreamWithoutEndBoundary() throws IOException {
+    List<FloatEvent> disconnections = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      disconnections.add(
+          new FloatEvent(BEGIN.plusSeconds(i), EventCode.NETWORK_DISCONNECTION, 0));
+    }
+
+    // Only disconnections, so no update to copy to the end boundary
+    compare(
+        s -> new BoundaryAwareStream<>(s, BEGIN, END, null, true, FloatEvent.class),
+        disconnections);
+    Assert.assertEquals(
+        3,
+        readAll(
+                new BoundaryAwareStream<>(
+                    new ListStream<>(disconnections, FloatEvent.class),
+                    BEGIN,
+                    END,
+                    null,
+                    true,
+                    FloatEvent.class))
+            .size());
+
+    // First event on the begin boundary and last event on the end boundary
+    FloatEvent prior = new FloatEvent(BEGIN.minusSeconds(10), EventCode.UPDATE, 3);
+    List<FloatEvent> events = new ArrayList<>();
+    events.add(new FloatEvent(BEGIN, EventCode.UPDATE, 1));
+    events.add(new FloatEvent(BEGIN.plusSeconds(60), EventCode.UPDATE, 2));
+    events.add(new FloatEvent(END, EventCode.UPDATE, 3));
+
+    compare(s -> new BoundaryAwareStream<>(s, BEGIN, END, prior, false, FloatEvent.class), events);
+    compare(s -> new BoundaryAwareStream<>(s, BEGIN, END, null, false, FloatEvent.class), events);
+  }
+
+  private static final short[] ALL_STATS =
+      new short[] {
+        RunningStatistics.INTEGRATION,
+        RunningStatistics.MIN,
+        RunningStatistics.MAX,
+        RunningStatistics.MEAN,
+        RunningStatistics.SIGMA,
+        RunningStatistics.RMS,
+        RunningStatistics.DURATION
+      };
+
+  @Test
+  public void testAnalysisStream() throws IOException {
+    short[] statsMap = ALL_STATS;
+
+    for (int capacity : new int[] {1, 7, 256}) {
+      List<FloatEvent> events = randomEvents(capacity, 1000);
+
+      FloatAnalysisStream expectedStream =
+          new FloatAnalysisStream(new ListStream<>(events, FloatEvent.class), statsMap);
+      List<AnalyzedFloatEvent> expected = readAll(expectedStream);
+
+      FloatAnalysisStream actualStream =
+          new FloatAnalysisStream(new ListStream<>(events, FloatEvent.class), statsMap);
+      List<AnalyzedFloatEvent> actual =
+          readAllBatches(actualStream, new AnalyzedFloatEventBatch(capacity, statsMap.length));
+
+      assertSameEvents(expected, actual);
+      Assert.assertEquals(
+          expectedStream.getLatestStats().getMean(), actualStream.getLatestStats().getMean());
+    }
+  }
+
+  @Test
+  public void testAnalysisCursor() throws IOException {
+    List<FloatEvent> events = randomEvents(3, 3000);
+
+    FloatAnalysisStream expectedStream =
+        new FloatAnalysisStream(new ListStream<>(events, FloatEvent.class), ALL_STATS);
+    List<AnalyzedFloatEvent> expected = readAll(expectedStream);
+
+    List<AnalyzedFloatEvent> actual = new ArrayList<>();
+    try (FloatAnalysisStream cursor =
+        new FloatAnalysisStream(new ListStream<>(events, FloatEvent.class), ALL_STATS)) {
+      while (cursor.next()) {
+        actual.add(
+            new AnalyzedFloatEvent(
+                cursor.timestamp(),
+                cursor.code(),
+                cursor.floatValue(),
+                cursor.eventStats().clone()));
+      }
+
+      Assert.assertFalse(cursor.next());
+      Assert.assertEquals(
+          expectedStream.getLatestStats().getMean(), cursor.getLatestStats().getMean());
+    }
+
+    assertSameEvents(expected, actual);
+  }
+}
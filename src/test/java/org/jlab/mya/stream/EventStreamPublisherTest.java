@@ -0,0 +1,140 @@
+package org.jlab.mya.stream;
+
+import static org.junit.Assert.*;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Test;
+
+public class EventStreamPublisherTest {
+
+  /** A ListStream which counts the events read. */
+  private static class CountingStream extends ListStream<FloatEvent> {
+    int reads = 0;
+
+    CountingStream(int size) {
+      super(createEvents(size), FloatEvent.class);
+    }
+
+    @Override
+    public FloatEvent read() throws ClosedChannelException {
+      reads++;
+      return super.read();
+    }
+  }
+
+  private static List<FloatEvent> createEvents(int size) {
+    List<FloatEvent> events = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      events.add(new FloatEvent(i, EventCode.UPDATE, i));
+    }
+    return events;
+  }
+
+  /** A subscriber which records signals. */
+  private static class RecordingSubscriber implements Flow.Subscriber<FloatEvent> {
+    final List<FloatEvent> events = new ArrayList<>();
+    final CountDownLatch terminated = new CountDownLatch(1);
+    Flow.Subscription subscription;
+    Throwable error;
+    boolean completed;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(FloatEvent item) {
+      events.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      terminated.countDown();
+    }
+  }
+
+  @Test
+  public void testDemandIsHonored() {
+    CountingStream stream = new CountingStream(10);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    new EventStreamPublisher<>(stream, Runnable::run).subscribe(subscriber);
+
+    subscriber.subscription.request(3);
+    assertEquals(3, subscriber.events.size());
+    assertEquals(3, stream.reads);
+
+    subscriber.subscription.request(7);
+    assertEquals(10, subscriber.events.size());
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(1);
+    assertTrue(subscriber.completed);
+    assertFalse(stream.isOpen());
+  }
+
+  @Test
+  public void testCancelClosesStream() {
+    CountingStream stream = new CountingStream(10);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    new EventStreamPublisher<>(stream, Runnable::run).subscribe(subscriber);
+
+    subscriber.subscription.request(2);
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(5);
+
+    assertEquals(2, subscriber.events.size());
+    assertFalse(stream.isOpen());
+    assertFalse(subscriber.completed);
+  }
+
+  @Test
+  public void testUnboundedDemandInBatches() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountingStream stream = new CountingStream(1000);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    new EventStreamPublisher<>(stream, executor, 16).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertTrue(subscriber.terminated.await(10, TimeUnit.SECONDS));
+    assertTrue(subscriber.completed);
+    assertEquals(createEvents(1000).size(), subscriber.events.size());
+    assertEquals(999, subscriber.events.get(999).getTimestamp());
+
+    executor.shutdown();
+  }
+
+  @Test
+  public void testInvalidRequestAndSecondSubscriber() {
+    EventStreamPublisher<FloatEvent> publisher =
+        new EventStreamPublisher<>(new CountingStream(10), Runnable::run);
+    RecordingSubscriber first = new RecordingSubscriber();
+    RecordingSubscriber second = new RecordingSubscriber();
+
+    publisher.subscribe(first);
+    publisher.subscribe(second);
+    assertTrue(second.error instanceof IllegalStateException);
+
+    first.subscription.request(0);
+    assertTrue(first.error instanceof IllegalArgumentException);
+  }
+}
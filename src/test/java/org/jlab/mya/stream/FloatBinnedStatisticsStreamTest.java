@@ -0,0 +1,136 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.mya.RunningStatistics;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FloatBinnedStatisticsStreamTest {
+
+  private static final Instant BEGIN = TimeUtil.toLocalDT("2019-01-01T00:00:00");
+  private static final Instant END = TimeUtil.toLocalDT("2019-01-01T01:00:00");
+
+  private static final double DELTA = 0.000001;
+
+  private static List<BinStatistics> bin(List<FloatEvent> events, long numBins)
+      throws IOException {
+    List<BinStatistics> result = new ArrayList<>();
+    try (FloatBinnedStatisticsStream stream =
+        new FloatBinnedStatisticsStream(
+            new ListStream<>(events, FloatEvent.class), BEGIN, END, numBins)) {
+      BinStatistics bin;
+      while ((bin = stream.read()) != null) {
+        result.add(bin);
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testCarryAcrossBins() throws IOException {
+    List<FloatEvent> events = new ArrayList<>();
+    events.add(new FloatEvent(BEGIN.minusSeconds(600), EventCode.UPDATE, 1));
+    events.add(new FloatEvent(BEGIN.plusSeconds(300), EventCode.UPDATE, 3));
+    events.add(new FloatEvent(BEGIN.plusSeconds(1200), EventCode.NETWORK_DISCONNECTION, 0));
+    events.add(new FloatEvent(BEGIN.plusSeconds(3000), EventCode.UPDATE, 2));
+
+    List<BinStatistics> bins = bin(events, 4);
+
+    Assert.assertEquals(4, bins.size());
+
+    // Carried 1 for 5 minutes then 3 for 10 minutes
+    Assert.assertEquals(1, bins.get(0).getEventCount());
+    Assert.assertEquals(900, bins.get(0).getDuration(), DELTA);
+    Assert.assertEquals(2100, bins.get(0).getIntegration(), DELTA);
+    Assert.assertEquals(2100 / 900., bins.get(0).getMean(), DELTA);
+    Assert.assertEquals(1, bins.get(0).getMin(), 0);
+    Assert.assertEquals(3, bins.get(0).getMax(), 0);
+
+    // Carried 3 for 5 minutes then disconnected
+    Assert.assertEquals(300, bins.get(1).getDuration(), DELTA);
+    Assert.assertEquals(3, bins.get(1).getMean(), DELTA);
+    Assert.assertEquals(0, bins.get(1).getSigma(), DELTA);
+
+    // Disconnected the whole bin
+    Assert.assertEquals(0, bins.get(2).getEventCount());
+    Assert.assertEquals(0, bins.get(2).getDuration(), DELTA);
+    Assert.assertNull(bins.get(2).getMean());
+    Assert.assertNull(bins.get(2).getMin());
+
+    // Disconnected for 5 minutes then 2 for 10 minutes
+    Assert.assertEquals(600, bins.get(3).getDuration(), DELTA);
+    Assert.assertEquals(2, bins.get(3).getMean(), DELTA);
+    Assert.assertEquals(TimeUtil.toMyaTimestamp(END), bins.get(3).getEnd());
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    List<BinStatistics> bins = bin(new ArrayList<>(), 3);
+
+    Assert.assertEquals(3, bins.size());
+
+    for (BinStatistics bin : bins) {
+      Assert.assertEquals(0, bin.getEventCount());
+      Assert.assertNull(bin.getMean());
+      Assert.assertNull(bin.getDuration());
+    }
+  }
+
+  @Test
+  public void testBinDuration() throws IOException {
+    List<FloatEvent> events = new ArrayList<>();
+    events.add(new FloatEvent(BEGIN, EventCode.UPDATE, 1));
+
+    try (FloatBinnedStatisticsStream stream =
+        new FloatBinnedStatisticsStream(
+            new ListStream<>(events, FloatEvent.class), BEGIN, END, Duration.ofMinutes(25))) {
+      Assert.assertEquals(3, stream.getNumBins());
+      Assert.assertEquals(1500, stream.read().getDuration(), DELTA);
+      Assert.assertEquals(1500, stream.read().getDuration(), DELTA);
+      Assert.assertEquals(600, stream.read().getDuration(), DELTA);
+      Assert.assertNull(stream.read());
+    }
+  }
+
+  /** Test that the bins add up to the statistics of the whole interval, over many batches. */
+  @Test
+  public void testMatchesRunningStatistics() throws IOException {
+    List<FloatEvent> events = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      EventCode code = i % 97 == 0 ? EventCode.NETWORK_DISCONNECTION : EventCode.UPDATE;
+      events.add(new FloatEvent(BEGIN.plusMillis(i * 700L), code, (i * 31) % 11));
+    }
+
+    RunningStatistics expected = new RunningStatistics();
+    for (FloatEvent event : events) {
+      expected.push(event);
+    }
+    expected.extendTo(TimeUtil.toMyaTimestamp(END));
+
+    List<BinStatistics> whole = bin(events, 1);
+    Assert.assertEquals(expected.getMean(), whole.get(0).getMean(), DELTA);
+    Assert.assertEquals(expected.getSigma(), whole.get(0).getSigma(), DELTA);
+    Assert.assertEquals(expected.getIntegration(), whole.get(0).getIntegration(), DELTA);
+
+    double duration = 0;
+    double integration = 0;
+    long count = 0;
+
+    for (BinStatistics bin : bin(events, 60)) {
+      duration = duration + bin.getDuration();
+      integration = integration + bin.getIntegration();
+      count = count + bin.getEventCount();
+    }
+
+    Assert.assertEquals(events.size(), count);
+    Assert.assertEquals(expected.getDuration(), duration, DELTA);
+    Assert.assertEquals(expected.getIntegration(), integration, DELTA);
+  }
+}
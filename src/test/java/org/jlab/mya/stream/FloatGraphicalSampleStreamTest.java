@@ -3,6 +3,7 @@ package org.jlab.mya.stream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import org.jlab.mya.CountEstimate;
 import org.jlab.mya.event.EventCode;
 import org.jlab.mya.event.FloatEvent;
 import org.junit.Assert;
@@ -83,4 +84,28 @@ public class FloatGraphicalSampleStreamTest {
     }
     Assert.assertEquals(exp, result);
   }
+
+  @Test
+  public void testUnderestimatedCount() throws IOException {
+    List<FloatEvent> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      events.add(new FloatEvent(i * 1000000L, EventCode.UPDATE, i % 7));
+    }
+
+    // An estimate far below the real count must not break binning
+    List<FloatEvent> result = new ArrayList<>();
+    try (EventStream<FloatEvent> stream = new ListStream<>(events, FloatEvent.class)) {
+      try (FloatGraphicalSampleStream<FloatEvent> sampleStream =
+          new FloatGraphicalSampleStream<>(
+              stream, 10, new CountEstimate(2, 0.5), FloatEvent.class)) {
+        FloatEvent e;
+        while ((e = sampleStream.read()) != null) {
+          result.add(e);
+        }
+      }
+    }
+
+    Assert.assertEquals(events.get(0), result.get(0));
+    Assert.assertEquals(events.get(99), result.get(result.size() - 1));
+  }
 }
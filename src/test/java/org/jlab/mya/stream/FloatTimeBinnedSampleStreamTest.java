@@ -0,0 +1,103 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FloatTimeBinnedSampleStreamTest {
+
+  private static final Instant BEGIN = TimeUtil.toLocalDT("2019-01-01T00:00:00");
+  private static final Instant END = TimeUtil.toLocalDT("2019-01-01T01:00:00");
+
+  private static List<FloatEvent> sample(List<FloatEvent> events, long numBins)
+      throws IOException {
+    List<FloatEvent> result = new ArrayList<>();
+    try (EventStream<FloatEvent> stream = new ListStream<>(events, FloatEvent.class);
+        FloatTimeBinnedSampleStream<FloatEvent> sampleStream =
+            new FloatTimeBinnedSampleStream<>(stream, BEGIN, END, numBins, FloatEvent.class)) {
+      FloatEvent e;
+      while ((e = sampleStream.read()) != null) {
+        result.add(e);
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testBurstDoesNotStealBins() throws IOException {
+    List<FloatEvent> events = new ArrayList<>();
+
+    // A burst of 1000 events in the first minute followed by one event per minute
+    for (int i = 0; i < 1000; i++) {
+      events.add(new FloatEvent(BEGIN.plusMillis(i * 60), EventCode.UPDATE, i % 10));
+    }
+    for (int i = 1; i < 60; i++) {
+      events.add(new FloatEvent(BEGIN.plusSeconds(i * 60 + 30), EventCode.UPDATE, i));
+    }
+
+    List<FloatEvent> result = sample(events, 60);
+
+    // First and last points always kept
+    Assert.assertSame(events.get(0), result.get(0));
+    Assert.assertSame(events.get(events.size() - 1), result.get(result.size() - 1));
+
+    // The burst minute is reduced to a handful of points while each calm minute keeps its point
+    long burst =
+        result.stream()
+            .filter(e -> e.getTimestampAsInstant().isBefore(BEGIN.plusSeconds(60)))
+            .count();
+    Assert.assertTrue("burst points: " + burst, burst <= 4);
+    Assert.assertEquals(59, result.size() - burst);
+
+    // No new events are created
+    Map<FloatEvent, Boolean> identities = new IdentityHashMap<>();
+    for (FloatEvent e : events) {
+      identities.put(e, true);
+    }
+    for (FloatEvent e : result) {
+      Assert.assertTrue(identities.containsKey(e));
+    }
+  }
+
+  @Test
+  public void testDisconnectionsAndMinMaxKept() throws IOException {
+    List<FloatEvent> events = new ArrayList<>();
+    events.add(new FloatEvent(BEGIN.plusSeconds(1), EventCode.NETWORK_DISCONNECTION, 0));
+    events.add(new FloatEvent(BEGIN.plusSeconds(2), EventCode.UPDATE, 5)); // first
+    events.add(new FloatEvent(BEGIN.plusSeconds(3), EventCode.UPDATE, 6));
+    events.add(new FloatEvent(BEGIN.plusSeconds(4), EventCode.UPDATE, -100)); // min
+    events.add(new FloatEvent(BEGIN.plusSeconds(5), EventCode.UPDATE, 6));
+    events.add(new FloatEvent(BEGIN.plusSeconds(6), EventCode.UPDATE, 100)); // max
+    events.add(new FloatEvent(BEGIN.plusSeconds(7), EventCode.UPDATE, 6));
+    events.add(new FloatEvent(BEGIN.plusSeconds(8), EventCode.NETWORK_DISCONNECTION, 0));
+    events.add(new FloatEvent(BEGIN.plusSeconds(9), EventCode.UPDATE, 6));
+    events.add(new FloatEvent(BEGIN.plusSeconds(10), EventCode.UPDATE, 6));
+    events.add(new FloatEvent(BEGIN.plusSeconds(11), EventCode.UPDATE, 6));
+    events.add(new FloatEvent(BEGIN.plusSeconds(3000), EventCode.UPDATE, 7)); // last
+
+    List<FloatEvent> result = sample(events, 2);
+
+    Assert.assertTrue(result.contains(events.get(0)));
+    Assert.assertTrue(result.contains(events.get(1)));
+    Assert.assertTrue(result.contains(events.get(3)));
+    Assert.assertTrue(result.contains(events.get(5)));
+    Assert.assertTrue(result.contains(events.get(6))); // before disconnect
+    Assert.assertTrue(result.contains(events.get(7))); // disconnect
+    Assert.assertTrue(result.contains(events.get(8))); // after disconnect
+    Assert.assertTrue(result.contains(events.get(11)));
+    Assert.assertFalse(result.contains(events.get(2)));
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    Assert.assertTrue(sample(new ArrayList<>(), 10).isEmpty());
+  }
+}
@@ -0,0 +1,146 @@
+package org.jlab.mya.stream;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.jlab.mya.TimeUtil;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class M4SampleStreamTest {
+
+  private static final Instant BEGIN = TimeUtil.toLocalDT("2019-01-01T00:00:00");
+  private static final Instant END = TimeUtil.toLocalDT("2019-01-01T01:00:00");
+
+  private static List<FloatEvent> sample(List<FloatEvent> events, long pixelWidth)
+      throws IOException {
+    List<FloatEvent> result = new ArrayList<>();
+    try (EventStream<FloatEvent> stream = new ListStream<>(events, FloatEvent.class);
+        M4SampleStream<FloatEvent> sampleStream =
+            new M4SampleStream<>(stream, BEGIN, END, pixelWidth, FloatEvent.class)) {
+      FloatEvent e;
+      while ((e = sampleStream.read()) != null) {
+        result.add(e);
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testFirstLastMinMax() throws IOException {
+    List<FloatEvent> events = new ArrayList<>();
+
+    // One column per minute; the max comes before the min
+    events.add(new FloatEvent(BEGIN.plusSeconds(1), EventCode.UPDATE, 5));
+    events.add(new FloatEvent(BEGIN.plusSeconds(2), EventCode.UPDATE, 9));
+    events.add(new FloatEvent(BEGIN.plusSeconds(3), EventCode.UPDATE, 6));
+    events.add(new FloatEvent(BEGIN.plusSeconds(4), EventCode.UPDATE, 1));
+    events.add(new FloatEvent(BEGIN.plusSeconds(5), EventCode.UPDATE, 4));
+    events.add(new FloatEvent(BEGIN.plusSeconds(61), EventCode.UPDATE, 7));
+
+    List<FloatEvent> result = sample(events, 60);
+
+    Assert.assertEquals(5, result.size());
+    Assert.assertSame(events.get(0), result.get(0));
+    Assert.assertSame(events.get(1), result.get(1));
+    Assert.assertSame(events.get(3), result.get(2));
+    Assert.assertSame(events.get(4), result.get(3));
+    Assert.assertSame(events.get(5), result.get(4));
+  }
+
+  @Test
+  public void testDisconnectionKeepsNeighbors() throws IOException {
+    List<FloatEvent> events = new ArrayList<>();
+
+    for (int i = 0; i < 30; i++) {
+      EventCode code = i == 10 ? EventCode.NETWORK_DISCONNECTION : EventCode.UPDATE;
+      events.add(new FloatEvent(BEGIN.plusSeconds(i), code, i % 3));
+    }
+
+    List<FloatEvent> result = sample(events, 1);
+
+    Assert.assertTrue(result.contains(events.get(9)));
+    Assert.assertTrue(result.contains(events.get(10)));
+    Assert.assertTrue(result.contains(events.get(11)));
+    Assert.assertSame(events.get(0), result.get(0));
+    Assert.assertSame(events.get(events.size() - 1), result.get(result.size() - 1));
+  }
+
+  /** Test that every column keeps exactly its first, last, min, and max values. */
+  @Test
+  public void testPixelExact() throws IOException {
+    Random random = new Random(7);
+    List<FloatEvent> events = new ArrayList<>();
+    long timestamp = TimeUtil.toMyaTimestamp(BEGIN);
+    long end = TimeUtil.toMyaTimestamp(END);
+
+    while ((timestamp = timestamp + (long) (random.nextDouble() * (1L << 28))) < end) {
+      events.add(new FloatEvent(timestamp, EventCode.UPDATE, (float) random.nextGaussian()));
+    }
+
+    long pixelWidth = 100;
+    List<FloatEvent> result = sample(events, pixelWidth);
+
+    Assert.assertTrue(result.size() <= 4 * pixelWidth);
+
+    Map<FloatEvent, Boolean> kept = new IdentityHashMap<>();
+    for (FloatEvent event : result) {
+      kept.put(event, true);
+    }
+
+    long span = end - TimeUtil.toMyaTimestamp(BEGIN);
+    float[] mins = new float[(int) pixelWidth];
+    float[] maxes = new float[(int) pixelWidth];
+    float[] keptMins = new float[(int) pixelWidth];
+    float[] keptMaxes = new float[(int) pixelWidth];
+    Arrays.fill(mins, Float.MAX_VALUE);
+    Arrays.fill(maxes, -Float.MAX_VALUE);
+    Arrays.fill(keptMins, Float.MAX_VALUE);
+    Arrays.fill(keptMaxes, -Float.MAX_VALUE);
+
+    long previousColumn = -1;
+    for (int i = 0; i < events.size(); i++) {
+      FloatEvent event = events.get(i);
+      int c =
+          (int)
+              Math.floor(
+                  (event.getTimestamp() - TimeUtil.toMyaTimestamp(BEGIN))
+                      * ((double) pixelWidth / span));
+
+      if (c != previousColumn) {
+        Assert.assertTrue("first of column " + c, kept.containsKey(event));
+        if (i > 0) {
+          Assert.assertTrue(
+              "last of column " + previousColumn, kept.containsKey(events.get(i - 1)));
+        }
+        previousColumn = c;
+      }
+
+      mins[c] = Math.min(mins[c], event.getValue());
+      maxes[c] = Math.max(maxes[c], event.getValue());
+
+      if (kept.containsKey(event)) {
+        keptMins[c] = Math.min(keptMins[c], event.getValue());
+        keptMaxes[c] = Math.max(keptMaxes[c], event.getValue());
+      }
+    }
+
+    Assert.assertArrayEquals(toDoubles(mins), toDoubles(keptMins), 0);
+    Assert.assertArrayEquals(toDoubles(maxes), toDoubles(keptMaxes), 0);
+  }
+
+  private static double[] toDoubles(float[] values) {
+    double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = values[i];
+    }
+    return result;
+  }
+}
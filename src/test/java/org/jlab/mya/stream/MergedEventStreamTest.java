@@ -0,0 +1,93 @@
+package org.jlab.mya.stream;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.jlab.mya.event.EventCode;
+import org.jlab.mya.event.FloatEvent;
+import org.junit.Test;
+
+public class MergedEventStreamTest {
+
+  private static ListStream<FloatEvent> stream(long... timestamps) {
+    List<FloatEvent> events = new ArrayList<>();
+    for (long timestamp : timestamps) {
+      events.add(new FloatEvent(timestamp, EventCode.UPDATE, timestamp));
+    }
+    return new ListStream<>(events, FloatEvent.class);
+  }
+
+  @Test
+  public void testMergeWithTies() throws Exception {
+    List<ListStream<FloatEvent>> sources =
+        Arrays.asList(stream(1, 5, 9), stream(), stream(2, 5, 6), stream(0));
+
+    long[] expTimestamps = {0, 1, 2, 5, 5, 6, 9};
+    int[] expSources = {3, 0, 2, 0, 2, 2, 0};
+
+    try (MergedEventStream<FloatEvent> merged =
+        new MergedEventStream<>(sources, FloatEvent.class)) {
+      assertEquals(-1, merged.getSourceIndex());
+
+      for (int i = 0; i < expTimestamps.length; i++) {
+        FloatEvent event = merged.read();
+        assertEquals(expTimestamps[i], event.getTimestamp());
+        assertEquals(expSources[i], merged.getSourceIndex());
+      }
+
+      assertNull(merged.read());
+      assertNull(merged.read());
+    }
+
+    for (ListStream<FloatEvent> source : sources) {
+      assertFalse(source.isOpen());
+    }
+  }
+
+  @Test
+  public void testNoStreams() throws Exception {
+    try (MergedEventStream<FloatEvent> merged =
+        new MergedEventStream<>(Collections.emptyList(), FloatEvent.class)) {
+      assertNull(merged.read());
+    }
+  }
+
+  @Test
+  public void testRandomMerge() throws Exception {
+    Random random = new Random(42);
+
+    for (int k = 1; k <= 17; k++) {
+      List<ListStream<FloatEvent>> sources = new ArrayList<>();
+      List<Long> expected = new ArrayList<>();
+
+      for (int s = 0; s < k; s++) {
+        long[] timestamps = new long[random.nextInt(50)];
+        long t = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+          t = t + random.nextInt(10);
+          timestamps[i] = t;
+          expected.add(t);
+        }
+        sources.add(stream(timestamps));
+      }
+
+      Collections.sort(expected);
+
+      List<Long> actual = new ArrayList<>();
+      try (MergedEventStream<FloatEvent> merged =
+          new MergedEventStream<>(sources, FloatEvent.class)) {
+        FloatEvent event;
+        while ((event = merged.read()) != null) {
+          actual.add(event.getTimestamp());
+          assertEquals((float) event.getTimestamp(), event.getValue(), 0);
+        }
+      }
+
+      assertEquals("k=" + k, expected, actual);
+    }
+  }
+}